@@ -34,14 +34,19 @@ import java.beans.PropertyChangeSupport;
 import java.io.Serializable;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import nextapp.echo2.app.update.ServerUpdateManager;
 import nextapp.echo2.app.update.UpdateManager;
+import nextapp.echo2.app.util.LongHashMap;
 import nextapp.echo2.app.util.Uid;
 
 /**
@@ -64,6 +69,91 @@ implements Serializable {
      */ 
     private static final ThreadLocal activeInstance = new ThreadLocal();
     
+    /**
+     * Value stored in the style caches to indicate that the 
+     * <code>StyleSheet</code> provides no style for a component class / 
+     * style name.
+     */
+    private static final Object NO_STYLE = new Object();
+    
+    /**
+     * Single-character decimal digit strings, used as the leading
+     * characters of generated render ids.
+     */
+    private static final String[] DIGITS = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" };
+    
+    /**
+     * The maximum number of base-36 characters following the leading digit
+     * of a generated render id which may be parsed without overflow.
+     */
+    private static final int MAX_GENERATED_ID_SUFFIX_LENGTH = 11;
+    
+    /**
+     * Cache mapping <code>Component</code> classes to <code>Boolean</code>s
+     * indicating whether they override <code>Component.validate()</code>.
+     * Guarded by <code>validatingClassCache</code>.
+     */
+    private static final Map validatingClassCache = new WeakHashMap();
+    
+    /**
+     * <code>Comparator</code> to sort registered <code>Component</code>s in
+     * the order in which they appear in a depth-first traversal of the 
+     * hierarchy, i.e., ancestors before descendants and preceding siblings
+     * (and their descendants) before following siblings.
+     */
+    private static final Comparator TREE_ORDER_COMPARATOR = new Comparator() {
+    
+        /**
+         * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+         */
+        public int compare(Object o1, Object o2) {
+            Component c1 = (Component) o1;
+            Component c2 = (Component) o2;
+            while (c1.getDepth() > c2.getDepth()) {
+                if (c1.getParent() == c2) {
+                    return 1;
+                }
+                c1 = c1.getParent();
+            }
+            while (c2.getDepth() > c1.getDepth()) {
+                if (c2.getParent() == c1) {
+                    return -1;
+                }
+                c2 = c2.getParent();
+            }
+            if (c1 == c2) {
+                return 0;
+            }
+            while (c1.getParent() != c2.getParent()) {
+                c1 = c1.getParent();
+                c2 = c2.getParent();
+            }
+            Component parent = c1.getParent();
+            return parent == null ? 0 : parent.indexOf(c1) - parent.indexOf(c2);
+        }
+    };
+    
+    /**
+     * <code>TaskQueueHandle</code> implementation, which stores its own
+     * tasks such that enqueuing a task requires only the lock of the
+     * individual queue.
+     */
+    private static class TaskQueue 
+    implements TaskQueueHandle {
+        
+        /** 
+         * The queued <code>Runnable</code> tasks.
+         * Guarded by the <code>TaskQueue</code>.
+         */
+        private List tasks = new ArrayList();
+        
+        /**
+         * Flag indicating whether the queue has been removed.
+         * Guarded by the <code>TaskQueue</code>.
+         */
+        private boolean removed;
+    }
+    
     /**
      * Generates a system-level identifier (an identifier which is unique to all
      * <code>ApplicationInstance</code>s).
@@ -75,6 +165,77 @@ implements Serializable {
         return Uid.generateUidString();
     }
     
+    /**
+     * Determines whether the specified <code>Component</code> class 
+     * overrides <code>Component.validate()</code>.
+     * 
+     * @param componentClass the <code>Component</code> class
+     * @return true if <code>validate()</code> is overridden
+     */
+    private static boolean isValidating(Class componentClass) {
+        synchronized (validatingClassCache) {
+            Boolean validating = (Boolean) validatingClassCache.get(componentClass);
+            if (validating == null) {
+                try {
+                    validating = Boolean.valueOf(componentClass.getMethod("validate", new Class[0]).getDeclaringClass() 
+                            != Component.class);
+                } catch (NoSuchMethodException ex) {
+                    // Should not occur.
+                    throw new RuntimeException(ex.toString());
+                }
+                validatingClassCache.put(componentClass, validating);
+            }
+            return validating.booleanValue();
+        }
+    }
+    
+    /**
+     * Parses the numeric value of a render id generated by 
+     * <code>generateId()</code> from the specified string.
+     * 
+     * @param value a string containing the render id
+     * @param beginIndex the index at which the render id begins
+     * @return the numeric value, or -1 if the string does not contain a
+     *         generated render id
+     * @throws IndexOutOfBoundsException if <code>beginIndex</code> is
+     *         larger than the length of <code>value</code>
+     * @see #generateId()
+     */
+    private static long parseGeneratedId(String value, int beginIndex) {
+        int length = value.length();
+        if (beginIndex > length) {
+            throw new IndexOutOfBoundsException(Integer.toString(beginIndex));
+        }
+        if (beginIndex == length) {
+            return -1;
+        }
+        char ch = value.charAt(beginIndex);
+        if (ch < '0' || ch > '9') {
+            return -1;
+        }
+        int lowDigit = ch - '0';
+        int suffixLength = length - beginIndex - 1;
+        if (suffixLength == 0) {
+            return lowDigit;
+        }
+        if (suffixLength > MAX_GENERATED_ID_SUFFIX_LENGTH || value.charAt(beginIndex + 1) == '0') {
+            // Generated ids never contain leading zeros in their suffix.
+            return -1;
+        }
+        long high = 0;
+        for (int i = beginIndex + 1; i < length; ++i) {
+            ch = value.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                high = high * 36 + (ch - '0');
+            } else if (ch >= 'a' && ch <= 'z') {
+                high = high * 36 + (ch - 'a' + 10);
+            } else {
+                return -1;
+            }
+        }
+        return high * 10 + lowDigit;
+    }
+    
     /**
      * Returns a reference to the <code>ApplicationInstance</code> that is 
      * relevant to the current thread, or null if no instance is relevant.
@@ -125,17 +286,43 @@ implements Serializable {
     private Map context;
     
     /**
-     * Mapping from the render ids of all registered components to the 
-     * <code>Component</code> instances themselves.
+     * Mapping from the numeric values of generated render ids of registered
+     * components to the <code>Component</code> instances themselves.
+     * @see #parseGeneratedId(java.lang.String, int)
      */
-    private Map renderIdToComponentMap;
+    private LongHashMap generatedIdToComponentMap;
     
     /**
-     * Mapping between <code>TaskQueueHandle</code>s and <code>List</code>s
-     * of <code>Runnable</code> tasks.  Values may be null if a particular 
-     * <code>TaskQueue</code> does not contain any tasks. 
+     * Mapping from the render ids of registered components which have
+     * user-specified render ids to the <code>Component</code> instances 
+     * themselves.  This object is lazily instantiated.
      */
-    private HashMap taskQueueMap;
+    private Map customIdToComponentMap;
+    
+    /**
+     * The set of registered <code>Component</code>s which require validation.
+     * @see #doValidation()
+     */
+    private Set invalidComponents;
+    
+    /**
+     * The set of active <code>TaskQueue</code>s.
+     * Guarded by <code>taskQueues</code>, which additionally guards updates to
+     * the task counts.
+     */
+    private HashSet taskQueues;
+    
+    /**
+     * The number of tasks which are currently queued in all task queues.
+     * May be read without synchronization.
+     */
+    private volatile int queuedTaskCount;
+    
+    /**
+     * The number of tasks which have been enqueued, used to detect
+     * enqueue operations in <code>waitForQueuedTasks()</code>.
+     */
+    private int taskEnqueueCount;
     
     /**
      * Fires property change events for the instance object.
@@ -158,6 +345,24 @@ implements Serializable {
      * The <code>StyleSheet</code> used by the application.
      */
     private StyleSheet styleSheet;
+    
+    /**
+     * Cache of styles retrieved from the <code>StyleSheet</code> for 
+     * components without style names, mapping component 
+     * <code>Class</code>es to <code>Style</code>s (or 
+     * <code>NO_STYLE</code>).  Lazily created, cleared when the style sheet 
+     * is set.
+     */
+    private transient Map defaultStyleCache;
+    
+    /**
+     * Cache of styles retrieved from the <code>StyleSheet</code> for 
+     * components with style names, mapping style names to 
+     * <code>Map</code>s between component <code>Class</code>es and 
+     * <code>Style</code>s (or <code>NO_STYLE</code>).  Lazily created, 
+     * cleared when the style sheet is set.
+     */
+    private transient Map namedStyleCache;
 
     /**
      * Collection of modal components, the last index representing the current
@@ -183,8 +388,9 @@ implements Serializable {
         
         propertyChangeSupport = new PropertyChangeSupport(this);
         updateManager = new UpdateManager(this);
-        renderIdToComponentMap = new HashMap();
-        taskQueueMap = new HashMap();
+        generatedIdToComponentMap = new LongHashMap();
+        invalidComponents = new HashSet();
+        taskQueues = new HashSet();
     }
     
     /**
@@ -217,9 +423,9 @@ implements Serializable {
      * @see #removeTaskQueue(TaskQueueHandle)
      */
     public TaskQueueHandle createTaskQueue() {
-        TaskQueueHandle taskQueue = new TaskQueueHandle() { };
-        synchronized (taskQueueMap) {
-            taskQueueMap.put(taskQueue, null);
+        TaskQueue taskQueue = new TaskQueue();
+        synchronized (taskQueues) {
+            taskQueues.add(taskQueue);
         }
         return taskQueue;
     }
@@ -251,28 +457,32 @@ implements Serializable {
     }
     
     /**
-     * Validates all components registered with the application.
+     * Validates all components registered with the application which 
+     * require validation, i.e., components which override 
+     * <code>Component.validate()</code> and have been registered or 
+     * invalidated since the last validation.  Components are validated in 
+     * hierarchy order (ancestors before descendants).  Components 
+     * invalidated or registered while validation is in progress are 
+     * validated before this method returns.
+     * 
+     * @see Component#invalidate()
      */
     public final void doValidation() {
-        doValidation(defaultWindow);
-    }
-    
-    /**
-     * Validates a single component and then recursively validates its 
-     * children.  This is the recursive support method for
-     * the parameterless <code>doValidation()</code> method.
-     *
-     * @param c The component to be validated.
-     * @see #doValidation()
-     */
-    private void doValidation(Component c) {
-        c.validate();
-        int size = c.getComponentCount();
-        for (int index = 0; index < size; ++index) {
-            doValidation(c.getComponent(index));
+        while (!invalidComponents.isEmpty()) {
+            Component[] components = (Component[]) invalidComponents.toArray(
+                    new Component[invalidComponents.size()]);
+            invalidComponents.clear();
+            if (components.length > 1) {
+                Arrays.sort(components, TREE_ORDER_COMPARATOR);
+            }
+            for (int i = 0; i < components.length; ++i) {
+                if (components[i].getApplicationInstance() == this) {
+                    components[i].validate();
+                }
+            }
         }
     }
-
+    
     /**
      * Queues the given stateless <code>Command</code> for execution on the 
      * current client/server synchronization.
@@ -290,18 +500,28 @@ implements Serializable {
      * Enqueuing a task in response to an external event will result 
      * in changes being pushed to the client.
      * 
+     * <p>
+     * This method does not contend with the processing of queued tasks: 
+     * only the lock of the specified queue is held while the task is 
+     * enqueued.  Tasks enqueued in a queue which has been removed will not
+     * be run.
+     * 
      * @param taskQueue the <code>TaskQueueHandle</code> representing the
      *        queue into which this task should be placed
      * @param task the task to run on client/server synchronization
      */
     public void enqueueTask(TaskQueueHandle taskQueue, Runnable task) {
-        synchronized (taskQueueMap) {
-            List taskList = (List) taskQueueMap.get(taskQueue);
-            if (taskList == null) {
-                taskList = new ArrayList();
-                taskQueueMap.put(taskQueue, taskList);
+        TaskQueue queue = (TaskQueue) taskQueue;
+        synchronized (queue) {
+            if (queue.removed) {
+                return;
             }
-            taskList.add(task);
+            queue.tasks.add(task);
+        }
+        synchronized (taskQueues) {
+            ++queuedTaskCount;
+            ++taskEnqueueCount;
+            taskQueues.notifyAll();
         }
     }
     
@@ -320,12 +540,23 @@ implements Serializable {
      * Generates an identifier which is unique within this 
      * <code>ApplicationInstance</code>.  This identifier should not be
      * used outside of the context of this  <code>ApplicationInstance</code>.
+     * <p>
+     * Identifiers are generated from a sequential numeric value, and consist
+     * of a decimal digit (the value modulo 10) followed by the base-36 
+     * representation of the value divided by 10 (omitted if zero).
+     * Generated identifiers thus always begin with a digit, and cannot 
+     * collide with user-specified render ids, which must begin with a 
+     * letter.
      * 
      * @return the unique identifier
      * @see #generateSystemId()
      */
     public String generateId() {
-        return Long.toString(nextId++);
+        long id = nextId++;
+        if (id < 10) {
+            return DIGITS[(int) id];
+        }
+        return DIGITS[(int) (id % 10)].concat(Long.toString(id / 10, Character.MAX_RADIX));
     }
     
     /**
@@ -352,7 +583,31 @@ implements Serializable {
      *         render id is registered)
      */
     public Component getComponentByRenderId(String renderId) {
-        return (Component) renderIdToComponentMap.get(renderId);
+        return getComponentByRenderId(renderId, 0);
+    }
+
+    /**
+     * Retrieves the component currently registered with the application 
+     * with the render id contained in the specified string, starting at
+     * the specified index.  Lookups of generated render ids do not require 
+     * the render id to be extracted from the containing string.
+     * 
+     * @param value a string containing the render id of the component
+     *        (e.g., an element id containing a prefix)
+     * @param beginIndex the index at which the render id begins
+     * @return the component (or null if no component with the specified
+     *         render id is registered)
+     * @throws IndexOutOfBoundsException if <code>beginIndex</code> is
+     *         larger than the length of <code>value</code>
+     */
+    public Component getComponentByRenderId(String value, int beginIndex) {
+        long id = parseGeneratedId(value, beginIndex);
+        if (id == -1) {
+            return customIdToComponentMap == null ? null 
+                    : (Component) customIdToComponentMap.get(value.substring(beginIndex));
+        } else {
+            return (Component) generatedIdToComponentMap.get(id);
+        }
     }
 
     /**
@@ -421,7 +676,8 @@ implements Serializable {
     
     /**
      * Retrieves the style for the specified specified class of 
-     * component / style name.
+     * component / style name.  Retrieved styles are cached until the
+     * style sheet is set.
      * 
      * @param componentClass the component <code>Class</code>
      * @param styleName the component's specified style name
@@ -431,9 +687,34 @@ implements Serializable {
     public Style getStyle(Class componentClass, String styleName) {
         if (styleSheet == null) {
             return null;
+        }
+        
+        Map styleCache;
+        if (styleName == null) {
+            if (defaultStyleCache == null) {
+                defaultStyleCache = new HashMap();
+            }
+            styleCache = defaultStyleCache;
         } else {
-            return styleSheet.getStyle(componentClass, styleName);
+            if (namedStyleCache == null) {
+                namedStyleCache = new HashMap();
+            }
+            styleCache = (Map) namedStyleCache.get(styleName);
+            if (styleCache == null) {
+                styleCache = new HashMap();
+                namedStyleCache.put(styleName, styleCache);
+            }
         }
+        
+        Object style = styleCache.get(componentClass);
+        if (style == null) {
+            style = styleSheet.getStyle(componentClass, styleName);
+            if (style == null) {
+                style = NO_STYLE;
+            }
+            styleCache.put(componentClass, style);
+        }
+        return style == NO_STYLE ? null : (Style) style;
     }
     
     /**
@@ -462,7 +743,7 @@ implements Serializable {
      * @return true if the instance has any task queues
      */
     public final boolean hasTaskQueues() {
-        return taskQueueMap.size() > 0;
+        return taskQueues.size() > 0;
     }
     
     /**
@@ -480,17 +761,7 @@ implements Serializable {
      * @return true if any tasks are queued
      */
     public boolean hasQueuedTasks() {
-        if (taskQueueMap.size() == 0) {
-            return false;
-        }
-        Iterator it = taskQueueMap.values().iterator();
-        while (it.hasNext()) {
-            List taskList = (List) it.next();
-            if (taskList != null && taskList.size() > 0) {
-                return true;
-            }
-        }
-        return false;
+        return queuedTaskCount > 0;
     }
     
     /**
@@ -589,25 +860,44 @@ implements Serializable {
      * once they have been processed.
      */
     public void processQueuedTasks() {
-        if (taskQueueMap.size() == 0) {
+        if (queuedTaskCount <= 0) {
             return;
         }
         
-        List currentTasks = new ArrayList();
-        synchronized (taskQueueMap) {
-            Iterator taskListsIt = taskQueueMap.values().iterator();
-            while (taskListsIt.hasNext()) {
-                List tasks = (List) taskListsIt.next();
-                if (tasks != null) {
-                    currentTasks.addAll(tasks);
-                    tasks.clear();
+        Object[] queues;
+        synchronized (taskQueues) {
+            queues = taskQueues.toArray();
+        }
+        for (int i = 0; i < queues.length; ++i) {
+            TaskQueue queue = (TaskQueue) queues[i];
+            List tasks;
+            synchronized (queue) {
+                if (queue.tasks.size() == 0) {
+                    continue;
                 }
+                tasks = queue.tasks;
+                queue.tasks = new ArrayList();
+            }
+            synchronized (taskQueues) {
+                queuedTaskCount -= tasks.size();
+            }
+            int size = tasks.size();
+            for (int j = 0; j < size; ++j) {
+                ((Runnable) tasks.get(j)).run();
             }
         }
-        Iterator it = currentTasks.iterator();
-        while (it.hasNext()) {
-            ((Runnable) it.next()).run();
-        }
+    }
+    
+    /**
+     * Marks a registered component as requiring validation.
+     * <p>
+     * This method is invoked by <code>Component.invalidate()</code>.
+     * 
+     * @param component the component to invalidate
+     * @see #doValidation()
+     */
+    void invalidateComponent(Component component) {
+        invalidComponents.add(component);
     }
     
     /**
@@ -622,12 +912,24 @@ implements Serializable {
      */
     void registerComponent(Component component) {
         String renderId = component.getRenderId();
-        if (renderId == null || renderIdToComponentMap.containsKey(renderId)) {
-            // Note that the render id is reassigned if it currently exists renderIdToComponentMap.  This could be the case
+        if (renderId == null || getComponentByRenderId(renderId) != null) {
+            // Note that the render id is reassigned if it is currently registered.  This could be the case
             // in the event a Component was being used in a pool.
-            component.assignRenderId(generateId());
+            renderId = generateId();
+            component.assignRenderId(renderId);
+        }
+        long id = parseGeneratedId(renderId, 0);
+        if (id == -1) {
+            if (customIdToComponentMap == null) {
+                customIdToComponentMap = new HashMap();
+            }
+            customIdToComponentMap.put(renderId, component);
+        } else {
+            generatedIdToComponentMap.put(id, component);
+        }
+        if (isValidating(component.getClass())) {
+            invalidComponents.add(component);
         }
-        renderIdToComponentMap.put(component.getRenderId(), component);
         if (component instanceof ModalSupport && ((ModalSupport) component).isModal()) {
             setModal(component, true);
         }
@@ -652,8 +954,20 @@ implements Serializable {
      * @see #createTaskQueue()
      */
     public void removeTaskQueue(TaskQueueHandle taskQueueHandle) {
-        synchronized(taskQueueMap) {
-            taskQueueMap.remove(taskQueueHandle);
+        TaskQueue queue = (TaskQueue) taskQueueHandle;
+        synchronized (taskQueues) {
+            if (!taskQueues.remove(queue)) {
+                return;
+            }
+        }
+        int size;
+        synchronized (queue) {
+            queue.removed = true;
+            size = queue.tasks.size();
+            queue.tasks.clear();
+        }
+        synchronized (taskQueues) {
+            queuedTaskCount -= size;
         }
     }
     
@@ -750,7 +1064,7 @@ implements Serializable {
                 modalComponents.remove(component);
             }
         }
-        firePropertyChange(MODAL_COMPONENTS_CHANGED_PROPERTY, new Boolean(oldValue), new Boolean(newValue));
+        firePropertyChange(MODAL_COMPONENTS_CHANGED_PROPERTY, Boolean.valueOf(oldValue), Boolean.valueOf(newValue));
     }
 
     /**
@@ -766,11 +1080,18 @@ implements Serializable {
      * client state to be updated.  Generally style sheets should
      * only be reconfigured at application initialization and/or when
      * the user changes the visual theme of a theme-capable application.
+     * <p>
+     * Styles retrieved from the <code>StyleSheet</code> are cached by the
+     * <code>ApplicationInstance</code>, thus a <code>StyleSheet</code>
+     * which is modified after being set must be set again for the 
+     * modifications to take effect.
      * 
      * @param styleSheet the new style sheet
      */
     public void setStyleSheet(StyleSheet styleSheet) {
         this.styleSheet = styleSheet;
+        defaultStyleCache = null;
+        namedStyleCache = null;
         updateManager.getServerUpdateManager().processFullRefresh();
     }
 
@@ -783,7 +1104,16 @@ implements Serializable {
      * @see Component#register(ApplicationInstance)
      */
     void unregisterComponent(Component component) {
-        renderIdToComponentMap.remove(component.getRenderId());
+        invalidComponents.remove(component);
+        String renderId = component.getRenderId();
+        long id = parseGeneratedId(renderId, 0);
+        if (id == -1) {
+            if (customIdToComponentMap != null) {
+                customIdToComponentMap.remove(renderId);
+            }
+        } else {
+            generatedIdToComponentMap.remove(id);
+        }
         if (component instanceof ModalSupport && ((ModalSupport) component).isModal()) {
             setModal(component, false);
         }
@@ -803,4 +1133,42 @@ implements Serializable {
         Component modalContextRoot = getModalContextRoot();
         return modalContextRoot == null || modalContextRoot.isAncestorOf(component);
     }
+    
+    /**
+     * Blocks the calling thread until a task is enqueued or the specified 
+     * timeout elapses.  Returns immediately if tasks are already queued.
+     * <p>
+     * This method is intended for use by application containers which hold
+     * asynchronous monitoring requests open until server-initiated updates 
+     * are available.  It must not be invoked by a user interface thread.
+     * Note that the value of <code>hasQueuedTasks()</code> is only 
+     * re-evaluated when a task is enqueued or the timeout elapses: callers 
+     * should limit the timeout to the polling interval expected by 
+     * overriding implementations which enqueue tasks just-in-time.
+     * 
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return the value of <code>hasQueuedTasks()</code> upon return
+     * @throws InterruptedException if the calling thread is interrupted
+     *         while waiting
+     * @see #hasQueuedTasks()
+     */
+    public final boolean waitForQueuedTasks(long timeout) 
+    throws InterruptedException {
+        int enqueueCount;
+        synchronized (taskQueues) {
+            enqueueCount = taskEnqueueCount;
+        }
+        if (hasQueuedTasks()) {
+            return true;
+        }
+        long endTime = System.currentTimeMillis() + timeout;
+        synchronized (taskQueues) {
+            long remaining = timeout;
+            while (enqueueCount == taskEnqueueCount && remaining > 0) {
+                taskQueues.wait(remaining);
+                remaining = endTime - System.currentTimeMillis();
+            }
+        }
+        return hasQueuedTasks();
+    }
 }
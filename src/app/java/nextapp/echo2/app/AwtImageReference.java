@@ -98,7 +98,7 @@ implements ImageReference {
         }
         int height = image.getHeight(null);
         if (height > 0) {
-            return new Extent(height, Extent.PX);
+            return Extent.valueOf(height);
         } else {
             return null;
         }
@@ -132,7 +132,7 @@ implements ImageReference {
         }
         int width = image.getWidth(null);
         if (width > 0) {
-            return new Extent(width, Extent.PX);
+            return Extent.valueOf(width);
         } else {
             return null;
         }
@@ -28,8 +28,12 @@
  */
 
 package nextapp.echo2.app;
+
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
+import nextapp.echo2.app.util.WeakInterner;
+
 /**
  * A representation of a simple border.
  */
@@ -86,6 +90,40 @@ implements Serializable {
      * A border style that appears as a series of short line segments.
      */
     public static final int STYLE_DASHED = 8;
+    
+    /** Cache of canonical <code>Border</code> instances. */
+    private static final WeakInterner interner = new WeakInterner();
+    
+    /**
+     * Returns a canonical <code>Border</code> instance with a pixel-based 
+     * size.
+     * <code>Border</code>s retrieved using this method rather than 
+     * constructed directly may be shared, reducing memory usage.
+     * 
+     * @param sizePx the size of the border, in pixels
+     * @param color the color of the border
+     * @param style the style of the border (see the <code>STYLE_XXX</code> 
+     *        constants)
+     * @return the <code>Border</code>
+     */
+    public static Border valueOf(int sizePx, Color color, int style) {
+        return valueOf(Extent.valueOf(sizePx), color, style);
+    }
+    
+    /**
+     * Returns a canonical <code>Border</code> instance.
+     * 
+     * @param size the size of the border (this property only supports
+     *        <code>Extent</code>s with fixed (i.e., not percent) units)
+     * @param color the color of the border
+     * @param style the style of the border (see the <code>STYLE_XXX</code> 
+     *        constants)
+     * @return the <code>Border</code>
+     * @see #valueOf(int, Color, int)
+     */
+    public static Border valueOf(Extent size, Color color, int style) {
+        return (Border) interner.intern(new Border(size, color, style));
+    }
 
     private Extent size;
     private Color color;
@@ -110,7 +148,7 @@ implements Serializable {
      *        </ul>
      */
     public Border(int sizePx, Color color, int style) {
-        this(new Extent(sizePx), color, style);
+        this(Extent.valueOf(sizePx), color, style);
     }
     
     /**
@@ -175,6 +213,15 @@ implements Serializable {
         return true;
     }
 
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+        int hashCode = size == null ? 0 : size.hashCode();
+        hashCode = hashCode * 31 + (color == null ? 0 : color.hashCode());
+        return hashCode * 31 + style;
+    }
+
     /**
      * Returns the border color.
      * 
@@ -214,4 +261,14 @@ implements Serializable {
     public int getStyle() {
         return style;
     }
+    
+    /**
+     * Replaces deserialized instances with canonical instances.
+     * 
+     * @see java.io.Serializable
+     */
+    private Object readResolve() 
+    throws ObjectStreamException {
+        return interner.intern(this);
+    }
 }
@@ -29,50 +29,83 @@
 
 package nextapp.echo2.app;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
+import nextapp.echo2.app.util.WeakInterner;
+
 /**
  * A representation of a 24-bit RGB color.
  */
 public class Color 
 implements Serializable {
+    
+    /** Cache of canonical <code>Color</code> instances. */
+    private static final WeakInterner interner = new WeakInterner();
 
     /** The color black. */
-    public static final Color BLACK     = new Color(0x00, 0x00, 0x00);
+    public static final Color BLACK     = valueOf(0x00, 0x00, 0x00);
 
     /** The color blue. */
-    public static final Color BLUE      = new Color(0x00, 0x00, 0xff);
+    public static final Color BLUE      = valueOf(0x00, 0x00, 0xff);
 
     /** The color green. */
-    public static final Color GREEN     = new Color(0x00, 0xff, 0x00);
+    public static final Color GREEN     = valueOf(0x00, 0xff, 0x00);
 
     /** The color cyan. */
-    public static final Color CYAN      = new Color(0x00, 0xff, 0xff);
+    public static final Color CYAN      = valueOf(0x00, 0xff, 0xff);
 
     /** The color red. */
-    public static final Color RED       = new Color(0xff, 0x00, 0x00);
+    public static final Color RED       = valueOf(0xff, 0x00, 0x00);
 
     /** The color magenta. */
-    public static final Color MAGENTA   = new Color(0xff, 0x00, 0xff);
+    public static final Color MAGENTA   = valueOf(0xff, 0x00, 0xff);
 
     /** The color yellow. */
-    public static final Color YELLOW    = new Color(0xff, 0xff, 0x00);
+    public static final Color YELLOW    = valueOf(0xff, 0xff, 0x00);
 
     /** The color white. */
-    public static final Color WHITE     = new Color(0xff, 0xff, 0xff);
+    public static final Color WHITE     = valueOf(0xff, 0xff, 0xff);
 
     /** The color dark gray. */
-    public static final Color DARKGRAY  = new Color(0x7f, 0x7f, 0x7f);
+    public static final Color DARKGRAY  = valueOf(0x7f, 0x7f, 0x7f);
 
     /** The color light gray. */
-    public static final Color LIGHTGRAY = new Color(0xaf, 0xaf, 0xaf);
+    public static final Color LIGHTGRAY = valueOf(0xaf, 0xaf, 0xaf);
 
     /** The color orange. */
-    public static final Color ORANGE    = new Color(0xff, 0xaf, 0x00);
+    public static final Color ORANGE    = valueOf(0xff, 0xaf, 0x00);
 
     /** The color pink. */
-    public static final Color PINK      = new Color(0xff, 0xaf, 0xaf);
+    public static final Color PINK      = valueOf(0xff, 0xaf, 0xaf);
 
+    /**
+     * Returns a canonical <code>Color</code> instance for the specified
+     * integer value.  The value should be of the form 0xRRGGBB.
+     * <code>Color</code>s retrieved using this method rather than 
+     * constructed directly may be shared, reducing memory usage.
+     * 
+     * @param rgb an integer representation for a color
+     * @return the <code>Color</code>
+     */
+    public static Color valueOf(int rgb) {
+        return (Color) interner.intern(new Color(rgb));
+    }
+    
+    /**
+     * Returns a canonical <code>Color</code> instance with the specified red,
+     * green, and blue values.  Each value may range from 0 to 255.
+     * 
+     * @param r the red component value
+     * @param g the green component value
+     * @param b the blue component value
+     * @return the <code>Color</code>
+     * @see #valueOf(int)
+     */
+    public static Color valueOf(int r, int g, int b) {
+        return (Color) interner.intern(new Color(r, g, b));
+    }
+    
     private int rgb;
     
     /** 
@@ -158,6 +191,16 @@ implements Serializable {
         return getRgb();
     }
     
+    /**
+     * Replaces deserialized instances with canonical instances.
+     * 
+     * @see java.io.Serializable
+     */
+    private Object readResolve() 
+    throws ObjectStreamException {
+        return interner.intern(this);
+    }
+    
     /**
      * @see java.lang.Object#toString()
      */
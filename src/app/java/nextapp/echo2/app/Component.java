@@ -38,6 +38,7 @@ import java.util.List;
 import java.util.Locale;
 
 import nextapp.echo2.app.event.EventListenerList;
+import nextapp.echo2.app.util.IntegerCache;
 
 /**
  * A representation of an Echo component. This is an abstract base class from
@@ -187,6 +188,44 @@ implements RenderIdSupport, Serializable {
         return (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z');
     }
     
+    /**
+     * Storage for infrequently set properties of a <code>Component</code>.
+     * These properties are moved out of the <code>Component</code> itself
+     * in order to reduce per-instance memory requirements, as they are 
+     * unset on the vast majority of instances. 
+     */
+    private static class ExtendedState
+    implements Serializable {
+        
+        /** 
+         * A user-defined identifier for the component.
+         * This identifier is not related in any way to <code>renderId</code>. 
+         */
+        private String id;
+        
+        /** 
+         * The layout direction of the component.
+         * This property is generally unset, as layout direction information
+         * is normally inherited from the <code>ApplicationInstance</code> or
+         * from an ancestor <code>Component</code> in the hierarchy. 
+         */
+        private LayoutDirection layoutDirection;
+        
+        /** 
+         * The locale of the component.
+         * This property is generally unset, as locale information is 
+         * normally inherited from the <code>ApplicationInstance</code> or 
+         * from an ancestor <code>Component</code> in the hierarchy. 
+         */
+        private Locale locale;
+        
+        /** Shared style. */
+        private Style sharedStyle;
+        
+        /** Name of style to use from application style sheet */
+        private String styleName;
+    }
+    
     /** The <code>ApplicationInstance</code> to which the component is registered. */
     private ApplicationInstance applicationInstance;
     
@@ -196,6 +235,19 @@ implements RenderIdSupport, Serializable {
      */
     private List children;
     
+    /**
+     * The depth of the component within the hierarchy of its registered
+     * <code>ApplicationInstance</code>, i.e., the number of its ancestors.
+     * Maintained when the component is registered.
+     */
+    private int depth;
+    
+    /**
+     * Storage for infrequently set properties.
+     * This object is lazily instantiated. 
+     */
+    private ExtendedState extendedState;
+    
     /**
      * Boolean flags for this component, including enabled state, visibility, 
      * focus traversal participation, and focus traversal index.
@@ -205,32 +257,13 @@ implements RenderIdSupport, Serializable {
      */
     private int flags;
     
-    /** 
-     * A  user-defined identifier for this component.
-     * This identifier is not related in any way to <code>renderId</code>. 
-     */
-    private String id;
-    
-    /** 
-     * The layout direction of the component.
-     * This property is generally unset, as layout direction information is 
-     * normally inherited from the <code>ApplicationInstance</code> or from 
-     * an ancestor <code>Component</code> in the hierarchy. 
-     */
-    private LayoutDirection layoutDirection;
-    
     /** Listener storage. */
     private EventListenerList listenerList;
 
     /** 
-     * The locale of the component.
-     * This property is generally unset, as locale information is normally
-     * inherited from the <code>ApplicationInstance</code> or from an ancestor
-     * <code>Component</code> in the hierarchy. 
+     * Local style data storage for properties directly set on component itself.
+     * This object is lazily instantiated. 
      */
-    private Locale locale;
-    
-    /** Local style data storage for properties directly set on component itself. */
     private MutableStyle localStyle;
     
     /** The parent component. */
@@ -242,25 +275,26 @@ implements RenderIdSupport, Serializable {
      */
     private PropertyChangeSupport propertyChangeSupport;
     
+    /**
+     * The most recently requested render id with prefix, cached such that
+     * application containers may repeatedly derive client identifiers from
+     * the render id without allocating strings.
+     * @see #getRenderId(java.lang.String)
+     */
+    private transient String prefixedRenderId;
+    
     /** 
      * A application-wide unique identifier for this component. 
      * This identifier is not related in any way to <code>id</code>. 
      */
     private String renderId;
     
-    /** Shared style. */
-    private Style sharedStyle;
-    
-    /** Name of style to use from application style sheet */
-    private String styleName;
-    
     /**
      * Creates a new <code>Component</code>.
      */
     public Component() {
         super();
         flags = FLAG_ENABLED | FLAG_VISIBLE | FLAG_FOCUS_TRAVERSAL_PARTICIPANT;
-        localStyle = new MutableStyle();
     }
     
     /**
@@ -370,6 +404,7 @@ implements RenderIdSupport, Serializable {
      */
     void assignRenderId(String renderId) {
         this.renderId = renderId;
+        prefixedRenderId = null;
     }
     
     /**
@@ -488,7 +523,7 @@ implements RenderIdSupport, Serializable {
      * @return the background color
      */
     public Color getBackground() {
-        return (Color) localStyle.getProperty(PROPERTY_BACKGROUND);
+        return (Color) getProperty(PROPERTY_BACKGROUND);
     }
     
     /**
@@ -518,7 +553,7 @@ implements RenderIdSupport, Serializable {
      *         component or is a descendant of it, or null otherwise
      */
     public final Component getComponent(String id) {
-        if (id.equals(this.id)) {
+        if (extendedState != null && id.equals(extendedState.id)) {
             return this;
         }
         if (children == null) {
@@ -561,6 +596,31 @@ implements RenderIdSupport, Serializable {
         }
     }
     
+    /**
+     * Returns the depth of the component within the hierarchy of its
+     * registered <code>ApplicationInstance</code>, i.e., the number of 
+     * ancestors it has.  The depth is maintained as the component is 
+     * registered, and is thus valid only while the component is registered.
+     * 
+     * @return the depth
+     */
+    public final int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the <code>ExtendedState</code> storing infrequently set
+     * properties, creating it if required.
+     *
+     * @return the <code>ExtendedState</code>
+     */
+    private ExtendedState getExtendedState() {
+        if (extendedState == null) {
+            extendedState = new ExtendedState();
+        }
+        return extendedState;
+    }
+
     /**
      * Returns the local <code>EventListenerList</code>.
      * The listener list is lazily created; invoking this method will 
@@ -597,7 +657,7 @@ implements RenderIdSupport, Serializable {
      * @return the font
      */
     public Font getFont() {
-        return (Font) localStyle.getProperty(PROPERTY_FONT);
+        return (Font) getProperty(PROPERTY_FONT);
     }
     
     /**
@@ -609,7 +669,7 @@ implements RenderIdSupport, Serializable {
      * @return the foreground color
      */
     public Color getForeground() {
-        return (Color) localStyle.getProperty(PROPERTY_FOREGROUND);
+        return (Color) getProperty(PROPERTY_FOREGROUND);
     }
     
     /**
@@ -620,7 +680,7 @@ implements RenderIdSupport, Serializable {
      * @return the user-defined identifier
      */
     public String getId() {
-        return id;
+        return extendedState == null ? null : extendedState.id;
     }
     
     /**
@@ -638,7 +698,7 @@ implements RenderIdSupport, Serializable {
      * @return the property value
      */
     public final Object getIndexedProperty(String propertyName, int propertyIndex) {
-        return localStyle.getIndexedProperty(propertyName, propertyIndex);
+        return localStyle == null ? null : localStyle.getIndexedProperty(propertyName, propertyIndex);
     }
     
     /**
@@ -649,7 +709,7 @@ implements RenderIdSupport, Serializable {
      * @see LayoutData
      */
     public LayoutData getLayoutData() {
-        return (LayoutData) localStyle.getProperty(PROPERTY_LAYOUT_DATA);
+        return (LayoutData) getProperty(PROPERTY_LAYOUT_DATA);
     } 
     
     /**
@@ -662,7 +722,7 @@ implements RenderIdSupport, Serializable {
      * @see #getRenderLayoutDirection()
      */
     public LayoutDirection getLayoutDirection() {
-        return layoutDirection;
+        return extendedState == null ? null : extendedState.layoutDirection;
     }
 
     /**
@@ -675,7 +735,7 @@ implements RenderIdSupport, Serializable {
      * @see #getRenderLocale()
      */
     public Locale getLocale() {
-        return locale;
+        return extendedState == null ? null : extendedState.locale;
     }
     
     /**
@@ -701,7 +761,7 @@ implements RenderIdSupport, Serializable {
      * @return the property value
      */
     public final Object getProperty(String propertyName) {
-        return localStyle.getProperty(propertyName);
+        return localStyle == null ? null : localStyle.getProperty(propertyName);
     }
     
     /**
@@ -718,6 +778,31 @@ implements RenderIdSupport, Serializable {
     public String getRenderId() {
         return renderId;
     }
+    
+    /**
+     * Returns the render id of this component, with the specified prefix
+     * prepended.  Application containers may use this method to derive
+     * client identifiers from render ids: the most recently returned 
+     * value is cached, such that repeated invocations with the same prefix 
+     * return the same <code>String</code> instance.
+     * 
+     * @param prefix the prefix
+     * @return the prefixed render id, or null if the component has no
+     *         render id
+     * @see #getRenderId()
+     */
+    public final String getRenderId(String prefix) {
+        if (renderId == null) {
+            return null;
+        }
+        String cachedValue = prefixedRenderId;
+        if (cachedValue == null || cachedValue.length() != prefix.length() + renderId.length()
+                || !cachedValue.startsWith(prefix) || !cachedValue.endsWith(renderId)) {
+            cachedValue = prefix.concat(renderId);
+            prefixedRenderId = cachedValue;
+        }
+        return cachedValue;
+    }
 
     /**
      * Determines the &quot;rendered state&quot; of an indexed property.
@@ -761,7 +846,8 @@ implements RenderIdSupport, Serializable {
      * @return the property state
      */ 
     public final Object getRenderIndexedProperty(String propertyName, int propertyIndex, Object defaultValue) {
-        if (localStyle.isIndexedPropertySet(propertyName, propertyIndex)) {
+        Style sharedStyle = extendedState == null ? null : extendedState.sharedStyle;
+        if (localStyle != null && localStyle.isIndexedPropertySet(propertyName, propertyIndex)) {
             // Return local style value.
             return localStyle.getIndexedProperty(propertyName, propertyIndex);
         } else if (sharedStyle != null && sharedStyle.isIndexedPropertySet(propertyName, propertyIndex)) {
@@ -769,7 +855,7 @@ implements RenderIdSupport, Serializable {
             return sharedStyle.getIndexedProperty(propertyName, propertyIndex);
         } else {
             if (applicationInstance != null) {
-                Style applicationStyle = applicationInstance.getStyle(getClass(), styleName);
+                Style applicationStyle = applicationInstance.getStyle(getClass(), getStyleName());
                 if (applicationStyle != null && applicationStyle.isIndexedPropertySet(propertyName, propertyIndex)) {
                     // Return style value specified in application.
                     return applicationStyle.getIndexedProperty(propertyName, propertyIndex);
@@ -786,8 +872,8 @@ implements RenderIdSupport, Serializable {
      * @return the layout direction of this component
      */
     public final LayoutDirection getRenderLayoutDirection() {
-        if (layoutDirection == null) { 
-            if (locale == null) {
+        if (extendedState == null || extendedState.layoutDirection == null) { 
+            if (extendedState == null || extendedState.locale == null) {
                 if (parent == null) {
                     if (applicationInstance == null) {
                         return null;
@@ -798,10 +884,10 @@ implements RenderIdSupport, Serializable {
                     return parent.getRenderLayoutDirection();
                 }
             } else {
-                return LayoutDirection.forLocale(locale);
+                return LayoutDirection.forLocale(extendedState.locale);
             }
         } else {
-            return layoutDirection;
+            return extendedState.layoutDirection;
         }
     }
     
@@ -818,7 +904,7 @@ implements RenderIdSupport, Serializable {
      * @return the locale for this component
      */
     public final Locale getRenderLocale() {
-        if (locale == null) {
+        if (extendedState == null || extendedState.locale == null) {
             if (parent == null) {
                 if (applicationInstance == null) {
                     return null;
@@ -829,7 +915,7 @@ implements RenderIdSupport, Serializable {
                 return parent.getRenderLocale();
             }
         } else {
-            return locale;
+            return extendedState.locale;
         }
     }
     
@@ -875,18 +961,21 @@ implements RenderIdSupport, Serializable {
      * @return the property state
      */ 
     public final Object getRenderProperty(String propertyName, Object defaultValue) {
-        Object propertyValue = localStyle.getProperty(propertyName);
-        if (propertyValue != null) {
-            return propertyValue;
+        Object propertyValue;
+        if (localStyle != null) {
+            propertyValue = localStyle.getProperty(propertyName);
+            if (propertyValue != null) {
+                return propertyValue;
+            }
         }
-        if (sharedStyle != null) {
-            propertyValue = sharedStyle.getProperty(propertyName);
+        if (extendedState != null && extendedState.sharedStyle != null) {
+            propertyValue = extendedState.sharedStyle.getProperty(propertyName);
             if (propertyValue != null) {
                 return propertyValue;
             }
         }
         if (applicationInstance != null) {
-            Style applicationStyle = applicationInstance.getStyle(getClass(), styleName);
+            Style applicationStyle = applicationInstance.getStyle(getClass(), getStyleName());
             if (applicationStyle != null) {
                 // Return style value specified in application.
                 propertyValue = applicationStyle.getProperty(propertyName);
@@ -910,7 +999,7 @@ implements RenderIdSupport, Serializable {
      * @return the shared <code>Style</code>
      */
     public final Style getStyle() {
-        return sharedStyle;
+        return extendedState == null ? null : extendedState.sharedStyle;
     }
     
     /**
@@ -924,7 +1013,7 @@ implements RenderIdSupport, Serializable {
      * @return the style name
      */
     public final String getStyleName() {
-        return styleName;
+        return extendedState == null ? null : extendedState.styleName;
     }
     
     /**
@@ -1036,6 +1125,23 @@ implements RenderIdSupport, Serializable {
      */
     public void init() { }
     
+    /**
+     * Marks this <code>Component</code> as requiring validation, such that
+     * its <code>validate()</code> method will be invoked by the 
+     * <code>ApplicationInstance</code> before the component is next 
+     * rendered.  Components which override <code>validate()</code> should 
+     * invoke this method when their state changes in a manner that requires
+     * validation.  Overriding implementations must invoke 
+     * <code>super.invalidate()</code>.
+     * 
+     * @see #validate()
+     */
+    protected void invalidate() {
+        if (applicationInstance != null) {
+            applicationInstance.invalidateComponent(this);
+        }
+    }
+    
     /**
      * Determines if this <code>Component</code> is or is an ancestor of 
      * the specified <code>Component</code>.
@@ -1227,6 +1333,7 @@ implements RenderIdSupport, Serializable {
             applicationInstance = newValue;
             
             if (newValue != null) { // registering
+                depth = parent == null ? 0 : parent.depth + 1;
                 applicationInstance.registerComponent(this);
     
                 if (children != null) {
@@ -1344,7 +1451,7 @@ implements RenderIdSupport, Serializable {
         boolean oldValue = (flags & FLAG_ENABLED) != 0;
         if (oldValue != newValue) {
             flags ^= FLAG_ENABLED; // Toggle FLAG_ENABLED bit.
-            firePropertyChange(ENABLED_CHANGED_PROPERTY, new Boolean(oldValue), new Boolean(newValue));
+            firePropertyChange(ENABLED_CHANGED_PROPERTY, Boolean.valueOf(oldValue), Boolean.valueOf(newValue));
         }
     }
     
@@ -1358,7 +1465,7 @@ implements RenderIdSupport, Serializable {
         int oldValue = getFocusTraversalIndex();
         newValue &= 0x7fff;
         flags = flags & ((~FLAGS_FOCUS_TRAVERSAL_INDEX)) | (newValue << 16);
-        firePropertyChange(FOCUS_TRAVERSAL_INDEX_CHANGED_PROPERTY, new Integer(oldValue), new Integer(newValue));
+        firePropertyChange(FOCUS_TRAVERSAL_INDEX_CHANGED_PROPERTY, IntegerCache.valueOf(oldValue), IntegerCache.valueOf(newValue));
     }
     
     /**
@@ -1372,7 +1479,7 @@ implements RenderIdSupport, Serializable {
         boolean oldValue = isFocusTraversalParticipant();
         if (oldValue != newValue) {
             flags ^= FLAG_FOCUS_TRAVERSAL_PARTICIPANT; // Toggle FLAG_FOCUS_TRAVERSAL_PARTICIPANT bit.
-            firePropertyChange(FOCUS_TRAVERSAL_PARTICIPANT_CHANGED_PROPERTY, new Boolean(oldValue), new Boolean(newValue));
+            firePropertyChange(FOCUS_TRAVERSAL_PARTICIPANT_CHANGED_PROPERTY, Boolean.valueOf(oldValue), Boolean.valueOf(newValue));
         }
     }
 
@@ -1400,7 +1507,9 @@ implements RenderIdSupport, Serializable {
      * @param id the new identifier
      */
     public void setId(String id) {
-        this.id = id;
+        if (id != null || extendedState != null) {
+            getExtendedState().id = id;
+        }
     }
     
     /**
@@ -1414,6 +1523,13 @@ implements RenderIdSupport, Serializable {
      * @see #getIndexedProperty(java.lang.String, int)
      */
     public void setIndexedProperty(String propertyName, int propertyIndex, Object newValue) {
+        if (localStyle == null) {
+            if (newValue == null) {
+                firePropertyChange(propertyName, null, null);
+                return;
+            }
+            localStyle = new MutableStyle();
+        }
         localStyle.setIndexedProperty(propertyName, propertyIndex, newValue);
         firePropertyChange(propertyName, null, null);
     }
@@ -1438,8 +1554,10 @@ implements RenderIdSupport, Serializable {
      * @param newValue the new <code>LayoutDirection</code>. 
      */
     public void setLayoutDirection(LayoutDirection newValue) {
-        LayoutDirection oldValue = layoutDirection;
-        layoutDirection = newValue;
+        LayoutDirection oldValue = getLayoutDirection();
+        if (newValue != null || extendedState != null) {
+            getExtendedState().layoutDirection = newValue;
+        }
         firePropertyChange(LAYOUT_DIRECTION_CHANGED_PROPERTY, oldValue, newValue);
     }
     
@@ -1450,8 +1568,10 @@ implements RenderIdSupport, Serializable {
      * @see #getLocale()
      */
     public void setLocale(Locale newValue) {
-        Locale oldValue = locale;
-        locale = newValue;
+        Locale oldValue = getLocale();
+        if (newValue != null || extendedState != null) {
+            getExtendedState().locale = newValue;
+        }
         firePropertyChange(LOCALE_CHANGED_PROPERTY, oldValue, newValue);
     }
     
@@ -1464,6 +1584,13 @@ implements RenderIdSupport, Serializable {
      * @see #getProperty(java.lang.String)
      */
     public void setProperty(String propertyName, Object newValue) {
+        if (localStyle == null) {
+            if (newValue == null) {
+                firePropertyChange(propertyName, null, null);
+                return;
+            }
+            localStyle = new MutableStyle();
+        }
         Object oldValue = localStyle.getProperty(propertyName);
         localStyle.setProperty(propertyName, newValue);
         firePropertyChange(propertyName, oldValue, newValue);
@@ -1508,8 +1635,10 @@ implements RenderIdSupport, Serializable {
      * @see #getStyle()
      */
     public void setStyle(Style newValue) {
-        Style oldValue = sharedStyle;
-        sharedStyle = newValue;
+        Style oldValue = getStyle();
+        if (newValue != null || extendedState != null) {
+            getExtendedState().sharedStyle = newValue;
+        }
         firePropertyChange(STYLE_CHANGED_PROPERTY, oldValue, newValue);
     }
     
@@ -1523,8 +1652,10 @@ implements RenderIdSupport, Serializable {
      * @see #getStyleName
      */
     public void setStyleName(String newValue) {
-        String oldValue = styleName;
-        styleName = newValue;
+        String oldValue = getStyleName();
+        if (newValue != null || extendedState != null) {
+            getExtendedState().styleName = newValue;
+        }
         firePropertyChange(STYLE_NAME_CHANGED_PROPERTY, oldValue, newValue);
     }
     
@@ -1538,7 +1669,7 @@ implements RenderIdSupport, Serializable {
         boolean oldValue = (flags & FLAG_VISIBLE) != 0;
         if (oldValue != newValue) {
             flags ^= FLAG_VISIBLE; // Toggle FLAG_VISIBLE bit.
-            firePropertyChange(VISIBLE_CHANGED_PROPERTY, new Boolean(oldValue), new Boolean(newValue));
+            firePropertyChange(VISIBLE_CHANGED_PROPERTY, Boolean.valueOf(oldValue), Boolean.valueOf(newValue));
         }
     }
 
@@ -1547,6 +1678,13 @@ implements RenderIdSupport, Serializable {
      * is in a valid state. Default implementation is empty. Overriding
      * implementations should ensure to invoke <code>super.validate()</code>
      * out of convention.
+     * <p>
+     * The <code>ApplicationInstance</code> invokes this method on components
+     * which override it when they are registered, and thereafter only when
+     * they have been marked as requiring validation by invoking 
+     * <code>invalidate()</code>.
+     * 
+     * @see #invalidate()
      */
     public void validate() { }
     
@@ -28,8 +28,12 @@
  */
 
 package nextapp.echo2.app;
+
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
+import nextapp.echo2.app.util.WeakInterner;
+
 /**
  * A representation of a linear distance with units. <code>Extent</code>
  * objects are immutable once constructed.
@@ -45,6 +49,9 @@ import java.io.Serializable;
 public class Extent 
 implements Comparable, Serializable {
     
+    /** Cache of canonical <code>Extent</code> instances. */
+    private static final WeakInterner interner = new WeakInterner();
+    
     /**
      * Adds one <code>Extent</code> to another, returning the sum as a new
      * <code>Extent</code>.  Null is returned if the <code>Extent</code>s have
@@ -74,6 +81,32 @@ implements Comparable, Serializable {
         return null;
     }
     
+    /**
+     * Returns a canonical <code>Extent</code> instance with the specified 
+     * value in pixel units.
+     * <code>Extent</code>s retrieved using this method rather than 
+     * constructed directly may be shared, reducing memory usage.
+     * 
+     * @param value the value of the extent in pixels
+     * @return the <code>Extent</code>
+     */
+    public static Extent valueOf(int value) {
+        return valueOf(value, PX);
+    }
+    
+    /**
+     * Returns a canonical <code>Extent</code> instance with the specified 
+     * value and units.
+     * 
+     * @param value the value of the extent
+     * @param units the units of the value (see the constants of this class)
+     * @return the <code>Extent</code>
+     * @see #valueOf(int)
+     */
+    public static Extent valueOf(int value, int units) {
+        return (Extent) interner.intern(new Extent(value, units));
+    }
+    
     /**
      * Validates that the specified <code>Extent</code> is acceptable for use
      * in a particular environment, by ensuring that its units are of a
@@ -202,6 +235,13 @@ implements Comparable, Serializable {
         }
     }
 
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+        return value * 31 + units;
+    }
+
     /**
      * Returns the value of the <code>Extent</code>.
      * 
@@ -335,6 +375,16 @@ implements Comparable, Serializable {
         throw new IllegalStateException("Cannot convert to pt.");
     }
     
+    /**
+     * Replaces deserialized instances with canonical instances.
+     * 
+     * @see java.io.Serializable
+     */
+    private Object readResolve() 
+    throws ObjectStreamException {
+        return interner.intern(this);
+    }
+    
     /**
      * Returns a string describing the state of the Extent.  
      * For debugging purposes only, do not rely on formatting.
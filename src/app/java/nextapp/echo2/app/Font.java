@@ -28,8 +28,12 @@
  */
 
 package nextapp.echo2.app;
+
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
+import nextapp.echo2.app.util.WeakInterner;
+
 /**
  * An immutable representation of a text font, including typeface, size, and 
  * style.
@@ -95,6 +99,13 @@ implements Serializable {
             }
             return this.alternate.equals(that.alternate);
         }
+        
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        public int hashCode() {
+            return alternate == null ? name.hashCode() : name.hashCode() * 31 + alternate.hashCode();
+        }
             
         /**
          * Returns the alternate typeface.
@@ -168,6 +179,24 @@ implements Serializable {
      */
     public static final int LINE_THROUGH = 0x10;
     
+    /** Cache of canonical <code>Font</code> instances. */
+    private static final WeakInterner interner = new WeakInterner();
+    
+    /**
+     * Returns a canonical <code>Font</code> instance with the specified 
+     * <code>Typeface</code>, size, and style.
+     * <code>Font</code>s retrieved using this method rather than 
+     * constructed directly may be shared, reducing memory usage.
+     * 
+     * @param typeface a <code>Typeface</code> describing the typeface of the font.
+     * @param style the style of the font (see the constructor for valid values)
+     * @param size the size of the font as a <code>Extent</code>
+     * @return the <code>Font</code>
+     */
+    public static Font valueOf(Typeface typeface, int style, Extent size) {
+        return (Font) interner.intern(new Font(typeface, style, size));
+    }
+    
     private Typeface typeface;
     private Extent size;
     private int style;
@@ -233,6 +262,15 @@ implements Serializable {
         return true;
     }
     
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+        int hashCode = typeface == null ? 0 : typeface.hashCode();
+        hashCode = hashCode * 31 + (size == null ? 0 : size.hashCode());
+        return hashCode * 31 + style;
+    }
+    
     /**
      * Returns the size of the font.
      * 
@@ -306,6 +344,16 @@ implements Serializable {
         return (style & UNDERLINE) != 0;
     }
     
+    /**
+     * Replaces deserialized instances with canonical instances.
+     * 
+     * @see java.io.Serializable
+     */
+    private Object readResolve() 
+    throws ObjectStreamException {
+        return interner.intern(this);
+    }
+    
     /**
      * Renders a debug representation of the object.
      * 
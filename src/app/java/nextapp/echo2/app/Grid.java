@@ -29,6 +29,8 @@
 
 package nextapp.echo2.app;
 
+import nextapp.echo2.app.util.IntegerCache;
+
 /**
  * A layout <code>Component</code> which renders its contents in a grid. Each
  * component is contained within a "cell" of the grid.
@@ -259,7 +261,7 @@ public class Grid extends Component {
      *        </ul>
      */
     public void setOrientation(int newValue) {
-        setProperty(PROPERTY_ORIENTATION, new Integer(newValue));
+        setProperty(PROPERTY_ORIENTATION, IntegerCache.valueOf(newValue));
     }
     
     /**
@@ -287,7 +289,7 @@ public class Grid extends Component {
      * @see #getSize()
      */
     public void setSize(int newValue) {
-        setProperty(PROPERTY_SIZE, new Integer(newValue));
+        setProperty(PROPERTY_SIZE, IntegerCache.valueOf(newValue));
     }
     
     /**
@@ -28,8 +28,12 @@
  */
 
 package nextapp.echo2.app;
+
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
+import nextapp.echo2.app.util.WeakInterner;
+
 /**
  * A property which describes an &quot;inset&quot; within a rectangular 
  * region.  This property is commonly used to specify margins of a 
@@ -39,6 +43,50 @@ import java.io.Serializable;
  */
 public class Insets 
 implements Serializable {
+    
+    /** Cache of canonical <code>Insets</code> instances. */
+    private static final WeakInterner interner = new WeakInterner();
+    
+    /**
+     * Returns a canonical <code>Insets</code> instance, defining all margins
+     * to be the provided value.
+     * <code>Insets</code> retrieved using this method rather than 
+     * constructed directly may be shared, reducing memory usage.
+     * 
+     * @param size the margin size
+     * @return the <code>Insets</code>
+     */
+    public static Insets valueOf(Extent size) {
+        return valueOf(size, size, size, size);
+    }
+    
+    /**
+     * Returns a canonical <code>Insets</code> instance by defining values
+     * for the horizontal and vertical margins.
+     * 
+     * @param horizontal the size of the horizontal (left and right) margins
+     * @param vertical the size of the vertical (top and bottom) margins
+     * @return the <code>Insets</code>
+     * @see #valueOf(Extent)
+     */
+    public static Insets valueOf(Extent horizontal, Extent vertical) {
+        return valueOf(horizontal, vertical, horizontal, vertical);
+    }
+    
+    /**
+     * Returns a canonical <code>Insets</code> instance with the given margin
+     * sizes.
+     * 
+     * @param left the size of the left margin
+     * @param top the size of the top margin
+     * @param right the size of the right margin
+     * @param bottom the size of the bottom margin
+     * @return the <code>Insets</code>
+     * @see #valueOf(Extent)
+     */
+    public static Insets valueOf(Extent left, Extent top, Extent right, Extent bottom) {
+        return (Insets) interner.intern(new Insets(left, top, right, bottom));
+    }
 
     private Extent top;
     private Extent bottom;
@@ -56,10 +104,10 @@ implements Serializable {
     public Insets(int leftPx, int topPx, int rightPx, int bottomPx) {
         super();
         
-        this.left = leftPx == 0 ? null : new Extent(leftPx, Extent.PX);
-        this.top = topPx == 0 ? null : new Extent(topPx, Extent.PX);
-        this.right = rightPx == 0 ? null : new Extent(rightPx, Extent.PX);
-        this.bottom = bottomPx == 0 ? null : new Extent(bottomPx, Extent.PX);
+        this.left = leftPx == 0 ? null : Extent.valueOf(leftPx);
+        this.top = topPx == 0 ? null : Extent.valueOf(topPx);
+        this.right = rightPx == 0 ? null : Extent.valueOf(rightPx);
+        this.bottom = bottomPx == 0 ? null : Extent.valueOf(bottomPx);
     }
     
     /**
@@ -88,7 +136,7 @@ implements Serializable {
      * @param sizePx the margin size in pixels
      */
     public Insets(int sizePx) {
-        this(new Extent(sizePx, Extent.PX));
+        this(Extent.valueOf(sizePx));
     }
     
     /**
@@ -111,7 +159,7 @@ implements Serializable {
      * @param vertical the size of the vertical (top and bottom) margins in pixels
      */
     public Insets(int horizontal, int vertical) {
-        this(new Extent(horizontal, Extent.PX), new Extent(vertical, Extent.PX));
+        this(Extent.valueOf(horizontal), Extent.valueOf(vertical));
     }
     
     /**
@@ -148,6 +196,17 @@ implements Serializable {
         return true;
     }
     
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+        int hashCode = left == null ? 0 : left.hashCode();
+        hashCode = hashCode * 31 + (top == null ? 0 : top.hashCode());
+        hashCode = hashCode * 31 + (right == null ? 0 : right.hashCode());
+        hashCode = hashCode * 31 + (bottom == null ? 0 : bottom.hashCode());
+        return hashCode;
+    }
+    
     /**
      * Returns the size of the bottom margin.
      * <code>Insets</code> only supports <code>Extent</code>s with
@@ -191,4 +250,14 @@ implements Serializable {
     public Extent getTop() {
         return top;
     }
+    
+    /**
+     * Replaces deserialized instances with canonical instances.
+     * 
+     * @see java.io.Serializable
+     */
+    private Object readResolve() 
+    throws ObjectStreamException {
+        return interner.intern(this);
+    }
 }
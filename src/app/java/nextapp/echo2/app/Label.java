@@ -184,7 +184,7 @@ public class Label extends Component {
      * @param newValue the new line wrap state
      */
     public void setLineWrap(boolean newValue) {
-        setProperty(PROPERTY_LINE_WRAP, new Boolean(newValue));
+        setProperty(PROPERTY_LINE_WRAP, Boolean.valueOf(newValue));
     }
     
     /**
@@ -29,10 +29,14 @@
 
 package nextapp.echo2.app;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Iterator;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.NoSuchElementException;
+
+import nextapp.echo2.app.util.IntegerCache;
 
 /**
  * A <code>Style</code> implementation which may be modified.
@@ -42,13 +46,18 @@ import java.util.TreeMap;
  * i.e., by resetting the shared style of a <code>Component</code>.
  * As such, shared <code>Style</code>s  should not be updated once they are 
  * in use by <code>Component</code>s, as it will result in undefined behavior.
+ * <p>
+ * Properties are stored in slots identified by interned integer property 
+ * keys, such that locating a property requires a single registry lookup
+ * followed by integer comparisons.
  */
 public class MutableStyle 
 implements Style {
     
-    private static final int GROW_RATE = 5 * 2;  // Must be a multiple of 2.
+    private static final int GROW_RATE = 5;
     
-    private static final Object[] EMPTY = new Object[0];
+    private static final int[] EMPTY_KEYS = new int[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
     
     /**
      * An <code>Iterator</code> which returns the names of properties which
@@ -63,16 +72,17 @@ implements Style {
          * @see java.util.Iterator#hasNext()
          */
         public boolean hasNext() {
-            return index < length;
+            return index < size;
         }
         
         /**
          * @see java.util.Iterator#next()
          */
         public Object next() {
-            Object value = data[index];
-            index += 2;
-            return value;
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            return PropertyKeyRegistry.getName(keys[index++]);
         }
 
         /**
@@ -85,11 +95,38 @@ implements Style {
     
     /**
      * A value object which stores the indexed values of a property. 
+     * Values are stored in order of index.
      */
     public class IndexedPropertyValue 
     implements Serializable {
 
-        private SortedMap indicesToValues;
+        private int[] indices = EMPTY_KEYS;
+        private Object[] values = EMPTY_VALUES;
+        private int valueCount;
+        
+        /**
+         * Returns the position of the specified index in the 
+         * <code>indices</code> array, or, if the index is not set, 
+         * <code>(-(insertion point) - 1)</code>.
+         * 
+         * @param index the index
+         * @return the position
+         */
+        private int find(int index) {
+            int low = 0;
+            int high = valueCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (indices[mid] < index) {
+                    low = mid + 1;
+                } else if (indices[mid] > index) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
         
         /**
          * Returns the value at the specified index.
@@ -98,11 +135,8 @@ implements Style {
          * @return the value
          */
         public Object getValue(int index) {
-            if (indicesToValues == null) {
-                return null;
-            } else {
-                return indicesToValues.get(new Integer(index));
-            }
+            int position = find(index);
+            return position < 0 ? null : values[position];
         }
         
         /**
@@ -112,7 +146,34 @@ implements Style {
          * @return an iterator over the indices
          */
         public Iterator getIndices() {
-            return indicesToValues.keySet().iterator();
+            return new Iterator() {
+                
+                private int position = 0;
+                
+                /**
+                 * @see java.util.Iterator#hasNext()
+                 */
+                public boolean hasNext() {
+                    return position < valueCount;
+                }
+                
+                /**
+                 * @see java.util.Iterator#next()
+                 */
+                public Object next() {
+                    if (position >= valueCount) {
+                        throw new NoSuchElementException();
+                    }
+                    return IntegerCache.valueOf(indices[position++]);
+                }
+                
+                /**
+                 * @see java.util.Iterator#remove()
+                 */
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
         }
         
         /**
@@ -122,7 +183,7 @@ implements Style {
          * @return true if a value is set
          */
         public boolean hasValue(int index) {
-            return indicesToValues != null && indicesToValues.containsKey(new Integer(index));
+            return find(index) >= 0;
         }
         
         /**
@@ -131,11 +192,17 @@ implements Style {
          * @param index the index
          */
         private void removeValue(int index) {
-            if (indicesToValues != null) {
-                indicesToValues.remove(new Integer(index));
-                if (indicesToValues.size() == 0) {
-                    indicesToValues = null;
-                }
+            int position = find(index);
+            if (position < 0) {
+                return;
+            }
+            --valueCount;
+            System.arraycopy(indices, position + 1, indices, position, valueCount - position);
+            System.arraycopy(values, position + 1, values, position, valueCount - position);
+            values[valueCount] = null;
+            if (valueCount == 0) {
+                indices = EMPTY_KEYS;
+                values = EMPTY_VALUES;
             }
         }
         
@@ -146,15 +213,36 @@ implements Style {
          * @param value the new property value
          */
         private void setValue(int index, Object value) {
-            if (indicesToValues == null) {
-                indicesToValues = new TreeMap();
-            } 
-            indicesToValues.put(new Integer(index), value);
+            int position = find(index);
+            if (position >= 0) {
+                values[position] = value;
+                return;
+            }
+            position = -(position + 1);
+            if (valueCount == indices.length) {
+                int[] newIndices = new int[valueCount + GROW_RATE];
+                Object[] newValues = new Object[valueCount + GROW_RATE];
+                System.arraycopy(indices, 0, newIndices, 0, valueCount);
+                System.arraycopy(values, 0, newValues, 0, valueCount);
+                indices = newIndices;
+                values = newValues;
+            }
+            System.arraycopy(indices, position, indices, position + 1, valueCount - position);
+            System.arraycopy(values, position, values, position + 1, valueCount - position);
+            indices[position] = index;
+            values[position] = value;
+            ++valueCount;
         }
     }
     
-    private Object[] data = EMPTY;
-    int length = 0; // Number of items * 2;
+    /** Interned keys of set properties, in slots <code>0</code> to <code>size - 1</code>. */
+    private transient int[] keys = EMPTY_KEYS;
+    
+    /** Values of set properties, stored in the same slots as their keys. */
+    private transient Object[] values = EMPTY_VALUES;
+    
+    /** The number of properties set. */
+    private transient int size = 0;
 
     /**
      * Default constructor.
@@ -186,6 +274,29 @@ implements Style {
         }
     }
     
+    /**
+     * Returns the slot in which the property with the specified name is
+     * stored.
+     * 
+     * @param propertyName the name of the property
+     * @return the slot, or -1 if the property is not set
+     */
+    private int findSlot(String propertyName) {
+        if (size == 0) {
+            return -1;
+        }
+        int key = PropertyKeyRegistry.lookupKey(propertyName);
+        if (key == -1) {
+            return -1;
+        }
+        for (int i = 0; i < size; ++i) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
     /**
      * @see nextapp.echo2.app.Style#getIndexedProperty(java.lang.String, int)
      */
@@ -237,13 +348,23 @@ implements Style {
      * @see nextapp.echo2.app.Style#isPropertySet(java.lang.String)
      */
     public boolean isPropertySet(String propertyName) {
-        int propertyNameHashCode = propertyName.hashCode();
-        for (int i = 0; i < length; i += 2) {
-            if (propertyNameHashCode == data[i].hashCode() && propertyName.equals(data[i])) {
-                return true;
-            }
+        return findSlot(propertyName) != -1;
+    }
+    
+    /**
+     * @see java.io.Serializable
+     */
+    private void readObject(ObjectInputStream in) 
+    throws ClassNotFoundException, IOException {
+        in.defaultReadObject();
+        keys = EMPTY_KEYS;
+        values = EMPTY_VALUES;
+        size = 0;
+        String propertyName = (String) in.readObject();
+        while (propertyName != null) {
+            setProperty(propertyName, in.readObject());
+            propertyName = (String) in.readObject();
         }
-        return false;
     }
     
     /**
@@ -266,20 +387,20 @@ implements Style {
      * @param propertyName the name of the property to remove
      */
     public void removeProperty(String propertyName) {
-        int propertyNameHashCode = propertyName.hashCode();
-        for (int i = 0; i < length; i += 2) {
-            if (propertyNameHashCode == data[i].hashCode() && propertyName.equals(data[i])) {
-                data[i] = data[length - 2];
-                data[i + 1] = data[length - 1];
-                data[length - 2] = null;
-                data[length - 1] = null;
-                length -= 2;
-                break;
-            }
+        int slot = findSlot(propertyName);
+        if (slot == -1) {
+            return;
         }
         
-        if (length == 0) {
-            data = EMPTY;
+        // Last property replaces removed property.
+        --size;
+        keys[slot] = keys[size];
+        values[slot] = values[size];
+        values[size] = null;
+        
+        if (size == 0) {
+            keys = EMPTY_KEYS;
+            values = EMPTY_VALUES;
         }
     }
     
@@ -290,13 +411,8 @@ implements Style {
      * @return the value of the property
      */
     private Object retrieveProperty(String propertyName) {
-        int propertyNameHashCode = propertyName.hashCode();
-        for (int i = 0; i < length; i += 2) {
-            if (propertyNameHashCode == data[i].hashCode() && propertyName.equals(data[i])) {
-                return data[i + 1];
-            }
-        }
-        return null;
+        int slot = findSlot(propertyName);
+        return slot == -1 ? null : values[slot];
     }
     
     /**
@@ -329,35 +445,29 @@ implements Style {
             return;
         }
         
-        if (data == EMPTY) {
-            data = new Object[GROW_RATE];
-        }
-
-        int propertyNameHashCode = propertyName.hashCode();
-        for (int i = 0; i < data.length; i += 2) {
-            if (data[i] == null) {
-                // Property is not set, space remains to set property.
-                // Add property at end.
-                data[i] = propertyName;
-                data[i + 1] = propertyValue;
-                length += 2;
-                return;
-            }
-            if (propertyNameHashCode == data[i].hashCode() && propertyName.equals(data[i])) {
+        int key = PropertyKeyRegistry.getKey(propertyName);
+        for (int i = 0; i < size; ++i) {
+            if (keys[i] == key) {
                 // Found property, overwrite.
-                data[i + 1] = propertyValue;
+                values[i] = propertyValue;
                 return;
             }
         }
         
-        // Array is full: grow array.
-        Object[] newData = new Object[data.length + GROW_RATE];
-        System.arraycopy(data, 0, newData, 0, data.length);
+        if (size == keys.length) {
+            // Slots are full: grow arrays.
+            int[] newKeys = new int[size + GROW_RATE];
+            Object[] newValues = new Object[size + GROW_RATE];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            keys = newKeys;
+            values = newValues;
+        }
         
-        newData[data.length] = propertyName;
-        newData[data.length + 1] = propertyValue;
-        length += 2;
-        data = newData;
+        // Add property at end.
+        keys[size] = key;
+        values[size] = propertyValue;
+        ++size;
     }
     
     /**
@@ -366,7 +476,7 @@ implements Style {
      * @return the number of properties set
      */
     public int size() {
-        return length / 2;
+        return size;
     }
     
     /**
@@ -376,15 +486,31 @@ implements Style {
      */
     public String toString() {
         StringBuffer out = new StringBuffer("MutableStyle {");
-        for (int i = 0; i < length; i += 2) {
-            out.append(data[i]);
+        for (int i = 0; i < size; ++i) {
+            out.append(PropertyKeyRegistry.getName(keys[i]));
             out.append("=");
-            out.append(data[i + 1]);
-            if (i < length - 2) {
+            out.append(values[i]);
+            if (i < size - 1) {
                 out.append(", ");
             }
         }
         out.append("}");
         return out.toString();
     }
+    
+    /**
+     * Writes the properties by name, as property keys are specific to a 
+     * single VM.
+     * 
+     * @see java.io.Serializable
+     */
+    private void writeObject(ObjectOutputStream out) 
+    throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size; ++i) {
+            out.writeObject(PropertyKeyRegistry.getName(keys[i]));
+            out.writeObject(values[i]);
+        }
+        out.writeObject(null); // Note end of property list.
+    }
 }
@@ -0,0 +1,117 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.app;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A registry of interned property keys, mapping property names to small
+ * integer keys, such that <code>MutableStyle</code>s may store and locate 
+ * properties by integer comparison.
+ * <p>
+ * Keys are assigned sequentially as property names are first registered, 
+ * and are never released.  Keys are specific to a single VM and must not 
+ * be persisted.  Lookups are performed without synchronization against 
+ * immutable snapshots of the registry, which are replaced (under lock) 
+ * when a new name is registered.
+ */
+final class PropertyKeyRegistry {
+
+    /** Lock for registration of new property names. */
+    private static final Object lock = new Object();
+    
+    /** 
+     * Mapping between registered property names and <code>Integer</code> 
+     * keys.  Never modified once published.
+     */
+    private static volatile Map nameToKeyMap = new HashMap();
+    
+    /** 
+     * Registered property names, indexed by key.  Never modified once 
+     * published.
+     */
+    private static volatile String[] keyToName = new String[0];
+    
+    /**
+     * Returns the key of a property name, registering the name if necessary.
+     * 
+     * @param propertyName the property name
+     * @return the key
+     */
+    static int getKey(String propertyName) {
+        Integer key = (Integer) nameToKeyMap.get(propertyName);
+        if (key != null) {
+            return key.intValue();
+        }
+        synchronized (lock) {
+            key = (Integer) nameToKeyMap.get(propertyName);
+            if (key != null) {
+                return key.intValue();
+            }
+            int newKey = keyToName.length;
+            String[] newKeyToName = new String[newKey + 1];
+            System.arraycopy(keyToName, 0, newKeyToName, 0, newKey);
+            newKeyToName[newKey] = propertyName;
+            Map newNameToKeyMap = new HashMap(nameToKeyMap);
+            newNameToKeyMap.put(propertyName, new Integer(newKey));
+            keyToName = newKeyToName;
+            nameToKeyMap = newNameToKeyMap;
+            return newKey;
+        }
+    }
+    
+    /**
+     * Returns the name of the property with the specified key.
+     * 
+     * @param key the key
+     * @return the property name
+     */
+    static String getName(int key) {
+        return keyToName[key];
+    }
+    
+    /**
+     * Returns the key of a property name, if the name has been registered.
+     * No property can have been stored under a name which has not been 
+     * registered.
+     * 
+     * @param propertyName the property name
+     * @return the key, or -1 if the name has not been registered
+     */
+    static int lookupKey(String propertyName) {
+        Integer key = (Integer) nameToKeyMap.get(propertyName);
+        return key == null ? -1 : key.intValue();
+    }
+    
+    /** Non-instantiable class. */
+    private PropertyKeyRegistry() { }
+}
@@ -29,6 +29,8 @@
 
 package nextapp.echo2.app;
 
+import nextapp.echo2.app.util.IntegerCache;
+
 /**
  * A container which displays two components horizontally or vertically
  * adjacent to one another.
@@ -300,7 +302,7 @@ implements Pane, PaneContainer {
      *        </ul>
      */
     public void setOrientation(int newValue) {
-        setProperty(PROPERTY_ORIENTATION, new Integer(newValue));
+        setProperty(PROPERTY_ORIENTATION, IntegerCache.valueOf(newValue));
     }
     
     /**
@@ -311,7 +313,7 @@ implements Pane, PaneContainer {
      *        not
      */
     public void setResizable(boolean newValue) {
-        setProperty(PROPERTY_RESIZABLE, new Boolean(newValue));
+        setProperty(PROPERTY_RESIZABLE, Boolean.valueOf(newValue));
     }
     
     /**
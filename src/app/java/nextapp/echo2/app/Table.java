@@ -29,9 +29,12 @@
 
 package nextapp.echo2.app;
 
+import java.util.Arrays;
 import java.util.EventListener;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import nextapp.echo2.app.event.ActionEvent;
 import nextapp.echo2.app.event.ActionListener;
@@ -46,10 +49,13 @@ import nextapp.echo2.app.list.ListSelectionModel;
 import nextapp.echo2.app.table.DefaultTableCellRenderer;
 import nextapp.echo2.app.table.DefaultTableColumnModel;
 import nextapp.echo2.app.table.DefaultTableModel;
+import nextapp.echo2.app.table.RangeTableModel;
+import nextapp.echo2.app.table.RecyclingTableCellRenderer;
 import nextapp.echo2.app.table.TableCellRenderer;
 import nextapp.echo2.app.table.TableColumn;
 import nextapp.echo2.app.table.TableColumnModel;
 import nextapp.echo2.app.table.TableModel;
+import nextapp.echo2.app.util.IntegerCache;
 
 /**
  * A component used to display data in a tabular format.
@@ -62,6 +68,19 @@ public class Table extends Component {
      * The default renderer for table cells. 
      */
     public static final TableCellRenderer DEFAULT_TABLE_CELL_RENDERER = new DefaultTableCellRenderer();
+    
+    /**
+     * The maximum number of rows a virtual scrolling <code>Table</code> will
+     * render at one time, including overscan rows, regardless of the
+     * configured visible row count.
+     */
+    public static final int MAXIMUM_RENDERED_ROW_COUNT = 1000;
+    
+    /**
+     * The default number of overscan rows rendered above and below the 
+     * visible rows of a virtual scrolling <code>Table</code>.
+     */
+    public static final int DEFAULT_OVERSCAN_ROW_COUNT = 20;
 
     public static final String PROPERTY_ACTION_COMMAND = "actionCommand";
     public static final String PROPERTY_BORDER = "border";
@@ -85,10 +104,13 @@ public class Table extends Component {
     public static final String COLUMN_MODEL_CHANGED_PROPERTY = "columnModel";
     public static final String DEFAULT_HEADER_RENDERER_CHANGED_PROPERTY = "defaultHeaderRenderer";
     public static final String DEFAULT_RENDERER_CHANGED_PROPERTY = "defaultRenderer";
+    public static final String FIRST_VISIBLE_ROW_CHANGED_PROPERTY = "firstVisibleRow";
     public static final String HEADER_VISIBLE_CHANGED_PROPERTY = "headerVisible";
     public static final String MODEL_CHANGED_PROPERTY = "model";
+    public static final String OVERSCAN_ROW_COUNT_CHANGED_PROPERTY = "overscanRowCount";
     public static final String SELECTION_CHANGED_PROPERTY = "selection";
     public static final String SELECTION_MODEL_CHANGED_PROPERTY = "selectionModel";
+    public static final String VISIBLE_ROW_COUNT_CHANGED_PROPERTY = "visibleRowCount";
     
     public static final int HEADER_ROW = -1;
     
@@ -101,6 +123,18 @@ public class Table extends Component {
     private TableCellRenderer defaultHeaderRenderer;
     private ListSelectionModel selectionModel;
     private boolean suppressChangeNotifications;
+    private int visibleRowCount;
+    private int overscanRowCount = DEFAULT_OVERSCAN_ROW_COUNT;
+    private int firstVisibleRow;
+    private int renderedRowStart;
+    private int renderedRowCount;
+    private int virtualRowCount;
+    private transient Object[] valueBuffer;
+    private int bufferRowStart;
+    private int bufferRowCount;
+    private int bufferColumnCount;
+    private TableCellRenderer[] renderedHeaderRenderers;
+    private TableCellRenderer[] renderedCellRenderers;
     
     /**
      * Listener to monitor changes to model.
@@ -111,9 +145,13 @@ public class Table extends Component {
          * @see nextapp.echo2.app.event.TableModelListener#tableChanged(nextapp.echo2.app.event.TableModelEvent)
          */
         public void tableChanged(TableModelEvent e) {
-            invalidate();
-            if ((e == null || e.getType() == TableModelEvent.STRUCTURE_CHANGED) && isAutoCreateColumnsFromModel()) {
-                createDefaultColumnsFromModel();
+            if (e == null || e.getType() == TableModelEvent.STRUCTURE_CHANGED) {
+                invalidate();
+                if (isAutoCreateColumnsFromModel()) {
+                    createDefaultColumnsFromModel();
+                }
+            } else if (!updateRows(e)) {
+                invalidate();
             }
         }
     };
@@ -234,6 +272,29 @@ public class Table extends Component {
         firePropertyChange(ACTION_LISTENERS_CHANGED_PROPERTY, null, l);
     }
 
+    /**
+     * Determines the range of model rows which will be rendered, i.e., all
+     * rows, or, for a virtual scrolling <code>Table</code>, the visible rows 
+     * plus overscan, limited to <code>MAXIMUM_RENDERED_ROW_COUNT</code>.
+     * 
+     * @param rowCount the number of model rows
+     */
+    private void calculateRenderedRows(int rowCount) {
+        virtualRowCount = rowCount;
+        if (visibleRowCount <= 0) {
+            renderedRowStart = 0;
+            renderedRowCount = rowCount;
+            return;
+        }
+        
+        int windowRowCount = Math.min(visibleRowCount, MAXIMUM_RENDERED_ROW_COUNT);
+        int overscan = Math.min(overscanRowCount, (MAXIMUM_RENDERED_ROW_COUNT - windowRowCount) / 2);
+        int firstRow = Math.max(0, Math.min(firstVisibleRow, rowCount - windowRowCount));
+        
+        renderedRowStart = Math.max(0, firstRow - overscan);
+        renderedRowCount = Math.min(rowCount, firstRow + windowRowCount + overscan) - renderedRowStart;
+    }
+    
     /**
      * Creates a <code>TableColumnModel</code> based on the 
      * <code>TableModel</code>.  This method is invoked automatically when the 
@@ -255,31 +316,53 @@ public class Table extends Component {
 
     /**
      * Re-renders changed rows.
+     * Components rendered by a <code>RecyclingTableCellRenderer</code> are
+     * updated in place where possible, and child components which remain at
+     * the same position are left untouched.
      */
     protected void doRender() {
-        removeAll();
-        int rowCount = model.getRowCount();
+        Component[] previousComponents = getComponents();
+        int previousRowStart = renderedRowStart;
+        int previousRowCount = renderedRowCount;
+        TableCellRenderer[] previousHeaderRenderers = renderedHeaderRenderers;
+        TableCellRenderer[] previousCellRenderers = renderedCellRenderers;
+        
+        calculateRenderedRows(getModelRowCount());
+        int fetchedRowCount = fetchRows(renderedRowStart, renderedRowCount);
+        if (fetchedRowCount == 0 && renderedRowStart > 0) {
+            // Estimated row count exceeds actual row count such that no rows remain in the window.
+            calculateRenderedRows(model.getRowCount());
+            fetchedRowCount = fetchRows(renderedRowStart, renderedRowCount);
+        }
+        if (fetchedRowCount < renderedRowCount) {
+            // End of model reached.
+            renderedRowCount = fetchedRowCount;
+            virtualRowCount = renderedRowStart + renderedRowCount;
+        }
         int columnCount = columnModel.getColumnCount();
         
         TableColumn[] tableColumns = new TableColumn[columnCount];
         TableCellRenderer[] columnRenderers = new TableCellRenderer[columnCount];
+        loadColumns(tableColumns, columnRenderers);
+        TableCellRenderer[] headerRenderers = isHeaderVisible() ? new TableCellRenderer[columnCount] : null;
         
-        for (int columnIndex = 0; columnIndex < columnCount; ++columnIndex) {
-            tableColumns[columnIndex] = columnModel.getColumn(columnIndex);
-            
-            TableCellRenderer renderer = tableColumns[columnIndex].getCellRenderer();
-            if (renderer == null) {
-                Class columnClass = model.getColumnClass(tableColumns[columnIndex].getModelIndex());
-                renderer = getDefaultRenderer(columnClass);
-                if (renderer == null) {
-                    renderer = DEFAULT_TABLE_CELL_RENDERER;
-                }
+        // Previously rendered components may only be recycled if their layout is known.
+        int previousHeaderOffset = previousHeaderRenderers == null ? 0 : 1;
+        boolean recycle = previousCellRenderers != null && previousCellRenderers.length == columnCount
+                && previousComponents.length == (previousRowCount + previousHeaderOffset) * columnCount;
+        int[] poolRows = null;
+        if (recycle) {
+            poolRows = new int[columnCount];
+            for (int columnIndex = 0; columnIndex < columnCount; ++columnIndex) {
+                poolRows[columnIndex] = previousRowStart;
             }
-            columnRenderers[columnIndex] = renderer;
-
         }
-
-        if (isHeaderVisible()) {
+        
+        int headerOffset = headerRenderers == null ? 0 : 1;
+        Component[] components = new Component[(renderedRowCount + headerOffset) * columnCount];
+        int componentIndex = 0;
+        
+        if (headerRenderers != null) {
             for (int columnIndex = 0; columnIndex < columnCount; ++columnIndex) {
                 int modelColumnIndex = tableColumns[columnIndex].getModelIndex();
                 Object headerValue = tableColumns[columnIndex].getHeaderValue();
@@ -293,29 +376,126 @@ public class Table extends Component {
                         headerRenderer = DEFAULT_TABLE_CELL_RENDERER;
                     }
                 }
-                Component renderedComponent 
-                        = headerRenderer.getTableCellRendererComponent(this, headerValue, modelColumnIndex, HEADER_ROW);
-                if (renderedComponent == null) {
-                    renderedComponent = new Label();
+                headerRenderers[columnIndex] = headerRenderer;
+                Component previousComponent = null;
+                if (recycle && previousHeaderRenderers != null && previousHeaderRenderers[columnIndex] == headerRenderer) {
+                    previousComponent = previousComponents[columnIndex];
                 }
-                add(renderedComponent);
+                components[componentIndex++] = renderComponent(headerRenderer, previousComponent, headerValue, 
+                        modelColumnIndex, HEADER_ROW);
             }
         }
         
-        for (int rowIndex = 0; rowIndex < rowCount; ++rowIndex) {
+        int rowEnd = renderedRowStart + renderedRowCount;
+        int previousRowEnd = previousRowStart + previousRowCount;
+        for (int rowIndex = renderedRowStart; rowIndex < rowEnd; ++rowIndex) {
             for (int columnIndex = 0; columnIndex < columnCount; ++columnIndex) {
-                int modelColumnIndex = tableColumns[columnIndex].getModelIndex();
-                Object modelValue = model.getValueAt(modelColumnIndex, rowIndex);
-                Component renderedComponent 
-                        = columnRenderers[columnIndex].getTableCellRendererComponent(this, modelValue, modelColumnIndex, rowIndex);
-                if (renderedComponent == null) {
-                    renderedComponent = new Label();
+                Component previousComponent = null;
+                if (recycle && previousCellRenderers[columnIndex] == columnRenderers[columnIndex]) {
+                    int previousRow = rowIndex;
+                    if (rowIndex < previousRowStart || rowIndex >= previousRowEnd) {
+                        // Cell not previously rendered: use a component of a previously rendered row of the 
+                        // same column which is no longer rendered.
+                        while (poolRows[columnIndex] < previousRowEnd && poolRows[columnIndex] >= renderedRowStart
+                                && poolRows[columnIndex] < rowEnd) {
+                            ++poolRows[columnIndex];
+                        }
+                        previousRow = poolRows[columnIndex]++;
+                    }
+                    if (previousRow < previousRowEnd) {
+                        previousComponent = previousComponents[(previousRow - previousRowStart + previousHeaderOffset) 
+                                * columnCount + columnIndex];
+                    }
+                }
+                components[componentIndex++] = renderCell(tableColumns[columnIndex], columnRenderers[columnIndex], 
+                        rowIndex, previousComponent);
+            }
+        }
+        
+        releaseRows();
+        renderedHeaderRenderers = headerRenderers;
+        renderedCellRenderers = columnRenderers;
+        
+        // Update children, leaving those components which remain at the same position untouched.
+        Set previousComponentSet = new HashSet();
+        for (int i = 0; i < previousComponents.length; ++i) {
+            previousComponentSet.add(previousComponents[i]);
+        }
+        Set componentSet = new HashSet();
+        for (int i = 0; i < components.length; ++i) {
+            if (previousComponentSet.contains(components[i])) {
+                componentSet.add(components[i]);
+            }
+        }
+        if (componentSet.size() == 0) {
+            removeAll();
+        } else {
+            for (int i = previousComponents.length - 1; i >= 0; --i) {
+                if (!componentSet.contains(previousComponents[i])) {
+                    remove(previousComponents[i]);
+                }
+            }
+        }
+        for (int i = 0; i < components.length; ++i) {
+            if (i >= getComponentCount() || getComponent(i) != components[i]) {
+                add(components[i], i);
+            }
+        }
+    }
+    
+    /**
+     * Retrieves the <code>TableColumn</code>s of the column model and the 
+     * <code>TableCellRenderer</code>s which will render their cells.
+     * 
+     * @param tableColumns an array, sized to the column count, which will be 
+     *        filled with the <code>TableColumn</code>s
+     * @param columnRenderers an array, sized to the column count, which will be 
+     *        filled with the <code>TableCellRenderer</code>s of each column
+     */
+    private void loadColumns(TableColumn[] tableColumns, TableCellRenderer[] columnRenderers) {
+        for (int columnIndex = 0; columnIndex < tableColumns.length; ++columnIndex) {
+            tableColumns[columnIndex] = columnModel.getColumn(columnIndex);
+            
+            TableCellRenderer renderer = tableColumns[columnIndex].getCellRenderer();
+            if (renderer == null) {
+                Class columnClass = model.getColumnClass(tableColumns[columnIndex].getModelIndex());
+                renderer = getDefaultRenderer(columnClass);
+                if (renderer == null) {
+                    renderer = DEFAULT_TABLE_CELL_RENDERER;
                 }
-                add(renderedComponent);
             }
+            columnRenderers[columnIndex] = renderer;
         }
     }
     
+    /**
+     * Retrieves the values of a range of model rows in a single operation if
+     * the model is a <code>RangeTableModel</code>.  The values are stored in
+     * a buffer which is reused across renderings, and are returned by
+     * <code>getModelValue()</code> until <code>releaseRows()</code> is 
+     * invoked.
+     * 
+     * @param firstRow the index of the first row to retrieve
+     * @param rowCount the number of rows to retrieve
+     * @return the number of rows available, which is less than 
+     *         <code>rowCount</code> if the end of the model was reached
+     */
+    private int fetchRows(int firstRow, int rowCount) {
+        if (!(model instanceof RangeTableModel) || rowCount == 0) {
+            return rowCount;
+        }
+        releaseRows();
+        int columnCount = model.getColumnCount();
+        if (valueBuffer == null || valueBuffer.length < rowCount * columnCount) {
+            valueBuffer = new Object[rowCount * columnCount];
+        }
+        int fetchedRowCount = ((RangeTableModel) model).getValuesAt(firstRow, rowCount, valueBuffer);
+        bufferRowStart = firstRow;
+        bufferRowCount = Math.max(0, Math.min(fetchedRowCount, rowCount));
+        bufferColumnCount = columnCount;
+        return bufferRowCount;
+    }
+    
     /**
      * Fires an action event to all listeners.
      */
@@ -345,15 +525,25 @@ public class Table extends Component {
     /**
      * Returns the component rendered at the specified cell position.
      * Invocation will automatically perform validation if required.
+     * Null is returned for rows which are not currently rendered by a 
+     * virtual scrolling <code>Table</code>.
      * 
      * @param column the column
      * @param row the row
      * @return the component
+     * @see #getRenderedRowStart()
+     * @see #getRenderedRowCount()
      */
     public Component getCellComponent(int column, int row) {
         if (!valid) {
             validate();
         }
+        if (row != HEADER_ROW) {
+            if (row < renderedRowStart || row >= renderedRowStart + renderedRowCount) {
+                return null;
+            }
+            row -= renderedRowStart;
+        }
         if (isHeaderVisible()) {
             return getComponent((row + 1) * columnModel.getColumnCount()   + column);
         } else {
@@ -399,6 +589,16 @@ public class Table extends Component {
         return (TableCellRenderer) defaultRendererMap.get(columnClass);
     }
     
+    /**
+     * Returns the index of the first row visible in the viewport of a 
+     * virtual scrolling <code>Table</code>.
+     * 
+     * @return the first visible row index
+     */
+    public int getFirstVisibleRow() {
+        return firstVisibleRow;
+    }
+    
     /**
      * Returns the default cell insets.
      * 
@@ -418,6 +618,76 @@ public class Table extends Component {
         return model;
     }
     
+    /**
+     * Returns the number of model rows.  A virtual scrolling 
+     * <code>Table</code> uses the estimated row count of a 
+     * <code>RangeTableModel</code>, where available, rather than requiring
+     * an exact count.
+     * 
+     * @return the number of model rows
+     */
+    private int getModelRowCount() {
+        if (visibleRowCount > 0 && model instanceof RangeTableModel) {
+            int estimatedRowCount = ((RangeTableModel) model).getEstimatedRowCount();
+            if (estimatedRowCount >= 0) {
+                return estimatedRowCount;
+            }
+        }
+        return model.getRowCount();
+    }
+    
+    /**
+     * Returns the value of a model cell, from the rows retrieved by 
+     * <code>fetchRows()</code> if available.
+     * 
+     * @param column the model column index
+     * @param row the model row index
+     * @return the value
+     */
+    private Object getModelValue(int column, int row) {
+        if (row >= bufferRowStart && row < bufferRowStart + bufferRowCount) {
+            return valueBuffer[(row - bufferRowStart) * bufferColumnCount + column];
+        }
+        return model.getValueAt(column, row);
+    }
+    
+    /**
+     * Returns the number of rows rendered above and below the visible rows
+     * of a virtual scrolling <code>Table</code>.
+     * 
+     * @return the overscan row count
+     */
+    public int getOverscanRowCount() {
+        return overscanRowCount;
+    }
+    
+    /**
+     * Returns the number of model rows which are currently rendered.
+     * Invocation will automatically perform validation if required.
+     * 
+     * @return the rendered row count
+     */
+    public int getRenderedRowCount() {
+        if (!valid) {
+            validate();
+        }
+        return renderedRowCount;
+    }
+    
+    /**
+     * Returns the index of the first model row which is currently rendered.
+     * This value is always 0 unless virtual scrolling is enabled.
+     * Invocation will automatically perform validation if required.
+     * 
+     * @return the index of the first rendered row
+     */
+    public int getRenderedRowStart() {
+        if (!valid) {
+            validate();
+        }
+        return renderedRowStart;
+    }
+    
     /**
      * Return the rollover background color displayed when the mouse is within
      * the bounds of a row.
@@ -503,6 +773,33 @@ public class Table extends Component {
         return selectionModel;
     }
     
+    /**
+     * Returns the number of rows represented by the scrollable area of a
+     * virtual scrolling <code>Table</code>, i.e., the row count of the model,
+     * or the estimated row count of a <code>RangeTableModel</code> until the
+     * end of the model has been rendered.
+     * Invocation will automatically perform validation if required.
+     * 
+     * @return the virtual row count
+     */
+    public int getVirtualRowCount() {
+        if (!valid) {
+            validate();
+        }
+        return virtualRowCount;
+    }
+    
+    /**
+     * Returns the number of rows displayed in the viewport of a virtual 
+     * scrolling <code>Table</code>, or 0 if virtual scrolling is disabled.
+     * 
+     * @return the visible row count
+     * @see #setVisibleRowCount(int)
+     */
+    public int getVisibleRowCount() {
+        return visibleRowCount;
+    }
+    
     /**
      * Returns the overall width of the grid.
      * This property supports <code>Extent</code>s with
@@ -525,8 +822,11 @@ public class Table extends Component {
 
     /**
      * Marks the table as needing to be re-rendered.
+     * 
+     * @see nextapp.echo2.app.Component#invalidate()
      */
     protected void invalidate() {
+        super.invalidate();
         valid = false;
     }
     
@@ -575,6 +875,17 @@ public class Table extends Component {
         return value == null ? false : value.booleanValue();
     }
     
+    /**
+     * Determines if virtual scrolling is enabled, i.e., whether only a 
+     * window of rows surrounding the visible rows is rendered.
+     * 
+     * @return true if virtual scrolling is enabled
+     * @see #setVisibleRowCount(int)
+     */
+    public boolean isVirtualScrolling() {
+        return visibleRowCount > 0;
+    }
+    
     /**
      * @see nextapp.echo2.app.Component#processInput(java.lang.String, java.lang.Object)
      */
@@ -582,11 +893,69 @@ public class Table extends Component {
         super.processInput(inputName, inputValue);
         if (inputName.equals(SELECTION_CHANGED_PROPERTY)) {
             setSelectedIndices((int[]) inputValue);
+        } else if (FIRST_VISIBLE_ROW_CHANGED_PROPERTY.equals(inputName)) {
+            setFirstVisibleRow(((Integer) inputValue).intValue());
         } else if (INPUT_ACTION.equals(inputName)) {
             fireActionEvent();
         }
     }
     
+    /**
+     * Renders the component of a single (non-header) cell.
+     * 
+     * @param tableColumn the <code>TableColumn</code> of the cell
+     * @param renderer the <code>TableCellRenderer</code> of the column
+     * @param rowIndex the model row index of the cell
+     * @param previousComponent a previously rendered component which may be
+     *        recycled, or null
+     * @return the rendered component
+     */
+    private Component renderCell(TableColumn tableColumn, TableCellRenderer renderer, int rowIndex, 
+            Component previousComponent) {
+        int modelColumnIndex = tableColumn.getModelIndex();
+        Object modelValue = getModelValue(modelColumnIndex, rowIndex);
+        return renderComponent(renderer, previousComponent, modelValue, modelColumnIndex, rowIndex);
+    }
+    
+    /**
+     * Renders the component of a cell, recycling the previously rendered
+     * component if the renderer is a <code>RecyclingTableCellRenderer</code>
+     * that is capable of updating it.
+     * 
+     * @param renderer the <code>TableCellRenderer</code>
+     * @param previousComponent a previously rendered component which may be
+     *        recycled, or null
+     * @param value the value to render
+     * @param modelColumnIndex the model column index of the cell
+     * @param rowIndex the model row index of the cell, or 
+     *        <code>HEADER_ROW</code>
+     * @return the rendered component
+     */
+    private Component renderComponent(TableCellRenderer renderer, Component previousComponent, Object value, 
+            int modelColumnIndex, int rowIndex) {
+        if (previousComponent != null && renderer instanceof RecyclingTableCellRenderer
+                && ((RecyclingTableCellRenderer) renderer).updateTableCellRendererComponent(this, previousComponent, 
+                value, modelColumnIndex, rowIndex)) {
+            return previousComponent;
+        }
+        Component renderedComponent = renderer.getTableCellRendererComponent(this, value, modelColumnIndex, rowIndex);
+        if (renderedComponent == null) {
+            renderedComponent = new Label();
+        }
+        return renderedComponent;
+    }
+    
+    /**
+     * Releases the values retrieved by <code>fetchRows()</code>, such that 
+     * the reusable buffer does not retain references to them.
+     */
+    private void releaseRows() {
+        if (bufferRowCount > 0) {
+            Arrays.fill(valueBuffer, 0, bufferRowCount * bufferColumnCount, null);
+            bufferRowCount = 0;
+        }
+    }
+    
     /**
      * Removes an <code>ActionListener</code> from the <code>Table</code>.
      * <code>ActionListener</code>s will be invoked when the user
@@ -699,6 +1068,29 @@ public class Table extends Component {
         firePropertyChange(DEFAULT_RENDERER_CHANGED_PROPERTY, null, null);
     }
     
+    /**
+     * Sets the index of the first row visible in the viewport of a virtual 
+     * scrolling <code>Table</code>.  The table will only be re-rendered if
+     * the newly visible rows are not already rendered.
+     * 
+     * @param newValue the new first visible row index
+     */
+    public void setFirstVisibleRow(int newValue) {
+        if (newValue < 0) {
+            newValue = 0;
+        }
+        int oldValue = firstVisibleRow;
+        firstVisibleRow = newValue;
+        if (valid && visibleRowCount > 0) {
+            int lastVisibleRow = Math.min(newValue + visibleRowCount, virtualRowCount);
+            if (newValue < renderedRowStart || lastVisibleRow > renderedRowStart + renderedRowCount) {
+                invalidate();
+            }
+        }
+        firePropertyChange(FIRST_VISIBLE_ROW_CHANGED_PROPERTY, IntegerCache.valueOf(oldValue), 
+                IntegerCache.valueOf(newValue));
+    }
+    
     /**
      * Sets the visibility state of the table header.
      * 
@@ -746,6 +1138,24 @@ public class Table extends Component {
         firePropertyChange(MODEL_CHANGED_PROPERTY, oldValue, newValue);
     }
     
+    /**
+     * Sets the number of rows rendered above and below the visible rows of
+     * a virtual scrolling <code>Table</code>, such that short scrolls do not
+     * require rows to be retrieved from the server.
+     * 
+     * @param newValue the new overscan row count
+     */
+    public void setOverscanRowCount(int newValue) {
+        if (newValue < 0) {
+            throw new IllegalArgumentException("Overscan row count may not be negative.");
+        }
+        invalidate();
+        int oldValue = overscanRowCount;
+        overscanRowCount = newValue;
+        firePropertyChange(OVERSCAN_ROW_COUNT_CHANGED_PROPERTY, IntegerCache.valueOf(oldValue), 
+                IntegerCache.valueOf(newValue));
+    }
+    
     /**
      * Sets the rollover background color displayed when the mouse is within
      * the bounds of a row.
@@ -774,7 +1184,7 @@ public class Table extends Component {
      * @param newValue true if rollover effects should be enabled
      */
     public void setRolloverEnabled(boolean newValue) {
-        setProperty(PROPERTY_ROLLOVER_ENABLED, new Boolean(newValue));
+        setProperty(PROPERTY_ROLLOVER_ENABLED, Boolean.valueOf(newValue));
     }
 
     /**
@@ -879,6 +1289,27 @@ public class Table extends Component {
         firePropertyChange(SELECTION_MODEL_CHANGED_PROPERTY, oldValue, newValue);
     }
     
+    /**
+     * Sets the number of rows displayed in the viewport of the 
+     * <code>Table</code>.  A positive value enables virtual scrolling:
+     * only the visible rows plus overscan rows are created and rendered,
+     * and further rows are retrieved from the server as the viewport is 
+     * scrolled.  A value of 0 (the default) renders every row of the model.
+     * 
+     * @param newValue the new visible row count, or 0 to disable virtual
+     *        scrolling
+     */
+    public void setVisibleRowCount(int newValue) {
+        if (newValue < 0) {
+            throw new IllegalArgumentException("Visible row count may not be negative.");
+        }
+        invalidate();
+        int oldValue = visibleRowCount;
+        visibleRowCount = newValue;
+        firePropertyChange(VISIBLE_ROW_COUNT_CHANGED_PROPERTY, IntegerCache.valueOf(oldValue), 
+                IntegerCache.valueOf(newValue));
+    }
+    
     /**
      * Sets the overall width of the grid.
      * This property supports <code>Extent</code>s with
@@ -890,6 +1321,124 @@ public class Table extends Component {
         setProperty(PROPERTY_WIDTH, newValue);
     }
     
+    /**
+     * Re-renders the cells of a range of rendered rows, replacing only those
+     * components which are not recycled by their renderers.
+     * 
+     * @param tableColumns the <code>TableColumn</code>s of the column model
+     * @param columnRenderers the <code>TableCellRenderer</code>s of the 
+     *        columns
+     * @param startRow the index of the first model row to re-render
+     * @param endRow the index following the last model row to re-render
+     * @param modelColumn the model index of the column whose cells should be
+     *        re-rendered, or <code>TableModelEvent.ALL_COLUMNS</code>
+     * @return true if the cells were re-rendered, or false if the table must
+     *         instead be fully re-rendered
+     */
+    private boolean updateCells(TableColumn[] tableColumns, TableCellRenderer[] columnRenderers, int startRow, 
+            int endRow, int modelColumn) {
+        if (endRow <= startRow) {
+            return true;
+        }
+        if (fetchRows(startRow, endRow - startRow) != endRow - startRow) {
+            releaseRows();
+            return false;
+        }
+        int columnCount = tableColumns.length;
+        int headerOffset = isHeaderVisible() ? 1 : 0;
+        for (int rowIndex = startRow; rowIndex < endRow; ++rowIndex) {
+            int componentIndex = (rowIndex - renderedRowStart + headerOffset) * columnCount;
+            for (int columnIndex = 0; columnIndex < columnCount; ++columnIndex, ++componentIndex) {
+                if (modelColumn != TableModelEvent.ALL_COLUMNS && modelColumn != tableColumns[columnIndex].getModelIndex()) {
+                    continue;
+                }
+                Component previousComponent = getComponent(componentIndex);
+                Component renderedComponent = renderCell(tableColumns[columnIndex], columnRenderers[columnIndex], 
+                        rowIndex, previousComponent);
+                if (renderedComponent != previousComponent) {
+                    remove(componentIndex);
+                    add(renderedComponent, componentIndex);
+                }
+            }
+        }
+        releaseRows();
+        return true;
+    }
+    
+    /**
+     * Updates only the cell components affected by an <code>INSERT</code>,
+     * <code>DELETE</code>, or <code>UPDATE</code> of a range of model rows,
+     * rather than re-rendering the entire table.
+     * Rows which shift position due to an insertion or deletion are 
+     * re-rendered for their new row indices, as renderers may render cells
+     * differently based on row index; their existing components are 
+     * recycled where supported by the renderer.
+     * 
+     * @param e the <code>TableModelEvent</code> describing the change
+     * @return true if the change was applied, or false if the table must 
+     *         instead be fully re-rendered
+     */
+    private boolean updateRows(TableModelEvent e) {
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+        if (!valid || firstRow < 0 || lastRow < firstRow || lastRow == Integer.MAX_VALUE) {
+            return false;
+        }
+
+        int rowCount = getModelRowCount();
+        int changedRowCount = lastRow - firstRow + 1;
+        int columnCount = columnModel.getColumnCount();
+        int headerOffset = isHeaderVisible() ? 1 : 0;
+        TableColumn[] tableColumns = new TableColumn[columnCount];
+        TableCellRenderer[] columnRenderers = new TableCellRenderer[columnCount];
+        
+        switch (e.getType()) {
+        case TableModelEvent.UPDATE:
+            if (visibleRowCount > 0 ? renderedRowStart + renderedRowCount > rowCount : renderedRowCount != rowCount) {
+                return false;
+            }
+            loadColumns(tableColumns, columnRenderers);
+            return updateCells(tableColumns, columnRenderers, Math.max(firstRow, renderedRowStart), 
+                    Math.min(lastRow + 1, renderedRowStart + renderedRowCount), e.getColumn());
+        case TableModelEvent.INSERT:
+            // Virtual scrolling tables re-render their (bounded) window, as the window may shift.
+            if (visibleRowCount > 0 || renderedRowCount + changedRowCount != rowCount || firstRow > renderedRowCount) {
+                return false;
+            }
+            if (fetchRows(firstRow, changedRowCount) != changedRowCount) {
+                releaseRows();
+                return false;
+            }
+            loadColumns(tableColumns, columnRenderers);
+            int insertIndex = (firstRow + headerOffset) * columnCount;
+            for (int rowIndex = firstRow; rowIndex <= lastRow; ++rowIndex) {
+                for (int columnIndex = 0; columnIndex < columnCount; ++columnIndex) {
+                    add(renderCell(tableColumns[columnIndex], columnRenderers[columnIndex], rowIndex, null), insertIndex++);
+                }
+            }
+            releaseRows();
+            renderedRowCount += changedRowCount;
+            virtualRowCount = renderedRowCount;
+            // Re-render rows shifted by the insertion.
+            return updateCells(tableColumns, columnRenderers, lastRow + 1, renderedRowCount, TableModelEvent.ALL_COLUMNS);
+        case TableModelEvent.DELETE:
+            if (visibleRowCount > 0 || renderedRowCount - changedRowCount != rowCount || lastRow >= renderedRowCount) {
+                return false;
+            }
+            int deleteIndex = (firstRow + headerOffset) * columnCount;
+            for (int i = changedRowCount * columnCount - 1; i >= 0; --i) {
+                remove(deleteIndex + i);
+            }
+            renderedRowCount -= changedRowCount;
+            virtualRowCount = renderedRowCount;
+            // Re-render rows shifted by the deletion.
+            loadColumns(tableColumns, columnRenderers);
+            return updateCells(tableColumns, columnRenderers, firstRow, renderedRowCount, TableModelEvent.ALL_COLUMNS);
+        default:
+            return false;
+        }
+    }
+    
     /**
      * @see nextapp.echo2.app.Component#validate()
      */
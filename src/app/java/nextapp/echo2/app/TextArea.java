@@ -72,7 +72,7 @@ public class TextArea extends TextComponent {
         if (text != null) {
             document.setText(text);
         }
-        setWidth(new Extent(columns, Extent.EM));
-        setHeight(new Extent(rows, Extent.EM));
+        setWidth(Extent.valueOf(columns, Extent.EM));
+        setHeight(Extent.valueOf(rows, Extent.EM));
     }
 }
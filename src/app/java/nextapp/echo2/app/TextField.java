@@ -70,6 +70,6 @@ public class TextField extends TextComponent {
         if (text != null) {
             document.setText(text);
         }
-        setWidth(new Extent(columns, Extent.EX));
+        setWidth(Extent.valueOf(columns, Extent.EX));
     }
 }
@@ -33,6 +33,7 @@ import java.util.EventListener;
 
 import nextapp.echo2.app.event.WindowPaneEvent;
 import nextapp.echo2.app.event.WindowPaneListener;
+import nextapp.echo2.app.util.IntegerCache;
 
 /**
  * A <code>Component</code> which renders its contents in a floating, 
@@ -531,7 +532,7 @@ implements FloatingPane, ModalSupport, PaneContainer {
      *        </ul>
      */
     public void setDefaultCloseOperation(int newValue) {
-        setProperty(PROPERTY_DEFAULT_CLOSE_OPERATION, new Integer(newValue));
+        setProperty(PROPERTY_DEFAULT_CLOSE_OPERATION, IntegerCache.valueOf(newValue));
     }
     
     /**
@@ -773,7 +774,7 @@ implements FloatingPane, ModalSupport, PaneContainer {
     public void setZIndex(int newValue) {
         int oldValue = zIndex;
         zIndex = newValue;
-        firePropertyChange(Z_INDEX_CHANGED_PROPERTY, new Integer(oldValue), new Integer(newValue));
+        firePropertyChange(Z_INDEX_CHANGED_PROPERTY, IntegerCache.valueOf(oldValue), IntegerCache.valueOf(newValue));
     }
     
     /**
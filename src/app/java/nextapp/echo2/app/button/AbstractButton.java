@@ -665,7 +665,7 @@ public abstract class AbstractButton extends Component {
      * @param newValue the new line wrap state
      */
     public void setLineWrap(boolean newValue) {
-        setProperty(PROPERTY_LINE_WRAP, new Boolean(newValue));
+        setProperty(PROPERTY_LINE_WRAP, Boolean.valueOf(newValue));
     }
     
     /**
@@ -724,7 +724,7 @@ public abstract class AbstractButton extends Component {
      * @param newValue true if pressed effects should be enabled
      */
     public void setPressedEnabled(boolean newValue) {
-        setProperty(PROPERTY_PRESSED_ENABLED, new Boolean(newValue));
+        setProperty(PROPERTY_PRESSED_ENABLED, Boolean.valueOf(newValue));
     }
 
     /**
@@ -792,7 +792,7 @@ public abstract class AbstractButton extends Component {
      * @param newValue true if rollover effects should be enabled
      */
     public void setRolloverEnabled(boolean newValue) {
-        setProperty(PROPERTY_ROLLOVER_ENABLED, new Boolean(newValue));
+        setProperty(PROPERTY_ROLLOVER_ENABLED, Boolean.valueOf(newValue));
     }
 
     /**
@@ -85,6 +85,6 @@ implements PropertyXmlPeer {
             style = ((Integer) STYLE_TEXT_TO_CONSTANT.get(styleString)).intValue();
         }
         
-        return new Border(size, color, style);
+        return Border.valueOf(size, color, style);
     }
 }
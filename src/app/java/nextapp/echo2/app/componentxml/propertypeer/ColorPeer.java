@@ -52,7 +52,7 @@ implements PropertyXmlPeer {
     throws InvalidPropertyException {
         try {
             int colorValue = Integer.parseInt(value.substring(1), 16);
-            return new Color(colorValue);
+            return Color.valueOf(colorValue);
         } catch (IndexOutOfBoundsException ex) {
             throw new InvalidPropertyException("Invalid color value: " + value, ex);
         } catch (NumberFormatException ex) {
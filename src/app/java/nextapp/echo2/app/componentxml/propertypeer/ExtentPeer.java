@@ -90,7 +90,7 @@ implements PropertyXmlPeer {
         }
         int units = ((Integer) UNITS_TEXT_TO_CONSTANT.get(unitsText)).intValue();
         
-        return new Extent(size, units);
+        return Extent.valueOf(size, units);
     }
 
     /**
@@ -114,6 +114,6 @@ implements PropertyXmlPeer {
                 typeface = new Font.Typeface(typefaces[i].getAttribute("name"), typeface);
             }
         }
-        return new Font(typeface, style, size);
+        return Font.valueOf(typeface, style, size);
     }
 }
@@ -52,17 +52,17 @@ implements PropertyXmlPeer {
         switch (count) {
         case 1:
             Extent extent = ExtentPeer.toExtent(st.nextToken());
-            return new Insets(extent);
+            return Insets.valueOf(extent);
         case 2:
             Extent horizontal = ExtentPeer.toExtent(st.nextToken());
             Extent vertical = ExtentPeer.toExtent(st.nextToken());
-            return new Insets(horizontal, vertical);
+            return Insets.valueOf(horizontal, vertical);
         case 4:
             Extent left = ExtentPeer.toExtent(st.nextToken());
             Extent top = ExtentPeer.toExtent(st.nextToken());
             Extent right = ExtentPeer.toExtent(st.nextToken());
             Extent bottom = ExtentPeer.toExtent(st.nextToken());
-            return new Insets(left, top, right, bottom);
+            return Insets.valueOf(left, top, right, bottom);
         default:
             throw new InvalidPropertyException("Invalid Insets value: " + value, null); 
         }
@@ -519,7 +519,7 @@ public abstract class AbstractListComponent extends Component {
      * @param newValue the new rollover enabled state
      */
     public void setRolloverEnabled(boolean newValue) {
-        setProperty(PROPERTY_ROLLOVER_ENABLED, new Boolean(newValue));
+        setProperty(PROPERTY_ROLLOVER_ENABLED, Boolean.valueOf(newValue));
     }
     
     /**
@@ -0,0 +1,334 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.app.table;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import nextapp.echo2.app.event.TableModelEvent;
+import nextapp.echo2.app.event.TableModelListener;
+import nextapp.echo2.app.util.IntegerCache;
+
+/**
+ * A <code>RangeTableModel</code> adapter which caches the values of another
+ * <code>RangeTableModel</code> in fixed-size pages of rows, such that 
+ * cell-by-cell access to a database- or service-backed model does not incur
+ * a retrieval per cell.  The number of cached pages is bounded; the least 
+ * recently used page is discarded when the bound is exceeded.
+ * <p>
+ * Changes reported by the underlying model discard the affected pages and 
+ * are forwarded to listeners of the adapter.  Where the underlying data 
+ * changes without notification, <code>clear()</code> should be invoked.
+ */
+public class CachingTableModel extends AbstractTableModel 
+implements RangeTableModel {
+    
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_MAXIMUM_PAGE_COUNT = 10;
+    
+    /**
+     * A cached page of rows.
+     */
+    private static class Page {
+        
+        private Object[] values;
+        private int rowCount;
+    }
+    
+    private RangeTableModel model;
+    private int pageSize;
+    private int maximumPageCount;
+    private int columnCount = -1;
+    private int rowCount = -1;
+    private transient Map pageMap;
+    
+    /**
+     * Listener to monitor changes to the underlying model.
+     */
+    private TableModelListener modelListener = new TableModelListener() {
+        
+        /**
+         * @see nextapp.echo2.app.event.TableModelListener#tableChanged(nextapp.echo2.app.event.TableModelEvent)
+         */
+        public void tableChanged(TableModelEvent e) {
+            if (e == null) {
+                clear();
+                return;
+            }
+            switch (e.getType()) {
+            case TableModelEvent.UPDATE:
+                if (e.getLastRow() == Integer.MAX_VALUE) {
+                    // Entire table updated, row count may have changed.
+                    rowCount = -1;
+                }
+                clearPages(e.getFirstRow(), e.getLastRow());
+                break;
+            case TableModelEvent.INSERT:
+            case TableModelEvent.DELETE:
+                // Rows following the change are shifted.
+                rowCount = -1;
+                clearPages(e.getFirstRow(), Integer.MAX_VALUE);
+                break;
+            default:
+                discardPages();
+            }
+            fireTableChanged(new TableModelEvent(CachingTableModel.this, e.getColumn(), e.getFirstRow(), 
+                    e.getLastRow(), e.getType()));
+        }
+    };
+    
+    /**
+     * Creates a new <code>CachingTableModel</code> with the default page size
+     * and maximum page count.
+     * 
+     * @param model the underlying <code>RangeTableModel</code>
+     */
+    public CachingTableModel(RangeTableModel model) {
+        this(model, DEFAULT_PAGE_SIZE, DEFAULT_MAXIMUM_PAGE_COUNT);
+    }
+    
+    /**
+     * Creates a new <code>CachingTableModel</code>.
+     * 
+     * @param model the underlying <code>RangeTableModel</code>
+     * @param pageSize the number of rows retrieved and cached as a page
+     * @param maximumPageCount the maximum number of pages to cache
+     */
+    public CachingTableModel(RangeTableModel model, int pageSize, int maximumPageCount) {
+        super();
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        if (maximumPageCount < 1) {
+            throw new IllegalArgumentException("Maximum page count must be at least 1.");
+        }
+        this.model = model;
+        this.pageSize = pageSize;
+        this.maximumPageCount = maximumPageCount;
+        model.addTableModelListener(modelListener);
+    }
+    
+    /**
+     * Discards all cached pages and notifies listeners that the content of 
+     * the table may have changed.  This method should be invoked when the 
+     * data of the underlying model changes without notification.
+     */
+    public void clear() {
+        discardPages();
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Discards cached pages containing any of the specified rows.
+     * 
+     * @param firstRow the index of the first row
+     * @param lastRow the index of the last row
+     */
+    private void clearPages(int firstRow, int lastRow) {
+        if (pageMap == null) {
+            return;
+        }
+        int firstPage = Math.max(0, firstRow) / pageSize;
+        int lastPage = lastRow / pageSize;
+        Iterator it = pageMap.keySet().iterator();
+        while (it.hasNext()) {
+            int pageIndex = ((Integer) it.next()).intValue();
+            if (pageIndex >= firstPage && pageIndex <= lastPage) {
+                it.remove();
+            }
+        }
+    }
+    
+    /**
+     * Discards all cached pages and the cached row and column counts.
+     */
+    private void discardPages() {
+        rowCount = -1;
+        columnCount = -1;
+        pageMap = null;
+    }
+    
+    /**
+     * @see nextapp.echo2.app.table.TableModel#getColumnClass(int)
+     */
+    public Class getColumnClass(int column) {
+        return model.getColumnClass(column);
+    }
+
+    /**
+     * @see nextapp.echo2.app.table.TableModel#getColumnCount()
+     */
+    public int getColumnCount() {
+        if (columnCount == -1) {
+            columnCount = model.getColumnCount();
+        }
+        return columnCount;
+    }
+
+    /**
+     * @see nextapp.echo2.app.table.TableModel#getColumnName(int)
+     */
+    public String getColumnName(int column) {
+        return model.getColumnName(column);
+    }
+    
+    /**
+     * Returns the exact row count once it has been determined, otherwise
+     * the estimate of the underlying model.
+     * 
+     * @see nextapp.echo2.app.table.RangeTableModel#getEstimatedRowCount()
+     */
+    public int getEstimatedRowCount() {
+        return rowCount == -1 ? model.getEstimatedRowCount() : rowCount;
+    }
+    
+    /**
+     * Returns the maximum number of cached pages.
+     * 
+     * @return the maximum page count
+     */
+    public int getMaximumPageCount() {
+        return maximumPageCount;
+    }
+    
+    /**
+     * Returns the underlying <code>RangeTableModel</code>.
+     * 
+     * @return the underlying model
+     */
+    public RangeTableModel getModel() {
+        return model;
+    }
+    
+    /**
+     * Returns the specified page, retrieving it from the underlying model 
+     * if it is not cached.
+     * 
+     * @param pageIndex the page index
+     * @return the page
+     */
+    private Page getPage(int pageIndex) {
+        if (pageMap == null) {
+            pageMap = new LinkedHashMap(maximumPageCount * 2, 0.75f, true) {
+                
+                /**
+                 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+                 */
+                protected boolean removeEldestEntry(Map.Entry eldest) {
+                    return size() > maximumPageCount;
+                }
+            };
+        }
+        Integer key = IntegerCache.valueOf(pageIndex);
+        Page page = (Page) pageMap.get(key);
+        if (page == null) {
+            page = new Page();
+            page.values = new Object[pageSize * getColumnCount()];
+            page.rowCount = model.getValuesAt(pageIndex * pageSize, pageSize, page.values);
+            if (page.rowCount == 0 && pageIndex > 0) {
+                // Page lies beyond the end of the model, whose position is unknown: such pages are not cached, 
+                // such that they do not displace pages containing rows.
+                return page;
+            }
+            if (page.rowCount < pageSize && rowCount == -1) {
+                // End of model reached within the page.
+                rowCount = pageIndex * pageSize + page.rowCount;
+            }
+            pageMap.put(key, page);
+        }
+        return page;
+    }
+    
+    /**
+     * Returns the number of cached pages.
+     * 
+     * @return the cached page count
+     */
+    public int getPageCount() {
+        return pageMap == null ? 0 : pageMap.size();
+    }
+    
+    /**
+     * Returns the number of rows retrieved and cached as a page.
+     * 
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns the row count of the underlying model, which is cached until
+     * the model reports a change.
+     * 
+     * @see nextapp.echo2.app.table.TableModel#getRowCount()
+     */
+    public int getRowCount() {
+        if (rowCount == -1) {
+            rowCount = model.getRowCount();
+        }
+        return rowCount;
+    }
+
+    /**
+     * @see nextapp.echo2.app.table.TableModel#getValueAt(int, int)
+     */
+    public Object getValueAt(int column, int row) {
+        Page page = getPage(row / pageSize);
+        int pageRow = row % pageSize;
+        if (pageRow >= page.rowCount) {
+            return null;
+        }
+        return page.values[pageRow * getColumnCount() + column];
+    }
+
+    /**
+     * @see nextapp.echo2.app.table.RangeTableModel#getValuesAt(int, int, java.lang.Object[])
+     */
+    public int getValuesAt(int firstRow, int count, Object[] buffer) {
+        int valuesPerRow = getColumnCount();
+        int retrievedRowCount = 0;
+        while (retrievedRowCount < count) {
+            int row = firstRow + retrievedRowCount;
+            Page page = getPage(row / pageSize);
+            int pageRow = row % pageSize;
+            int pageRowCount = Math.min(count - retrievedRowCount, page.rowCount - pageRow);
+            if (pageRowCount <= 0) {
+                // End of model reached.
+                break;
+            }
+            System.arraycopy(page.values, pageRow * valuesPerRow, buffer, retrievedRowCount * valuesPerRow, 
+                    pageRowCount * valuesPerRow);
+            retrievedRowCount += pageRowCount;
+        }
+        return retrievedRowCount;
+    }
+}
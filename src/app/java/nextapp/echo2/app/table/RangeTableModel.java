@@ -0,0 +1,73 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.app.table;
+
+/**
+ * A <code>TableModel</code> which is capable of retrieving the values of a
+ * range of rows in a single operation, e.g., a model backed by a database 
+ * query or remote service where each retrieval incurs a round trip.
+ * A <code>Table</code> rendering such a model will retrieve the values of
+ * its rendered rows through <code>getValuesAt()</code> rather than 
+ * invoking <code>getValueAt()</code> once per cell.
+ * 
+ * @see CachingTableModel
+ */
+public interface RangeTableModel 
+extends TableModel {
+    
+    /**
+     * Returns an estimate of the number of rows in the table, which may be 
+     * determined without the expense of an exact count (e.g., from database
+     * statistics).  A virtual scrolling <code>Table</code> uses the estimate
+     * in place of <code>getRowCount()</code> to size its scrollable area, 
+     * discovering the actual end of the model when 
+     * <code>getValuesAt()</code> retrieves fewer rows than requested.
+     * Estimates should therefore not understate the row count.
+     * 
+     * @return the estimated row count, or -1 if no estimate is available
+     */
+    public int getEstimatedRowCount();
+    
+    /**
+     * Retrieves the values of a range of rows into a buffer.
+     * Values are stored in row-major order, i.e., the value at a given 
+     * column and row is stored at index
+     * <code>(row - firstRow) * getColumnCount() + column</code>.
+     * 
+     * @param firstRow the index of the first row to retrieve (0-based)
+     * @param rowCount the number of rows to retrieve
+     * @param buffer the buffer into which values should be stored, 
+     *        containing at least <code>rowCount * getColumnCount()</code>
+     *        elements
+     * @return the number of rows actually retrieved, which will be less than
+     *         <code>rowCount</code> if the end of the model was reached
+     */
+    public int getValuesAt(int firstRow, int rowCount, Object[] buffer);
+}
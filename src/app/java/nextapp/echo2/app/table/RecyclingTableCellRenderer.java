@@ -0,0 +1,71 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.app.table;
+
+import nextapp.echo2.app.Component;
+import nextapp.echo2.app.Table;
+
+/**
+ * A <code>TableCellRenderer</code> which may update a previously rendered
+ * component in place, rather than creating a new component each time a
+ * cell is rendered.
+ * <p>
+ * When a <code>Table</code> re-renders a cell, it provides the component
+ * previously displayed in the same cell, or, if the cell was not previously
+ * rendered (e.g., the rendered rows of a virtual scrolling table changed),
+ * a no-longer-displayed component from the same column.  As properties
+ * set to values equal to their current values do not generate updates,
+ * a refresh in which most values are unchanged produces very few updates 
+ * to the client.
+ */
+public interface RecyclingTableCellRenderer 
+extends TableCellRenderer {
+    
+    /**
+     * Updates a previously rendered component to display the specified 
+     * coordinate of the table.
+     * 
+     * @param table the <code>Table</code> for which the rendering is occurring
+     * @param component the previously rendered component (this component was
+     *        not necessarily created by this renderer, e.g., the 
+     *        <code>Table</code> substitutes an empty <code>Label</code> for
+     *        null components, and should be inspected to determine if it 
+     *        may be updated)
+     * @param value the value retrieved from the <code>TableModel</code> for the
+     *        specified coordinate
+     * @param column the column index to render
+     * @param row the row index to render
+     * @return true if the component was updated, or false if it cannot be 
+     *         updated, in which case 
+     *         <code>getTableCellRendererComponent()</code> will be invoked
+     *         to create a new component
+     */
+    public boolean updateTableCellRendererComponent(Table table, Component component, Object value, int column, int row);
+}
@@ -43,6 +43,7 @@ import nextapp.echo2.app.event.ActionEvent;
 import nextapp.echo2.app.event.ActionListener;
 import nextapp.echo2.app.event.DocumentEvent;
 import nextapp.echo2.app.event.DocumentListener;
+import nextapp.echo2.app.util.IntegerCache;
 
 /**
  * Abstract base class for text-entry components.
@@ -496,7 +497,7 @@ extends Component {
         if (newValue < 0) {
             setProperty(PROPERTY_MAXIMUM_LENGTH, null);
         } else {
-            setProperty(PROPERTY_MAXIMUM_LENGTH, new Integer(newValue));
+            setProperty(PROPERTY_MAXIMUM_LENGTH, IntegerCache.valueOf(newValue));
         }
     }
     
@@ -31,12 +31,11 @@ package nextapp.echo2.app.update;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 import nextapp.echo2.app.ApplicationInstance;
 import nextapp.echo2.app.Command;
@@ -49,45 +48,20 @@ import nextapp.echo2.app.Component;
 public class ServerUpdateManager
 implements Serializable {
 
-    /**
-     * <code>Comparator</code> to sort components by their depth in the 
-     * hierarchy.
-     */
-    private static final Comparator hierarchyDepthUpdateComparator = new Comparator() {
-
-        /**
-         * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
-         */
-        public int compare(Object a, Object b) {
-            return getDepth(((ServerComponentUpdate) a).getParent()) - getDepth(((ServerComponentUpdate) b).getParent());
-        }
-        
-        /**
-         * @see java.lang.Object#equals(java.lang.Object)
-         */
-        public boolean equals(Object o) {
-            return false;
-        }
-        
-        /**
-         * Returns the depth of the specified component in the hierarchy.
-         * 
-         * @param component the component
-         * @return the depth
-         */
-        private int getDepth(Component component) {
-            int count = 0;
-            while (component != null) {
-                component = component.getParent();
-                ++count;
-            }
-            return count;
-        }
-    };
-    
     private Map applicationUpdateMap;
     private ArrayList commands;
     private Map componentUpdateMap;
+    
+    /**
+     * The set of components which have been recorded as added children by 
+     * any <code>ServerComponentUpdate</code>.  Used to avoid ancestry
+     * searches when no components are being added, and to test ancestors
+     * without retrieving their updates.  May contain components whose 
+     * addition was since cancelled, thus membership is confirmed against
+     * the parent's update.
+     */
+    private Set addedComponents;
+    
     private ServerComponentUpdate fullRefreshUpdate;
     private ClientUpdateManager clientUpdateManager;
     private ApplicationInstance applicationInstance;
@@ -107,6 +81,7 @@ implements Serializable {
         applicationUpdateMap = new HashMap();
         commands = new ArrayList();
         componentUpdateMap = new HashMap();
+        addedComponents = new HashSet();
         fullRefreshUpdate = new ServerComponentUpdate(null);
     }
     
@@ -174,11 +149,8 @@ implements Serializable {
         if (isFullRefreshRequired()) {
             return new ServerComponentUpdate[]{fullRefreshUpdate};
         } else {
-            Collection hierarchyUpdates = componentUpdateMap.values();
-            ServerComponentUpdate[] serverComponentUpdates = (ServerComponentUpdate[])
-                     hierarchyUpdates.toArray(new ServerComponentUpdate[hierarchyUpdates.size()]);
-            Arrays.sort(serverComponentUpdates, hierarchyDepthUpdateComparator);
-            return serverComponentUpdates;
+            return sortByDepth((ServerComponentUpdate[]) componentUpdateMap.values().toArray(
+                    new ServerComponentUpdate[componentUpdateMap.size()]));
         }
     }
     
@@ -200,12 +172,15 @@ implements Serializable {
      * @return true if an ancestor of the component is being added
      */
     private boolean isAncestorBeingAdded(Component component) {
+        if (addedComponents.isEmpty()) {
+            return false;
+        }
         Component child = component;
         Component parent = component.getParent();
         while (parent != null) {
-            ServerComponentUpdate update = (ServerComponentUpdate) componentUpdateMap.get(parent);
-            if (update != null) {
-                if (update.hasAddedChild(child)) {
+            if (addedComponents.contains(child)) {
+                ServerComponentUpdate update = (ServerComponentUpdate) componentUpdateMap.get(parent);
+                if (update != null && update.hasAddedChild(child)) {
                     return true;
                 }
             }
@@ -270,6 +245,7 @@ implements Serializable {
         
         ServerComponentUpdate update = createComponentUpdate(parent);
         update.addChild(child);
+        addedComponents.add(child);
     }
     
     /**
@@ -357,18 +333,16 @@ implements Serializable {
         }
         ServerComponentUpdate update = createComponentUpdate(parent);
         update.removeChild(child);
+        addedComponents.remove(child);
         
-        // Search updated components for descendants of removed component.
-        // Any found descendants will be removed and added to this update's 
-        // list of removed descendants.
-        Iterator it = componentUpdateMap.keySet().iterator();
-        while (it.hasNext()) {
-            Component testComponent = (Component) it.next();
-            if (child.isAncestorOf(testComponent)) {
-                ServerComponentUpdate childUpdate = (ServerComponentUpdate) componentUpdateMap.get(testComponent);
-                update.appendRemovedDescendants(childUpdate);
-                it.remove();
-            }
+        // Search removed component and its descendants for updated components.
+        // Any found updates will be removed and their removed children and 
+        // descendants added to this update's list of removed descendants.
+        // The removed hierarchy is searched rather than the set of updated 
+        // components, as the hierarchy has already been traversed by 
+        // removeChild(), and the number of updates may be arbitrarily large.
+        if (componentUpdateMap.size() > 1) {
+            removeDescendantUpdates(update, child);
         }
     }
     
@@ -412,6 +386,64 @@ implements Serializable {
             fullRefreshUpdate.appendRemovedDescendants(childUpdate);
             it.remove();
         }
+        addedComponents.clear();
+    }
+    
+    /**
+     * Recursively removes the <code>ServerComponentUpdate</code>s of the 
+     * specified component and its descendants, appending their removed 
+     * children and descendants to the specified ancestor update.
+     * 
+     * @param ancestorUpdate the update of the parent of the removed 
+     *        component
+     * @param component the removed component or one of its descendants
+     */
+    private void removeDescendantUpdates(ServerComponentUpdate ancestorUpdate, Component component) {
+        ServerComponentUpdate update = (ServerComponentUpdate) componentUpdateMap.remove(component);
+        if (update != null) {
+            ancestorUpdate.appendRemovedDescendants(update);
+        }
+        int count = component.getComponentCount();
+        for (int i = 0; i < count; ++i) {
+            removeDescendantUpdates(ancestorUpdate, component.getComponent(i));
+        }
+    }
+    
+    /**
+     * Sorts <code>ServerComponentUpdate</code>s by the depth of their parent
+     * components in the hierarchy, using a single counting pass over 
+     * depth buckets.  Updates of equal depth retain their relative order.
+     * 
+     * @param updates the updates to sort
+     * @return the sorted updates
+     */
+    private static ServerComponentUpdate[] sortByDepth(ServerComponentUpdate[] updates) {
+        if (updates.length < 2) {
+            return updates;
+        }
+        int[] depths = new int[updates.length];
+        int maximumDepth = 0;
+        for (int i = 0; i < updates.length; ++i) {
+            depths[i] = updates[i].getParent().getDepth();
+            if (depths[i] > maximumDepth) {
+                maximumDepth = depths[i];
+            }
+        }
+        
+        // Determine the index of the first update of each depth.
+        int[] bucketIndices = new int[maximumDepth + 2];
+        for (int i = 0; i < depths.length; ++i) {
+            ++bucketIndices[depths[i] + 1];
+        }
+        for (int i = 1; i < bucketIndices.length; ++i) {
+            bucketIndices[i] += bucketIndices[i - 1];
+        }
+        
+        ServerComponentUpdate[] sortedUpdates = new ServerComponentUpdate[updates.length];
+        for (int i = 0; i < updates.length; ++i) {
+            sortedUpdates[bucketIndices[depths[i]]++] = updates[i];
+        }
+        return sortedUpdates;
     }
     
     /**
@@ -422,6 +454,7 @@ implements Serializable {
     void purge() {
         applicationUpdateMap.clear();
         componentUpdateMap.clear();
+        addedComponents.clear();
         commands.clear();
         fullRefreshUpdate = null;
     }
@@ -0,0 +1,407 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.app.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.app.Component;
+
+/**
+ * A diagnostic utility which estimates the memory retained by the 
+ * <code>Component</code> hierarchy of an <code>ApplicationInstance</code>,
+ * reporting instance counts and retained bytes per <code>Component</code>
+ * class.
+ * <p>
+ * The bytes retained by a <code>Component</code> are estimated by 
+ * reflectively traversing the object graph reachable from it, stopping at
+ * other <code>Component</code>s and at the <code>ApplicationInstance</code>.
+ * Objects reachable from multiple <code>Component</code>s (e.g., shared
+ * styles or canonical property values) are attributed only to the first 
+ * <code>Component</code> encountered in a depth-first traversal of the 
+ * hierarchy.  Object sizes are estimated using the layout of a typical
+ * 32-bit virtual machine.  Fields which cannot be made accessible are not
+ * traversed.
+ * <p>
+ * This class is intended for capacity planning and debugging purposes only;
+ * a report should not be created while the <code>ApplicationInstance</code>
+ * is being modified.
+ */
+public class FootprintReport {
+    
+    /** Estimated size of an object header, in bytes. */
+    private static final int OBJECT_HEADER_SIZE = 8;
+    
+    /** Estimated size of an array header, in bytes. */
+    private static final int ARRAY_HEADER_SIZE = 12;
+    
+    /** Estimated size of an object reference, in bytes. */
+    private static final int REFERENCE_SIZE = 4;
+    
+    /** Alignment of objects in memory, in bytes. */
+    private static final int ALIGNMENT = 8;
+    
+    /**
+     * Cached layout information about a class.
+     */
+    private static class ClassLayout {
+        
+        /** The estimated shallow size of instances, in bytes. */
+        private int size;
+        
+        /** The non-static, non-primitive fields of the class. */
+        private Field[] referenceFields;
+    }
+    
+    /**
+     * Report data for a single <code>Component</code> class.
+     */
+    private static class Entry {
+        
+        private Class componentClass;
+        private int instanceCount;
+        private long retainedBytes;
+    }
+    
+    /**
+     * Rounds the specified size up to the object alignment boundary.
+     * 
+     * @param size the size, in bytes
+     * @return the aligned size
+     */
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+    }
+    
+    /**
+     * Returns the estimated size of a field or array element of the 
+     * specified type.
+     * 
+     * @param type the type
+     * @return the size, in bytes
+     */
+    private static int getTypeSize(Class type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        } else {
+            return REFERENCE_SIZE;
+        }
+    }
+
+    /** Mapping between classes and <code>ClassLayout</code>s. */
+    private Map classToLayout = new HashMap();
+    
+    /** Mapping between <code>Component</code> classes and <code>Entry</code>s. */
+    private Map classToEntry = new HashMap();
+    
+    /** Identity set of objects which have been measured. */
+    private Map visited = new IdentityHashMap();
+    
+    /** The total number of bytes retained by all <code>Component</code>s. */
+    private long totalBytes;
+    
+    /**
+     * Creates a new <code>FootprintReport</code> describing the 
+     * <code>Component</code> hierarchy of the specified
+     * <code>ApplicationInstance</code>.
+     * 
+     * @param applicationInstance the <code>ApplicationInstance</code> to 
+     *        measure
+     */
+    public FootprintReport(ApplicationInstance applicationInstance) {
+        super();
+        Component defaultWindow = applicationInstance.getDefaultWindow();
+        if (defaultWindow != null) {
+            measureHierarchy(defaultWindow);
+        }
+    }
+    
+    /**
+     * Creates a new <code>FootprintReport</code> describing the specified
+     * <code>Component</code> and its descendants.
+     * 
+     * @param component the root <code>Component</code> to measure
+     */
+    public FootprintReport(Component component) {
+        super();
+        measureHierarchy(component);
+    }
+    
+    /**
+     * Returns the <code>Component</code> classes present in the hierarchy,
+     * in descending order of total retained bytes.
+     * 
+     * @return the <code>Component</code> classes
+     */
+    public Class[] getComponentClasses() {
+        Entry[] entries = getSortedEntries();
+        Class[] componentClasses = new Class[entries.length];
+        for (int i = 0; i < entries.length; ++i) {
+            componentClasses[i] = entries[i].componentClass;
+        }
+        return componentClasses;
+    }
+    
+    /**
+     * Returns the number of instances of the specified <code>Component</code>
+     * class present in the hierarchy.  Instances of subclasses are not 
+     * included.
+     * 
+     * @param componentClass the <code>Component</code> class
+     * @return the number of instances
+     */
+    public int getInstanceCount(Class componentClass) {
+        Entry entry = (Entry) classToEntry.get(componentClass);
+        return entry == null ? 0 : entry.instanceCount;
+    }
+    
+    /**
+     * Returns <code>ClassLayout</code> information for the specified class,
+     * creating it if required.
+     * 
+     * @param clazz the class
+     * @return the <code>ClassLayout</code>
+     */
+    private ClassLayout getLayout(Class clazz) {
+        ClassLayout layout = (ClassLayout) classToLayout.get(clazz);
+        if (layout == null) {
+            layout = new ClassLayout();
+            long size = OBJECT_HEADER_SIZE;
+            List referenceFieldList = new ArrayList();
+            for (Class currentClass = clazz; currentClass != null; currentClass = currentClass.getSuperclass()) {
+                Field[] fields = currentClass.getDeclaredFields();
+                for (int i = 0; i < fields.length; ++i) {
+                    if (Modifier.isStatic(fields[i].getModifiers())) {
+                        continue;
+                    }
+                    Class type = fields[i].getType();
+                    size += getTypeSize(type);
+                    if (!type.isPrimitive()) {
+                        try {
+                            fields[i].setAccessible(true);
+                            referenceFieldList.add(fields[i]);
+                        } catch (RuntimeException ex) {
+                            // Field cannot be made accessible: do not traverse.
+                        }
+                    }
+                }
+            }
+            layout.size = (int) align(size);
+            layout.referenceFields = (Field[]) referenceFieldList.toArray(new Field[referenceFieldList.size()]);
+            classToLayout.put(clazz, layout);
+        }
+        return layout;
+    }
+    
+    /**
+     * Returns the estimated number of bytes retained by instances of the 
+     * specified <code>Component</code> class.  Instances of subclasses are
+     * not included.
+     * 
+     * @param componentClass the <code>Component</code> class
+     * @return the retained bytes
+     */
+    public long getRetainedBytes(Class componentClass) {
+        Entry entry = (Entry) classToEntry.get(componentClass);
+        return entry == null ? 0 : entry.retainedBytes;
+    }
+    
+    /**
+     * Returns the report entries in descending order of retained bytes.
+     * 
+     * @return the entries
+     */
+    private Entry[] getSortedEntries() {
+        Entry[] entries = (Entry[]) classToEntry.values().toArray(new Entry[classToEntry.size()]);
+        Arrays.sort(entries, new Comparator() {
+        
+            /**
+             * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+             */
+            public int compare(Object o1, Object o2) {
+                long difference = ((Entry) o2).retainedBytes - ((Entry) o1).retainedBytes;
+                if (difference != 0) {
+                    return difference < 0 ? -1 : 1;
+                }
+                return ((Entry) o1).componentClass.getName().compareTo(((Entry) o2).componentClass.getName());
+            }
+        });
+        return entries;
+    }
+    
+    /**
+     * Returns the estimated total number of bytes retained by all
+     * <code>Component</code>s in the hierarchy.
+     * 
+     * @return the total retained bytes
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * Determines whether the traversal of the object graph should stop at 
+     * the specified object, i.e., whether it should not be attributed to the
+     * <code>Component</code> currently being measured.
+     * 
+     * @param component the <code>Component</code> being measured
+     * @param value the object
+     * @return true if the object should not be measured
+     */
+    private boolean isBoundary(Component component, Object value) {
+        return (value instanceof Component && value != component)
+                || value instanceof ApplicationInstance
+                || value instanceof Class
+                || value instanceof ClassLoader
+                || value instanceof Thread;
+    }
+    
+    /**
+     * Estimates the number of bytes retained by a single 
+     * <code>Component</code>, excluding its descendants and any objects 
+     * already measured.
+     * 
+     * @param component the <code>Component</code>
+     * @return the retained bytes
+     */
+    private long measure(Component component) {
+        long size = 0;
+        List stack = new ArrayList();
+        stack.add(component);
+        while (!stack.isEmpty()) {
+            Object value = stack.remove(stack.size() - 1);
+            if (visited.put(value, Boolean.TRUE) != null) {
+                continue;
+            }
+            Class clazz = value.getClass();
+            if (clazz.isArray()) {
+                int length = Array.getLength(value);
+                Class componentType = clazz.getComponentType();
+                size += align(ARRAY_HEADER_SIZE + (long) length * getTypeSize(componentType));
+                if (!componentType.isPrimitive()) {
+                    Object[] array = (Object[]) value;
+                    for (int i = 0; i < length; ++i) {
+                        if (array[i] != null && !isBoundary(component, array[i])) {
+                            stack.add(array[i]);
+                        }
+                    }
+                }
+            } else if (value instanceof String) {
+                // Measured directly, as the internal fields of String may not be accessible.
+                size += getLayout(clazz).size + align(ARRAY_HEADER_SIZE + 2L * ((String) value).length());
+            } else {
+                ClassLayout layout = getLayout(clazz);
+                size += layout.size;
+                for (int i = 0; i < layout.referenceFields.length; ++i) {
+                    Object fieldValue;
+                    try {
+                        fieldValue = layout.referenceFields[i].get(value);
+                    } catch (IllegalAccessException ex) {
+                        continue;
+                    }
+                    if (fieldValue != null && !isBoundary(component, fieldValue)) {
+                        stack.add(fieldValue);
+                    }
+                }
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Measures the specified <code>Component</code> and its descendants,
+     * adding the results to the report.
+     * 
+     * @param component the <code>Component</code>
+     */
+    private void measureHierarchy(Component component) {
+        long size = measure(component);
+        Entry entry = (Entry) classToEntry.get(component.getClass());
+        if (entry == null) {
+            entry = new Entry();
+            entry.componentClass = component.getClass();
+            classToEntry.put(component.getClass(), entry);
+        }
+        ++entry.instanceCount;
+        entry.retainedBytes += size;
+        totalBytes += size;
+        
+        Component[] children = component.getComponents();
+        for (int i = 0; i < children.length; ++i) {
+            measureHierarchy(children[i]);
+        }
+    }
+    
+    /**
+     * Renders the report as a table, listing each <code>Component</code>
+     * class with its instance count, total retained bytes, and average 
+     * retained bytes per instance.
+     * 
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        StringBuffer out = new StringBuffer();
+        int instanceCount = 0;
+        Entry[] entries = getSortedEntries();
+        for (int i = 0; i < entries.length; ++i) {
+            out.append(entries[i].componentClass.getName());
+            out.append(": ");
+            out.append(entries[i].instanceCount);
+            out.append(" instances, ");
+            out.append(entries[i].retainedBytes);
+            out.append(" bytes (");
+            out.append(entries[i].retainedBytes / entries[i].instanceCount);
+            out.append(" bytes/instance)\n");
+            instanceCount += entries[i].instanceCount;
+        }
+        out.append("Total: ");
+        out.append(instanceCount);
+        out.append(" instances, ");
+        out.append(totalBytes);
+        out.append(" bytes\n");
+        return out.toString();
+    }
+}
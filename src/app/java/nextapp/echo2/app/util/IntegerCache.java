@@ -0,0 +1,70 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.app.util;
+
+/**
+ * Provides canonical <code>Integer</code> instances for commonly used 
+ * values, such that setting integer properties and firing property change
+ * events does not allocate new objects.
+ */
+public class IntegerCache {
+
+    /** The lowest cached value. */
+    private static final int LOW = -128;
+    
+    /** The highest cached value. */
+    private static final int HIGH = 1023;
+    
+    private static final Integer[] cache = new Integer[HIGH - LOW + 1];
+    static {
+        for (int i = 0; i < cache.length; ++i) {
+            cache[i] = new Integer(LOW + i);
+        }
+    }
+    
+    /**
+     * Returns an <code>Integer</code> representing the specified value.
+     * A canonical instance is returned for values between -128 and 1023,
+     * inclusive; a new instance is created for other values.
+     * 
+     * @param value the value
+     * @return the <code>Integer</code>
+     */
+    public static Integer valueOf(int value) {
+        if (value >= LOW && value <= HIGH) {
+            return cache[value - LOW];
+        }
+        return new Integer(value);
+    }
+    
+    /** Non-instantiable class. */
+    private IntegerCache() { }
+}
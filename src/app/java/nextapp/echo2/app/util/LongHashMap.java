@@ -0,0 +1,210 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.app.util;
+
+import java.io.Serializable;
+
+/**
+ * A hash table mapping primitive <code>long</code> keys to non-null
+ * object values.
+ * Keys are stored in a primitive array using open addressing with linear
+ * probing, such that storing and retrieving values does not require 
+ * allocating key objects or per-entry objects.
+ * This class is not thread-safe.
+ */
+public class LongHashMap 
+implements Serializable {
+    
+    /** The default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    /**
+     * Returns the hash slot of the specified key in a table with the 
+     * specified mask.
+     * 
+     * @param key the key
+     * @param mask the table mask (the table length minus one)
+     * @return the slot index
+     */
+    private static int hash(long key, int mask) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    
+    /**
+     * Creates a new <code>LongHashMap</code>.
+     */
+    public LongHashMap() {
+        super();
+        keys = new long[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+    }
+    
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        keys = new long[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+        size = 0;
+    }
+    
+    /**
+     * Determines whether a value is stored for the specified key.
+     * 
+     * @param key the key
+     * @return true if a value is stored
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+    
+    /**
+     * Returns the value stored for the specified key.
+     * 
+     * @param key the key
+     * @return the value, or null if none is stored
+     */
+    public Object get(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+    
+    /**
+     * Stores a value for the specified key, replacing any existing value.
+     * 
+     * @param key the key
+     * @param value the value (may not be null)
+     * @return the previously stored value, or null if none was stored
+     */
+    public Object put(long key, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot store null value.");
+        }
+        int mask = keys.length - 1;
+        int index = hash(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                Object oldValue = values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        ++size;
+        if (size * 3 > keys.length * 2) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+    
+    /**
+     * Removes the value stored for the specified key.
+     * 
+     * @param key the key
+     * @return the removed value, or null if none was stored
+     */
+    public Object remove(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                Object oldValue = values[index];
+                --size;
+                
+                // Shift subsequent entries of the probe sequence back into the vacated slot.
+                int emptyIndex = index;
+                index = (index + 1) & mask;
+                while (values[index] != null) {
+                    int homeIndex = hash(keys[index], mask);
+                    if (((index - homeIndex) & mask) >= ((index - emptyIndex) & mask)) {
+                        keys[emptyIndex] = keys[index];
+                        values[emptyIndex] = values[index];
+                        emptyIndex = index;
+                    }
+                    index = (index + 1) & mask;
+                }
+                values[emptyIndex] = null;
+                return oldValue;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+    
+    /**
+     * Rehashes all entries into tables of the specified capacity.
+     * 
+     * @param capacity the new capacity (a power of two)
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; ++i) {
+            if (oldValues[i] != null) {
+                int index = hash(oldKeys[i], mask);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of stored entries.
+     * 
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+}
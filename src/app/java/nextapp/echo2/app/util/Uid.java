@@ -30,38 +30,83 @@
 package nextapp.echo2.app.util;
 
 /**
- * A unique identifier.
+ * A generator of unique identifiers.
+ * <p>
+ * Identifiers consist of a prefix identifying the virtual machine instance,
+ * derived from its start time and a machine-specific hash, followed by an
+ * underscore and a sequence number.  Both components are rendered in base 36,
+ * such that identifiers contain only lowercase ASCII letters, digits, and
+ * underscores, and are safe for use in URLs and element ids.
+ * <p>
+ * Identifiers may be generated concurrently by any number of threads.
+ * To avoid contention, sequence numbers are allocated to each thread in 
+ * blocks, such that synchronization is only required when a thread 
+ * exhausts its current block.
  */
 public class Uid {
+    
+    /** The number of sequence numbers allocated to a thread at once. */
+    private static final int BLOCK_SIZE = 256;
 
-    private static final String machineIdString = Integer.toHexString(new Object().hashCode());
-    private static int globalCount = 0;
+    /** Index of the next available sequence number within a block. */
+    private static final int NEXT = 0;
     
-    private final int count = ++globalCount;
-    private final long time = System.currentTimeMillis();
+    /** Index of the sequence number following the last within a block. */
+    private static final int LIMIT = 1;
     
-    /**
-     * Generates a new identifier String.
-     */
-    public static final String generateUidString() {
-        String idString = new Uid().toString();
-        return idString;
+    /** The virtual machine instance-specific identifier prefix. */
+    private static final String prefix;
+    static {
+        long time = System.currentTimeMillis();
+        int machineHash = new Object().hashCode() & 0xffff;
+        prefix = Long.toString(((time << 16) | machineHash) & Long.MAX_VALUE, Character.MAX_RADIX) + "_";
     }
-
+    
+    /** 
+     * The first sequence number which has not been allocated to any block.
+     * Guarded by the <code>Uid</code> class.
+     */
+    private static long nextBlockStart = 0;
+    
+    /** 
+     * The block of sequence numbers allocated to each thread, stored as a 
+     * <code>long[2]</code> of the next available sequence number and the 
+     * limit of the block.  Neither the <code>ThreadLocal</code> nor its 
+     * values are instances of application classes, such that pooled 
+     * container threads do not retain the application's 
+     * <code>ClassLoader</code> after it is undeployed.
+     */
+    private static final ThreadLocal threadBlock = new ThreadLocal();
+    
     /**
-     * Generates a new identifier.
+     * Allocates a new block of sequence numbers.
+     * 
+     * @param block the block to which the sequence numbers should be 
+     *        allocated
      */
-    private Uid() {
-        super();
+    private static synchronized void allocate(long[] block) {
+        block[NEXT] = nextBlockStart;
+        nextBlockStart += BLOCK_SIZE;
+        block[LIMIT] = nextBlockStart;
     }
     
     /**
-     * @see java.lang.Object#toString()
+     * Generates a new identifier String.
+     * 
+     * @return the identifier
      */
-    public String toString() {
-        String timeString = Long.toHexString(time);
-        String countString = Integer.toHexString(count);
-        
-        return machineIdString + "_" + timeString + "_" + countString;
+    public static final String generateUidString() {
+        long[] block = (long[]) threadBlock.get();
+        if (block == null) {
+            block = new long[2];
+            threadBlock.set(block);
+        }
+        if (block[NEXT] == block[LIMIT]) {
+            allocate(block);
+        }
+        return prefix.concat(Long.toString(block[NEXT]++, Character.MAX_RADIX));
     }
+
+    /** Non-instantiable class. */
+    private Uid() { }
 }
@@ -0,0 +1,80 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.app.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A thread-safe cache of canonical instances of immutable value objects.
+ * Equal values are mapped to a single canonical instance, which is retained
+ * only as long as it is referenced elsewhere.
+ * The interned objects must implement <code>equals()</code> and 
+ * <code>hashCode()</code> consistently, and must not be modified once 
+ * interned.
+ */
+public class WeakInterner {
+    
+    /** 
+     * Mapping between canonical instances and <code>WeakReference</code>s
+     * to themselves. 
+     */
+    private Map canonicalMap = new WeakHashMap();
+    
+    /**
+     * Returns the canonical instance equal to the specified value, storing
+     * the specified value as the canonical instance if none exists.
+     * 
+     * @param value the value (may not be null)
+     * @return the canonical instance
+     */
+    public synchronized Object intern(Object value) {
+        WeakReference ref = (WeakReference) canonicalMap.get(value);
+        if (ref != null) {
+            Object canonicalValue = ref.get();
+            if (canonicalValue != null) {
+                return canonicalValue;
+            }
+        }
+        canonicalMap.put(value, new WeakReference(value));
+        return value;
+    }
+    
+    /**
+     * Returns the number of canonical instances currently stored.
+     * 
+     * @return the number of instances
+     */
+    public synchronized int size() {
+        return canonicalMap.size();
+    }
+}
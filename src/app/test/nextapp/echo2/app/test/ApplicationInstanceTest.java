@@ -29,10 +29,16 @@
 
 package nextapp.echo2.app.test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import nextapp.echo2.app.ApplicationInstance;
 import nextapp.echo2.app.Component;
 import nextapp.echo2.app.Label;
 import nextapp.echo2.app.Column;
+import nextapp.echo2.app.TaskQueueHandle;
 import nextapp.echo2.app.Window;
 import junit.framework.TestCase;
 
@@ -59,14 +65,21 @@ public class ApplicationInstanceTest extends TestCase {
     private class ValidatingLabel extends Label {
         
         boolean valid = false;
+        int validateCount = 0;
+        List validationOrder;
         
         public void invalidate() {
+            super.invalidate();
             valid = false;
         }
         
         public void validate() {
             super.validate();
             valid = true;
+            ++validateCount;
+            if (validationOrder != null) {
+                validationOrder.add(this);
+            }
         }
     }
     
@@ -120,6 +133,49 @@ public class ApplicationInstanceTest extends TestCase {
         ApplicationInstance.setActive(null);
     }
     
+    /**
+     * Test generation of render ids and retrieval of components by render id.
+     */
+    public void testRenderIds() {
+        ColumnApp columnApp = new ColumnApp();
+        ApplicationInstance.setActive(columnApp);
+        columnApp.doInit();
+        
+        Set ids = new HashSet();
+        for (int i = 0; i < 5000; ++i) {
+            String id = columnApp.generateId();
+            assertTrue(Character.isDigit(id.charAt(0)));
+            assertTrue(ids.add(id));
+        }
+        
+        Label generatedLabel = new Label();
+        Label customLabel = new Label();
+        customLabel.setRenderId("customLabel");
+        columnApp.getColumn().add(generatedLabel);
+        columnApp.getColumn().add(customLabel);
+        
+        String renderId = generatedLabel.getRenderId();
+        assertSame(generatedLabel, columnApp.getComponentByRenderId(renderId));
+        assertSame(generatedLabel, columnApp.getComponentByRenderId("c_" + renderId, 2));
+        assertSame(customLabel, columnApp.getComponentByRenderId("customLabel"));
+        assertSame(customLabel, columnApp.getComponentByRenderId("c_customLabel", 2));
+        assertNull(columnApp.getComponentByRenderId(renderId + "0"));
+        assertNull(columnApp.getComponentByRenderId(renderId.substring(0, 1) + "0" + renderId.substring(1)));
+        assertNull(columnApp.getComponentByRenderId(renderId.toUpperCase() + "Z"));
+        assertNull(columnApp.getComponentByRenderId(""));
+        
+        assertEquals("c_" + renderId, generatedLabel.getRenderId("c_"));
+        assertSame(generatedLabel.getRenderId("c_"), generatedLabel.getRenderId("c_"));
+        assertEquals("x_" + renderId, generatedLabel.getRenderId("x_"));
+        
+        columnApp.getColumn().remove(generatedLabel);
+        columnApp.getColumn().remove(customLabel);
+        assertNull(columnApp.getComponentByRenderId(renderId));
+        assertNull(columnApp.getComponentByRenderId("customLabel"));
+        
+        ApplicationInstance.setActive(null);
+    }
+    
     /**
      * Test component-application registration life-cycle methods, i.e.,
      * <code>Component.init()</code> / <code>Component.dispose()</code>.
@@ -208,4 +264,149 @@ public class ApplicationInstanceTest extends TestCase {
         
         ApplicationInstance.setActive(null);
     }
+    
+    /**
+     * Test that only invalidated components are validated after client
+     * update processing, in hierarchy order.
+     */
+    public void testValidationOfInvalidatedComponents() {
+        final ValidatingLabel label1 = new ValidatingLabel();
+        final ValidatingLabel label2 = new ValidatingLabel();
+        final ValidatingLabel label3 = new ValidatingLabel();
+        final Column column = new Column();
+        ColumnApp app = new ColumnApp() {
+            public Window init() {
+                Window window = super.init();
+                getColumn().add(label1);
+                getColumn().add(column);
+                column.add(label2);
+                column.add(label3);
+                return window;
+            }
+        };
+        ApplicationInstance.setActive(app);
+        app.doInit();
+        assertEquals(1, label1.validateCount);
+        assertEquals(1, label2.validateCount);
+        assertEquals(1, label3.validateCount);
+        
+        app.getUpdateManager().processClientUpdates();
+        assertEquals(1, label1.validateCount);
+        assertEquals(1, label2.validateCount);
+        assertEquals(1, label3.validateCount);
+        
+        List validationOrder = new ArrayList();
+        label1.validationOrder = validationOrder;
+        label2.validationOrder = validationOrder;
+        label3.validationOrder = validationOrder;
+        label3.invalidate();
+        label1.invalidate();
+        label2.invalidate();
+        app.getUpdateManager().processClientUpdates();
+        assertEquals(3, validationOrder.size());
+        assertSame(label1, validationOrder.get(0));
+        assertSame(label2, validationOrder.get(1));
+        assertSame(label3, validationOrder.get(2));
+        
+        // Test that invalidated components removed from the hierarchy are not validated.
+        label2.invalidate();
+        column.remove(label2);
+        app.getUpdateManager().processClientUpdates();
+        assertEquals(2, label2.validateCount);
+        
+        // Test that newly added components are validated.
+        ValidatingLabel label4 = new ValidatingLabel();
+        column.add(label4);
+        app.getUpdateManager().processClientUpdates();
+        assertEquals(1, label4.validateCount);
+        
+        ApplicationInstance.setActive(null);
+    }
+    
+    /**
+     * Test waiting for tasks to be enqueued from another thread.
+     */
+    public void testWaitForQueuedTasks() 
+    throws InterruptedException {
+        final HelloWorldApp app = new HelloWorldApp();
+        final TaskQueueHandle taskQueue = app.createTaskQueue();
+        
+        // Test timeout.
+        assertFalse(app.waitForQueuedTasks(10));
+        
+        // Test notification.
+        Thread producer = new Thread() {
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) { }
+                app.enqueueTask(taskQueue, new Runnable() {
+                    public void run() { }
+                });
+            }
+        };
+        producer.start();
+        long startTime = System.currentTimeMillis();
+        assertTrue(app.waitForQueuedTasks(10000));
+        assertTrue(System.currentTimeMillis() - startTime < 10000);
+        producer.join();
+        
+        // Test immediate return when tasks are queued.
+        assertTrue(app.waitForQueuedTasks(10000));
+        
+        app.removeTaskQueue(taskQueue);
+        assertFalse(app.hasQueuedTasks());
+    }
+    
+    /**
+     * Test enqueuing tasks from multiple threads into multiple queues, and
+     * processing and discarding of queued tasks.
+     */
+    public void testTaskQueues() 
+    throws InterruptedException {
+        final HelloWorldApp app = new HelloWorldApp();
+        final TaskQueueHandle[] taskQueues = new TaskQueueHandle[] { app.createTaskQueue(), app.createTaskQueue() };
+        assertTrue(app.hasTaskQueues());
+        assertFalse(app.hasQueuedTasks());
+        
+        final int[] runCount = new int[1];
+        final Runnable task = new Runnable() {
+            public void run() {
+                ++runCount[0];
+            }
+        };
+        Thread[] producers = new Thread[4];
+        for (int i = 0; i < producers.length; ++i) {
+            final TaskQueueHandle taskQueue = taskQueues[i % 2];
+            producers[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 1000; ++j) {
+                        app.enqueueTask(taskQueue, task);
+                    }
+                }
+            };
+            producers[i].start();
+        }
+        for (int i = 0; i < producers.length; ++i) {
+            producers[i].join();
+        }
+        
+        assertTrue(app.hasQueuedTasks());
+        app.processQueuedTasks();
+        assertEquals(4000, runCount[0]);
+        assertFalse(app.hasQueuedTasks());
+        
+        // Tasks in removed queues are discarded.
+        app.enqueueTask(taskQueues[0], task);
+        assertTrue(app.hasQueuedTasks());
+        app.removeTaskQueue(taskQueues[0]);
+        assertFalse(app.hasQueuedTasks());
+        app.enqueueTask(taskQueues[0], task);
+        assertFalse(app.hasQueuedTasks());
+        app.processQueuedTasks();
+        assertEquals(4000, runCount[0]);
+        
+        app.removeTaskQueue(taskQueues[1]);
+        assertFalse(app.hasTaskQueues());
+    }
 }
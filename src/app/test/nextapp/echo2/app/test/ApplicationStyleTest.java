@@ -83,4 +83,36 @@ public class ApplicationStyleTest extends TestCase  {
 
         ApplicationInstance.setActive(null);
     }
+    
+    /**
+     * Ensure cached style sheet styles, including the absence of styles,
+     * are discarded when the style sheet is set.
+     */
+    public void testStyleCache() {
+        ColumnApp app = new ColumnApp();
+        ApplicationInstance.setActive(app);
+        app.doInit();
+        
+        MutableStyleSheet styleSheet = new MutableStyleSheet();
+        MutableStyle defaultLabelStyle = new MutableStyle();
+        defaultLabelStyle.setProperty(Label.PROPERTY_FOREGROUND, Color.BLUE);
+        styleSheet.addStyle(Label.class, null, defaultLabelStyle);
+        app.setStyleSheet(styleSheet);
+        
+        assertEquals(Color.BLUE, app.getLabel().getRenderProperty(Label.PROPERTY_FOREGROUND));
+        assertSame(defaultLabelStyle, app.getStyle(Label.class, null));
+        app.getLabel().setStyleName("alpha");
+        assertNull(app.getLabel().getRenderProperty(Label.PROPERTY_FOREGROUND));
+        
+        MutableStyle alphaLabelStyle = new MutableStyle();
+        alphaLabelStyle.setProperty(Label.PROPERTY_FOREGROUND, Color.GREEN);
+        styleSheet.addStyle(Label.class, "alpha", alphaLabelStyle);
+        assertNull(app.getLabel().getRenderProperty(Label.PROPERTY_FOREGROUND));
+        
+        app.setStyleSheet(styleSheet);
+        assertEquals(Color.GREEN, app.getLabel().getRenderProperty(Label.PROPERTY_FOREGROUND));
+        assertSame(alphaLabelStyle, app.getStyle(Label.class, "alpha"));
+        
+        ApplicationInstance.setActive(null);
+    }
 }
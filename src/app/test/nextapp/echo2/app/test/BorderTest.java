@@ -83,4 +83,15 @@ public class BorderTest extends TestCase {
         assertFalse(border4.equals(border6));
         assertFalse(border4.equals(border7));
     }
+    
+    /**
+     * Test canonicalizing factory methods and hash codes.
+     */
+    public void testValueOf() {
+        assertSame(Border.valueOf(2, Color.BLUE, Border.STYLE_SOLID), 
+                Border.valueOf(new Extent(2), new Color(0x0000ff), Border.STYLE_SOLID));
+        assertNotSame(Border.valueOf(2, Color.BLUE, Border.STYLE_SOLID), Border.valueOf(2, Color.BLUE, Border.STYLE_DASHED));
+        assertEquals(new Border(2, Color.BLUE, Border.STYLE_SOLID).hashCode(), 
+                new Border(2, new Color(0x0000ff), Border.STYLE_SOLID).hashCode());
+    }
 }
@@ -0,0 +1,168 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.app.test;
+
+import nextapp.echo2.app.Label;
+import nextapp.echo2.app.Table;
+import nextapp.echo2.app.event.TableModelEvent;
+import nextapp.echo2.app.event.TableModelListener;
+import nextapp.echo2.app.table.CachingTableModel;
+import junit.framework.TestCase;
+
+/**
+ * Unit test(s) for the <code>nextapp.echo2.app.table.CachingTableModel</code>.
+ */
+public class CachingTableModelTest extends TestCase {
+    
+    /**
+     * Test retrieval of values through cached pages.
+     */
+    public void testPageRetrieval() {
+        SequenceTableModel source = new SequenceTableModel(250);
+        CachingTableModel model = new CachingTableModel(source, 100, 2);
+        assertEquals(2, model.getColumnCount());
+        assertEquals("1,5", model.getValueAt(1, 5));
+        assertEquals("0,99", model.getValueAt(0, 99));
+        assertEquals(1, source.rangeRetrievals);
+        assertEquals(0, source.valueRetrievals);
+        
+        Object[] buffer = new Object[20];
+        assertEquals(10, model.getValuesAt(95, 10, buffer));
+        assertEquals("0,95", buffer[0]);
+        assertEquals("1,104", buffer[19]);
+        assertEquals(2, source.rangeRetrievals);
+        
+        // End of model reached.
+        assertEquals(5, model.getValuesAt(245, 10, buffer));
+        assertEquals("1,249", buffer[9]);
+        assertNull(model.getValueAt(0, 260));
+        assertEquals(3, source.rangeRetrievals);
+        assertEquals(250, model.getRowCount());
+        assertEquals(0, source.rowCountRetrievals);
+    }
+    
+    /**
+     * Ensure pages beyond the end of the model neither determine the row 
+     * count nor are cached.
+     */
+    public void testRetrievalBeyondEnd() {
+        SequenceTableModel source = new SequenceTableModel(250);
+        CachingTableModel model = new CachingTableModel(source, 100, 2);
+        model.getValueAt(0, 0);
+        model.getValueAt(0, 100);
+        Object[] buffer = new Object[20];
+        assertEquals(0, model.getValuesAt(5000, 10, buffer));
+        assertNull(model.getValueAt(0, 5000));
+        assertEquals(2, model.getPageCount());
+        // Each access beyond the end is retrieved from the underlying model, as such pages are not cached.
+        assertEquals(4, source.rangeRetrievals);
+        assertEquals(250, model.getRowCount());
+        assertEquals(1, source.rowCountRetrievals);
+    }
+    
+    /**
+     * Test a virtual scrolling <code>Table</code> scrolled beyond the end of
+     * a model whose estimated row count is overstated.
+     */
+    public void testVirtualScrollingBeyondEnd() {
+        SequenceTableModel source = new SequenceTableModel(250);
+        source.estimatedRowCount = 10000;
+        CachingTableModel model = new CachingTableModel(source);
+        Table table = new Table(model);
+        table.setVisibleRowCount(20);
+        table.setOverscanRowCount(10);
+        table.setFirstVisibleRow(5000);
+        assertEquals(220, table.getRenderedRowStart());
+        assertEquals(30, table.getRenderedRowCount());
+        assertEquals(250, table.getVirtualRowCount());
+        assertEquals("1,249", ((Label) table.getCellComponent(1, 249)).getText());
+        assertEquals(250, model.getRowCount());
+    }
+    
+    /**
+     * Test discarding of least recently used pages.
+     */
+    public void testPageEviction() {
+        SequenceTableModel source = new SequenceTableModel(1000);
+        CachingTableModel model = new CachingTableModel(source, 100, 2);
+        model.getValueAt(0, 0);
+        model.getValueAt(0, 100);
+        model.getValueAt(0, 1);
+        assertEquals(2, model.getPageCount());
+        assertEquals(2, source.rangeRetrievals);
+        
+        // Page 1 is least recently used and is discarded.
+        model.getValueAt(0, 200);
+        assertEquals(2, model.getPageCount());
+        model.getValueAt(0, 2);
+        assertEquals(3, source.rangeRetrievals);
+        model.getValueAt(0, 100);
+        assertEquals(4, source.rangeRetrievals);
+    }
+    
+    /**
+     * Test discarding of pages affected by changes to the underlying model.
+     */
+    public void testModelChanges() {
+        final TableModelEvent[] lastEvent = new TableModelEvent[1];
+        SequenceTableModel source = new SequenceTableModel(1000);
+        CachingTableModel model = new CachingTableModel(source, 100, 10);
+        model.addTableModelListener(new TableModelListener() {
+            public void tableChanged(TableModelEvent e) {
+                lastEvent[0] = e;
+            }
+        });
+        model.getValueAt(0, 0);
+        model.getValueAt(0, 100);
+        model.getValueAt(0, 200);
+        assertEquals(1000, model.getRowCount());
+        assertEquals(1, source.rowCountRetrievals);
+        
+        source.fireTableRowsUpdated(150, 160);
+        assertEquals(2, model.getPageCount());
+        assertSame(model, lastEvent[0].getSource());
+        assertEquals(TableModelEvent.UPDATE, lastEvent[0].getType());
+        assertEquals(150, lastEvent[0].getFirstRow());
+        assertEquals(1000, model.getRowCount());
+        assertEquals(1, source.rowCountRetrievals);
+        
+        source.rowCount = 1001;
+        source.fireTableRowsInserted(50, 50);
+        assertEquals(0, model.getPageCount());
+        assertEquals(TableModelEvent.INSERT, lastEvent[0].getType());
+        assertEquals(1001, model.getRowCount());
+        assertEquals(2, source.rowCountRetrievals);
+        
+        model.getValueAt(0, 0);
+        model.clear();
+        assertEquals(0, model.getPageCount());
+        assertSame(model, lastEvent[0].getSource());
+    }
+}
@@ -29,6 +29,11 @@
 
 package nextapp.echo2.app.test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 import nextapp.echo2.app.Color;
 import junit.framework.TestCase;
 
@@ -65,4 +70,27 @@ public class ColorTest extends TestCase {
         assertEquals(color.getGreen(), 0xcd);
         assertEquals(color.getBlue(), 0xef);
     }
+    
+    /**
+     * Test that deserialized colors are replaced with canonical instances.
+     */
+    public void testSerialization() 
+    throws Exception {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        ObjectOutputStream objectOut = new ObjectOutputStream(byteOut);
+        objectOut.writeObject(Color.RED);
+        objectOut.close();
+        ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(byteOut.toByteArray()));
+        assertSame(Color.RED, objectIn.readObject());
+    }
+    
+    /**
+     * Test canonicalizing factory methods.
+     */
+    public void testValueOf() {
+        assertSame(Color.valueOf(0xabcdef), Color.valueOf(0xab, 0xcd, 0xef));
+        assertSame(Color.RED, Color.valueOf(0xff0000));
+        assertEquals(new Color(0xabcdef), Color.valueOf(0xabcdef));
+        assertNotSame(Color.valueOf(0xabcdef), Color.valueOf(0xabcdee));
+    }
 }
@@ -33,9 +33,11 @@ import java.util.Locale;
 
 import nextapp.echo2.app.ApplicationInstance;
 import nextapp.echo2.app.Color;
+import nextapp.echo2.app.Column;
 import nextapp.echo2.app.Component;
 import nextapp.echo2.app.Extent;
 import nextapp.echo2.app.Font;
+import nextapp.echo2.app.Label;
 import nextapp.echo2.app.layout.GridLayoutData;
 import junit.framework.TestCase;
 
@@ -56,6 +58,37 @@ public class ComponentTest extends TestCase {
         assertEquals(Component.PROPERTY_BACKGROUND, pce.lastEvent.getPropertyName());
     }
     
+    /**
+     * Ensure component depth is maintained as components are registered
+     * and moved within the hierarchy.
+     */
+    public void testDepth() {
+        ColumnApp app = new ColumnApp();
+        ApplicationInstance.setActive(app);
+        app.doInit();
+        
+        assertEquals(0, app.getDefaultWindow().getDepth());
+        assertEquals(1, app.getContentPane().getDepth());
+        assertEquals(2, app.getColumn().getDepth());
+        assertEquals(3, app.getLabel().getDepth());
+        
+        Column column1 = new Column();
+        Column column2 = new Column();
+        Label label = new Label();
+        column2.add(label);
+        column1.add(column2);
+        app.getColumn().add(column1);
+        assertEquals(3, column1.getDepth());
+        assertEquals(4, column2.getDepth());
+        assertEquals(5, label.getDepth());
+        
+        app.getColumn().add(column2);
+        assertEquals(3, column2.getDepth());
+        assertEquals(4, label.getDepth());
+        
+        ApplicationInstance.setActive(null);
+    }
+    
     /**
      * Test <code>enabled</code> property.
      */
@@ -230,4 +230,14 @@ public class ExtentTest extends TestCase {
             // Expected.
         }
     }
+    
+    /**
+     * Test canonicalizing factory methods and hash codes.
+     */
+    public void testValueOf() {
+        assertSame(Extent.valueOf(20), Extent.valueOf(20, Extent.PX));
+        assertEquals(new Extent(20, Extent.CM), Extent.valueOf(20, Extent.CM));
+        assertNotSame(Extent.valueOf(20, Extent.CM), Extent.valueOf(20, Extent.MM));
+        assertEquals(new Extent(20, Extent.CM).hashCode(), new Extent(20, Extent.CM).hashCode());
+    }
 }
@@ -90,4 +90,16 @@ public class FontTest extends TestCase {
         assertEquals(false, Font.HELVETICA.equals(new Font.Typeface("Helvetica", new Font.Typeface("Serif"))));
         assertEquals(false, Font.HELVETICA.equals(null));
     }
+    
+    /**
+     * Test canonicalizing factory methods and hash codes.
+     */
+    public void testValueOf() {
+        Font.Typeface helvetica = new Font.Typeface("Helvetica", new Font.Typeface("Sans-Serif"));
+        assertSame(Font.valueOf(Font.HELVETICA, Font.BOLD, new Extent(12, Extent.PT)), 
+                Font.valueOf(helvetica, Font.BOLD, new Extent(12, Extent.PT)));
+        assertNotSame(Font.valueOf(Font.HELVETICA, Font.BOLD, new Extent(12, Extent.PT)), 
+                Font.valueOf(Font.HELVETICA, Font.ITALIC, new Extent(12, Extent.PT)));
+        assertEquals(Font.HELVETICA.hashCode(), helvetica.hashCode());
+    }
 }
@@ -0,0 +1,93 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.app.test;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.app.Color;
+import nextapp.echo2.app.Column;
+import nextapp.echo2.app.ContentPane;
+import nextapp.echo2.app.Label;
+import nextapp.echo2.app.Window;
+import nextapp.echo2.app.util.FootprintReport;
+import junit.framework.TestCase;
+
+/**
+ * Unit test(s) for the <code>nextapp.echo2.app.util.FootprintReport</code> 
+ * diagnostic utility.
+ */
+public class FootprintReportTest extends TestCase {
+    
+    /**
+     * Test instance counts and retained byte totals of an application.
+     */
+    public void testApplication() {
+        ColumnApp app = new ColumnApp();
+        ApplicationInstance.setActive(app);
+        app.doInit();
+        FootprintReport report = new FootprintReport(app);
+        assertEquals(1, report.getInstanceCount(Window.class));
+        assertEquals(1, report.getInstanceCount(ContentPane.class));
+        assertEquals(1, report.getInstanceCount(Column.class));
+        assertEquals(1, report.getInstanceCount(Label.class));
+        assertEquals(0, report.getInstanceCount(Color.class));
+        
+        long sum = 0;
+        Class[] componentClasses = report.getComponentClasses();
+        for (int i = 0; i < componentClasses.length; ++i) {
+            assertTrue(report.getRetainedBytes(componentClasses[i]) > 0);
+            sum += report.getRetainedBytes(componentClasses[i]);
+            if (i > 0) {
+                assertTrue(report.getRetainedBytes(componentClasses[i - 1]) >= report.getRetainedBytes(componentClasses[i]));
+            }
+        }
+        assertEquals(report.getTotalBytes(), sum);
+        
+        ApplicationInstance.setActive(null);
+    }
+    
+    /**
+     * Test that locally set properties are attributed to their component.
+     */
+    public void testLocalProperties() {
+        Column column = new Column();
+        column.add(new Label());
+        long plainBytes = new FootprintReport(column).getRetainedBytes(Label.class);
+
+        column = new Column();
+        Label label = new Label();
+        label.setText("Hello, world");
+        label.setForeground(new Color(0x123456));
+        column.add(label);
+        FootprintReport report = new FootprintReport(column);
+        assertEquals(1, report.getInstanceCount(Label.class));
+        assertTrue(report.getRetainedBytes(Label.class) > plainBytes);
+    }
+}
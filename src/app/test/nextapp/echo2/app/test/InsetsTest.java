@@ -132,4 +132,15 @@ public class InsetsTest extends TestCase {
         assertFalse(new Insets(PX_1, PX_2, null, PX_4).equals(new Insets(PX_1, PX_2, PX_3, PX_4)));
         assertFalse(new Insets(PX_1, PX_2, PX_3, null).equals(new Insets(PX_1, PX_2, PX_3, PX_4)));
     }
+    
+    /**
+     * Test canonicalizing factory methods and hash codes.
+     */
+    public void testValueOf() {
+        assertSame(Insets.valueOf(PX_1), Insets.valueOf(PX_1, PX_1, PX_1, PX_1));
+        assertSame(Insets.valueOf(PX_1, PX_2), Insets.valueOf(new Extent(1), new Extent(2), new Extent(1), new Extent(2)));
+        assertSame(Insets.valueOf(null, PX_2, null, PX_4), Insets.valueOf(null, PX_2, null, PX_4));
+        assertNotSame(Insets.valueOf(PX_1, PX_2, PX_3, PX_4), Insets.valueOf(PX_1, PX_2, PX_3, null));
+        assertEquals(new Insets(1, 2, 3, 4).hashCode(), new Insets(PX_1, PX_2, PX_3, PX_4).hashCode());
+    }
 }
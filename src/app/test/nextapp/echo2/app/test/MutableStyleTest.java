@@ -29,6 +29,11 @@
 
 package nextapp.echo2.app.test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -187,4 +192,45 @@ public class MutableStyleTest extends TestCase {
         assertEquals("hotel", style.getProperty("golf"));
         assertEquals("bravo", style.getProperty("alpha"));
     }
-}
\ No newline at end of file
+    
+    public void testIndexedPropertyOrder() {
+        MutableStyle style = new MutableStyle();
+        style.setIndexedProperty("alpha", 7, "7");
+        style.setIndexedProperty("alpha", 3, "3");
+        style.setIndexedProperty("alpha", 5, "5");
+        style.setIndexedProperty("alpha", 1, "1");
+        style.removeIndexedProperty("alpha", 5);
+        style.setIndexedProperty("alpha", 3, "three");
+        
+        Iterator it = style.getPropertyIndices("alpha");
+        assertEquals(new Integer(1), it.next());
+        assertEquals(new Integer(3), it.next());
+        assertEquals(new Integer(7), it.next());
+        assertFalse(it.hasNext());
+        assertEquals("three", style.getIndexedProperty("alpha", 3));
+        assertNull(style.getIndexedProperty("alpha", 5));
+    }
+    
+    public void testSerialization() 
+    throws ClassNotFoundException, IOException {
+        MutableStyle style = new MutableStyle();
+        style.setProperty("alpha", "bravo");
+        style.setProperty("charlie", "delta");
+        style.setIndexedProperty("echo", 2, "foxtrot");
+        
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        ObjectOutputStream objectOut = new ObjectOutputStream(byteOut);
+        objectOut.writeObject(style);
+        objectOut.close();
+        ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(byteOut.toByteArray()));
+        MutableStyle copy = (MutableStyle) objectIn.readObject();
+        
+        assertEquals(3, copy.size());
+        assertEquals("bravo", copy.getProperty("alpha"));
+        assertEquals("delta", copy.getProperty("charlie"));
+        assertEquals("foxtrot", copy.getIndexedProperty("echo", 2));
+        copy.setProperty("golf", "hotel");
+        assertEquals("hotel", copy.getProperty("golf"));
+        assertNull(style.getProperty("golf"));
+    }
+}
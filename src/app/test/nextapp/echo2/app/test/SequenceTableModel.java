@@ -0,0 +1,101 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.app.test;
+
+import nextapp.echo2.app.table.AbstractTableModel;
+import nextapp.echo2.app.table.RangeTableModel;
+
+/**
+ * A <code>RangeTableModel</code> whose values are derived from their 
+ * coordinates, which records the number of retrievals made from it.
+ */
+public class SequenceTableModel extends AbstractTableModel 
+implements RangeTableModel {
+    
+    int rowCount;
+    int estimatedRowCount = -1;
+    int rowCountRetrievals;
+    int valueRetrievals;
+    int rangeRetrievals;
+    
+    /**
+     * Creates a new <code>SequenceTableModel</code>.
+     * 
+     * @param rowCount the number of rows
+     */
+    public SequenceTableModel(int rowCount) {
+        super();
+        this.rowCount = rowCount;
+    }
+    
+    /**
+     * @see nextapp.echo2.app.table.TableModel#getColumnCount()
+     */
+    public int getColumnCount() {
+        return 2;
+    }
+
+    /**
+     * @see nextapp.echo2.app.table.RangeTableModel#getEstimatedRowCount()
+     */
+    public int getEstimatedRowCount() {
+        return estimatedRowCount;
+    }
+
+    /**
+     * @see nextapp.echo2.app.table.TableModel#getRowCount()
+     */
+    public int getRowCount() {
+        ++rowCountRetrievals;
+        return rowCount;
+    }
+
+    /**
+     * @see nextapp.echo2.app.table.TableModel#getValueAt(int, int)
+     */
+    public Object getValueAt(int column, int row) {
+        ++valueRetrievals;
+        return column + "," + row;
+    }
+
+    /**
+     * @see nextapp.echo2.app.table.RangeTableModel#getValuesAt(int, int, java.lang.Object[])
+     */
+    public int getValuesAt(int firstRow, int count, Object[] buffer) {
+        ++rangeRetrievals;
+        int retrievedRowCount = Math.max(0, Math.min(count, rowCount - firstRow));
+        for (int row = 0; row < retrievedRowCount; ++row) {
+            for (int column = 0; column < 2; ++column) {
+                buffer[row * 2 + column] = column + "," + (firstRow + row);
+            }
+        }
+        return retrievedRowCount;
+    }
+}
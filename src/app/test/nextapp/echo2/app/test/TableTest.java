@@ -35,6 +35,7 @@ import nextapp.echo2.app.Label;
 import nextapp.echo2.app.Table;
 import nextapp.echo2.app.table.DefaultTableColumnModel;
 import nextapp.echo2.app.table.DefaultTableModel;
+import nextapp.echo2.app.table.RecyclingTableCellRenderer;
 import nextapp.echo2.app.table.TableCellRenderer;
 import junit.framework.TestCase;
 
@@ -157,6 +158,235 @@ public class TableTest extends TestCase {
         assertEquals(0, model.getRowCount());
     }
     
+    public void testIncrementalRowUpdates() {
+        DefaultTableModel model = createEmployeeTableModel();
+        Table table = new Table(model);
+        table.validate();
+        assertEquals(18, table.getComponentCount());
+        Component[] components = table.getComponents();
+        
+        // Cell update: only the updated cell is replaced.
+        model.setValueAt("Robert Johnson", 0, 0);
+        assertEquals(18, table.getComponentCount());
+        assertEquals("Robert Johnson", ((Label) table.getCellComponent(0, 0)).getText());
+        assertNotSame(components[3], table.getComponent(3));
+        for (int i = 0; i < components.length; ++i) {
+            if (i != 3) {
+                assertSame(components[i], table.getComponent(i));
+            }
+        }
+        components = table.getComponents();
+        
+        // Row insertion: cells of the new row are added, preceding rows retain their components, 
+        // following rows are re-rendered for their new indices.
+        model.insertRow(1, new Object[]{"Jane Doe", new Integer(44), Boolean.FALSE});
+        assertEquals(21, table.getComponentCount());
+        assertEquals("Jane Doe", ((Label) table.getCellComponent(0, 1)).getText());
+        assertSame(components[3], table.getCellComponent(0, 0));
+        assertNotSame(components[6], table.getCellComponent(0, 2));
+        assertEquals("Bill Simmons", ((Label) table.getCellComponent(0, 2)).getText());
+        assertEquals("Xavier Doe", ((Label) table.getCellComponent(0, 5)).getText());
+        components = table.getComponents();
+        
+        // Row deletion: cells of the deleted row are removed, following rows are re-rendered.
+        model.deleteRow(0);
+        assertEquals(18, table.getComponentCount());
+        assertEquals("Jane Doe", ((Label) table.getCellComponent(0, 0)).getText());
+        assertNotSame(components[6], table.getCellComponent(0, 0));
+        assertEquals("Bill Simmons", ((Label) table.getCellComponent(0, 1)).getText());
+        assertEquals("Xavier Doe", ((Label) table.getCellComponent(0, 4)).getText());
+        components = table.getComponents();
+        
+        // Deletion of last row: no rows shift.
+        model.deleteRow(4);
+        assertEquals(15, table.getComponentCount());
+        for (int i = 0; i < 15; ++i) {
+            assertSame(components[i], table.getComponent(i));
+        }
+        
+        // Data change of unspecified extent: full re-render.
+        model.setRowCount(2);
+        table.validate();
+        assertEquals(9, table.getComponentCount());
+        assertNotSame(components[0], table.getComponent(0));
+    }
+    
+    /**
+     * Ensure rows shifted by incremental insertions and deletions are 
+     * rendered for their new row indices.
+     */
+    public void testIncrementalRowUpdatesShiftedRows() {
+        DefaultTableModel model = new DefaultTableModel(1, 0);
+        for (int i = 0; i < 4; ++i) {
+            model.addRow(new Object[]{"Row " + i});
+        }
+        Table table = new Table(model);
+        table.setDefaultRenderer(Object.class, new TableCellRenderer() {
+            public Component getTableCellRendererComponent(Table table, Object value, int column, int row) {
+                return new Label(value + (row % 2 == 0 ? " even" : " odd"));
+            }
+        });
+        table.validate();
+        
+        model.insertRow(0, new Object[]{"New"});
+        assertEquals("New even", ((Label) table.getCellComponent(0, 0)).getText());
+        assertEquals("Row 0 odd", ((Label) table.getCellComponent(0, 1)).getText());
+        assertEquals("Row 1 even", ((Label) table.getCellComponent(0, 2)).getText());
+        assertEquals("Row 2 odd", ((Label) table.getCellComponent(0, 3)).getText());
+        assertEquals("Row 3 even", ((Label) table.getCellComponent(0, 4)).getText());
+        
+        model.deleteRow(1);
+        assertEquals("New even", ((Label) table.getCellComponent(0, 0)).getText());
+        assertEquals("Row 1 odd", ((Label) table.getCellComponent(0, 1)).getText());
+        assertEquals("Row 3 odd", ((Label) table.getCellComponent(0, 3)).getText());
+        
+        // Recycling renderer: shifted rows retain their (updated) components.
+        CountingRenderer renderer = new CountingRenderer();
+        table.setDefaultRenderer(Object.class, renderer);
+        table.validate();
+        Component cell = table.getCellComponent(0, 1);
+        int createCount = renderer.createCount;
+        model.insertRow(0, new Object[]{"Newer"});
+        assertEquals(createCount + 1, renderer.createCount);
+        assertSame(cell, table.getCellComponent(0, 2));
+        assertEquals("Row 1", ((Label) cell).getText());
+    }
+    
+    /**
+     * Test retrieval of values from a <code>RangeTableModel</code>.
+     */
+    public void testRangeTableModel() {
+        SequenceTableModel model = new SequenceTableModel(50);
+        Table table = new Table(model);
+        table.validate();
+        assertEquals("0,5", ((Label) table.getCellComponent(0, 5)).getText());
+        assertEquals(1, model.rangeRetrievals);
+        assertEquals(0, model.valueRetrievals);
+        
+        model.fireTableRowsUpdated(3, 4);
+        assertEquals(2, model.rangeRetrievals);
+        assertEquals(0, model.valueRetrievals);
+        
+        // Virtual scrolling uses estimated row count, discovering actual end of model.
+        model = new SequenceTableModel(500);
+        model.estimatedRowCount = 10000;
+        table = new Table(model);
+        table.setVisibleRowCount(20);
+        table.setOverscanRowCount(10);
+        assertEquals(10000, table.getVirtualRowCount());
+        assertEquals(0, model.rowCountRetrievals);
+        table.setFirstVisibleRow(480);
+        assertEquals(470, table.getRenderedRowStart());
+        assertEquals(30, table.getRenderedRowCount());
+        assertEquals(500, table.getVirtualRowCount());
+        assertEquals("1,499", ((Label) table.getCellComponent(1, 499)).getText());
+        assertEquals(0, model.rowCountRetrievals);
+        assertEquals(0, model.valueRetrievals);
+        
+        // Window beyond actual end of model.
+        table = new Table(model);
+        table.setVisibleRowCount(20);
+        table.setOverscanRowCount(10);
+        table.setFirstVisibleRow(5000);
+        assertEquals(470, table.getRenderedRowStart());
+        assertEquals(30, table.getRenderedRowCount());
+        assertEquals(500, table.getVirtualRowCount());
+        assertEquals(1, model.rowCountRetrievals);
+    }
+    
+    /**
+     * Ensure the virtual row count reflects rows inserted and deleted 
+     * through incremental updates.
+     */
+    public void testVirtualRowCountIncrementalUpdates() {
+        DefaultTableModel model = new DefaultTableModel(2, 3);
+        Table table = new Table(model);
+        table.validate();
+        assertEquals(3, table.getVirtualRowCount());
+        Component cell = table.getCellComponent(0, 0);
+        
+        model.addRow(new Object[]{"A", "B"});
+        assertEquals(4, table.getRenderedRowCount());
+        assertEquals(4, table.getVirtualRowCount());
+        assertSame(cell, table.getCellComponent(0, 0));
+        
+        model.deleteRow(1);
+        model.deleteRow(1);
+        assertEquals(2, table.getRenderedRowCount());
+        assertEquals(2, table.getVirtualRowCount());
+        assertSame(cell, table.getCellComponent(0, 0));
+    }
+    
+    /**
+     * Recycling renderer which counts created components.
+     */
+    private static class CountingRenderer 
+    implements RecyclingTableCellRenderer {
+        
+        private int createCount;
+
+        public Component getTableCellRendererComponent(Table table, Object value, int column, int row) {
+            ++createCount;
+            return new Label(String.valueOf(value));
+        }
+        
+        public boolean updateTableCellRendererComponent(Table table, Component component, Object value, int column, 
+                int row) {
+            if (!(component instanceof Label)) {
+                return false;
+            }
+            ((Label) component).setText(String.valueOf(value));
+            return true;
+        }
+    }
+    
+    public void testRendererRecycling() {
+        DefaultTableModel model = new DefaultTableModel(2, 0);
+        for (int i = 0; i < 100; ++i) {
+            model.addRow(new Object[]{"Row " + i, new Integer(i)});
+        }
+        CountingRenderer renderer = new CountingRenderer();
+        Table table = new Table(model);
+        table.setDefaultRenderer(Object.class, renderer);
+        table.setDefaultHeaderRenderer(renderer);
+        table.validate();
+        assertEquals(202, renderer.createCount);
+        Component[] components = table.getComponents();
+        
+        // Cell update: component updated in place.
+        model.setValueAt("Updated", 0, 5);
+        assertSame(components[12], table.getCellComponent(0, 5));
+        assertEquals("Updated", ((Label) table.getCellComponent(0, 5)).getText());
+        assertEquals(202, renderer.createCount);
+        
+        // Full refresh: all components recycled at the same positions.
+        model.setValueAt("Changed", 1, 7);
+        model.fireTableDataChanged();
+        table.validate();
+        assertEquals(202, renderer.createCount);
+        for (int i = 0; i < components.length; ++i) {
+            assertSame(components[i], table.getComponent(i));
+        }
+        assertEquals("Changed", ((Label) table.getCellComponent(1, 7)).getText());
+        
+        // Virtual scrolling window shift: components of rows no longer rendered are recycled.
+        table.setVisibleRowCount(10);
+        table.setOverscanRowCount(0);
+        table.validate();
+        table.setFirstVisibleRow(50);
+        table.validate();
+        assertEquals(202, renderer.createCount);
+        assertEquals("Row 50", ((Label) table.getCellComponent(0, 50)).getText());
+        assertEquals("Row 59", ((Label) table.getCellComponent(0, 59)).getText());
+        assertSame(components[2], table.getCellComponent(0, 50));
+        
+        // Changed renderer: new components created.
+        table.setDefaultRenderer(Object.class, new CountingRenderer());
+        table.validate();
+        assertEquals(202, renderer.createCount);
+        assertNotSame(components[2], table.getCellComponent(0, 50));
+    }
+    
     public void testRender() {
         Table table = new Table();
         table.setDefaultRenderer(Object.class, new TableCellRenderer() {
@@ -209,4 +439,52 @@ public class TableTest extends TestCase {
         assertTrue(table.getCellComponent(2, 3) instanceof CheckBox);
         assertFalse(((CheckBox) table.getCellComponent(2, 3)).isSelected());
     }
+    
+    public void testVirtualScrolling() {
+        DefaultTableModel model = new DefaultTableModel(2, 0);
+        for (int i = 0; i < 5000; ++i) {
+            model.addRow(new Object[]{"Row " + i, new Integer(i)});
+        }
+        Table table = new Table(model);
+        assertFalse(table.isVirtualScrolling());
+        table.validate();
+        assertEquals(0, table.getRenderedRowStart());
+        assertEquals(5000, table.getRenderedRowCount());
+        
+        table.setVisibleRowCount(20);
+        table.setOverscanRowCount(10);
+        assertTrue(table.isVirtualScrolling());
+        table.validate();
+        assertEquals(0, table.getRenderedRowStart());
+        assertEquals(30, table.getRenderedRowCount());
+        assertEquals(62, table.getComponentCount());
+        assertEquals("Row 5", ((Label) table.getCellComponent(0, 5)).getText());
+        assertNull(table.getCellComponent(0, 100));
+        
+        // Visible rows already rendered: no re-render.
+        Component cell = table.getCellComponent(0, 5);
+        table.setFirstVisibleRow(5);
+        assertEquals(0, table.getRenderedRowStart());
+        assertSame(cell, table.getCellComponent(0, 5));
+        
+        table.setFirstVisibleRow(1000);
+        assertEquals(990, table.getRenderedRowStart());
+        assertEquals(40, table.getRenderedRowCount());
+        assertEquals("Row 990", ((Label) table.getCellComponent(0, 990)).getText());
+        assertEquals("Row 1029", ((Label) table.getCellComponent(0, 1029)).getText());
+        assertNull(table.getCellComponent(0, 989));
+        assertNull(table.getCellComponent(0, 1030));
+        
+        table.processInput(Table.FIRST_VISIBLE_ROW_CHANGED_PROPERTY, new Integer(4995));
+        assertEquals(4995, table.getFirstVisibleRow());
+        assertEquals(4970, table.getRenderedRowStart());
+        assertEquals(30, table.getRenderedRowCount());
+        
+        table.setVisibleRowCount(100000);
+        assertEquals(Table.MAXIMUM_RENDERED_ROW_COUNT, table.getRenderedRowCount());
+        
+        table.setVisibleRowCount(0);
+        assertEquals(0, table.getRenderedRowStart());
+        assertEquals(5000, table.getRenderedRowCount());
+    }
 }
@@ -0,0 +1,99 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.app.test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import nextapp.echo2.app.util.Uid;
+import junit.framework.TestCase;
+
+/**
+ * Unit test(s) for the <code>nextapp.echo2.app.util.Uid</code> unique 
+ * identifier generator.
+ */
+public class UidTest extends TestCase {
+    
+    private static final int THREAD_COUNT = 8;
+    
+    private static final int IDS_PER_THREAD = 25000;
+    
+    /**
+     * Test that identifiers contain only URL-safe characters.
+     */
+    public void testFormat() {
+        for (int i = 0; i < 1000; ++i) {
+            String id = Uid.generateUidString();
+            for (int j = 0; j < id.length(); ++j) {
+                char ch = id.charAt(j);
+                assertTrue(id, (ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'z') || ch == '_');
+            }
+        }
+    }
+    
+    /**
+     * Test that identifiers generated concurrently by multiple threads are
+     * unique, and that generation completes in a reasonable amount of time.
+     */
+    public void testConcurrentUniqueness() 
+    throws InterruptedException {
+        final String[][] ids = new String[THREAD_COUNT][IDS_PER_THREAD];
+        Thread[] threads = new Thread[THREAD_COUNT];
+        for (int i = 0; i < THREAD_COUNT; ++i) {
+            final String[] threadIds = ids[i];
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < IDS_PER_THREAD; ++j) {
+                        threadIds[j] = Uid.generateUidString();
+                    }
+                }
+            };
+        }
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < THREAD_COUNT; ++i) {
+            threads[i].start();
+        }
+        for (int i = 0; i < THREAD_COUNT; ++i) {
+            threads[i].join();
+        }
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        assertTrue("Generated " + (THREAD_COUNT * IDS_PER_THREAD) + " ids in " + elapsedTime + "ms.", 
+                elapsedTime < 10000);
+        
+        Set idSet = new HashSet();
+        for (int i = 0; i < THREAD_COUNT; ++i) {
+            for (int j = 0; j < IDS_PER_THREAD; ++j) {
+                assertNotNull(ids[i][j]);
+                assertTrue(ids[i][j], idSet.add(ids[i][j]));
+            }
+        }
+    }
+}
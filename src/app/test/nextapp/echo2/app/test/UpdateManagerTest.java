@@ -478,6 +478,69 @@ public class UpdateManagerTest extends TestCase  {
         assertTrue(removedDescendants[0].equals(label) || removedDescendants[1].equals(label));
     }
 
+    /**
+     * Ensure that updates to descendants of a removed component are 
+     * discarded, and their removed children recorded as removed 
+     * descendants, while updates to other components are retained.
+     */
+    public void testRemoveWithUpdatedDescendants() {
+        Column column1 = new Column();
+        Column column2 = new Column();
+        column1.add(column2);
+        Label[] labels = new Label[20];
+        for (int i = 0; i < labels.length; ++i) {
+            labels[i] = new Label();
+            column2.add(labels[i]);
+        }
+        Label removedLabel = new Label();
+        column2.add(removedLabel);
+        columnApp.getColumn().add(column1);
+        manager.purge();
+        
+        for (int i = 0; i < labels.length; ++i) {
+            labels[i].setBackground(Color.BLUE);
+        }
+        column2.remove(removedLabel);
+        columnApp.getLabel().setBackground(Color.GREEN);
+        assertEquals(labels.length + 2, manager.getServerUpdateManager().getComponentUpdates().length);
+        
+        columnApp.getColumn().remove(column1);
+        
+        ServerComponentUpdate[] componentUpdates = manager.getServerUpdateManager().getComponentUpdates();
+        assertEquals(2, componentUpdates.length);
+        assertEquals(columnApp.getColumn(), componentUpdates[0].getParent());
+        assertEquals(columnApp.getLabel(), componentUpdates[1].getParent());
+        
+        List removedDescendants = Arrays.asList(componentUpdates[0].getRemovedDescendants());
+        assertEquals(labels.length + 2, removedDescendants.size());
+        assertTrue(removedDescendants.contains(column2));
+        assertTrue(removedDescendants.contains(removedLabel));
+    }
+    
+    /**
+     * Ensure that a component whose addition was cancelled by its removal
+     * is again treated as being added if it is re-added, and that property
+     * updates to its descendants are then not recorded.
+     */
+    public void testRemoveAndReAdd() {
+        Column column1 = new Column();
+        Label label = new Label();
+        column1.add(label);
+        manager.purge();
+        
+        columnApp.getColumn().add(column1);
+        columnApp.getColumn().remove(column1);
+        label.setBackground(Color.BLUE);
+        columnApp.getColumn().add(column1);
+        label.setBackground(Color.RED);
+        
+        ServerComponentUpdate[] componentUpdates = manager.getServerUpdateManager().getComponentUpdates();
+        assertEquals(1, componentUpdates.length);
+        assertEquals(columnApp.getColumn(), componentUpdates[0].getParent());
+        assertTrue(componentUpdates[0].hasAddedChild(column1));
+        assertFalse(componentUpdates[0].hasUpdatedProperties());
+    }
+    
     /**
      * Ensure updates are returned sorted by component depth.
      */
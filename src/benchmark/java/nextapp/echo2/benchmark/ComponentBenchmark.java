@@ -0,0 +1,111 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.app.Column;
+import nextapp.echo2.app.Label;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks <code>Component.add()</code> and <code>Component.remove()</code>
+ * of single components and of subtrees within a registered hierarchy, 
+ * including registration and update manager bookkeeping.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ComponentBenchmark {
+    
+    /** Number of children of each container in the registered hierarchy. */
+    @Param({"4", "8"})
+    public int breadth;
+    
+    /** Number of labels in the added/removed subtree. */
+    @Param({"1", "50"})
+    public int subtreeSize;
+    
+    private SyntheticApp app;
+    private Column parent;
+    private Column subtree;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = SyntheticApp.create(breadth, 4);
+        parent = app.getRootColumn();
+        subtree = new Column();
+        for (int i = 0; i < subtreeSize - 1; ++i) {
+            subtree.add(new Label("Subtree " + i));
+        }
+        ApplicationInstance.setActive(app);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ApplicationInstance.setActive(null);
+    }
+    
+    /**
+     * Adds the subtree to the hierarchy, removes it, and purges the 
+     * resulting updates.
+     */
+    @Benchmark
+    public int addRemove() {
+        parent.add(subtree);
+        parent.remove(subtree);
+        app.getUpdateManager().purge();
+        return parent.getComponentCount();
+    }
+    
+    /**
+     * Adds the subtree at the start of the hierarchy (shifting existing 
+     * children), removes it, and purges the resulting updates.
+     */
+    @Benchmark
+    public int insertRemoveFirst() {
+        parent.add(subtree, 0);
+        parent.remove(subtree);
+        app.getUpdateManager().purge();
+        return parent.getComponentCount();
+    }
+}
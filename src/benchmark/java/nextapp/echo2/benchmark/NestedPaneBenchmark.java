@@ -0,0 +1,116 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.app.ContentPane;
+import nextapp.echo2.app.Label;
+import nextapp.echo2.app.SplitPane;
+import nextapp.echo2.app.WindowPane;
+import nextapp.echo2.app.update.ServerUpdateManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks retrieval of depth-sorted <code>ServerComponentUpdate</code>s
+ * from a deeply nested hierarchy of <code>WindowPane</code>s and 
+ * <code>SplitPane</code>s, with a property update at every level.
+ * Each nesting level is <code>ContentPane</code> &gt; <code>WindowPane</code>
+ * &gt; <code>SplitPane</code> &gt; (<code>Label</code>, 
+ * <code>ContentPane</code>).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NestedPaneBenchmark {
+    
+    /** Number of nesting levels. */
+    @Param({"10", "50"})
+    public int nesting;
+    
+    private SyntheticApp app;
+    private ServerUpdateManager serverUpdateManager;
+    private Label[] labels;
+    private boolean toggle;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = SyntheticApp.create(1, 1);
+        serverUpdateManager = app.getUpdateManager().getServerUpdateManager();
+        ApplicationInstance.setActive(app);
+        
+        labels = new Label[nesting];
+        ContentPane contentPane = app.getDefaultWindow().getContent();
+        for (int i = 0; i < nesting; ++i) {
+            WindowPane windowPane = new WindowPane();
+            contentPane.add(windowPane);
+            SplitPane splitPane = new SplitPane();
+            windowPane.add(splitPane);
+            labels[i] = new Label("Level " + i);
+            splitPane.add(labels[i]);
+            contentPane = new ContentPane();
+            splitPane.add(contentPane);
+        }
+        app.getUpdateManager().purge();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ApplicationInstance.setActive(null);
+    }
+    
+    /**
+     * Updates a property of the label at each nesting level, retrieves the
+     * depth-sorted component updates, and purges them.
+     */
+    @Benchmark
+    public int sortedUpdates() {
+        toggle = !toggle;
+        String text = toggle ? "A" : "B";
+        for (int i = labels.length - 1; i >= 0; --i) {
+            labels[i].setText(text);
+        }
+        int updates = serverUpdateManager.getComponentUpdates().length;
+        app.getUpdateManager().purge();
+        return updates;
+    }
+}
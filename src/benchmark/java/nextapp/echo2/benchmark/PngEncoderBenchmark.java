@@ -0,0 +1,126 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import nextapp.echo2.webcontainer.image.PngEncoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks <code>PngEncoder.encode()</code> of a synthetic gradient image
+ * with each of the available filters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PngEncoderBenchmark {
+    
+    /**
+     * <code>OutputStream</code> which counts and discards written data.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        
+        private long count;
+        
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        public void write(int b) {
+            ++count;
+        }
+        
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+    
+    /** Image width and height, in pixels. */
+    @Param({"16", "256"})
+    public int size;
+    
+    /** Filter name. */
+    @Param({"none", "sub", "up", "average", "paeth"})
+    public String filterName;
+    
+    private BufferedImage image;
+    private PngEncoder.Filter filter;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        for (int y = 0; y < size; ++y) {
+            g.setColor(new Color(y * 255 / size, 128, 255 - y * 255 / size, 192));
+            g.drawLine(0, y, size - 1, y);
+        }
+        g.setColor(Color.BLACK);
+        g.drawOval(size / 4, size / 4, size / 2, size / 2);
+        g.dispose();
+        
+        if ("sub".equals(filterName)) {
+            filter = PngEncoder.SUB_FILTER;
+        } else if ("up".equals(filterName)) {
+            filter = PngEncoder.UP_FILTER;
+        } else if ("average".equals(filterName)) {
+            filter = PngEncoder.AVERAGE_FILTER;
+        } else if ("paeth".equals(filterName)) {
+            filter = PngEncoder.PAETH_FILTER;
+        } else {
+            filter = null;
+        }
+    }
+    
+    @Benchmark
+    public long encode() 
+    throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        new PngEncoder(image, true, filter, 3).encode(out);
+        return out.count;
+    }
+}
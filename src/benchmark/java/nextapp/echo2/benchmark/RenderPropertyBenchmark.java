@@ -0,0 +1,131 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.app.Color;
+import nextapp.echo2.app.Font;
+import nextapp.echo2.app.Label;
+import nextapp.echo2.app.MutableStyle;
+import nextapp.echo2.app.MutableStyleSheet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks <code>Component.getRenderProperty()</code> for properties 
+ * resolved from each level of the style hierarchy: the local style, a 
+ * shared style, a named style sheet style, the default style sheet style, 
+ * and unresolved properties.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RenderPropertyBenchmark {
+    
+    private SyntheticApp app;
+    private Label styledLabel;
+    private Label defaultLabel;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = SyntheticApp.create(2, 2);
+        ApplicationInstance.setActive(app);
+        
+        MutableStyle defaultStyle = new MutableStyle();
+        defaultStyle.setProperty(Label.PROPERTY_FONT, new Font(Font.SANS_SERIF, Font.PLAIN, null));
+        MutableStyle namedStyle = new MutableStyle();
+        namedStyle.setProperty(Label.PROPERTY_BACKGROUND, Color.YELLOW);
+        MutableStyleSheet styleSheet = new MutableStyleSheet();
+        styleSheet.addStyle(Label.class, null, defaultStyle);
+        styleSheet.addStyle(Label.class, "Highlight", namedStyle);
+        app.setStyleSheet(styleSheet);
+        
+        MutableStyle sharedStyle = new MutableStyle();
+        sharedStyle.setProperty(Label.PROPERTY_LINE_WRAP, Boolean.FALSE);
+        
+        styledLabel = app.getLabel(0);
+        styledLabel.setForeground(Color.RED);
+        styledLabel.setStyle(sharedStyle);
+        styledLabel.setStyleName("Highlight");
+        defaultLabel = app.getLabel(1);
+        app.getUpdateManager().purge();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ApplicationInstance.setActive(null);
+    }
+    
+    @Benchmark
+    public void resolveAllLevels(Blackhole bh) {
+        bh.consume(styledLabel.getRenderProperty(Label.PROPERTY_FOREGROUND));
+        bh.consume(styledLabel.getRenderProperty(Label.PROPERTY_LINE_WRAP));
+        bh.consume(styledLabel.getRenderProperty(Label.PROPERTY_BACKGROUND));
+        bh.consume(defaultLabel.getRenderProperty(Label.PROPERTY_FONT));
+        bh.consume(defaultLabel.getRenderProperty(Label.PROPERTY_TOOL_TIP_TEXT));
+    }
+    
+    @Benchmark
+    public Object resolveLocal() {
+        return styledLabel.getRenderProperty(Label.PROPERTY_FOREGROUND);
+    }
+    
+    @Benchmark
+    public Object resolveShared() {
+        return styledLabel.getRenderProperty(Label.PROPERTY_LINE_WRAP);
+    }
+    
+    @Benchmark
+    public Object resolveNamedStyleSheet() {
+        return styledLabel.getRenderProperty(Label.PROPERTY_BACKGROUND);
+    }
+    
+    @Benchmark
+    public Object resolveDefaultStyleSheet() {
+        return defaultLabel.getRenderProperty(Label.PROPERTY_FONT);
+    }
+    
+    @Benchmark
+    public Object resolveUnset() {
+        return defaultLabel.getRenderProperty(Label.PROPERTY_TOOL_TIP_TEXT);
+    }
+}
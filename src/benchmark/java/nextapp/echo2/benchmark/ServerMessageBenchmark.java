@@ -0,0 +1,147 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import nextapp.echo2.webrender.ServerMessage;
+import nextapp.echo2.webrender.output.XmlDocument;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.w3c.dom.Element;
+
+/**
+ * Benchmarks building and serializing <code>ServerMessage</code>s, using 
+ * both the streaming serializer and the JAXP <code>Transformer</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServerMessageBenchmark {
+    
+    /**
+     * <code>OutputStream</code> which discards written data.
+     */
+    private static class NullOutputStream extends OutputStream {
+        
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        public void write(int b) { }
+        
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        public void write(byte[] b, int off, int len) { }
+    }
+    
+    /** Number of directives in the message. */
+    @Param({"10", "500"})
+    public int directiveCount;
+    
+    /** Whether the JAXP <code>Transformer</code> is used for serialization. */
+    @Param({"false", "true"})
+    public boolean useTransformer;
+    
+    private ServerMessage serverMessage;
+    private PrintWriter out;
+    
+    @Setup(Level.Trial)
+    public void setUp() 
+    throws IOException {
+        XmlDocument.setTransformerEnabled(useTransformer);
+        serverMessage = createServerMessage();
+        out = new PrintWriter(new OutputStreamWriter(new NullOutputStream(), "UTF-8"));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        XmlDocument.setTransformerEnabled(false);
+    }
+    
+    /**
+     * Creates a <code>ServerMessage</code> resembling the output of a 
+     * typical synchronization.
+     * 
+     * @return the <code>ServerMessage</code>
+     */
+    private ServerMessage createServerMessage() {
+        ServerMessage message = new ServerMessage();
+        message.addLibrary("Echo.WebContainer");
+        for (int i = 0; i < directiveCount; ++i) {
+            Element directive = message.appendPartDirective(ServerMessage.GROUP_ID_UPDATE, 
+                    "EchoDomUpdate.MessageProcessor", "dom-add");
+            Element content = message.getDocument().createElement("content");
+            content.setAttribute("parent-id", "c_" + i);
+            Element div = message.getDocument().createElementNS("http://www.w3.org/1999/xhtml", "div");
+            div.setAttribute("id", "c_" + i + "_content");
+            div.setAttribute("style", "padding:0px;color:#000000;font-family:Sans-Serif;");
+            div.appendChild(message.getDocument().createTextNode("Label <" + i + "> & \u00e9"));
+            content.appendChild(div);
+            directive.appendChild(content);
+        }
+        message.setTransactionId(1);
+        return message;
+    }
+    
+    /**
+     * Serializes a previously built message.
+     */
+    @Benchmark
+    public void render() 
+    throws IOException {
+        serverMessage.render(out);
+        out.flush();
+    }
+    
+    /**
+     * Builds and serializes a message.
+     */
+    @Benchmark
+    public void buildAndRender() 
+    throws IOException {
+        createServerMessage().render(out);
+        out.flush();
+    }
+}
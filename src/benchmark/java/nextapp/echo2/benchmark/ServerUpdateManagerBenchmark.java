@@ -0,0 +1,138 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.app.Column;
+import nextapp.echo2.app.Label;
+import nextapp.echo2.app.update.ServerUpdateManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks the <code>ServerUpdateManager.process*()</code> methods and 
+ * the retrieval of the resulting <code>ServerComponentUpdate</code>s for
+ * property updates spread across a synthetic hierarchy, and for updates 
+ * within and beneath newly added components.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServerUpdateManagerBenchmark {
+    
+    /** Number of children of each container. */
+    @Param({"4", "8"})
+    public int breadth;
+    
+    /** Number of updated components per synchronization. */
+    @Param({"10", "100"})
+    public int updateCount;
+    
+    private SyntheticApp app;
+    private ServerUpdateManager serverUpdateManager;
+    private Label[] updatedLabels;
+    private Column addedColumn;
+    private boolean toggle;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = SyntheticApp.create(breadth, 4);
+        serverUpdateManager = app.getUpdateManager().getServerUpdateManager();
+        
+        // Select labels evenly distributed throughout the hierarchy.
+        int labelCount = app.getLabelCount();
+        int count = Math.min(updateCount, labelCount);
+        updatedLabels = new Label[count];
+        for (int i = 0; i < count; ++i) {
+            updatedLabels[i] = app.getLabel(i * labelCount / count);
+        }
+        
+        addedColumn = new Column();
+        for (int i = 0; i < breadth; ++i) {
+            addedColumn.add(new Label("Added " + i));
+        }
+        ApplicationInstance.setActive(app);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ApplicationInstance.setActive(null);
+    }
+    
+    /**
+     * Updates a property of each selected label, retrieves the component
+     * updates, and purges them.
+     */
+    @Benchmark
+    public int propertyUpdates() {
+        toggle = !toggle;
+        String text = toggle ? "A" : "B";
+        for (int i = 0; i < updatedLabels.length; ++i) {
+            updatedLabels[i].setText(text);
+        }
+        int updates = serverUpdateManager.getComponentUpdates().length;
+        app.getUpdateManager().purge();
+        return updates;
+    }
+    
+    /**
+     * Adds a subtree, updates properties within it and throughout the 
+     * hierarchy, retrieves the component updates, then removes the subtree
+     * and purges the updates.
+     */
+    @Benchmark
+    public int addAndUpdate() {
+        toggle = !toggle;
+        String text = toggle ? "A" : "B";
+        app.getRootColumn().add(addedColumn);
+        for (int i = 0; i < addedColumn.getComponentCount(); ++i) {
+            ((Label) addedColumn.getComponent(i)).setText(text);
+        }
+        for (int i = 0; i < updatedLabels.length; ++i) {
+            updatedLabels[i].setText(text);
+        }
+        int updates = serverUpdateManager.getComponentUpdates().length;
+        app.getRootColumn().remove(addedColumn);
+        app.getUpdateManager().purge();
+        return updates;
+    }
+}
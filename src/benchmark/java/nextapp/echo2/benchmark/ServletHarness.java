@@ -0,0 +1,363 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.webcontainer.WebContainerServlet;
+import nextapp.echo2.webrender.WebRenderServlet;
+import nextapp.echo2.webrender.service.SynchronizeService;
+
+/**
+ * Drives a <code>WebContainerServlet</code> in-process, without a servlet 
+ * container, such that complete client/server synchronizations may be 
+ * benchmarked.  Requests, responses and the session are minimal dynamic 
+ * proxies; response content is counted and discarded.
+ */
+public class ServletHarness {
+    
+    /** Client message namespace. */
+    private static final String CLIENT_MESSAGE_NAMESPACE = "http://www.nextapp.com/products/echo2/climsg";
+    
+    /** Initial client message, providing client properties for a generic standards-compliant browser. */
+    private static final String INIT_MESSAGE = 
+            "<client-message xmlns=\"" + CLIENT_MESSAGE_NAMESPACE + "\" type=\"initialize\">"
+            + "<message-part processor=\"EchoClientAnalyzer\">"
+            + "<property name=\"navigatorAppName\" type=\"text\" value=\"Netscape\"/>"
+            + "<property name=\"navigatorUserAgent\" type=\"text\" value=\"Mozilla/5.0 (X11; Linux x86_64) Gecko Firefox/3.0\"/>"
+            + "<property name=\"browserMozillaFirefox\" type=\"boolean\" value=\"true\"/>"
+            + "<property name=\"browserMozilla\" type=\"boolean\" value=\"true\"/>"
+            + "</message-part>"
+            + "</client-message>";
+    
+    /** Update client message without client input. */
+    private static final String UPDATE_MESSAGE = 
+            "<client-message xmlns=\"" + CLIENT_MESSAGE_NAMESPACE + "\"/>";
+    
+    /**
+     * Servlet serving a fixed <code>ApplicationInstance</code>.
+     */
+    private static class HarnessServlet extends WebContainerServlet {
+        
+        private ApplicationInstance applicationInstance;
+        
+        /**
+         * @see nextapp.echo2.webcontainer.WebContainerServlet#newApplicationInstance()
+         */
+        public ApplicationInstance newApplicationInstance() {
+            return applicationInstance;
+        }
+    }
+    
+    /**
+     * <code>OutputStream</code> which counts and discards written data.
+     */
+    private static class CountingOutputStream extends ServletOutputStream {
+        
+        private long count;
+        
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        public void write(int b) {
+            ++count;
+        }
+        
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+    
+    /**
+     * <code>ServletInputStream</code> reading from a byte array.
+     */
+    private static class ByteArrayServletInputStream extends ServletInputStream {
+        
+        private ByteArrayInputStream in;
+        
+        ByteArrayServletInputStream(byte[] data) {
+            in = new ByteArrayInputStream(data);
+        }
+        
+        /**
+         * @see java.io.InputStream#read()
+         */
+        public int read() {
+            return in.read();
+        }
+        
+        /**
+         * @see java.io.InputStream#read(byte[], int, int)
+         */
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, len);
+        }
+    }
+    
+    /**
+     * Returns the default value of the specified return type.
+     * 
+     * @param returnType the return type
+     * @return the default value
+     */
+    private static Object defaultValue(Class returnType) {
+        if (returnType == Boolean.TYPE) {
+            return Boolean.FALSE;
+        } else if (returnType == Integer.TYPE) {
+            return new Integer(0);
+        } else if (returnType == Long.TYPE) {
+            return new Long(-1);
+        } else if (returnType == Enumeration.class) {
+            return Collections.enumeration(Collections.EMPTY_LIST);
+        } else {
+            return null;
+        }
+    }
+    
+    private HarnessServlet servlet = new HarnessServlet();
+    private Map sessionAttributes = Collections.synchronizedMap(new HashMap());
+    private HttpSession session;
+    private boolean sessionCreated = false;
+    
+    /**
+     * Creates a new <code>ServletHarness</code>.
+     * 
+     * @param applicationInstance the <code>ApplicationInstance</code> to serve
+     *        (must not yet be initialized)
+     */
+    public ServletHarness(ApplicationInstance applicationInstance) {
+        super();
+        servlet.applicationInstance = applicationInstance;
+        session = (HttpSession) Proxy.newProxyInstance(HttpSession.class.getClassLoader(), 
+                new Class[]{ HttpSession.class }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getAttribute".equals(name)) {
+                    return sessionAttributes.get(args[0]);
+                } else if ("setAttribute".equals(name)) {
+                    sessionAttributes.put(args[0], args[1]);
+                    if (args[1] instanceof HttpSessionBindingListener) {
+                        ((HttpSessionBindingListener) args[1]).valueBound(
+                                new HttpSessionBindingEvent(session, (String) args[0], args[1]));
+                    }
+                    return null;
+                } else if ("removeAttribute".equals(name)) {
+                    sessionAttributes.remove(args[0]);
+                    return null;
+                } else if ("getId".equals(name)) {
+                    return "benchmark";
+                } else if ("hashCode".equals(name)) {
+                    return new Integer(System.identityHashCode(proxy));
+                } else if ("equals".equals(name)) {
+                    return Boolean.valueOf(proxy == args[0]);
+                }
+                return defaultValue(method.getReturnType());
+            }
+        });
+    }
+    
+    /**
+     * Creates a servlet configuration without initialization parameters.
+     * 
+     * @return the configuration
+     */
+    private ServletConfig createConfig() {
+        final ServletContext context = (ServletContext) Proxy.newProxyInstance(ServletContext.class.getClassLoader(),
+                new Class[]{ ServletContext.class }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method m, Object[] args) {
+                return defaultValue(m.getReturnType());
+            }
+        });
+        return (ServletConfig) Proxy.newProxyInstance(ServletConfig.class.getClassLoader(), 
+                new Class[]{ ServletConfig.class }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method m, Object[] args) {
+                String name = m.getName();
+                if ("getServletName".equals(name)) {
+                    return "benchmark";
+                } else if ("getServletContext".equals(name)) {
+                    return context;
+                }
+                return defaultValue(m.getReturnType());
+            }
+        });
+    }
+    
+    /**
+     * Creates a request.
+     * 
+     * @param method the HTTP method
+     * @param serviceId the requested service identifier (may be null)
+     * @param content the request content (may be null)
+     * @return the request
+     */
+    private HttpServletRequest createRequest(final String method, final String serviceId, final byte[] content) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(), 
+                new Class[]{ HttpServletRequest.class }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method m, Object[] args) {
+                String name = m.getName();
+                if ("getMethod".equals(name)) {
+                    return method;
+                } else if ("getParameter".equals(name)) {
+                    return WebRenderServlet.SERVICE_ID_PARAMETER.equals(args[0]) ? serviceId : null;
+                } else if ("getParameterMap".equals(name)) {
+                    return serviceId == null ? Collections.EMPTY_MAP 
+                            : Collections.singletonMap(WebRenderServlet.SERVICE_ID_PARAMETER, new String[]{ serviceId });
+                } else if ("getSession".equals(name)) {
+                    if (args == null || args.length == 0 || ((Boolean) args[0]).booleanValue()) {
+                        sessionCreated = true;
+                    }
+                    return sessionCreated ? session : null;
+                } else if ("getInputStream".equals(name)) {
+                    return new ByteArrayServletInputStream(content == null ? new byte[0] : content);
+                } else if ("getContentType".equals(name)) {
+                    return content == null ? null : "text/xml; charset=UTF-8";
+                } else if ("getRequestURI".equals(name)) {
+                    return "/benchmark/app";
+                } else if ("getContextPath".equals(name)) {
+                    return "/benchmark";
+                } else if ("getServletPath".equals(name)) {
+                    return "/app";
+                } else if ("getProtocol".equals(name)) {
+                    return "HTTP/1.1";
+                } else if ("getDateHeader".equals(name) || "getIntHeader".equals(name)) {
+                    return m.getReturnType() == Long.TYPE ? (Object) new Long(-1) : new Integer(-1);
+                }
+                return defaultValue(m.getReturnType());
+            }
+        });
+    }
+    
+    /**
+     * Creates a response whose content is counted and discarded.
+     * 
+     * @param out the stream to which content is written
+     * @return the response
+     */
+    private HttpServletResponse createResponse(final CountingOutputStream out) {
+        return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(), 
+                new Class[]{ HttpServletResponse.class }, new InvocationHandler() {
+            private PrintWriter writer;
+            public Object invoke(Object proxy, Method m, Object[] args) 
+            throws UnsupportedEncodingException {
+                String name = m.getName();
+                if ("getOutputStream".equals(name)) {
+                    return out;
+                } else if ("getWriter".equals(name)) {
+                    if (writer == null) {
+                        writer = new PrintWriter(new OutputStreamWriter((OutputStream) out, "UTF-8"));
+                    }
+                    return writer;
+                } else if ("getCharacterEncoding".equals(name)) {
+                    return "UTF-8";
+                } else if ("flushBuffer".equals(name)) {
+                    if (writer != null) {
+                        writer.flush();
+                    }
+                }
+                return defaultValue(m.getReturnType());
+            }
+        });
+    }
+    
+    /**
+     * Performs a request.
+     * 
+     * @param method the HTTP method
+     * @param serviceId the requested service identifier (may be null)
+     * @param content the request content (may be null)
+     * @return the number of bytes in the response
+     */
+    private long request(String method, String serviceId, String content) 
+    throws IOException, ServletException {
+        CountingOutputStream out = new CountingOutputStream();
+        HttpServletRequest request = createRequest(method, serviceId, content == null ? null : content.getBytes("UTF-8"));
+        HttpServletResponse response = createResponse(out);
+        if ("POST".equals(method)) {
+            servlet.doPost(request, response);
+        } else {
+            servlet.doGet(request, response);
+        }
+        response.getWriter().flush();
+        return out.count;
+    }
+    
+    /**
+     * Initializes the servlet, creates the user instance and performs the 
+     * initial synchronization.
+     * 
+     * @return the number of bytes in the initial synchronization response
+     */
+    public long initialize() 
+    throws IOException, ServletException {
+        servlet.init(createConfig());
+        request("GET", null, null);
+        return request("POST", SynchronizeService.SERVICE_ID, INIT_MESSAGE);
+    }
+    
+    /**
+     * Performs an update synchronization without client input, such that
+     * queued tasks are processed and their resulting server updates are
+     * rendered.
+     * 
+     * @return the number of bytes in the synchronization response
+     */
+    public long synchronize() 
+    throws IOException, ServletException {
+        return request("POST", SynchronizeService.SERVICE_ID, UPDATE_MESSAGE);
+    }
+}
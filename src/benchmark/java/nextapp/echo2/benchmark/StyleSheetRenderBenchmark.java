@@ -0,0 +1,123 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+
+import nextapp.echo2.app.Color;
+import nextapp.echo2.app.Component;
+import nextapp.echo2.app.Font;
+import nextapp.echo2.app.Label;
+import nextapp.echo2.app.MutableStyle;
+import nextapp.echo2.app.MutableStyleSheet;
+import nextapp.echo2.app.TaskQueueHandle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks full re-rendering of a synthetic hierarchy whose components
+ * derive their properties from an application <code>StyleSheet</code>,
+ * such that rendering is dominated by style sheet style resolution.
+ * Styles are specified for the <code>Component</code> base class, such 
+ * that their retrieval from the style sheet requires a search of each 
+ * component's class hierarchy.  Half of the labels have style names.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StyleSheetRenderBenchmark {
+    
+    /** Number of children of each container. */
+    @Param({"4", "8"})
+    public int breadth;
+    
+    private SyntheticApp app;
+    private ServletHarness harness;
+    private TaskQueueHandle taskQueue;
+    private Runnable refreshTask;
+    
+    @Setup(Level.Trial)
+    public void setUp() 
+    throws IOException, ServletException {
+        app = new SyntheticApp(breadth, 4);
+        
+        MutableStyleSheet styleSheet = new MutableStyleSheet();
+        MutableStyle defaultStyle = new MutableStyle();
+        defaultStyle.setProperty(Component.PROPERTY_FONT, new Font(Font.SANS_SERIF, Font.PLAIN, null));
+        defaultStyle.setProperty(Component.PROPERTY_FOREGROUND, Color.DARKGRAY);
+        styleSheet.addStyle(Component.class, null, defaultStyle);
+        MutableStyle namedStyle = new MutableStyle();
+        namedStyle.setProperty(Component.PROPERTY_BACKGROUND, Color.YELLOW);
+        namedStyle.setProperty(Label.PROPERTY_LINE_WRAP, Boolean.FALSE);
+        styleSheet.addStyle(Component.class, "Highlight", namedStyle);
+        app.setStyleSheet(styleSheet);
+        
+        harness = new ServletHarness(app);
+        harness.initialize();
+        taskQueue = app.createTaskQueue();
+        app.enqueueTask(taskQueue, new Runnable() {
+            public void run() {
+                for (int i = 0; i < app.getLabelCount(); i += 2) {
+                    app.getLabel(i).setStyleName("Highlight");
+                }
+            }
+        });
+        harness.synchronize();
+        
+        refreshTask = new Runnable() {
+            public void run() {
+                app.getUpdateManager().getServerUpdateManager().processFullRefresh();
+            }
+        };
+    }
+    
+    /**
+     * Performs a synchronization in which the entire hierarchy is 
+     * re-rendered.
+     */
+    @Benchmark
+    public long renderFullRefresh() 
+    throws IOException, ServletException {
+        app.enqueueTask(taskQueue, refreshTask);
+        return harness.synchronize();
+    }
+}
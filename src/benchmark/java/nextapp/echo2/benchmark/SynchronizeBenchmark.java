@@ -0,0 +1,121 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+
+import nextapp.echo2.app.Label;
+import nextapp.echo2.app.TaskQueueHandle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks complete client/server synchronizations through
+ * <code>ContainerSynchronizeService</code>, including client message 
+ * parsing, <code>renderUpdate()</code> of updates applied to a synthetic 
+ * hierarchy, and server message serialization.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SynchronizeBenchmark {
+    
+    /** Number of children of each container. */
+    @Param({"4", "8"})
+    public int breadth;
+    
+    /** Number of labels updated per synchronization. */
+    @Param({"1", "10", "100"})
+    public int updateCount;
+    
+    private SyntheticApp app;
+    private ServletHarness harness;
+    private TaskQueueHandle taskQueue;
+    private Runnable updateTask;
+    private boolean toggle;
+    
+    @Setup(Level.Trial)
+    public void setUp() 
+    throws IOException, ServletException {
+        app = new SyntheticApp(breadth, 4);
+        harness = new ServletHarness(app);
+        harness.initialize();
+        taskQueue = app.createTaskQueue();
+        updateTask = new Runnable() {
+            public void run() {
+                toggle = !toggle;
+                String text = toggle ? "A" : "B";
+                int labelCount = app.getLabelCount();
+                int count = Math.min(updateCount, labelCount);
+                for (int i = 0; i < count; ++i) {
+                    Label label = app.getLabel(i * labelCount / count);
+                    label.setText(text);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Performs a synchronization in which the selected labels are updated.
+     */
+    @Benchmark
+    public long renderUpdate() 
+    throws IOException, ServletException {
+        app.enqueueTask(taskQueue, updateTask);
+        return harness.synchronize();
+    }
+    
+    /**
+     * Performs a synchronization in which the entire hierarchy is 
+     * re-rendered.
+     */
+    @Benchmark
+    public long renderFullRefresh() 
+    throws IOException, ServletException {
+        app.enqueueTask(taskQueue, new Runnable() {
+            public void run() {
+                app.getUpdateManager().getServerUpdateManager().processFullRefresh();
+            }
+        });
+        return harness.synchronize();
+    }
+}
@@ -0,0 +1,146 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.app.Column;
+import nextapp.echo2.app.Component;
+import nextapp.echo2.app.Label;
+import nextapp.echo2.app.Row;
+import nextapp.echo2.app.Window;
+
+/**
+ * An <code>ApplicationInstance</code> containing a synthetic component 
+ * hierarchy of configurable breadth and depth.  Containers alternate 
+ * between <code>Row</code>s and <code>Column</code>s, with 
+ * <code>Label</code>s at the leaves.
+ */
+public class SyntheticApp extends ApplicationInstance {
+    
+    /**
+     * Creates and initializes a <code>SyntheticApp</code>.  
+     * The application's update manager is purged after initialization.
+     * 
+     * @param breadth the number of children of each container
+     * @param depth the number of container levels 
+     * @return the initialized application
+     */
+    public static SyntheticApp create(int breadth, int depth) {
+        SyntheticApp app = new SyntheticApp(breadth, depth);
+        ApplicationInstance.setActive(app);
+        try {
+            app.doInit();
+            app.getUpdateManager().purge();
+        } finally {
+            ApplicationInstance.setActive(null);
+        }
+        return app;
+    }
+
+    private int breadth;
+    private int depth;
+    private Column rootColumn;
+    private List labels = new ArrayList();
+    
+    /**
+     * Creates a new <code>SyntheticApp</code>.
+     * 
+     * @param breadth the number of children of each container
+     * @param depth the number of container levels 
+     */
+    public SyntheticApp(int breadth, int depth) {
+        super();
+        this.breadth = breadth;
+        this.depth = depth;
+    }
+    
+    /**
+     * Returns the leaf <code>Label</code> at the specified index.
+     * 
+     * @param index the index
+     * @return the <code>Label</code>
+     */
+    public Label getLabel(int index) {
+        return (Label) labels.get(index);
+    }
+    
+    /**
+     * Returns the number of leaf <code>Label</code>s.
+     * 
+     * @return the number of labels
+     */
+    public int getLabelCount() {
+        return labels.size();
+    }
+    
+    /**
+     * Returns the <code>Column</code> at the root of the synthetic hierarchy.
+     * 
+     * @return the root <code>Column</code>
+     */
+    public Column getRootColumn() {
+        return rootColumn;
+    }
+    
+    /**
+     * @see nextapp.echo2.app.ApplicationInstance#init()
+     */
+    public Window init() {
+        Window window = new Window();
+        rootColumn = new Column();
+        window.getContent().add(rootColumn);
+        populate(rootColumn, depth);
+        return window;
+    }
+    
+    /**
+     * Recursively populates a container.
+     * 
+     * @param parent the container
+     * @param level the number of remaining container levels
+     */
+    private void populate(Component parent, int level) {
+        for (int i = 0; i < breadth; ++i) {
+            if (level <= 1) {
+                Label label = new Label("Label " + labels.size());
+                labels.add(label);
+                parent.add(label);
+            } else {
+                Component container = level % 2 == 0 ? (Component) new Row() : new Column();
+                parent.add(container);
+                populate(container, level - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.app.Table;
+import nextapp.echo2.app.TaskQueueHandle;
+import nextapp.echo2.app.Window;
+import nextapp.echo2.app.table.DefaultTableModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks synchronizations of a large <code>Table</code> in which a 
+ * single row of its model is updated, or appended and then deleted.
+ * The returned byte counts reflect the size of the rendered 
+ * <code>ServerMessage</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TableUpdateBenchmark {
+    
+    /** Number of rows in the table model. */
+    @Param({"1000", "10000"})
+    public int rowCount;
+    
+    private DefaultTableModel model;
+    private ApplicationInstance app;
+    private ServletHarness harness;
+    private TaskQueueHandle taskQueue;
+    private boolean toggle;
+    
+    @Setup(Level.Trial)
+    public void setUp() 
+    throws IOException, ServletException {
+        model = new DefaultTableModel(4, 0);
+        for (int i = 0; i < rowCount; ++i) {
+            model.addRow(new Object[]{"Row " + i, "Name " + i, "Value " + i, "Status " + i});
+        }
+        app = new ApplicationInstance() {
+            public Window init() {
+                Window window = new Window();
+                window.getContent().add(new Table(model));
+                return window;
+            }
+        };
+        harness = new ServletHarness(app);
+        harness.initialize();
+        taskQueue = app.createTaskQueue();
+    }
+    
+    /**
+     * Performs a synchronization in which one cell of a row in the middle
+     * of the table is updated.
+     */
+    @Benchmark
+    public long updateRow() 
+    throws IOException, ServletException {
+        app.enqueueTask(taskQueue, new Runnable() {
+            public void run() {
+                toggle = !toggle;
+                model.setValueAt(toggle ? "A" : "B", 2, rowCount / 2);
+            }
+        });
+        return harness.synchronize();
+    }
+    
+    /**
+     * Performs a synchronization in which a row is alternately appended to 
+     * and deleted from the end of the table.
+     */
+    @Benchmark
+    public long appendRow() 
+    throws IOException, ServletException {
+        app.enqueueTask(taskQueue, new Runnable() {
+            public void run() {
+                toggle = !toggle;
+                if (toggle) {
+                    model.addRow(new Object[]{"Appended", "Name", "Value", "Status"});
+                } else {
+                    model.deleteRow(model.getRowCount() - 1);
+                }
+            }
+        });
+        return harness.synchronize();
+    }
+}
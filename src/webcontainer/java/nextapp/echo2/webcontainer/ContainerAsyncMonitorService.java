@@ -47,6 +47,16 @@ public class ContainerAsyncMonitorService extends AsyncMonitorService {
      */
     public static final Service INSTANCE = new ContainerAsyncMonitorService();
 
+    /**
+     * Returns true, as <code>waitForSynchronization()</code> blocks until a 
+     * task is enqueued.
+     * 
+     * @see nextapp.echo2.webrender.service.AsyncMonitorService#isLongPollSupported()
+     */
+    protected boolean isLongPollSupported() {
+        return true;
+    }
+    
     /**
      * @see nextapp.echo2.webrender.service.AsyncMonitorService#isSynchronizationRequired(
      *      nextapp.echo2.webrender.UserInstance)
@@ -55,4 +65,28 @@ public class ContainerAsyncMonitorService extends AsyncMonitorService {
         ApplicationInstance app = ((ContainerInstance) userInstance).getApplicationInstance();
         return app.hasQueuedTasks();
     }
+    
+    /**
+     * Waits for a task to be enqueued in the <code>ApplicationInstance</code>.
+     * <code>ApplicationInstance.hasQueuedTasks()</code> is re-evaluated at 
+     * least once per callback interval, such that applications which enqueue
+     * tasks just-in-time continue to be polled at their requested interval.
+     * 
+     * @see nextapp.echo2.webrender.service.AsyncMonitorService#waitForSynchronization(
+     *      nextapp.echo2.webrender.UserInstance, long)
+     */
+    protected boolean waitForSynchronization(UserInstance userInstance, long timeout) 
+    throws InterruptedException {
+        ContainerInstance ci = (ContainerInstance) userInstance;
+        ApplicationInstance app = ci.getApplicationInstance();
+        long endTime = System.currentTimeMillis() + timeout;
+        long remaining = timeout;
+        while (remaining > 0) {
+            if (app.waitForQueuedTasks(Math.min(remaining, ci.getCallbackInterval()))) {
+                return true;
+            }
+            remaining = endTime - System.currentTimeMillis();
+        }
+        return false;
+    }
 }
\ No newline at end of file
@@ -55,6 +55,11 @@ public class ContainerInstance extends UserInstance {
      */
     private static final int DEFAULT_CALLBACK_INTERVAL = 500;
     
+    /**
+     * Prefix prepended to render ids to form base HTML element ids.
+     */
+    private static final String ELEMENT_ID_PREFIX = "c_";
+    
     /**
      * Returns the base HTML element id that should be used when rendering the
      * specified <code>Component</code>.
@@ -63,7 +68,7 @@ public class ContainerInstance extends UserInstance {
      * @return the base HTML element id
      */
     public static String getElementId(Component component) {
-        return "c_" + component.getRenderId();
+        return component.getRenderId(ELEMENT_ID_PREFIX);
     }
     
     /**
@@ -111,10 +116,12 @@ public class ContainerInstance extends UserInstance {
     /**
      * Determines the application-specified asynchronous monitoring
      * service callback interval.
+     * This method may be invoked by the asynchronous monitoring service 
+     * outside of the user interface thread.
      * 
      * @return the callback interval, in ms
      */
-    public int getCallbackInterval() {
+    public synchronized int getCallbackInterval() {
         if (taskQueueToCallbackIntervalMap == null || taskQueueToCallbackIntervalMap.size() == 0) {
             return DEFAULT_CALLBACK_INTERVAL;
         }
@@ -137,7 +144,7 @@ public class ContainerInstance extends UserInstance {
      */
     public Component getComponentByElementId(String elementId) {
         try {
-            return applicationInstance.getComponentByRenderId(elementId.substring(2));
+            return applicationInstance.getComponentByRenderId(elementId, ELEMENT_ID_PREFIX.length());
         } catch (IndexOutOfBoundsException ex) {
             throw new IllegalArgumentException("Invalid component element id: " + elementId);
         }
@@ -261,7 +268,7 @@ public class ContainerInstance extends UserInstance {
      *        callbacks
      * @see nextapp.echo2.webcontainer.ContainerContext#setTaskQueueCallbackInterval(nextapp.echo2.app.TaskQueueHandle, int)
      */
-    public void setTaskQueueCallbackInterval(TaskQueueHandle taskQueue, int ms) {
+    public synchronized void setTaskQueueCallbackInterval(TaskQueueHandle taskQueue, int ms) {
         if (taskQueueToCallbackIntervalMap == null) {
             taskQueueToCallbackIntervalMap = new WeakHashMap();
         }
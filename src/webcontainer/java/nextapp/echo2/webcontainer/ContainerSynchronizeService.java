@@ -29,10 +29,9 @@
 
 package nextapp.echo2.webcontainer;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.Map;
 
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import nextapp.echo2.app.ApplicationInstance;
@@ -44,6 +43,7 @@ import nextapp.echo2.app.update.ServerComponentUpdate;
 import nextapp.echo2.app.update.ServerUpdateManager;
 import nextapp.echo2.app.update.UpdateManager;
 import nextapp.echo2.webcontainer.syncpeer.WindowPeer;
+import nextapp.echo2.webrender.ClientMessage;
 import nextapp.echo2.webrender.Connection;
 import nextapp.echo2.webrender.ServerMessage;
 import nextapp.echo2.webrender.Service;
@@ -86,31 +86,89 @@ public class ContainerSynchronizeService extends SynchronizeService {
     public static final ContainerSynchronizeService INSTANCE = new ContainerSynchronizeService();
 
     /**
-     * Determines if any of the <code>Component</code> object in the provided 
-     * set of "potential" ancestors is in fact an ancestor of 
-     * <code>component</code>.
+     * Render state of a <code>Component</code> in the hierarchy, computed
+     * once per synchronization for updated components and their ancestors.
+     */
+    private static class HierarchyState {
+        
+        /** 
+         * Flag indicating whether the component has been rendered to the
+         * client, i.e., is not a descendant of a lazily rendered container
+         * which has not rendered it. 
+         */
+        boolean rendered;
+        
+        /** 
+         * The index of the update of the component or its nearest updated
+         * ancestor, or -1 if neither has been updated.
+         */
+        int updateIndex;
+    }
+    
+    /**
+     * Notifies the synchronization peer of a component of a client property 
+     * update.
      * 
-     * @param potentialAncestors a set containing <code>Component</code>s
-     * @param component the <code>Component</code> to evaluate
-     * @return true if any component in <code>potentialAncestors</code> is an
-     *         ancestor of <code>component</code>
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param componentId the element id of the target component
+     * @param propertyItem the "property" item of the ClientMessage
+     * @param propertyElement the "property" <code>Element</code>, or null
+     *        if it should be created from <code>propertyItem</code>
      */
-    private static boolean isAncestor(Set potentialAncestors, Component component) {
-        component = component.getParent();
-        while (component != null) {
-            if (potentialAncestors.contains(component)) {
-                return true;
-            }
-            component = component.getParent();
+    private static void processPropertyUpdate(ContainerInstance ci, String componentId, ClientMessage.Item propertyItem, 
+            Element propertyElement) {
+        Component component = ci.getComponentByElementId(componentId);
+        if (component == null) {
+            // Component removed.  This should not frequently occur, however in certain cases,
+            // e.g., dragging a window during an during before, during, after a server pushed update
+            // can result in the condition where input is received from a component which no longer
+            // is registered.
+            return;
+        }
+        ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(component.getClass());
+        if (!(syncPeer instanceof PropertyUpdateProcessor)) {
+            throw new IllegalStateException("Target peer is not an PropertyUpdateProcessor.");
+        }
+        if (propertyElement == null) {
+            propertyElement = propertyItem.toElement();
+        }
+        ((PropertyUpdateProcessor) syncPeer).processPropertyUpdate(ci, component, propertyElement);
+    }
+
+    /**
+     * Notifies the synchronization peer of a component of a client action.
+     * 
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param componentId the element id of the target component
+     * @param actionItem the "action" item of the ClientMessage
+     * @param actionElement the "action" <code>Element</code>, or null
+     *        if it should be created from <code>actionItem</code>
+     */
+    private static void processAction(ContainerInstance ci, String componentId, ClientMessage.Item actionItem, 
+            Element actionElement) {
+        Component component = ci.getComponentByElementId(componentId);
+        if (component == null) {
+            // Component removed.  This should not frequently occur, however in certain cases,
+            // e.g., dragging a window during an during before, during, after a server pushed update
+            // can result in the condition where input is received from a component which no longer
+            // is registered.
+            return;
+        }
+        ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(component.getClass());
+        if (!(syncPeer instanceof ActionProcessor)) {
+            throw new IllegalStateException("Target peer is not an ActionProcessor.");
         }
-        return false;
+        if (actionElement == null) {
+            actionElement = actionItem.toElement();
+        }
+        ((ActionProcessor) syncPeer).processAction(ci, component, actionElement);
     }
 
     /**
      * <code>ClientMessagePartProcessor</code> to process user-interface 
      * component input message parts.
      */
-    private ClientMessagePartProcessor propertyUpdateProcessor = new ClientMessagePartProcessor() {
+    private ClientMessagePartProcessor propertyUpdateProcessor = new StreamingClientMessagePartProcessor() {
         
         /**
          * @see nextapp.echo2.webrender.service.SynchronizeService.ClientMessagePartProcessor#getName()
@@ -127,20 +185,19 @@ public class ContainerSynchronizeService extends SynchronizeService {
             ContainerInstance ci = (ContainerInstance) userInstance;
             Element[] propertyElements = DomUtil.getChildElementsByTagName(messagePartElement, "property");
             for (int i = 0; i < propertyElements.length; ++i) {
-                String componentId = propertyElements[i].getAttribute("component-id");
-                Component component = ci.getComponentByElementId(componentId);
-                if (component == null) {
-                    // Component removed.  This should not frequently occur, however in certain cases,
-                    // e.g., dragging a window during an during before, during, after a server pushed update
-                    // can result in the condition where input is received from a component which no longer
-                    // is registered.
-                    continue;
-                }
-                ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(component.getClass());
-                if (!(syncPeer instanceof PropertyUpdateProcessor)) {
-                    throw new IllegalStateException("Target peer is not an PropertyUpdateProcessor.");
-                }
-                ((PropertyUpdateProcessor) syncPeer).processPropertyUpdate(ci, component, propertyElements[i]);
+                processPropertyUpdate(ci, propertyElements[i].getAttribute("component-id"), null, propertyElements[i]);
+            }
+        }
+
+        /**
+         * @see nextapp.echo2.webrender.service.SynchronizeService.StreamingClientMessagePartProcessor#process(
+         *      nextapp.echo2.webrender.UserInstance, nextapp.echo2.webrender.ClientMessage.Part)
+         */
+        public void process(UserInstance userInstance, ClientMessage.Part messagePart) {
+            ContainerInstance ci = (ContainerInstance) userInstance;
+            ClientMessage.Item[] propertyItems = messagePart.getItems("property");
+            for (int i = 0; i < propertyItems.length; ++i) {
+                processPropertyUpdate(ci, propertyItems[i].getAttribute("component-id"), propertyItems[i], null);
             }
         }
     };
@@ -149,7 +206,7 @@ public class ContainerSynchronizeService extends SynchronizeService {
      * <code>ClientMessagePartProcessor</code> to process user-interface 
      * component action message parts.
      */
-    private ClientMessagePartProcessor actionProcessor = new ClientMessagePartProcessor() {
+    private ClientMessagePartProcessor actionProcessor = new StreamingClientMessagePartProcessor() {
         
         /**
          * @see nextapp.echo2.webrender.service.SynchronizeService.ClientMessagePartProcessor#getName()
@@ -163,22 +220,17 @@ public class ContainerSynchronizeService extends SynchronizeService {
          *      nextapp.echo2.webrender.UserInstance, org.w3c.dom.Element)
          */
         public void process(UserInstance userInstance, Element messagePartElement) {
-            ContainerInstance ci = (ContainerInstance) userInstance;
             Element actionElement = DomUtil.getChildElementByTagName(messagePartElement, "action");
-            String componentId = actionElement.getAttribute("component-id");
-            Component component = ci.getComponentByElementId(componentId);
-            if (component == null) {
-                // Component removed.  This should not frequently occur, however in certain cases,
-                // e.g., dragging a window during an during before, during, after a server pushed update
-                // can result in the condition where input is received from a component which no longer
-                // is registered.
-                return;
-            }
-            ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(component.getClass());
-            if (!(syncPeer instanceof ActionProcessor)) {
-                throw new IllegalStateException("Target peer is not an ActionProcessor.");
-            }
-            ((ActionProcessor) syncPeer).processAction(ci, component, actionElement);
+            processAction((ContainerInstance) userInstance, actionElement.getAttribute("component-id"), null, actionElement);
+        }
+
+        /**
+         * @see nextapp.echo2.webrender.service.SynchronizeService.StreamingClientMessagePartProcessor#process(
+         *      nextapp.echo2.webrender.UserInstance, nextapp.echo2.webrender.ClientMessage.Part)
+         */
+        public void process(UserInstance userInstance, ClientMessage.Part messagePart) {
+            ClientMessage.Item actionItem = messagePart.getItem("action");
+            processAction((ContainerInstance) userInstance, actionItem.getAttribute("component-id"), actionItem, null);
         }
     };
     
@@ -249,29 +301,47 @@ public class ContainerSynchronizeService extends SynchronizeService {
     }
     
     /**
-     * Determines if the specified <code>component</code> has been rendered to
-     * the client by determining if it is a descendant of any
-     * <code>LazyRenderContainer</code>s and if so querying them to determine
-     * the hierarchy's render state. This method is recursively invoked.
+     * Retrieves the <code>HierarchyState</code> of the specified 
+     * <code>component</code>, computing and storing it, and those of its 
+     * ancestors, if required.  Whether the component has been rendered 
+     * is determined by querying any <code>LazyRenderContainer</code>s 
+     * among its ancestors.  This method is recursively invoked.
      * 
      * @param ci the relevant <code>ContainerInstance</code>
      * @param component the <code>Component</code> to analyze
-     * @return <code>true</code> if the <code>Component</code> has been
-     *         rendered to the client
+     * @param updateIndices a mapping between updated <code>Component</code>s
+     *        and the <code>Integer</code> indices of their updates
+     * @param states a mapping between <code>Component</code>s and their 
+     *        computed <code>HierarchyState</code>s
+     * @return the state
      */
-    private boolean isRendered(ContainerInstance ci, Component component) {
+    private HierarchyState getHierarchyState(ContainerInstance ci, Component component, Map updateIndices, Map states) {
+        HierarchyState state = (HierarchyState) states.get(component);
+        if (state != null) {
+            return state;
+        }
+        state = new HierarchyState();
         Component parent = component.getParent();
         if (parent == null) {
-            return true;
-        }
-        ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(parent.getClass());
-        if (syncPeer instanceof LazyRenderContainer) {
-            boolean rendered = ((LazyRenderContainer) syncPeer).isRendered(ci, parent, component);
-            if (!rendered) {
-                return false;
+            state.rendered = true;
+            state.updateIndex = -1;
+        } else {
+            HierarchyState parentState = getHierarchyState(ci, parent, updateIndices, states);
+            state.rendered = parentState.rendered;
+            if (state.rendered) {
+                ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(parent.getClass());
+                if (syncPeer instanceof LazyRenderContainer) {
+                    state.rendered = ((LazyRenderContainer) syncPeer).isRendered(ci, parent, component);
+                }
             }
+            state.updateIndex = parentState.updateIndex;
         }
-        return isRendered(ci, parent);
+        Integer updateIndex = (Integer) updateIndices.get(component);
+        if (updateIndex != null) {
+            state.updateIndex = updateIndex.intValue();
+        }
+        states.put(component, state);
+        return state;
     }
     
     /**
@@ -280,12 +350,12 @@ public class ContainerSynchronizeService extends SynchronizeService {
      * <code>ApplicationInstance</code> of the focus.
      * 
      * @param rc the relevant <code>RenderContext</code>
-     * @param clientMessageDocument the ClientMessage <code>Document</code> to 
-     *        retrieve focus information from
+     * @param clientMessage the ClientMessage to retrieve focus information
+     *        from
      */
-    private void processClientFocusedComponent(RenderContext rc, Document clientMessageDocument) {
-        if (clientMessageDocument.getDocumentElement().hasAttribute("focus")) {
-            String focusedComponentId = clientMessageDocument.getDocumentElement().getAttribute("focus");
+    private void processClientFocusedComponent(RenderContext rc, ClientMessage clientMessage) {
+        if (clientMessage.hasAttribute("focus")) {
+            String focusedComponentId = clientMessage.getAttribute("focus");
             Component component = null;
             if (focusedComponentId.length() > 2) {
                 // Valid component id.
@@ -348,21 +418,33 @@ public class ContainerSynchronizeService extends SynchronizeService {
             
             setRootLayoutDirection(rc);
         } else {
-            // Remove any updates whose updates are descendants of components which have not been rendered to the
-            // client yet due to lazy-loading containers.
+            // Determine the render state of each updated component and the index of the update of its nearest
+            // updated ancestor, visiting each component in the updated hierarchy only once.  Render states are 
+            // determined before any update is rendered, as rendering may change the state of lazy-loading 
+            // containers.
+            Map updateIndices = new HashMap();
             for (int i = 0; i < componentUpdates.length; ++i) {
-                if (!isRendered(ci, componentUpdates[i].getParent())) {
-                    componentUpdates[i] = null;
-                }
+                updateIndices.put(componentUpdates[i].getParent(), new Integer(i));
+            }
+            Map states = new HashMap();
+            boolean[] rendered = new boolean[componentUpdates.length];
+            int[] ancestorUpdateIndices = new int[componentUpdates.length];
+            for (int i = 0; i < componentUpdates.length; ++i) {
+                Component parentComponent = componentUpdates[i].getParent();
+                rendered[i] = getHierarchyState(ci, parentComponent, updateIndices, states).rendered;
+                ancestorUpdateIndices[i] = parentComponent.getParent() == null ? -1 
+                        : getHierarchyState(ci, parentComponent.getParent(), updateIndices, states).updateIndex;
             }
             
-            // Set of Components whose HTML was entirely re-rendered, negating the need
-            // for updates of their children to be processed.
-            Set fullyReplacedHierarchies = new HashSet();
+            // Flags indicating updates whose components were entirely re-rendered, or are descendants of such 
+            // components, negating the need for updates of their descendants to be processed.  As updates are
+            // sorted by depth, the update of an ancestor is always processed before those of its descendants. 
+            boolean[] replaced = new boolean[componentUpdates.length];
     
             for (int i = 0; i < componentUpdates.length; ++i) {
-                if (componentUpdates[i] == null) {
-                    // Update removed, do nothing.
+                if (!rendered[i]) {
+                    // Update is of a descendant of a component which has not been rendered to the client yet due 
+                    // to lazy-loading containers: do nothing.
                     continue;
                 }
                 
@@ -373,28 +455,30 @@ public class ContainerSynchronizeService extends SynchronizeService {
                 // Dispose of removed descendants.
                 Component[] removedDescendants = componentUpdates[i].getRemovedDescendants();
                 disposeComponents(rc, componentUpdates[i], removedDescendants);
+                
+                if (ancestorUpdateIndices[i] != -1 && replaced[ancestorUpdateIndices[i]]) {
+                    // Ancestor of updated component was fully replaced: do not perform update.
+                    replaced[i] = true;
+                    continue;
+                }
     
                 // Perform update.
                 Component parentComponent = componentUpdates[i].getParent();
-                if (!isAncestor(fullyReplacedHierarchies, parentComponent)) {
-                    // Only perform update if ancestor of updated component is NOT contained in
-                    // the set of components whose descendants were fully replaced.
-                    ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(parentComponent.getClass());
-                    String targetId;
-                    if (parentComponent.getParent() == null) {
-                        targetId = null;
-                    } else {
-                        ComponentSynchronizePeer parentSyncPeer 
-                                = SynchronizePeerFactory.getPeerForComponent(parentComponent.getParent().getClass());
-                        targetId = parentSyncPeer.getContainerId(parentComponent);
-                    }
-                    boolean fullReplacement = syncPeer.renderUpdate(rc, componentUpdates[i], targetId);
-                    if (fullReplacement) {
-                        // Invoke renderDispose() on hierarchy of components destroyed by
-                        // the complete replacement.
-                        disposeReplacedDescendants(rc, componentUpdates[i], parentComponent);
-                        fullyReplacedHierarchies.add(parentComponent);
-                    }
+                ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(parentComponent.getClass());
+                String targetId;
+                if (parentComponent.getParent() == null) {
+                    targetId = null;
+                } else {
+                    ComponentSynchronizePeer parentSyncPeer 
+                            = SynchronizePeerFactory.getPeerForComponent(parentComponent.getParent().getClass());
+                    targetId = parentSyncPeer.getContainerId(parentComponent);
+                }
+                boolean fullReplacement = syncPeer.renderUpdate(rc, componentUpdates[i], targetId);
+                if (fullReplacement) {
+                    // Invoke renderDispose() on hierarchy of components destroyed by
+                    // the complete replacement.
+                    disposeReplacedDescendants(rc, componentUpdates[i], parentComponent);
+                    replaced[i] = true;
                 }
             }
         }
@@ -402,16 +486,16 @@ public class ContainerSynchronizeService extends SynchronizeService {
     
     /**
      * @see nextapp.echo2.webrender.service.SynchronizeService#renderInit(nextapp.echo2.webrender.Connection,
-     *      org.w3c.dom.Document)
+     *      nextapp.echo2.webrender.ClientMessage)
      */
-    protected ServerMessage renderInit(Connection conn, Document clientMessageDocument) {
+    protected ServerMessage renderInit(Connection conn, ClientMessage clientMessage) {
         ServerMessage serverMessage = new ServerMessage();
         RenderContext rc = new RenderContextImpl(conn, serverMessage);
         ContainerInstance containerInstance = rc.getContainerInstance();
         try {
             serverMessage.addLibrary(WEB_CONTAINER_SERVICE.getId());
             
-            processClientMessage(conn, clientMessageDocument);
+            processClientMessage(conn, clientMessage);
 
             if (!containerInstance.isInitialized()) {
                 containerInstance.init(conn);
@@ -443,9 +527,9 @@ public class ContainerSynchronizeService extends SynchronizeService {
     
     /**
      * @see nextapp.echo2.webrender.service.SynchronizeService#renderUpdate(nextapp.echo2.webrender.Connection,
-     *      org.w3c.dom.Document)
+     *      nextapp.echo2.webrender.ClientMessage)
      */
-    protected ServerMessage renderUpdate(Connection conn, Document clientMessageDocument) {
+    protected ServerMessage renderUpdate(Connection conn, ClientMessage clientMessage) {
         ServerMessage serverMessage = new ServerMessage();
         RenderContext rc = new RenderContextImpl(conn, serverMessage);
         
@@ -453,7 +537,7 @@ public class ContainerSynchronizeService extends SynchronizeService {
         ApplicationInstance applicationInstance = ci.getApplicationInstance();
         
         try {
-            if (!validateTransactionId(ci, clientMessageDocument)) {
+            if (!validateTransactionId(ci, clientMessage)) {
                 processInvalidTransaction(rc);
                 return serverMessage;
             }
@@ -463,10 +547,10 @@ public class ContainerSynchronizeService extends SynchronizeService {
             
             UpdateManager updateManager = applicationInstance.getUpdateManager();
             
-            processClientFocusedComponent(rc, clientMessageDocument);
+            processClientFocusedComponent(rc, clientMessage);
             
             // Process updates from client.
-            processClientMessage(conn, clientMessageDocument);
+            processClientMessage(conn, clientMessage);
             
             updateManager.processClientUpdates();
             
@@ -567,12 +651,12 @@ public class ContainerSynchronizeService extends SynchronizeService {
      * Determines if transaction id retrieved from client matches current transaction id.
      * 
      * @param containerInstance the relevant <code>ContainerInstance</code>
-     * @param clientMessageDocument the incoming client message
+     * @param clientMessage the incoming client message
      * @return true if the transaction id is valid
      */
-    private boolean validateTransactionId(ContainerInstance containerInstance, Document clientMessageDocument) {
+    private boolean validateTransactionId(ContainerInstance containerInstance, ClientMessage clientMessage) {
         try {
-            long clientTransactionId = Long.parseLong(clientMessageDocument.getDocumentElement().getAttribute("trans-id"));
+            long clientTransactionId = Long.parseLong(clientMessage.getAttribute("trans-id"));
             return containerInstance.getCurrentTransactionId() == clientTransactionId;
         } catch (NumberFormatException ex) {
             // Client has not provided a transaction id at all, return true.
@@ -102,6 +102,6 @@ implements Service {
         bodyElement.setAttribute("style", cssStyle.renderInline());
         
         // Render.
-        baseDoc.render(conn.getWriter());
+        baseDoc.render(conn.getCompressedWriter());
     }
 }
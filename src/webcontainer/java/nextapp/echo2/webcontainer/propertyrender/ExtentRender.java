@@ -198,7 +198,7 @@ public class ExtentRender {
             if (unitInteger == null) {
                 return null;
             }
-            Extent extent = new Extent(Integer.parseInt(extentString.substring(0, unitPosition)), unitInteger.intValue()); 
+            Extent extent = Extent.valueOf(Integer.parseInt(extentString.substring(0, unitPosition)), unitInteger.intValue()); 
             return extent;
         } catch (NumberFormatException ex) {
             return null;
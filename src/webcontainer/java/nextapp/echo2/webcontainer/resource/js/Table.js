@@ -38,6 +38,12 @@ EchoTable = Core.extend({
 
     $static: {
 
+        /**
+         * Row height (in pixels) assumed by a virtual scrolling table when 
+         * no rendered rows are available to be measured.
+         */
+        DEFAULT_ROW_HEIGHT: 20,
+
         /**
          * Returns the Table data object instance based on the root element 
          * of the Table.
@@ -101,6 +107,20 @@ EchoTable = Core.extend({
             var componentId = EchoDomUtil.getComponentId(echoEvent.registeredTarget.id);
             var table = EchoTable.getComponent(componentId);
             table.processRolloverExit(echoEvent);
+        },
+        
+        /**
+         * Processes a viewport scroll event of a virtual scrolling table.
+         * Finds the appropriate <code>EchoTable</code> instance and
+         * delegates processing to it.
+         *
+         * @param echoEvent the event, preprocessed by the 
+         *        <code>EchoEventProcessor</code>
+         */
+        processScroll: function(echoEvent) {
+            var componentId = EchoDomUtil.getComponentId(echoEvent.registeredTarget.id);
+            var table = EchoTable.getComponent(componentId);
+            table.processScroll(echoEvent);
         }
     },
 
@@ -121,6 +141,14 @@ EchoTable = Core.extend({
         this.selectionState = null;
         this.headerVisible = false;
         this.lastSelectedIndex = -1;
+        this.virtual = false;
+        this.totalRowCount = 0;
+        this.visibleRowCount = 0;
+        this.firstVisibleRow = 0;
+        this.firstRenderedRow = 0;
+        this.renderedRowCount = 0;
+        this.headerHeight = 0;
+        this.rowHeight = 0;
     },
     
     /**
@@ -141,24 +169,12 @@ EchoTable = Core.extend({
     dispose: function() {
         var element = this.getElement();
         
-        if (this.rolloverEnabled || this.selectionEnabled) {
-            var mouseEnterLeaveSupport = EchoClientProperties.get("proprietaryEventMouseEnterLeaveSupported");
-            for (var rowIndex = 0; rowIndex < this.rowCount; ++rowIndex) {
-                var trElement = element.rows[rowIndex + (this.headerVisible ? 1 : 0)];
-                if (this.rolloverEnabled) {
-                    if (mouseEnterLeaveSupport) {
-                        EchoEventProcessor.removeHandler(trElement, "mouseenter");
-                        EchoEventProcessor.removeHandler(trElement, "mouseleave");
-                    } else {
-                        EchoEventProcessor.removeHandler(trElement, "mouseout");
-                        EchoEventProcessor.removeHandler(trElement, "mouseover");
-                    }
-                }
-                if (this.selectionEnabled) {
-                    EchoEventProcessor.removeHandler(trElement, "click");
-                    EchoEventProcessor.removeHandler(trElement, "mousedown");
-                }
-            }
+        if (this.virtual) {
+            EchoEventProcessor.removeHandler(this.getViewportElement(), "scroll");
+        }
+        
+        for (var rowIndex = 0; rowIndex < this.renderedRowCount; ++rowIndex) {
+            this.disposeRow(element.rows[this.getFirstRowOffset() + rowIndex]);
         }
         
         EchoDomPropertyStore.dispose(element);
@@ -172,6 +188,10 @@ EchoTable = Core.extend({
     drawRowStyle: function(rowIndex) {
         var selected = this.isSelected(rowIndex);
         var trElement = this.getRowElement(rowIndex);
+        if (!trElement) {
+            // Row is not rendered.
+            return;
+        }
         
         for (var i = 0; i < trElement.cells.length; ++i) {
             if (selected) {
@@ -190,25 +210,33 @@ EchoTable = Core.extend({
         return document.getElementById(this.elementId);
     },
     
+    /**
+     * Returns the index of the <code>TR</code> element of the first rendered
+     * row within the table, i.e., the number of header and spacer rows
+     * preceding it.
+     *
+     * @return the offset of the first rendered row
+     */
+    getFirstRowOffset: function() {
+        return (this.headerVisible ? 1 : 0) + (this.virtual ? 1 : 0);
+    },
+    
     /**
      * Returns the <code>TR</code> element associated with a specific
      * row index.
      * 
      * @param rowIndex the row index
-     * @return the relevant <code>TR</code> element
+     * @return the relevant <code>TR</code> element, or null if the row
+     *         is not rendered
      */
     getRowElement: function(rowIndex) {
         var element = this.getElement();
-        if (this.headerVisible) {
-            if (rowIndex == -1) {
-                return element.rows[0];
-            } else if (rowIndex >= 0 && rowIndex < this.rowCount) {
-                return element.rows[rowIndex + 1];
-            }
-        } else {
-            if (rowIndex >= 0 && rowIndex < this.rowCount) {
-                return element.rows[rowIndex];
-            }
+        if (rowIndex == -1) {
+            return this.headerVisible ? element.rows[0] : null;
+        }
+        var renderedIndex = rowIndex - this.firstRenderedRow;
+        if (renderedIndex >= 0 && renderedIndex < this.renderedRowCount) {
+            return element.rows[this.getFirstRowOffset() + renderedIndex];
         }
         return null;
     },
@@ -231,6 +259,14 @@ EchoTable = Core.extend({
         }
     },
     
+    /**
+     * Returns the scrolling viewport <code>DIV</code> element of a virtual
+     * scrolling table.
+     */
+    getViewportElement: function() {
+        return document.getElementById(this.elementId + "_viewport");
+    },
+    
     /**
      * Initializes the state of an <code>EchoTable</code> instance,
      * registering event handlers and binding it to it target
@@ -240,31 +276,193 @@ EchoTable = Core.extend({
         var element = this.getElement();
     
         this.selectionState = [];
-        this.rowCount = element.rows.length - (this.headerVisible ? 1 : 0); 
+        this.renderedRowCount = element.rows.length - (this.headerVisible ? 1 : 0); 
+        this.rowCount = this.virtual ? this.totalRowCount : this.renderedRowCount;
         
-        if (this.rolloverEnabled || this.selectionEnabled) {
-            var mouseEnterLeaveSupport = EchoClientProperties.get("proprietaryEventMouseEnterLeaveSupported");
-            for (var rowIndex = 0; rowIndex < this.rowCount; ++rowIndex) {
-                var trElement = element.rows[rowIndex + (this.headerVisible ? 1 : 0)];
-                if (this.rolloverEnabled) {
-                    if (mouseEnterLeaveSupport) {
-                        EchoEventProcessor.addHandler(trElement, "mouseenter", "EchoTable.processRolloverEnter");
-                        EchoEventProcessor.addHandler(trElement, "mouseleave", "EchoTable.processRolloverExit");
-                    } else {
-                        EchoEventProcessor.addHandler(trElement, "mouseout", "EchoTable.processRolloverExit");
-                        EchoEventProcessor.addHandler(trElement, "mouseover", "EchoTable.processRolloverEnter");
-                    }
-                }
-                if (this.selectionEnabled) {
-                    EchoEventProcessor.addHandler(trElement, "click", "EchoTable.processClick");
-                    EchoEventProcessor.addHandler(trElement, "mousedown", "EchoTable.processMouseDown");
-                }
-            }
+        if (this.virtual) {
+            this.initViewport();
+        }
+        
+        for (var rowIndex = 0; rowIndex < this.renderedRowCount; ++rowIndex) {
+            this.initRow(element.rows[this.getFirstRowOffset() + rowIndex]);
         }
         
         EchoDomPropertyStore.setPropertyValue(element, "component", this);
     },
     
+    /**
+     * Registers the event handlers of a table row.
+     *
+     * @param trElement the <code>TR</code> element of the row
+     */
+    initRow: function(trElement) {
+        if (this.rolloverEnabled) {
+            if (EchoClientProperties.get("proprietaryEventMouseEnterLeaveSupported")) {
+                EchoEventProcessor.addHandler(trElement, "mouseenter", "EchoTable.processRolloverEnter");
+                EchoEventProcessor.addHandler(trElement, "mouseleave", "EchoTable.processRolloverExit");
+            } else {
+                EchoEventProcessor.addHandler(trElement, "mouseout", "EchoTable.processRolloverExit");
+                EchoEventProcessor.addHandler(trElement, "mouseover", "EchoTable.processRolloverEnter");
+            }
+        }
+        if (this.selectionEnabled) {
+            EchoEventProcessor.addHandler(trElement, "click", "EchoTable.processClick");
+            EchoEventProcessor.addHandler(trElement, "mousedown", "EchoTable.processMouseDown");
+        }
+    },
+    
+    /**
+     * De-registers the event handlers of a table row.
+     *
+     * @param trElement the <code>TR</code> element of the row
+     */
+    disposeRow: function(trElement) {
+        if (this.rolloverEnabled) {
+            if (EchoClientProperties.get("proprietaryEventMouseEnterLeaveSupported")) {
+                EchoEventProcessor.removeHandler(trElement, "mouseenter");
+                EchoEventProcessor.removeHandler(trElement, "mouseleave");
+            } else {
+                EchoEventProcessor.removeHandler(trElement, "mouseout");
+                EchoEventProcessor.removeHandler(trElement, "mouseover");
+            }
+        }
+        if (this.selectionEnabled) {
+            EchoEventProcessor.removeHandler(trElement, "click");
+            EchoEventProcessor.removeHandler(trElement, "mousedown");
+        }
+    },
+    
+    /**
+     * Inserts rendered rows into the table.
+     * Rows previously at or after the insertion index are shifted down.
+     * 
+     * @param rowIndex the index at which to insert the rows
+     * @param trElements the <code>TR</code> elements to insert
+     */
+    insertRows: function(rowIndex, trElements) {
+        var tbodyElement = document.getElementById(this.elementId + "_tbody");
+        var nextTrElement = this.getRowElement(rowIndex);
+        for (var i = 0; i < trElements.length; ++i) {
+            if (nextTrElement) {
+                tbodyElement.insertBefore(trElements[i], nextTrElement);
+            } else {
+                tbodyElement.appendChild(trElements[i]);
+            }
+            this.initRow(trElements[i]);
+        }
+        this.renderedRowCount += trElements.length;
+        this.rowCount += trElements.length;
+        this.updateShiftedRows(rowIndex + trElements.length, trElements.length);
+        for (var j = 0; j < trElements.length; ++j) {
+            this.drawRowStyle(rowIndex + j);
+        }
+    },
+    
+    /**
+     * Removes rendered rows from the table.
+     * Rows following the removed rows are shifted up.
+     * 
+     * @param rowIndex the index of the first row to remove
+     * @param count the number of rows to remove
+     */
+    removeRows: function(rowIndex, count) {
+        for (var i = 0; i < count; ++i) {
+            var trElement = this.getRowElement(rowIndex);
+            this.disposeRow(trElement);
+            trElement.parentNode.removeChild(trElement);
+            --this.renderedRowCount;
+            --this.rowCount;
+        }
+        this.updateShiftedRows(rowIndex, -count);
+    },
+    
+    /**
+     * Replaces rendered rows of the table.
+     * 
+     * @param rowIndex the index of the first row to replace
+     * @param trElements the replacement <code>TR</code> elements
+     */
+    replaceRows: function(rowIndex, trElements) {
+        for (var i = 0; i < trElements.length; ++i) {
+            var oldTrElement = this.getRowElement(rowIndex + i);
+            this.disposeRow(oldTrElement);
+            oldTrElement.parentNode.replaceChild(trElements[i], oldTrElement);
+            this.initRow(trElements[i]);
+            this.drawRowStyle(rowIndex + i);
+        }
+    },
+    
+    /**
+     * Updates the ids of rows which were shifted by an insertion or removal,
+     * and redraws those whose selection state differs from that of the row
+     * index they previously occupied (the selection state is index-based).
+     * 
+     * @param rowIndex the current index of the first shifted row
+     * @param shift the number of positions the rows were shifted
+     */
+    updateShiftedRows: function(rowIndex, shift) {
+        for (var i = rowIndex; i < this.firstRenderedRow + this.renderedRowCount; ++i) {
+            this.getRowElement(i).id = this.elementId + "_tr_" + i;
+            if (this.isSelected(i) != this.isSelected(i - shift)) {
+                this.drawRowStyle(i);
+            }
+        }
+    },
+    
+    /**
+     * Initializes the viewport of a virtual scrolling table: measures the
+     * rendered rows, inserts spacer rows representing the rows which are not
+     * rendered, sizes the viewport to display the visible rows, restores the
+     * scroll position, and registers the scroll listener.
+     */
+    initViewport: function() {
+        var element = this.getElement();
+        var tbodyElement = document.getElementById(this.elementId + "_tbody");
+        var headerOffset = this.headerVisible ? 1 : 0;
+        
+        this.headerHeight = this.headerVisible ? element.rows[0].offsetHeight : 0;
+        if (this.renderedRowCount > 0) {
+            var firstTrElement = element.rows[headerOffset];
+            var lastTrElement = element.rows[headerOffset + this.renderedRowCount - 1];
+            this.rowHeight = (lastTrElement.offsetTop + lastTrElement.offsetHeight - firstTrElement.offsetTop) 
+                    / this.renderedRowCount;
+        }
+        if (!this.rowHeight) {
+            this.rowHeight = EchoTable.DEFAULT_ROW_HEIGHT;
+        }
+        
+        var columnCount = this.headerVisible || this.renderedRowCount > 0 ? element.rows[0].cells.length : 1;
+        var topSpacerElement = this.createSpacerRow(columnCount, this.firstRenderedRow);
+        tbodyElement.insertBefore(topSpacerElement, this.renderedRowCount > 0 ? element.rows[headerOffset] : null);
+        tbodyElement.appendChild(this.createSpacerRow(columnCount, 
+                this.totalRowCount - this.firstRenderedRow - this.renderedRowCount));
+        
+        var viewportElement = this.getViewportElement();
+        viewportElement.style.height = Math.round(this.headerHeight + this.visibleRowCount * this.rowHeight) + "px";
+        if (this.firstVisibleRow > 0) {
+            viewportElement.scrollTop = Math.round(this.headerHeight + this.firstVisibleRow * this.rowHeight);
+        }
+        EchoEventProcessor.addHandler(viewportElement, "scroll", "EchoTable.processScroll");
+    },
+    
+    /**
+     * Creates a spacer row which occupies the space of rows which are not
+     * rendered by a virtual scrolling table.
+     *
+     * @param columnCount the number of columns the spacer should span
+     * @param rowCount the number of rows the spacer represents
+     * @return the created <code>TR</code> element
+     */
+    createSpacerRow: function(columnCount, rowCount) {
+        var trElement = document.createElement("tr");
+        var tdElement = document.createElement("td");
+        tdElement.colSpan = columnCount;
+        tdElement.style.padding = "0px";
+        tdElement.style.height = Math.round(rowCount * this.rowHeight) + "px";
+        trElement.appendChild(tdElement);
+        return trElement;
+    },
+    
     /**
      * Determines if a row is selected.
      * 
@@ -379,6 +577,36 @@ EchoTable = Core.extend({
         this.drawRowStyle(rowIndex);
     },
     
+    /**
+     * Processes a viewport scroll event of a virtual scrolling table.
+     * The first visible row is stored in the outgoing 
+     * <code>ClientMessage</code>, and a client-server connection is 
+     * initiated if any of the visible rows are not rendered.
+     *
+     * @param echoEvent the event, preprocessed by the 
+     *        <code>EchoEventProcessor</code>
+     */
+    processScroll: function(echoEvent) {
+        if (!EchoClientEngine.verifyInput(this.getElement())) {
+            return;
+        }
+        
+        var viewportElement = echoEvent.registeredTarget;
+        var firstVisibleRow = Math.floor((viewportElement.scrollTop - this.headerHeight) / this.rowHeight);
+        firstVisibleRow = Math.max(0, Math.min(firstVisibleRow, this.totalRowCount - 1));
+        if (firstVisibleRow == this.firstVisibleRow) {
+            return;
+        }
+        this.firstVisibleRow = firstVisibleRow;
+        
+        EchoClientMessage.setPropertyValue(this.elementId, "firstVisibleRow", firstVisibleRow);
+        
+        var lastVisibleRow = Math.min(firstVisibleRow + this.visibleRowCount, this.totalRowCount);
+        if (firstVisibleRow < this.firstRenderedRow || lastVisibleRow > this.firstRenderedRow + this.renderedRowCount) {
+            EchoServerTransaction.connect();
+        }
+    },
+    
     /**
      * Sets the selection state of a table row.
      *
@@ -439,6 +667,15 @@ EchoTable.MessageProcessor = {
                 case "dispose":
                     EchoTable.MessageProcessor.processDispose(messagePartElement.childNodes[i]);
                     break;
+                case "insert-rows":
+                    EchoTable.MessageProcessor.processInsertRows(messagePartElement.childNodes[i]);
+                    break;
+                case "remove-rows":
+                    EchoTable.MessageProcessor.processRemoveRows(messagePartElement.childNodes[i]);
+                    break;
+                case "replace-rows":
+                    EchoTable.MessageProcessor.processReplaceRows(messagePartElement.childNodes[i]);
+                    break;
                 }
             }
         }
@@ -460,6 +697,60 @@ EchoTable.MessageProcessor = {
         }
     },
     
+    /**
+     * Imports the <code>TR</code> elements contained in a row directive 
+     * into the document.
+     *
+     * @param rowsMessageElement the <code>insert-rows</code> or 
+     *        <code>replace-rows</code> element
+     * @return an array of imported <code>TR</code> elements
+     */
+    importRows: function(rowsMessageElement) {
+        var trElements = [];
+        for (var node = rowsMessageElement.firstChild; node; node = node.nextSibling) {
+            if (node.nodeType == 1) {
+                trElements.push(EchoDomUtil.importNode(document, node, true));
+            }
+        }
+        return trElements;
+    },
+    
+    /**
+     * Processes an <code>insert-rows</code> message to insert rows
+     * into a Table.
+     *
+     * @param insertRowsMessageElement the <code>insert-rows</code> element to process
+     */
+    processInsertRows: function(insertRowsMessageElement) {
+        var table = EchoTable.getComponent(insertRowsMessageElement.getAttribute("eid"));
+        table.insertRows(parseInt(insertRowsMessageElement.getAttribute("index"), 10),
+                EchoTable.MessageProcessor.importRows(insertRowsMessageElement));
+    },
+    
+    /**
+     * Processes a <code>remove-rows</code> message to remove rows
+     * from a Table.
+     *
+     * @param removeRowsMessageElement the <code>remove-rows</code> element to process
+     */
+    processRemoveRows: function(removeRowsMessageElement) {
+        var table = EchoTable.getComponent(removeRowsMessageElement.getAttribute("eid"));
+        table.removeRows(parseInt(removeRowsMessageElement.getAttribute("index"), 10),
+                parseInt(removeRowsMessageElement.getAttribute("count"), 10));
+    },
+    
+    /**
+     * Processes a <code>replace-rows</code> message to replace rows
+     * of a Table.
+     *
+     * @param replaceRowsMessageElement the <code>replace-rows</code> element to process
+     */
+    processReplaceRows: function(replaceRowsMessageElement) {
+        var table = EchoTable.getComponent(replaceRowsMessageElement.getAttribute("eid"));
+        table.replaceRows(parseInt(replaceRowsMessageElement.getAttribute("index"), 10),
+                EchoTable.MessageProcessor.importRows(replaceRowsMessageElement));
+    },
+    
     /**
      * Processes an <code>init</code> message to initialize the state of a 
      * Table component that is being added.
@@ -486,6 +777,13 @@ EchoTable.MessageProcessor = {
                 table.multipleSelect = item.getAttribute("selection-mode") == "multiple";
                 table.serverNotify = item.getAttribute("server-notify") == "true";
             }
+            if (item.getAttribute("row-count")) {
+                table.virtual = true;
+                table.totalRowCount = parseInt(item.getAttribute("row-count"), 10);
+                table.visibleRowCount = parseInt(item.getAttribute("visible-row-count"), 10);
+                table.firstVisibleRow = parseInt(item.getAttribute("first-visible-row"), 10);
+                table.firstRenderedRow = parseInt(item.getAttribute("first-rendered-row"), 10);
+            }
             
             table.init();
             
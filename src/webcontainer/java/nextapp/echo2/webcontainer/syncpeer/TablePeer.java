@@ -29,6 +29,10 @@
 
 package nextapp.echo2.webcontainer.syncpeer;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
@@ -49,12 +53,14 @@ import nextapp.echo2.app.layout.TableLayoutData;
 import nextapp.echo2.app.list.ListSelectionModel;
 import nextapp.echo2.app.table.TableColumnModel;
 import nextapp.echo2.app.update.ServerComponentUpdate;
+import nextapp.echo2.app.util.IntegerCache;
 import nextapp.echo2.webcontainer.ActionProcessor;
 import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webcontainer.DomUpdateSupport;
 import nextapp.echo2.webcontainer.PartialUpdateManager;
 import nextapp.echo2.webcontainer.PropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.RenderContext;
+import nextapp.echo2.webcontainer.RenderState;
 import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
 import nextapp.echo2.webcontainer.SynchronizePeerFactory;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
@@ -83,6 +89,39 @@ import nextapp.echo2.webrender.util.DomUtil;
 public class TablePeer 
 implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, PropertyUpdateProcessor  {
 
+    /**
+     * <code>RenderState</code> implementation.
+     */
+    private static class TablePeerRenderState 
+    implements RenderState {
+        
+        /**
+         * The number of columns during the last rendering.
+         */
+        public int columnCount;
+        
+        /**
+         * The component rendered in the first column of each row during the
+         * last rendering.  These components identify the rendered rows such
+         * that rows which have since been inserted, removed, or replaced may
+         * be determined when rendering an update.
+         */
+        public Component[] rowKeys;
+    }
+    
+    /**
+     * Row update operation constant: the row was inserted.
+     */
+    private static final int ROW_INSERTED = 1;
+    
+    /**
+     * Row update operation constant: one or more cells of the row were
+     * replaced.
+     */
+    private static final int ROW_REPLACED = 2;
+    
+    private static final String XHTML_NAMESPACE = "http://www.w3.org/1999/xhtml";
+
     /**
      * A string of periods used for the IE 100% Table Width workaround.
      */
@@ -92,6 +131,7 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
     private static final String[] TABLE_INIT_KEYS = new String[]{"rollover-style", "selection-style"};
     
     private static final String PROPERTY_SELECTION = "selection";
+    private static final String PROPERTY_FIRST_VISIBLE_ROW = "firstVisibleRow";
     
     private static final String IMAGE_ID_ROLLOVER_BACKGROUND = "rolloverBackground";
     private static final String IMAGE_ID_SELECTION_BACKGROUND = "selectionBackground";
@@ -108,6 +148,24 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
 
     protected PartialUpdateManager propertyRenderRegistry;
     
+    /**
+     * Renders dispose directives for a component which remains in the
+     * hierarchy but whose rendered state will be replaced on the client, 
+     * and for its visible descendants.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param update the update
+     * @param component the component
+     */
+    private void disposeComponent(RenderContext rc, ServerComponentUpdate update, Component component) {
+        Component[] children = component.getVisibleComponents();
+        for (int i = 0; i < children.length; ++i) {
+            disposeComponent(rc, update, children[i]);
+        }
+        ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(component.getClass());
+        syncPeer.renderDispose(rc, update, component);
+    }
+    
     /**
      * @see nextapp.echo2.webcontainer.ComponentSynchronizePeer#getContainerId(nextapp.echo2.app.Component)
      */
@@ -183,6 +241,10 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
             }
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
                     Table.SELECTION_CHANGED_PROPERTY, selectedIndices);
+        } else if (PROPERTY_FIRST_VISIBLE_ROW.equals(propertyName)) {
+            int firstVisibleRow = Integer.parseInt(propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_VALUE));
+            ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
+                    Table.FIRST_VISIBLE_ROW_CHANGED_PROPERTY, IntegerCache.valueOf(firstVisibleRow));
         }
     }
     
@@ -310,7 +372,17 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
         
         tableElement.setAttribute("style", tableCssStyle.renderInline());
         
-        parentNode.appendChild(tableElement);
+        if (table.isVirtualScrolling()) {
+            // Render scrolling viewport: its height and the heights of the spacers representing the 
+            // unrendered rows are calculated by the client once the rendered rows may be measured.
+            Element viewportDivElement = document.createElement("div");
+            viewportDivElement.setAttribute("id", elementId + "_viewport");
+            viewportDivElement.setAttribute("style", "overflow:auto;");
+            viewportDivElement.appendChild(tableElement);
+            parentNode.appendChild(viewportDivElement);
+        } else {
+            parentNode.appendChild(tableElement);
+        }
         
         TableColumnModel columnModel = table.getColumnModel();
         int columnCount = columnModel.getColumnCount();
@@ -345,9 +417,10 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
             firstTrElement = renderRow(rc, update, tbodyElement, table, Table.HEADER_ROW, defaultInsetsAttributeValue);
         }
         
-        int rows = table.getModel().getRowCount();
-        for (int rowIndex = 0; rowIndex < rows; ++rowIndex) {
-            if (firstTrElement == null && rowIndex == 0) {
+        int rowStart = table.getRenderedRowStart();
+        int rowEnd = rowStart + table.getRenderedRowCount();
+        for (int rowIndex = rowStart; rowIndex < rowEnd; ++rowIndex) {
+            if (firstTrElement == null && rowIndex == rowStart) {
                 firstTrElement = renderRow(rc, update, tbodyElement, table, rowIndex, defaultInsetsAttributeValue);
             } else {
                 renderRow(rc, update, tbodyElement, table, rowIndex, defaultInsetsAttributeValue);
@@ -369,6 +442,8 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
                 tdElement.appendChild(sizingDivElement);
             }
         }
+        
+        storeRenderState(rc, table);
     }
     
     /**
@@ -434,6 +509,13 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
             itemElement.setAttribute("server-notify", "true");
         }
         
+        if (table.isVirtualScrolling()) {
+            itemElement.setAttribute("row-count", Integer.toString(table.getVirtualRowCount()));
+            itemElement.setAttribute("visible-row-count", Integer.toString(table.getVisibleRowCount()));
+            itemElement.setAttribute("first-visible-row", Integer.toString(table.getFirstVisibleRow()));
+            itemElement.setAttribute("first-rendered-row", Integer.toString(table.getRenderedRowStart()));
+        }
+        
         if (rolloverEnabled) {
             itemElement.setAttribute("rollover-enabled", "true");
         }
@@ -448,8 +530,8 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
                 Element selectionElement = document.createElement("selection");
                 int minimumIndex = selectionModel.getMinSelectedIndex();
                 int maximumIndex = selectionModel.getMaxSelectedIndex();
-                if (maximumIndex > table.getModel().getRowCount() - 1) {
-                    maximumIndex = table.getModel().getRowCount() - 1;
+                if (maximumIndex > table.getVirtualRowCount() - 1) {
+                    maximumIndex = table.getVirtualRowCount() - 1;
                 }
                 for (int i = minimumIndex; i <= maximumIndex; ++i) {
                     if (selectionModel.isSelectedIndex(i)) {
@@ -540,9 +622,170 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
      */
     public boolean renderUpdate(RenderContext rc, ServerComponentUpdate update, String targetId) {
         Table table = (Table) update.getParent();
+        if (renderRowUpdates(rc, update, table)) {
+            storeRenderState(rc, table);
+            return false;
+        }
+        
+        // Perform full update.
         renderDisposeDirective(rc, table);
-        DomUpdate.renderElementRemove(rc.getServerMessage(), ContainerInstance.getElementId(table));
+        String elementId = ContainerInstance.getElementId(table);
+        // Remove viewport (if present) in case the table was previously rendered with virtual scrolling.
+        DomUpdate.renderElementRemove(rc.getServerMessage(), elementId + "_viewport");
+        DomUpdate.renderElementRemove(rc.getServerMessage(), elementId);
         renderAdd(rc, update, targetId, table);
         return true;
     }
+    
+    /**
+     * Renders an update as row-level insert, remove, and replace directives,
+     * such that only the affected rows are sent to the client.  Rows are 
+     * identified by their index within the <code>_tbody</code> element.
+     * Removal directives are rendered in descending order of the rows' 
+     * previous indices, followed by insertion and replacement directives in
+     * ascending order of the rows' new indices.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param update the update
+     * @param table the <code>Table</code> being updated
+     * @return true if the update was rendered, or false if the table must
+     *         instead be fully re-rendered
+     */
+    private boolean renderRowUpdates(RenderContext rc, ServerComponentUpdate update, Table table) {
+        if (update.hasUpdatedProperties() || update.hasUpdatedLayoutDataChildren() || table.isVirtualScrolling()) {
+            return false;
+        }
+        TablePeerRenderState renderState = (TablePeerRenderState) rc.getContainerInstance().getRenderState(table);
+        int columnCount = table.getColumnModel().getColumnCount();
+        if (renderState == null || columnCount == 0 || renderState.columnCount != columnCount) {
+            return false;
+        }
+        if (rc.getContainerInstance().getClientProperties().getBoolean(
+                ClientProperties.QUIRK_IE_TABLE_PERCENT_WIDTH_SCROLLBAR_ERROR)) {
+            // Sizing dots of the 100% width workaround are rendered in the first row.
+            Extent width = (Extent) table.getRenderProperty(Table.PROPERTY_WIDTH);
+            if (width != null && width.getUnits() == Extent.PERCENT && width.getValue() == 100) {
+                return false;
+            }
+        }
+        
+        Set removedChildren = new HashSet(Arrays.asList(update.getRemovedChildren()));
+        Set addedChildren = new HashSet(Arrays.asList(update.getAddedChildren()));
+        Component[] oldRowKeys = renderState.rowKeys;
+        int rowCount = table.getRenderedRowCount();
+        
+        // Match previously rendered rows against current rows.
+        int[] removedRows = new int[oldRowKeys.length];
+        int removedRowCount = 0;
+        int[] rowOperations = new int[rowCount];
+        int removedCellCount = 0;
+        int addedCellCount = 0;
+        int oldIndex = 0;
+        int newIndex = 0;
+        while (oldIndex < oldRowKeys.length || newIndex < rowCount) {
+            boolean oldRowRemoved = oldIndex < oldRowKeys.length && removedChildren.contains(oldRowKeys[oldIndex]);
+            Component rowKey = newIndex < rowCount ? table.getCellComponent(0, newIndex) : null;
+            boolean rowKeyAdded = rowKey != null && addedChildren.contains(rowKey);
+            if (oldRowRemoved && rowKeyAdded) {
+                // First cell (at least) replaced: replace row.
+                int replacedCells = 1;
+                for (int columnIndex = 1; columnIndex < columnCount; ++columnIndex) {
+                    if (addedChildren.contains(table.getCellComponent(columnIndex, newIndex))) {
+                        ++replacedCells;
+                    }
+                }
+                rowOperations[newIndex++] = ROW_REPLACED;
+                ++oldIndex;
+                addedCellCount += replacedCells;
+                removedCellCount += replacedCells;
+            } else if (oldRowRemoved) {
+                removedRows[removedRowCount++] = oldIndex++;
+                removedCellCount += columnCount;
+            } else if (rowKeyAdded) {
+                rowOperations[newIndex++] = ROW_INSERTED;
+                addedCellCount += columnCount;
+            } else if (rowKey != null && oldIndex < oldRowKeys.length && oldRowKeys[oldIndex] == rowKey) {
+                for (int columnIndex = 1; columnIndex < columnCount; ++columnIndex) {
+                    if (addedChildren.contains(table.getCellComponent(columnIndex, newIndex))) {
+                        rowOperations[newIndex] = ROW_REPLACED;
+                        ++addedCellCount;
+                        ++removedCellCount;
+                    }
+                }
+                ++oldIndex;
+                ++newIndex;
+            } else {
+                return false;
+            }
+        }
+        if (removedCellCount != removedChildren.size() || addedCellCount != addedChildren.size()) {
+            // Changes do not consist solely of complete rows and replaced cells, e.g., header was re-rendered.
+            return false;
+        }
+        
+        ServerMessage serverMessage = rc.getServerMessage();
+        serverMessage.addLibrary(TABLE_SERVICE.getId());
+        String elementId = ContainerInstance.getElementId(table);
+        
+        for (int i = removedRowCount - 1; i >= 0; --i) {
+            int lastRow = removedRows[i];
+            while (i > 0 && removedRows[i - 1] == removedRows[i] - 1) {
+                --i;
+            }
+            Element removeElement = serverMessage.appendPartDirective(ServerMessage.GROUP_ID_UPDATE, 
+                    "EchoTable.MessageProcessor", "remove-rows");
+            removeElement.setAttribute("eid", elementId);
+            removeElement.setAttribute("index", Integer.toString(removedRows[i]));
+            removeElement.setAttribute("count", Integer.toString(lastRow - removedRows[i] + 1));
+        }
+        
+        Insets tableInsets = (Insets) table.getRenderProperty(Table.PROPERTY_INSETS);
+        String defaultInsetsAttributeValue = tableInsets == null ? "0px" : InsetsRender.renderCssAttributeValue(tableInsets);
+        int rowIndex = 0;
+        while (rowIndex < rowCount) {
+            int operation = rowOperations[rowIndex];
+            if (operation == 0) {
+                ++rowIndex;
+                continue;
+            }
+            // Directive is appended to message before rendering rows, such that it precedes directives 
+            // rendered by child components.
+            Element rowsElement = serverMessage.appendPartDirective(ServerMessage.GROUP_ID_UPDATE, 
+                    "EchoTable.MessageProcessor", operation == ROW_INSERTED ? "insert-rows" : "replace-rows");
+            rowsElement.setAttribute("eid", elementId);
+            rowsElement.setAttribute("index", Integer.toString(rowIndex));
+            while (rowIndex < rowCount && rowOperations[rowIndex] == operation) {
+                if (operation == ROW_REPLACED) {
+                    // Cells which were not replaced are re-rendered with the row: dispose their existing client state.
+                    for (int columnIndex = 0; columnIndex < columnCount; ++columnIndex) {
+                        Component cell = table.getCellComponent(columnIndex, rowIndex);
+                        if (cell != null && cell.isVisible() && !addedChildren.contains(cell)) {
+                            disposeComponent(rc, update, cell);
+                        }
+                    }
+                }
+                Element trElement = renderRow(rc, update, rowsElement, table, rowIndex, defaultInsetsAttributeValue);
+                trElement.setAttribute("xmlns", XHTML_NAMESPACE);
+                ++rowIndex;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Update the stored <code>RenderState</code>.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param table the <code>Table</code>
+     */
+    private void storeRenderState(RenderContext rc, Table table) {
+        TablePeerRenderState renderState = new TablePeerRenderState();
+        renderState.columnCount = table.getColumnModel().getColumnCount();
+        int rowCount = table.getRenderedRowCount();
+        renderState.rowKeys = new Component[renderState.columnCount == 0 ? 0 : rowCount];
+        for (int rowIndex = 0; rowIndex < renderState.rowKeys.length; ++rowIndex) {
+            renderState.rowKeys[rowIndex] = table.getCellComponent(0, table.getRenderedRowStart() + rowIndex);
+        }
+        rc.getContainerInstance().setRenderState(table, renderState);
+    }
 }
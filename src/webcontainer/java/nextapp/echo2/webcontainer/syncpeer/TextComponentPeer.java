@@ -290,12 +290,12 @@ implements ActionProcessor, ComponentSynchronizePeer, DomUpdateSupport, FocusSup
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
                     TextComponent.TEXT_CHANGED_PROPERTY, propertyValue);
         } else if (TextComponent.PROPERTY_HORIZONTAL_SCROLL.equals(propertyName)) {
-            Extent propertyValue = new Extent(Integer.parseInt(
+            Extent propertyValue = Extent.valueOf(Integer.parseInt(
                     propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_VALUE)));
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
                     TextComponent.PROPERTY_HORIZONTAL_SCROLL, propertyValue);
         } else if (TextComponent.PROPERTY_VERTICAL_SCROLL.equals(propertyName)) {
-            Extent propertyValue = new Extent(Integer.parseInt(
+            Extent propertyValue = Extent.valueOf(Integer.parseInt(
                     propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_VALUE)));
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
                     TextComponent.PROPERTY_VERTICAL_SCROLL, propertyValue);
@@ -0,0 +1,559 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.SAXParser;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import nextapp.echo2.webrender.util.DomUtil;
+
+/**
+ * A compact, read-only representation of a "ClientMessage" XML document 
+ * sent by the client to the <code>SynchronizeService</code>.
+ * <p>
+ * The message is read with a SAX parser, such that no W3C DOM is created for
+ * it.  A DOM representation of the message or of any part of it may be 
+ * obtained on demand for processors which require one.
+ */
+public class ClientMessage {
+    
+    /**
+     * Exception thrown by the parse handler when the end of the document 
+     * element has been reached, such that trailing content (e.g., the 
+     * whitespace appended by Konqueror/KHTML browsers) is never read.
+     */
+    private static class ParseCompleteException extends SAXException {
+        
+        /** Creates a new <code>ParseCompleteException</code>. */
+        private ParseCompleteException() {
+            super("Parse complete.");
+        }
+    }
+    
+    /**
+     * An element within a message part, e.g., a "property" or "action" 
+     * element, along with its attributes, text content, and child elements.
+     */
+    public static class Item {
+        
+        private ClientMessage message;
+        private String name;
+        private String[] attributes;
+        private String text;
+        private List children;
+        
+        /**
+         * Creates a new <code>Item</code>.
+         * 
+         * @param message the containing <code>ClientMessage</code>
+         * @param name the element name
+         * @param attributes the SAX attributes of the element
+         */
+        private Item(ClientMessage message, String name, Attributes attributes) {
+            super();
+            this.message = message;
+            this.name = name;
+            this.attributes = copyAttributes(attributes);
+        }
+        
+        /**
+         * Returns the value of an attribute.
+         * 
+         * @param name the name of the attribute
+         * @return the value of the attribute, or an empty string if the 
+         *         attribute is not present (as with the W3C DOM)
+         */
+        public String getAttribute(String name) {
+            return ClientMessage.getAttribute(attributes, name);
+        }
+        
+        /**
+         * Returns the first child item with the specified name.
+         * 
+         * @param name the name of the child item
+         * @return the child item, or null if none exists
+         */
+        public Item getChild(String name) {
+            return ClientMessage.getChild(children, name);
+        }
+        
+        /**
+         * Returns all child items with the specified name.
+         * 
+         * @param name the name of the child items
+         * @return the child items
+         */
+        public Item[] getChildren(String name) {
+            return ClientMessage.getChildren(children, name);
+        }
+        
+        /**
+         * Returns the element name of the item.
+         * 
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Returns the text content of the item.
+         * 
+         * @return the text content, or null if the item contains no text
+         */
+        public String getText() {
+            return text;
+        }
+        
+        /**
+         * Determines whether the item has the specified attribute.
+         * 
+         * @param name the name of the attribute
+         * @return true if the attribute is present
+         */
+        public boolean hasAttribute(String name) {
+            return ClientMessage.indexOfAttribute(attributes, name) != -1;
+        }
+        
+        /**
+         * Creates a W3C DOM <code>Element</code> representation of the item,
+         * for use with APIs which require one.  The element is not part of the
+         * document returned by <code>ClientMessage.getDocument()</code>.
+         * 
+         * @return the <code>Element</code>
+         */
+        public Element toElement() {
+            return createElement(message.getItemDocument());
+        }
+        
+        /**
+         * Creates a W3C DOM <code>Element</code> representation of the item
+         * and its descendants in the specified <code>Document</code>.
+         * 
+         * @param document the <code>Document</code>
+         * @return the <code>Element</code>
+         */
+        private Element createElement(Document document) {
+            Element element = document.createElementNS(message.namespaceUri, name);
+            for (int i = 0; i < attributes.length; i += 2) {
+                element.setAttribute(attributes[i], attributes[i + 1]);
+            }
+            if (text != null) {
+                element.appendChild(document.createTextNode(text));
+            }
+            if (children != null) {
+                int size = children.size();
+                for (int i = 0; i < size; ++i) {
+                    element.appendChild(((Item) children.get(i)).createElement(document));
+                }
+            }
+            return element;
+        }
+    }
+
+    /**
+     * A "message-part" of a <code>ClientMessage</code>, to be processed by
+     * a specific <code>ClientMessagePartProcessor</code>.
+     */
+    public static class Part {
+        
+        private ClientMessage message;
+        private int index;
+        private String processorName;
+        private List items = new ArrayList();
+        
+        /**
+         * Creates a new <code>Part</code>.
+         * 
+         * @param message the containing <code>ClientMessage</code>
+         * @param index the index of the part within the message
+         * @param processorName the name of the processor
+         */
+        private Part(ClientMessage message, int index, String processorName) {
+            super();
+            this.message = message;
+            this.index = index;
+            this.processorName = processorName;
+        }
+        
+        /**
+         * Returns the first item with the specified name.
+         * 
+         * @param name the name of the item
+         * @return the item, or null if none exists
+         */
+        public Item getItem(String name) {
+            return ClientMessage.getChild(items, name);
+        }
+        
+        /**
+         * Returns all items with the specified name.
+         * 
+         * @param name the name of the items
+         * @return the items
+         */
+        public Item[] getItems(String name) {
+            return ClientMessage.getChildren(items, name);
+        }
+        
+        /**
+         * Returns the name of the processor which should process this part.
+         * 
+         * @return the processor name
+         */
+        public String getProcessorName() {
+            return processorName;
+        }
+        
+        /**
+         * Returns the "message-part" <code>Element</code> representing this
+         * part within the document returned by 
+         * <code>ClientMessage.getDocument()</code>.  Invoking this method will
+         * result in the DOM representation of the entire message being 
+         * created.
+         * 
+         * @return the <code>Element</code>
+         */
+        public Element toElement() {
+            return DomUtil.getChildElementsByTagName(message.getDocument().getDocumentElement(), "message-part")[index];
+        }
+    }
+    
+    /**
+     * SAX handler which creates the <code>ClientMessage</code> 
+     * representation.
+     */
+    private class Handler extends DefaultHandler {
+        
+        /** Stack of currently open <code>Item</code>s. */
+        private List openItems = new ArrayList();
+        
+        private Part part;
+        private StringBuffer text;
+        private int depth;
+        
+        /**
+         * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
+         */
+        public void characters(char[] ch, int start, int length) {
+            if (openItems.size() > 0) {
+                if (text == null) {
+                    text = new StringBuffer();
+                }
+                text.append(ch, start, length);
+            }
+        }
+        
+        /**
+         * @see org.xml.sax.helpers.DefaultHandler#endElement(java.lang.String, java.lang.String, java.lang.String)
+         */
+        public void endElement(String uri, String localName, String qName) 
+        throws SAXException {
+            --depth;
+            if (depth == 0) {
+                throw new ParseCompleteException();
+            } else if (depth == 1) {
+                part = null;
+            } else if (part != null) {
+                Item item = (Item) openItems.remove(openItems.size() - 1);
+                flushText(item);
+            }
+        }
+        
+        /**
+         * Stores accumulated text content in an <code>Item</code>.
+         * 
+         * @param item the <code>Item</code>
+         */
+        private void flushText(Item item) {
+            if (text != null) {
+                item.text = item.text == null ? text.toString() : item.text + text;
+                text = null;
+            }
+        }
+        
+        /**
+         * Throws a <code>SAXException</code> to avoid external entity injection.
+         * 
+         * @see org.xml.sax.helpers.DefaultHandler#resolveEntity(java.lang.String, java.lang.String)
+         */
+        public InputSource resolveEntity(String publicId, String systemId)
+        throws SAXException {
+            throw new SAXException("External entities not supported.");
+        }
+        
+        /**
+         * @see org.xml.sax.helpers.DefaultHandler#startElement(java.lang.String, java.lang.String, 
+         *      java.lang.String, org.xml.sax.Attributes)
+         */
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            ++depth;
+            if (depth == 1) {
+                ClientMessage.this.name = qName;
+                ClientMessage.this.namespaceUri = uri.length() == 0 ? null : uri;
+                ClientMessage.this.attributes = copyAttributes(attributes);
+            } else if (depth == 2) {
+                if ("message-part".equals(qName)) {
+                    part = new Part(ClientMessage.this, parts.size(), attributes.getValue("processor"));
+                    parts.add(part);
+                }
+            } else if (part != null) {
+                Item item = new Item(ClientMessage.this, qName, attributes);
+                if (openItems.size() == 0) {
+                    part.items.add(item);
+                } else {
+                    Item parent = (Item) openItems.get(openItems.size() - 1);
+                    flushText(parent);
+                    if (parent.children == null) {
+                        parent.children = new ArrayList();
+                    }
+                    parent.children.add(item);
+                }
+                openItems.add(item);
+            }
+        }
+    }
+    
+    /**
+     * Parses a <code>ClientMessage</code> from an <code>InputStream</code>.
+     * Parsing stops at the end of the document element.
+     * 
+     * @param in the <code>InputStream</code>
+     * @return the parsed <code>ClientMessage</code>
+     * @throws IOException if the input cannot be read or is not a valid 
+     *         ClientMessage
+     */
+    public static ClientMessage parse(InputStream in) 
+    throws IOException {
+        ClientMessage clientMessage = new ClientMessage();
+        SAXParser parser = DomUtil.getSaxParser();
+        try {
+            parser.parse(new InputSource(in), clientMessage.new Handler());
+        } catch (ParseCompleteException ex) {
+            // Document element fully read.
+        } catch (SAXException ex) {
+            throw new IOException("Provided InputStream cannot be parsed: " + ex);
+        }
+        if (clientMessage.attributes == null) {
+            throw new IOException("Provided InputStream cannot be parsed: no document element.");
+        }
+        return clientMessage;
+    }
+    
+    /**
+     * Copies SAX <code>Attributes</code> into an array of alternating 
+     * names and values.
+     * 
+     * @param attributes the SAX <code>Attributes</code>
+     * @return the array
+     */
+    private static String[] copyAttributes(Attributes attributes) {
+        int length = attributes.getLength();
+        String[] values = new String[length * 2];
+        for (int i = 0; i < length; ++i) {
+            values[i * 2] = attributes.getQName(i);
+            values[i * 2 + 1] = attributes.getValue(i);
+        }
+        return values;
+    }
+    
+    /**
+     * Returns the value of an attribute from an array of alternating names
+     * and values.
+     * 
+     * @param attributes the array
+     * @param name the attribute name
+     * @return the value, or an empty string if the attribute is not present
+     */
+    private static String getAttribute(String[] attributes, String name) {
+        int index = indexOfAttribute(attributes, name);
+        return index == -1 ? "" : attributes[index + 1];
+    }
+    
+    /**
+     * Returns the first <code>Item</code> with the specified name in a list.
+     * 
+     * @param items the list of <code>Item</code>s (may be null)
+     * @param name the name
+     * @return the <code>Item</code>, or null if none exists
+     */
+    private static Item getChild(List items, String name) {
+        if (items != null) {
+            int size = items.size();
+            for (int i = 0; i < size; ++i) {
+                Item item = (Item) items.get(i);
+                if (name.equals(item.name)) {
+                    return item;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns all <code>Item</code>s with the specified name in a list.
+     * 
+     * @param items the list of <code>Item</code>s (may be null)
+     * @param name the name
+     * @return the matching <code>Item</code>s
+     */
+    private static Item[] getChildren(List items, String name) {
+        if (items == null) {
+            return new Item[0];
+        }
+        List matches = new ArrayList(items.size());
+        int size = items.size();
+        for (int i = 0; i < size; ++i) {
+            Item item = (Item) items.get(i);
+            if (name.equals(item.name)) {
+                matches.add(item);
+            }
+        }
+        return (Item[]) matches.toArray(new Item[matches.size()]);
+    }
+    
+    /**
+     * Returns the index of an attribute name in an array of alternating 
+     * names and values.
+     * 
+     * @param attributes the array
+     * @param name the attribute name
+     * @return the index, or -1 if the attribute is not present
+     */
+    private static int indexOfAttribute(String[] attributes, String name) {
+        for (int i = 0; i < attributes.length; i += 2) {
+            if (name.equals(attributes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private String name;
+    private String namespaceUri;
+    private String[] attributes;
+    private List parts = new ArrayList();
+    private Document document;
+    private Document itemDocument;
+    
+    /**
+     * Creates a new <code>ClientMessage</code>.
+     * 
+     * @see #parse(java.io.InputStream)
+     */
+    private ClientMessage() {
+        super();
+    }
+    
+    /**
+     * Returns the value of an attribute of the message's document element,
+     * e.g., "type", "trans-id", or "focus".
+     * 
+     * @param name the name of the attribute
+     * @return the value of the attribute, or an empty string if the 
+     *         attribute is not present
+     */
+    public String getAttribute(String name) {
+        return getAttribute(attributes, name);
+    }
+    
+    /**
+     * Returns a W3C DOM representation of the message.  The document is 
+     * created the first time this method is invoked.
+     * 
+     * @return the <code>Document</code>
+     */
+    public Document getDocument() {
+        if (document == null) {
+            document = DomUtil.getDocumentBuilder().newDocument();
+            Element clientMessageElement = document.createElementNS(namespaceUri, name);
+            for (int i = 0; i < attributes.length; i += 2) {
+                clientMessageElement.setAttribute(attributes[i], attributes[i + 1]);
+            }
+            document.appendChild(clientMessageElement);
+            int size = parts.size();
+            for (int i = 0; i < size; ++i) {
+                Part part = (Part) parts.get(i);
+                Element messagePartElement = document.createElementNS(namespaceUri, "message-part");
+                messagePartElement.setAttribute("processor", part.processorName);
+                int itemCount = part.items.size();
+                for (int j = 0; j < itemCount; ++j) {
+                    messagePartElement.appendChild(((Item) part.items.get(j)).createElement(document));
+                }
+                clientMessageElement.appendChild(messagePartElement);
+            }
+        }
+        return document;
+    }
+    
+    /**
+     * Returns the <code>Document</code> in which elements created by 
+     * <code>Item.toElement()</code> are created.
+     * 
+     * @return the <code>Document</code>
+     */
+    private Document getItemDocument() {
+        if (itemDocument == null) {
+            itemDocument = DomUtil.getDocumentBuilder().newDocument();
+        }
+        return itemDocument;
+    }
+    
+    /**
+     * Returns the message parts, in the order they appear in the message.
+     * 
+     * @return the message parts
+     */
+    public Part[] getParts() {
+        return (Part[]) parts.toArray(new Part[parts.size()]);
+    }
+    
+    /**
+     * Determines whether the message's document element has the specified
+     * attribute.
+     * 
+     * @param name the name of the attribute
+     * @return true if the attribute is present
+     */
+    public boolean hasAttribute(String name) {
+        return indexOfAttribute(attributes, name) != -1;
+    }
+}
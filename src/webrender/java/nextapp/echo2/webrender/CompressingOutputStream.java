@@ -0,0 +1,230 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.servlet.http.HttpServletResponse;
+
+import nextapp.echo2.webrender.util.DeflaterPool;
+
+/**
+ * An <code>OutputStream</code> which compresses an HTTP response once its 
+ * size exceeds a threshold.  Output is buffered until the threshold is 
+ * reached.  Responses which do not reach the threshold are sent uncompressed
+ * with a <code>Content-Length</code> header; larger responses are streamed
+ * through a pooled <code>Deflater</code> with the appropriate 
+ * <code>Content-Encoding</code> header.
+ */
+class CompressingOutputStream extends OutputStream {
+    
+    /** GZip member header: magic number, deflate method, no flags, no time, unknown OS. */
+    private static final byte[] GZIP_HEADER = new byte[] { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+    
+    private HttpServletResponse response;
+    private String encoding;
+    private byte[] buffer;
+    private int count;
+    private OutputStream out;
+    private DeflaterPool deflaterPool;
+    private Deflater deflater;
+    private CRC32 crc;
+    private byte[] deflateBuffer;
+    private boolean closed;
+    
+    /**
+     * Creates a new <code>CompressingOutputStream</code>.
+     * 
+     * @param response the <code>HttpServletResponse</code>
+     * @param encoding the negotiated content encoding, either 
+     *        <code>ContentEncoding.GZIP</code> or 
+     *        <code>ContentEncoding.DEFLATE</code>
+     * @param threshold the size in bytes below which the response will not
+     *        be compressed
+     */
+    CompressingOutputStream(HttpServletResponse response, String encoding, int threshold) {
+        super();
+        this.response = response;
+        this.encoding = encoding;
+        buffer = new byte[threshold];
+    }
+    
+    /**
+     * Discards the response without completing it, returning any acquired 
+     * <code>Deflater</code> to its pool.  Invoked where response generation
+     * failed; has no effect if the stream has been closed.
+     */
+    void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (deflater != null) {
+            deflaterPool.release(deflater);
+            deflater = null;
+        }
+        buffer = null;
+    }
+    
+    /**
+     * @see java.io.OutputStream#close()
+     */
+    public void close() 
+    throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (deflater == null) {
+            response.setContentLength(count);
+            out = response.getOutputStream();
+            out.write(buffer, 0, count);
+        } else {
+            try {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    drain();
+                }
+                if (crc != null) {
+                    writeIntLE((int) crc.getValue());
+                    writeIntLE(deflater.getTotalIn());
+                }
+            } finally {
+                deflaterPool.release(deflater);
+                deflater = null;
+            }
+        }
+        buffer = null;
+        out.flush();
+    }
+    
+    /**
+     * Writes available output of the <code>Deflater</code> to the response.
+     */
+    private void drain() 
+    throws IOException {
+        int length = deflater.deflate(deflateBuffer);
+        if (length > 0) {
+            out.write(deflateBuffer, 0, length);
+        }
+    }
+    
+    /**
+     * Begins compressed output: sets the <code>Content-Encoding</code> 
+     * header, acquires a <code>Deflater</code>, and compresses any buffered 
+     * data.
+     */
+    private void startCompression() 
+    throws IOException {
+        response.setHeader("Content-Encoding", encoding);
+        out = response.getOutputStream();
+        deflaterPool = ContentEncoding.getDeflaterPool(encoding);
+        deflater = deflaterPool.acquire();
+        deflateBuffer = new byte[4096];
+        if (ContentEncoding.GZIP.equals(encoding)) {
+            crc = new CRC32();
+            out.write(GZIP_HEADER);
+        }
+        deflate(buffer, 0, count);
+    }
+    
+    /**
+     * Compresses data and writes available output to the response.
+     * 
+     * @param b the data
+     * @param off the start offset in the data
+     * @param len the number of bytes to write
+     */
+    private void deflate(byte[] b, int off, int len) 
+    throws IOException {
+        if (len == 0) {
+            return;
+        }
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            drain();
+        }
+    }
+    
+    /**
+     * @see java.io.OutputStream#flush()
+     */
+    public void flush() 
+    throws IOException {
+        // Data is not flushed until closed: flushing a Deflater mid-stream would degrade compression.
+    }
+    
+    /**
+     * @see java.io.OutputStream#write(byte[], int, int)
+     */
+    public void write(byte[] b, int off, int len) 
+    throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+        if (deflater == null) {
+            if (count + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            startCompression();
+        }
+        deflate(b, off, len);
+    }
+    
+    /**
+     * @see java.io.OutputStream#write(int)
+     */
+    public void write(int b) 
+    throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+    
+    /**
+     * Writes a 32 bit integer in little-endian byte order, as required by 
+     * the GZip trailer.
+     * 
+     * @param value the value to write
+     */
+    private void writeIntLE(int value) 
+    throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
@@ -31,6 +31,7 @@ package nextapp.echo2.webrender;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Map;
@@ -59,6 +60,8 @@ public class Connection {
     private WebRenderServlet servlet;
     private UserInstance userInstance;
     private Map propertyMap;
+    private PrintWriter compressedWriter;
+    private CompressingOutputStream compressedStream;
     
     /**
      * Creates a <code>connection</code> object that will handle the given 
@@ -93,6 +96,19 @@ public class Connection {
         }
     }
 
+    /**
+     * Releases the resources of the writer returned by 
+     * <code>getCompressedWriter()</code> if the response was not completed
+     * by <code>finish()</code>, e.g., because the service failed.
+     */
+    void abort() {
+        if (compressedStream != null) {
+            compressedStream.abort();
+            compressedStream = null;
+            compressedWriter = null;
+        }
+    }
+
     /**
      * Disposes of the <code>UserInstance</code> associated with this 
      * <code>Connection</code>.
@@ -105,6 +121,47 @@ public class Connection {
         }
     }
 
+    /**
+     * Completes the response, flushing and closing the writer returned by
+     * <code>getCompressedWriter()</code> if it was used.
+     */
+    void finish() {
+        if (compressedWriter != null) {
+            compressedWriter.close();
+            compressedWriter = null;
+            compressedStream = null;
+        }
+    }
+
+    /**
+     * Returns a <code>PrintWriter</code> which compresses the response if the
+     * client accepts a supported content encoding and the response exceeds 
+     * the <code>ContentEncoding</code> size threshold.  If compression is not
+     * possible, the writer returned by <code>getWriter()</code> is returned.
+     * The content type of the response must be set prior to invoking this 
+     * method.  This method may be called once.  If it is called, neither
+     * <code>getWriter()</code> nor <code>getOutputStream()</code> may be 
+     * called.
+     *
+     * @return the <code>PrintWriter</code> object that may be used to 
+     *         generate a response to the client
+     * @see ContentEncoding
+     */
+    public PrintWriter getCompressedWriter() {
+        response.setHeader("Vary", "Accept-Encoding");
+        String encoding = ContentEncoding.negotiate(request);
+        if (encoding == null) {
+            return getWriter();
+        }
+        try {
+            compressedStream = new CompressingOutputStream(response, encoding, ContentEncoding.getThreshold());
+            compressedWriter = new PrintWriter(new OutputStreamWriter(compressedStream, response.getCharacterEncoding()));
+            return compressedWriter;
+        } catch (IOException ex) {
+            throw new WebRenderServletException("Unable to get PrintWriter.", ex);
+        }
+    }
+
     /**
      * Returns the <code>OutputStream</code> object that may be used to 
      * generate a response.  This method may be called once.  If it is called, 
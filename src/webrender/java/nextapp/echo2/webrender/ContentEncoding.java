@@ -0,0 +1,222 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender;
+
+import java.util.StringTokenizer;
+import java.util.zip.Deflater;
+
+import javax.servlet.http.HttpServletRequest;
+
+import nextapp.echo2.webrender.util.DeflaterPool;
+
+/**
+ * Negotiation and configuration of HTTP content encodings (compression) for
+ * dynamically generated responses.
+ * <p>
+ * Responses are compressed only if the client's <code>Accept-Encoding</code>
+ * header allows it and the response exceeds the configured size threshold.
+ * <code>Deflater</code> instances are pooled such that native compression 
+ * buffers are not allocated for every request.
+ */
+public class ContentEncoding {
+    
+    /** The "gzip" content encoding. */
+    public static final String GZIP = "gzip";
+    
+    /** The "deflate" (ZLIB) content encoding. */
+    public static final String DEFLATE = "deflate";
+    
+    /** Default size threshold, in bytes, below which responses are not compressed. */
+    public static final int DEFAULT_THRESHOLD = 1024;
+    
+    /** Maximum number of idle <code>Deflater</code>s retained per pool. */
+    private static final int MAXIMUM_POOL_SIZE = 32;
+    
+    private static boolean enabled = true;
+    private static int threshold = DEFAULT_THRESHOLD;
+    private static DeflaterPool gzipDeflaterPool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, true, MAXIMUM_POOL_SIZE);
+    private static DeflaterPool zlibDeflaterPool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, false, MAXIMUM_POOL_SIZE);
+    
+    /**
+     * Returns the <code>DeflaterPool</code> providing <code>Deflater</code>s
+     * for the specified content encoding.
+     * 
+     * @param encoding the content encoding, either <code>GZIP</code> or 
+     *        <code>DEFLATE</code>
+     * @return the <code>DeflaterPool</code>
+     */
+    static DeflaterPool getDeflaterPool(String encoding) {
+        return GZIP.equals(encoding) ? gzipDeflaterPool : zlibDeflaterPool;
+    }
+    
+    /**
+     * Returns the compression level used for compressed responses.
+     * 
+     * @return the compression level
+     */
+    public static int getLevel() {
+        return gzipDeflaterPool.getLevel();
+    }
+    
+    /**
+     * Returns the size threshold, in bytes, below which responses are not
+     * compressed.
+     * 
+     * @return the threshold
+     */
+    public static int getThreshold() {
+        return threshold;
+    }
+    
+    /**
+     * Determines if compression of dynamically generated responses is 
+     * enabled.
+     * 
+     * @return true if compression is enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Determines the content encoding which should be used to compress a 
+     * response to the specified request, based on its 
+     * <code>Accept-Encoding</code> header.  GZip is preferred over deflate.
+     * 
+     * @param request the <code>HttpServletRequest</code>
+     * @return the content encoding (<code>GZIP</code> or 
+     *         <code>DEFLATE</code>), or null if the response should not be
+     *         compressed
+     */
+    public static String negotiate(HttpServletRequest request) {
+        return negotiate(request.getHeader("user-agent"), request.getHeader("accept-encoding"));
+    }
+    
+    /**
+     * Determines the content encoding which should be used to compress a 
+     * response, based on the request's <code>User-Agent</code> and 
+     * <code>Accept-Encoding</code> headers.  GZip is preferred over deflate.
+     * 
+     * @param userAgent the value of the <code>User-Agent</code> header
+     * @param acceptEncoding the value of the <code>Accept-Encoding</code> 
+     *        header
+     * @return the content encoding (<code>GZIP</code> or 
+     *         <code>DEFLATE</code>), or null if the response should not be
+     *         compressed
+     */
+    public static String negotiate(String userAgent, String acceptEncoding) {
+        if (!enabled || acceptEncoding == null) {
+            return null;
+        }
+        if (userAgent == null || userAgent.indexOf("MSIE") != -1) {
+            // Due to behavior detailed Microsoft Knowledge Base Article Id 312496, 
+            // all HTTP compression support is disabled for this browser.
+            return null;
+        }
+        boolean deflate = false;
+        StringTokenizer st = new StringTokenizer(acceptEncoding, ",");
+        while (st.hasMoreTokens()) {
+            String token = st.nextToken().trim();
+            int parameterIndex = token.indexOf(';');
+            String coding = parameterIndex == -1 ? token : token.substring(0, parameterIndex).trim();
+            if (parameterIndex != -1 && isZeroQuality(token.substring(parameterIndex + 1))) {
+                continue;
+            }
+            if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+                return GZIP;
+            } else if (DEFLATE.equalsIgnoreCase(coding)) {
+                deflate = true;
+            }
+        }
+        return deflate ? DEFLATE : null;
+    }
+    
+    /**
+     * Determines whether the parameters of an <code>Accept-Encoding</code>
+     * item specify a quality value of zero, i.e., that the encoding is not
+     * acceptable.
+     * 
+     * @param parameters the parameters, e.g., "q=0.5"
+     * @return true if the quality value is zero
+     */
+    private static boolean isZeroQuality(String parameters) {
+        int qIndex = parameters.indexOf("q=");
+        if (qIndex == -1) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(parameters.substring(qIndex + 2).trim()) == 0;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+    
+    /**
+     * Sets whether compression of dynamically generated responses is 
+     * enabled.
+     * 
+     * @param newValue true to enable compression
+     */
+    public static void setEnabled(boolean newValue) {
+        enabled = newValue;
+    }
+    
+    /**
+     * Sets the compression level used for compressed responses.
+     * 
+     * @param newValue the new compression level (0-9, or 
+     *        <code>Deflater.DEFAULT_COMPRESSION</code>)
+     * @throws IllegalArgumentException if the level is invalid
+     */
+    public static void setLevel(int newValue) {
+        if (newValue != Deflater.DEFAULT_COMPRESSION && (newValue < Deflater.NO_COMPRESSION 
+                || newValue > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: " + newValue);
+        }
+        gzipDeflaterPool = new DeflaterPool(newValue, true, MAXIMUM_POOL_SIZE);
+        zlibDeflaterPool = new DeflaterPool(newValue, false, MAXIMUM_POOL_SIZE);
+    }
+    
+    /**
+     * Sets the size threshold, in bytes, below which responses are not
+     * compressed.
+     * 
+     * @param newValue the new threshold
+     */
+    public static void setThreshold(int newValue) {
+        if (newValue < 0) {
+            throw new IllegalArgumentException("Threshold may not be negative.");
+        }
+        threshold = newValue;
+    }
+    
+    /** Non-instantiable class. */
+    private ContentEncoding() { }
+}
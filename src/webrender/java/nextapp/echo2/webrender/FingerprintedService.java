@@ -0,0 +1,58 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.webrender;
+
+/**
+ * A <code>Service</code> which is capable of publishing a fingerprint of
+ * its content.
+ * <p>
+ * The fingerprint is embedded in URIs generated by
+ * <code>UserInstance.getServiceUri()</code>.  Because a change in content
+ * results in a change in URI, requests which carry the current fingerprint
+ * are served as immutable, allowing clients to cache the content
+ * indefinitely without revalidation.  The fingerprint is additionally
+ * used as the strong entity tag of the service's responses.
+ */
+public interface FingerprintedService 
+extends Service {
+    
+    /**
+     * Returns the fingerprint of the service's current content, or null if
+     * no fingerprint is available.  The returned value must change whenever
+     * the content changes, and must contain only characters which may be 
+     * used in a URI query string and an HTTP entity tag, e.g., those 
+     * returned by <code>ContentHash.compute()</code>.
+     * 
+     * @return the fingerprint
+     * @see nextapp.echo2.webrender.util.ContentHash
+     */
+    public String getFingerprint();
+}
@@ -36,7 +36,6 @@ import java.util.Set;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 import nextapp.echo2.webrender.output.XmlDocument;
 
@@ -186,6 +185,12 @@ public class ServerMessage extends XmlDocument {
      */
     public static final String GROUP_ID_POSTUPDATE = "postupdate";
 
+    /**
+     * Mapping from group identifiers to "message-part-group" 
+     * <code>Element</code>s.
+     */
+    private Map partGroupMap = new HashMap();
+
     /** Set of added script libraries. */
     private Set addedLibraries;
 
@@ -219,6 +224,9 @@ public class ServerMessage extends XmlDocument {
 
     /**
      * Adds a JavaScript library service to be dynamically loaded.
+     * The fingerprint of a <code>FingerprintedService</code> is provided to
+     * the client, such that the library is retrieved from a URI which may be
+     * cached indefinitely.
      * 
      * @param serviceId the id of the service to load (the service must return
      *        JavaScript code with content-type "text/javascript")
@@ -232,6 +240,13 @@ public class ServerMessage extends XmlDocument {
         }
         Element libraryElement = getDocument().createElement("library");
         libraryElement.setAttribute("service-id", serviceId);
+        Service service = WebRenderServlet.getServiceRegistry().get(serviceId);
+        if (!WebRenderServlet.DISABLE_CACHING && service instanceof FingerprintedService) {
+            String fingerprint = ((FingerprintedService) service).getFingerprint();
+            if (fingerprint != null) {
+                libraryElement.setAttribute(WebRenderServlet.FINGERPRINT_PARAMETER, fingerprint);
+            }
+        }
         librariesElement.appendChild(libraryElement);
         addedLibraries.add(serviceId);
     }
@@ -248,6 +263,7 @@ public class ServerMessage extends XmlDocument {
         Element messagePartGroupElement = getDocument().createElement("message-part-group");
         messagePartGroupElement.setAttribute("id", groupId);
         serverMessageElement.appendChild(messagePartGroupElement);
+        partGroupMap.put(groupId, messagePartGroupElement);
         return messagePartGroupElement;
     }
 
@@ -258,15 +274,7 @@ public class ServerMessage extends XmlDocument {
      * @return the "message-part-group" element
      */
     public Element getPartGroup(String groupId) {
-        NodeList groupList = serverMessageElement.getElementsByTagName("message-part-group");
-        int length = groupList.getLength();
-        for (int i = 0; i < length; ++i) {
-            Element groupElement = (Element) groupList.item(i);
-            if (groupId.equals(groupElement.getAttribute("id"))) {
-                return groupElement;
-            }
-        }
-        return null;
+        return (Element) partGroupMap.get(groupId);
     }
 
     /**
@@ -174,7 +174,13 @@ implements HttpSessionActivationListener, HttpSessionBindingListener, Serializab
      * @return the URI
      */
     public String getServiceUri(Service service) {
-        return servletUri + "?serviceId=" + service.getId();
+        String fingerprint = getFingerprint(service);
+        if (fingerprint == null) {
+            return servletUri + "?serviceId=" + service.getId();
+        } else {
+            return servletUri + "?serviceId=" + service.getId() + "&" + WebRenderServlet.FINGERPRINT_PARAMETER + "=" 
+                    + fingerprint;
+        }
     }
 
     /**
@@ -197,6 +203,13 @@ implements HttpSessionActivationListener, HttpSessionBindingListener, Serializab
         StringBuffer out = new StringBuffer(servletUri);
         out.append("?serviceId=");
         out.append(service.getId());
+        String fingerprint = getFingerprint(service);
+        if (fingerprint != null) {
+            out.append("&");
+            out.append(WebRenderServlet.FINGERPRINT_PARAMETER);
+            out.append("=");
+            out.append(fingerprint);
+        }
         for (int i = 0; i < parameterNames.length; ++i) {
             out.append("&");
             out.append(parameterNames[i]);
@@ -208,6 +221,20 @@ implements HttpSessionActivationListener, HttpSessionBindingListener, Serializab
         return out.toString();
     }
 
+    /**
+     * Returns the content fingerprint of a <code>Service</code> to be 
+     * embedded in its URI, or null if the service does not provide one.
+     * 
+     * @param service the <code>Service</code>
+     * @return the fingerprint
+     */
+    private String getFingerprint(Service service) {
+        if (WebRenderServlet.DISABLE_CACHING || !(service instanceof FingerprintedService)) {
+            return null;
+        }
+        return ((FingerprintedService) service).getFingerprint();
+    }
+    
     /**
      * Returns the URI of the servlet managing this <code>UserInstance</code>.
      * 
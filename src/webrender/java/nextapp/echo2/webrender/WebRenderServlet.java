@@ -30,6 +30,7 @@
 package nextapp.echo2.webrender;
 
 import java.io.IOException;
+import java.util.StringTokenizer;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -62,6 +63,19 @@ public abstract class WebRenderServlet extends HttpServlet {
      */
     public static final String SERVICE_ID_PARAMETER = "serviceId";
     
+    /**
+     * Request parameter carrying the content fingerprint of a 
+     * <code>FingerprintedService</code>.  Requests which provide the 
+     * current fingerprint of the service are served as immutable.
+     */
+    public static final String FINGERPRINT_PARAMETER = "fp";
+    
+    /**
+     * The period for which responses from fingerprinted URIs may be cached
+     * (one year, the maximum recommended by RFC 2616).
+     */
+    private static final long IMMUTABLE_MAX_AGE = 31536000L;
+    
     /**
      * <code>Service</code> identifier of the 'default' service. 
      * The 'default' service is rendered when a client makes a request
@@ -235,6 +249,33 @@ public abstract class WebRenderServlet extends HttpServlet {
         return services;
     }
     
+    /**
+     * Determines whether an <code>If-None-Match</code> request header 
+     * matches the specified entity tag.  Weak comparison is used, as 
+     * required by RFC 2616 for <code>If-None-Match</code> on GET requests.
+     * 
+     * @param ifNoneMatch the value of the <code>If-None-Match</code> header
+     *        (may be null)
+     * @param entityTag the current (quoted) entity tag of the resource
+     * @return true if the client's cached copy is current
+     */
+    private static boolean isEntityTagMatched(String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        StringTokenizer st = new StringTokenizer(ifNoneMatch, ",");
+        while (st.hasMoreTokens()) {
+            String candidate = st.nextToken().trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || entityTag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * Processes a HTTP request and generates a response.
      * 
@@ -254,25 +295,60 @@ public abstract class WebRenderServlet extends HttpServlet {
             }
             int version = service.getVersion();
             
+            // Put IE in compatibility mode
+            response.setHeader("X-UA-Compatible", "IE=8");
+            
             // Set caching directives.
             if ((!DISABLE_CACHING) && version != Service.DO_NOT_CACHE) {
-                // Setting all of the following (possibly with the exception of "Expires")
-                // are *absolutely critical* in order to ensure proper caching of resources
-                // with Internet Explorer 6.  Without "Last-Modified", IE6 appears to not
-                // cache images properly resulting in an substantially greater than expected
-                // performance impact.
-                response.setHeader("Cache-Control", "max-age=3600");
-                response.setDateHeader("Expires", System.currentTimeMillis() + (86400000));
+                String fingerprint = service instanceof FingerprintedService 
+                        ? ((FingerprintedService) service).getFingerprint() : null;
+                String entityTag;
+                if (fingerprint == null) {
+                    entityTag = service.getId() + "-" + version + "-" + Long.toString(startupTime, 36);
+                } else {
+                    entityTag = fingerprint;
+                }
+                // Encoded variants of a resource are not byte-identical, and thus require distinct strong entity tags.
+                String encoding = ContentEncoding.negotiate(request);
+                if (encoding != null) {
+                    entityTag += "-" + encoding;
+                }
+                entityTag = "\"" + entityTag + "\"";
+                
+                if (fingerprint != null && fingerprint.equals(request.getParameter(FINGERPRINT_PARAMETER))) {
+                    // The URI identifies the current content exactly: it will never change.
+                    response.setHeader("Cache-Control", "public, max-age=" + IMMUTABLE_MAX_AGE + ", immutable");
+                    response.setDateHeader("Expires", System.currentTimeMillis() + IMMUTABLE_MAX_AGE * 1000L);
+                } else if (fingerprint != null) {
+                    // The URI does not identify the current content: require revalidation through the entity tag, 
+                    // such that a redeployed resource is never served stale from the client's cache.
+                    response.setHeader("Cache-Control", "no-cache");
+                    response.setHeader("Expires", "0");
+                } else {
+                    // Setting all of the following (possibly with the exception of "Expires")
+                    // are *absolutely critical* in order to ensure proper caching of resources
+                    // with Internet Explorer 6.  Without "Last-Modified", IE6 appears to not
+                    // cache images properly resulting in an substantially greater than expected
+                    // performance impact.
+                    response.setHeader("Cache-Control", "max-age=3600");
+                    response.setDateHeader("Expires", System.currentTimeMillis() + (86400000));
+                }
                 response.setDateHeader("Last-Modified", startupTime);
+                response.setHeader("ETag", entityTag);
+                response.setHeader("Vary", "Accept-Encoding");
+                
+                if (isEntityTagMatched(request.getHeader("If-None-Match"), entityTag)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
             } else {
                 response.setHeader("Pragma", "no-cache");
                 response.setHeader("Cache-Control", "no-store");
                 response.setHeader("Expires", "0");
             }
-            // Put IE in compatibility mode
-            response.setHeader("X-UA-Compatible", "IE=8");
             
             service.service(conn);
+            conn.finish();
             
         } catch (ServletException ex) {
             if (conn != null) {
@@ -290,6 +366,10 @@ public abstract class WebRenderServlet extends HttpServlet {
             }
             throw(ex);
         } finally {
+            if (conn != null) {
+                // Release a pooled Deflater held by an incomplete compressed response.
+                conn.abort();
+            }
             activeConnection.set(null);
         }
     }
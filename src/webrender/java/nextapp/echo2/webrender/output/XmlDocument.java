@@ -51,6 +51,43 @@ import org.w3c.dom.DocumentType;
  */
 public class XmlDocument {
     
+    /**
+     * System property which, when set to "true", causes documents to be 
+     * rendered using a JAXP <code>Transformer</code> rather than the 
+     * streaming <code>XmlSerializer</code>.  This setting is intended for 
+     * debugging purposes.
+     */
+    public static final String PROPERTY_USE_TRANSFORMER = "nextapp.echo2.webrender.output.XmlDocument.useTransformer";
+    
+    /**
+     * Flag indicating whether documents should be rendered using a JAXP 
+     * <code>Transformer</code>.
+     */
+    private static boolean useTransformer = Boolean.valueOf(System.getProperty(PROPERTY_USE_TRANSFORMER)).booleanValue();
+    
+    /**
+     * Determines whether documents are rendered using a JAXP 
+     * <code>Transformer</code> rather than the streaming 
+     * <code>XmlSerializer</code>.
+     * 
+     * @return true if the <code>Transformer</code> is used
+     */
+    public static boolean isTransformerEnabled() {
+        return useTransformer;
+    }
+    
+    /**
+     * Sets whether documents are rendered using a JAXP 
+     * <code>Transformer</code> rather than the streaming 
+     * <code>XmlSerializer</code>.  The <code>Transformer</code> path is 
+     * considerably slower and is provided for debugging purposes.
+     * 
+     * @param newValue true to use the <code>Transformer</code>
+     */
+    public static void setTransformerEnabled(boolean newValue) {
+        useTransformer = newValue;
+    }
+    
     private Document document;
     private Properties outputProperties;
     
@@ -84,10 +121,29 @@ public class XmlDocument {
     
     /**
      * Renders the document to a <code>PrintWriter</code>.
+     * The document is streamed directly to the writer by an 
+     * <code>XmlSerializer</code> unless a JAXP <code>Transformer</code> has
+     * been enabled with <code>setTransformerEnabled()</code> or the output
+     * properties require one.
      * 
      * @param pw the <code>PrintWriter</code>
      */
     public void render(PrintWriter pw)
+    throws IOException {
+        if (useTransformer || !XmlSerializer.isSupported(outputProperties)) {
+            renderTransformer(pw);
+        } else {
+            new XmlSerializer(pw, outputProperties).write(document);
+        }
+    }
+    
+    /**
+     * Renders the document to a <code>PrintWriter</code> using a JAXP 
+     * <code>Transformer</code>.
+     * 
+     * @param pw the <code>PrintWriter</code>
+     */
+    private void renderTransformer(PrintWriter pw)
     throws IOException {
         try {
             TransformerFactory tFactory = DomUtil.getTransformerFactory();
@@ -0,0 +1,332 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+import javax.xml.transform.OutputKeys;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A streaming serializer which writes a W3C DOM directly to a 
+ * <code>Writer</code>.
+ * <p>
+ * The generated output is equivalent to that of the JAXP identity 
+ * <code>Transformer</code> (the wire format of the <code>ServerMessage</code>
+ * is unchanged), but no intermediate <code>Transformer</code>, SAX event
+ * stream, or output buffer is created.  Only the output properties 
+ * <code>omit-xml-declaration</code>, <code>encoding</code>, 
+ * <code>doctype-public</code>, and <code>doctype-system</code> are supported;
+ * see <code>isSupported()</code>.
+ */
+public class XmlSerializer {
+    
+    /**
+     * The public identifier prefix of XHTML document types, for which a space
+     * is rendered before the close of empty elements, e.g., 
+     * <code>&lt;br /&gt;</code>.
+     */
+    private static final String XHTML_PUBLIC_ID_PREFIX = "-//W3C//DTD XHTML";
+    
+    /**
+     * Determines whether the specified output properties may be handled by
+     * an <code>XmlSerializer</code>.
+     * 
+     * @param outputProperties the output properties (may be null)
+     * @return true if all specified properties are supported
+     */
+    public static boolean isSupported(Properties outputProperties) {
+        if (outputProperties == null) {
+            return true;
+        }
+        Iterator it = outputProperties.keySet().iterator();
+        while (it.hasNext()) {
+            Object key = it.next();
+            if (!(OutputKeys.OMIT_XML_DECLARATION.equals(key) || OutputKeys.ENCODING.equals(key) 
+                    || OutputKeys.DOCTYPE_PUBLIC.equals(key) || OutputKeys.DOCTYPE_SYSTEM.equals(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private Writer out;
+    private boolean omitXmlDeclaration;
+    private String encoding = "UTF-8";
+    private String doctypePublic;
+    private String doctypeSystem;
+    private boolean spaceBeforeClose;
+    
+    /**
+     * Stack of in-scope default namespace URIs, used to render namespace
+     * declarations for namespace-aware elements which lack them.
+     */
+    private List namespaceStack = new ArrayList();
+    
+    /**
+     * Creates a new <code>XmlSerializer</code>.
+     * 
+     * @param out the <code>Writer</code> to which output will be rendered
+     * @param outputProperties the output properties (may be null)
+     */
+    public XmlSerializer(Writer out, Properties outputProperties) {
+        super();
+        this.out = out;
+        if (outputProperties != null) {
+            omitXmlDeclaration = "yes".equals(outputProperties.getProperty(OutputKeys.OMIT_XML_DECLARATION));
+            encoding = outputProperties.getProperty(OutputKeys.ENCODING, encoding);
+            doctypePublic = outputProperties.getProperty(OutputKeys.DOCTYPE_PUBLIC);
+            doctypeSystem = outputProperties.getProperty(OutputKeys.DOCTYPE_SYSTEM);
+            spaceBeforeClose = doctypePublic != null && doctypePublic.startsWith(XHTML_PUBLIC_ID_PREFIX);
+        }
+    }
+    
+    /**
+     * Writes a <code>Document</code>.
+     * 
+     * @param document the <code>Document</code> to write
+     */
+    public void write(Document document) 
+    throws IOException {
+        if (!omitXmlDeclaration) {
+            out.write("<?xml version=\"1.0\" encoding=\"");
+            out.write(encoding);
+            out.write("\" standalone=\"no\"?>");
+        }
+        Element documentElement = document.getDocumentElement();
+        if (doctypeSystem != null) {
+            out.write("<!DOCTYPE ");
+            out.write(documentElement.getNodeName());
+            if (doctypePublic != null) {
+                out.write(" PUBLIC \"");
+                out.write(doctypePublic);
+                out.write("\" \"");
+            } else {
+                out.write(" SYSTEM \"");
+            }
+            out.write(doctypeSystem);
+            out.write("\">\n");
+        }
+        writeNode(documentElement);
+        out.flush();
+    }
+    
+    /**
+     * Writes a node and its descendants.
+     * 
+     * @param node the <code>Node</code> to write
+     */
+    private void writeNode(Node node) 
+    throws IOException {
+        switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+            writeElement((Element) node);
+            break;
+        case Node.TEXT_NODE:
+            writeEscaped(node.getNodeValue(), false);
+            break;
+        case Node.CDATA_SECTION_NODE:
+            out.write("<![CDATA[");
+            out.write(node.getNodeValue());
+            out.write("]]>");
+            break;
+        case Node.COMMENT_NODE:
+            out.write("<!--");
+            out.write(node.getNodeValue());
+            out.write("-->");
+            break;
+        case Node.DOCUMENT_FRAGMENT_NODE:
+        case Node.ENTITY_REFERENCE_NODE:
+            writeChildren(node);
+            break;
+        case Node.PROCESSING_INSTRUCTION_NODE:
+            out.write("<?");
+            out.write(node.getNodeName());
+            out.write(' ');
+            out.write(node.getNodeValue());
+            out.write("?>");
+            break;
+        }
+    }
+    
+    /**
+     * Writes all children of a node.
+     * 
+     * @param node the parent <code>Node</code>
+     */
+    private void writeChildren(Node node) 
+    throws IOException {
+        Node child = node.getFirstChild();
+        while (child != null) {
+            writeNode(child);
+            child = child.getNextSibling();
+        }
+    }
+    
+    /**
+     * Writes an element, its attributes, and its descendants.
+     * 
+     * @param element the <code>Element</code> to write
+     */
+    private void writeElement(Element element) 
+    throws IOException {
+        String name = element.getNodeName();
+        out.write('<');
+        out.write(name);
+        
+        String inheritedNamespace = namespaceStack.size() == 0 ? null 
+                : (String) namespaceStack.get(namespaceStack.size() - 1);
+        String namespace = inheritedNamespace;
+        boolean namespaceDeclared = false;
+        
+        // Declared namespaces are rendered ahead of other attributes.
+        NamedNodeMap attributes = element.getAttributes();
+        int length = attributes.getLength();
+        for (int i = 0; i < length; ++i) {
+            Attr attribute = (Attr) attributes.item(i);
+            String attributeName = attribute.getNodeName();
+            if (attributeName.startsWith("xmlns")) {
+                if (attributeName.length() == 5) {
+                    namespace = attribute.getNodeValue();
+                    namespaceDeclared = true;
+                }
+                writeAttribute(attributeName, attribute.getNodeValue());
+            }
+        }
+        
+        for (int i = 0; i < length; ++i) {
+            Attr attribute = (Attr) attributes.item(i);
+            String attributeName = attribute.getNodeName();
+            if (!attributeName.startsWith("xmlns")) {
+                writeAttribute(attributeName, attribute.getNodeValue());
+            }
+        }
+        
+        String elementNamespace = element.getNamespaceURI();
+        if (!namespaceDeclared && elementNamespace != null && element.getPrefix() == null 
+                && !elementNamespace.equals(inheritedNamespace)) {
+            // Namespace-aware element created without a declaration: render one.
+            namespace = elementNamespace;
+            writeAttribute("xmlns", namespace);
+        }
+        
+        if (element.getFirstChild() == null) {
+            out.write(spaceBeforeClose ? " />" : "/>");
+        } else {
+            out.write('>');
+            namespaceStack.add(namespace);
+            writeChildren(element);
+            namespaceStack.remove(namespaceStack.size() - 1);
+            out.write("</");
+            out.write(name);
+            out.write('>');
+        }
+    }
+    
+    /**
+     * Writes an attribute.
+     * 
+     * @param name the attribute name
+     * @param value the attribute value
+     */
+    private void writeAttribute(String name, String value)
+    throws IOException {
+        out.write(' ');
+        out.write(name);
+        out.write("=\"");
+        writeEscaped(value, true);
+        out.write('"');
+    }
+    
+    /**
+     * Writes text content or an attribute value, escaping markup characters, 
+     * control characters, and supplementary characters.  Runs of characters
+     * which require no escaping are written with a single invocation.
+     * 
+     * @param text the text to write
+     * @param attribute true if the text is an attribute value
+     */
+    private void writeEscaped(String text, boolean attribute) 
+    throws IOException {
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; ++i) {
+            char ch = text.charAt(i);
+            String entity;
+            switch (ch) {
+            case '<':
+                entity = "&lt;";
+                break;
+            case '>':
+                entity = "&gt;";
+                break;
+            case '&':
+                entity = "&amp;";
+                break;
+            case '"':
+                entity = attribute ? "&quot;" : null;
+                break;
+            case '\n':
+            case '\t':
+                entity = attribute ? "&#" + ((int) ch) + ";" : null;
+                break;
+            default:
+                if (ch < 0x20 || (ch >= 0x7f && ch <= 0x9f)) {
+                    entity = "&#" + ((int) ch) + ";";
+                } else if (ch >= 0xd800 && ch <= 0xdbff && i + 1 < length) {
+                    int codePoint = ((ch - 0xd800) << 10) + (text.charAt(i + 1) - 0xdc00) + 0x10000;
+                    out.write(text, start, i - start);
+                    out.write("&#" + codePoint + ";");
+                    ++i;
+                    start = i + 1;
+                    continue;
+                } else {
+                    entity = null;
+                }
+            }
+            if (entity != null) {
+                out.write(text, start, i - start);
+                out.write(entity);
+                start = i + 1;
+            }
+        }
+        out.write(text, start, length - start);
+    }
+}
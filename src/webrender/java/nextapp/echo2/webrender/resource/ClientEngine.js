@@ -436,14 +436,23 @@ EchoAsyncMonitor = {
      */
     timeoutId: null,
     
+    /**
+     * Flag indicating whether a poll request is in progress.  In long-poll
+     * mode the server may hold a request open across several client/server
+     * transactions, during which no additional request is made.
+     */
+    connectionActive: false,
+    
     /**
      * Initiates an HTTP request to the asynchronous monitor poll service to
      * determine if the server has the need to update the client.
      */
     connect: function() {
+        EchoAsyncMonitor.timeoutId = null;
         var conn = new EchoHttpConnection(EchoClientEngine.baseServerUri + EchoAsyncMonitor.pollServiceRequest, "GET");
         conn.responseHandler = EchoAsyncMonitor.responseHandler;
         conn.invalidResponseHandler = EchoAsyncMonitor.invalidResponseHandler;
+        EchoAsyncMonitor.connectionActive = true;
         conn.connect();
     },
     
@@ -451,6 +460,7 @@ EchoAsyncMonitor = {
      * Processes an invalid response to the poll request.
      */
     invalidResponseHandler: function() {
+        EchoAsyncMonitor.connectionActive = false;
         alert("Invalid response from server to asynchronous polling connection.");
     },
     
@@ -458,7 +468,7 @@ EchoAsyncMonitor = {
      * Starts the countdown to the next poll request.
      */
     start: function() {
-        if (!EchoServerTransaction.active) {
+        if (!EchoServerTransaction.active && !EchoAsyncMonitor.connectionActive && !EchoAsyncMonitor.timeoutId) {
             EchoAsyncMonitor.timeoutId = window.setTimeout("EchoAsyncMonitor.connect();", 
                     EchoAsyncMonitor.timeInterval);
         }
@@ -481,9 +491,17 @@ EchoAsyncMonitor = {
      * @param conn the EchoHttpConnection containing the response information.
      */
     responseHandler: function(conn) {
-        if ("true" == conn.getResponseXml().documentElement.getAttribute("request-sync")) {
+        EchoAsyncMonitor.connectionActive = false;
+        var responseElement = conn.getResponseXml().documentElement;
+        if ("true" == responseElement.getAttribute("request-sync")) {
             // Server is requesting synchronization: Initiate server transaction.
             EchoServerTransaction.connect();
+        } else if ("true" == responseElement.getAttribute("long-poll")) {
+            // Server held the request open without requiring synchronization: poll again immediately
+            // (the monitor will be restarted after completion of an active transaction).
+            if (!EchoServerTransaction.active) {
+                EchoAsyncMonitor.connect();
+            }
         } else {
             // Server does not require synchronization: restart countdown to next poll request.
             EchoAsyncMonitor.start();
@@ -2833,6 +2851,16 @@ EchoScriptLibraryManager = {
      */
     STATE_INSTALLED: 3,
     
+    /**
+     * The server service identifier of the library bundle service.
+     */
+    bundleServiceId: "Echo.LibraryBundle",
+    
+    /**
+     * Associative array mapping library service ids to content fingerprints.
+     */
+    libraryFingerprintMap: { },
+    
     /**
      * Associative array mapping library service ids to library source code.
      */
@@ -2894,7 +2922,13 @@ EchoScriptLibraryManager = {
             return;
         }
     
-        var conn = new EchoHttpConnection(EchoClientEngine.baseServerUri + "?serviceId=" + serviceId, "GET");
+        var uri = EchoClientEngine.baseServerUri + "?serviceId=" + serviceId;
+        var fingerprint = EchoScriptLibraryManager.libraryFingerprintMap[serviceId];
+        if (fingerprint) {
+            // Fingerprinted URIs identify the current library content and are thus cacheable indefinitely.
+            uri += "&fp=" + encodeURIComponent(fingerprint);
+        }
+        var conn = new EchoHttpConnection(uri, "GET");
         conn.serviceId = serviceId;
         conn.responseHandler = EchoScriptLibraryManager.responseHandler;
         conn.connect();
@@ -2903,6 +2937,105 @@ EchoScriptLibraryManager = {
         EchoScriptLibraryManager.libraryLoadStateMap[serviceId] = EchoScriptLibraryManager.STATE_REQUESTED;
     },
     
+    /**
+     * Loads several JavaScript libraries with a single request to the library
+     * bundle service and stores them for execution.
+     * Libraries which are not provided by the bundle service are subsequently
+     * loaded individually.
+     *
+     * @param serviceIds an array containing the server service identifiers of
+     *        the libraries
+     */
+    loadLibraries: function(serviceIds) {
+        var requestIds = new Array();
+        for (var i = 0; i < serviceIds.length; ++i) {
+            if (!EchoScriptLibraryManager.getState(serviceIds[i])) {
+                requestIds.push(serviceIds[i]);
+            }
+        }
+        if (requestIds.length == 0) {
+            // All libraries already present.
+            return;
+        } else if (requestIds.length == 1) {
+            EchoScriptLibraryManager.loadLibrary(requestIds[0]);
+            return;
+        }
+        
+        // Sort identifiers such that equivalent library sets share a single cached bundle.
+        requestIds.sort();
+        
+        // Fingerprint the bundle by the fingerprints of its libraries, such that it may be cached indefinitely
+        // (algorithm must match LibraryBundleService.computeFingerprint()).
+        var fingerprints = new Array();
+        for (var i = 0; i < requestIds.length; ++i) {
+            var fingerprint = EchoScriptLibraryManager.libraryFingerprintMap[requestIds[i]];
+            fingerprints.push(fingerprint ? fingerprint : "");
+        }
+        var fingerprintSource = fingerprints.join(",");
+        var hash = 0;
+        for (var i = 0; i < fingerprintSource.length; ++i) {
+            hash = (31 * hash + fingerprintSource.charCodeAt(i)) | 0;
+        }
+        
+        var conn = new EchoHttpConnection(EchoClientEngine.baseServerUri + "?serviceId=" 
+                + EchoScriptLibraryManager.bundleServiceId + "&libraries=" + encodeURIComponent(requestIds.join(","))
+                + "&fp=" + hash.toString(36), "GET");
+        conn.serviceIds = requestIds;
+        conn.responseHandler = EchoScriptLibraryManager.bundleResponseHandler;
+        conn.invalidResponseHandler = EchoScriptLibraryManager.loadUnbundledLibraries;
+        conn.connect();
+        
+        // Mark states as "requested" so that application will wait for libraries to load.
+        for (var i = 0; i < requestIds.length; ++i) {
+            EchoScriptLibraryManager.libraryLoadStateMap[requestIds[i]] = EchoScriptLibraryManager.STATE_REQUESTED;
+        }
+    },
+    
+    /**
+     * Individually loads any libraries requested from the library bundle 
+     * service which were not provided in its response.
+     *
+     * @param conn the EchoHttpConnection used to retrieve the bundle
+     */
+    loadUnbundledLibraries: function(conn) {
+        for (var i = 0; i < conn.serviceIds.length; ++i) {
+            var serviceId = conn.serviceIds[i];
+            if (EchoScriptLibraryManager.getState(serviceId) == EchoScriptLibraryManager.STATE_REQUESTED) {
+                delete EchoScriptLibraryManager.libraryLoadStateMap[serviceId];
+                EchoScriptLibraryManager.loadLibrary(serviceId);
+            }
+        }
+    },
+    
+    /**
+     * Processes a valid response from the library bundle service.
+     * The response consists of a sequence of entries, each containing a
+     * library service identifier, a newline, the length of the library 
+     * source, a newline, and the library source.
+     *
+     * @param conn the EchoHttpConnection containing the response information.
+     */
+    bundleResponseHandler: function(conn) {
+        var text = conn.getResponseText();
+        var position = 0;
+        while (position < text.length) {
+            var idEnd = text.indexOf("\n", position);
+            var lengthEnd = idEnd == -1 ? -1 : text.indexOf("\n", idEnd + 1);
+            if (lengthEnd == -1) {
+                // Malformed entry: remaining libraries will be loaded individually.
+                break;
+            }
+            var serviceId = text.substring(position, idEnd);
+            var length = parseInt(text.substring(idEnd + 1, lengthEnd), 10);
+            position = lengthEnd + 1;
+            EchoScriptLibraryManager.librarySourceMap[serviceId] = text.substring(position, position + length);
+            EchoScriptLibraryManager.libraryLoadStateMap[serviceId] = EchoScriptLibraryManager.STATE_LOADED;
+            EchoClientEngine.incrementLoadStatus();
+            position += length;
+        }
+        EchoScriptLibraryManager.loadUnbundledLibraries(conn);
+    },
+    
     /**
      * Processes a valid response from the server.
      *
@@ -3163,7 +3296,8 @@ EchoServerMessage = {
     
     /**
      * Parses 'libraries' element of ServerMessage and dynamically loads
-     * external JavaScript resources.
+     * external JavaScript resources.  Libraries not yet present on the
+     * client are retrieved in a single request to the library bundle service.
      * The libraries are loaded asynchronously--invocation of this
      * method will return before the actual libraries have been loaded.
      */
@@ -3174,10 +3308,16 @@ EchoServerMessage = {
             return;
         }
         var libraryElements = librariesElement.getElementsByTagName("library");
+        var serviceIds = new Array();
         for (var i = 0; i < libraryElements.length; ++i) {
             var serviceId = libraryElements.item(i).getAttribute("service-id");
-            EchoScriptLibraryManager.loadLibrary(serviceId);
+            var fingerprint = libraryElements.item(i).getAttribute("fp");
+            if (fingerprint) {
+                EchoScriptLibraryManager.libraryFingerprintMap[serviceId] = fingerprint;
+            }
+            serviceIds.push(serviceId);
         }
+        EchoScriptLibraryManager.loadLibraries(serviceIds);
     },
     
     /**
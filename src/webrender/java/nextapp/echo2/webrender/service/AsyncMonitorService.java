@@ -44,6 +44,14 @@ import nextapp.echo2.webrender.UserInstance;
  * <p>
  * An instance of this service must be registered with the 
  * <code>ServiceRegistry</code> if asynchronous polling is required.
+ * <p>
+ * In long-poll mode (enabled by setting a non-zero long-poll timeout), a 
+ * request is held open until synchronization is required or the timeout 
+ * elapses, and the client issues its next request immediately upon 
+ * receiving the response.  As the Servlet 2.4 API provides no means of 
+ * suspending a request, each held request occupies a container thread: the
+ * number of concurrently held requests is therefore limited, with requests
+ * beyond the limit being answered immediately.
  */
 public abstract class AsyncMonitorService 
 implements Service {
@@ -53,6 +61,71 @@ implements Service {
      */
     public static final String SERVICE_ID = "Echo.AsyncMonitor";
     
+    /**
+     * The default maximum number of concurrently held long-poll requests.
+     */
+    public static final int DEFAULT_MAXIMUM_LONG_POLL_COUNT = 100;
+    
+    /** Lock guarding <code>longPollCount</code>. */
+    private static final Object longPollLock = new Object();
+    
+    /** The number of currently held long-poll requests. */
+    private static int longPollCount = 0;
+    
+    /** The maximum number of concurrently held long-poll requests. */
+    private static int maximumLongPollCount = DEFAULT_MAXIMUM_LONG_POLL_COUNT;
+    
+    /** The long-poll timeout, in milliseconds (0 when long-polling is disabled). */
+    private static int longPollTimeout = 0;
+    
+    /**
+     * Returns the time, in milliseconds, for which a long-poll request will 
+     * be held open.
+     * 
+     * @return the timeout, or 0 if long-polling is disabled
+     */
+    public static int getLongPollTimeout() {
+        return longPollTimeout;
+    }
+    
+    /**
+     * Returns the maximum number of long-poll requests which may be held 
+     * open concurrently.
+     * 
+     * @return the maximum number of requests
+     */
+    public static int getMaximumLongPollCount() {
+        return maximumLongPollCount;
+    }
+    
+    /**
+     * Sets the time, in milliseconds, for which a long-poll request will be
+     * held open.  The value should be less than the idle timeout of any 
+     * intermediate proxies.
+     * 
+     * @param newValue the new timeout, or 0 to disable long-polling (the
+     *        default)
+     */
+    public static void setLongPollTimeout(int newValue) {
+        if (newValue < 0) {
+            throw new IllegalArgumentException("Invalid long-poll timeout: " + newValue);
+        }
+        longPollTimeout = newValue;
+    }
+    
+    /**
+     * Sets the maximum number of long-poll requests which may be held open
+     * concurrently.
+     * 
+     * @param newValue the new maximum number of requests
+     */
+    public static void setMaximumLongPollCount(int newValue) {
+        if (newValue < 0) {
+            throw new IllegalArgumentException("Invalid maximum long-poll count: " + newValue);
+        }
+        maximumLongPollCount = newValue;
+    }
+    
     /**
      * @see nextapp.echo2.webrender.Service#getId()
      */
@@ -67,6 +140,21 @@ implements Service {
         return DO_NOT_CACHE;
     }
     
+    /**
+     * Determines if the implementation supports long-polling, i.e., whether
+     * <code>waitForSynchronization()</code> blocks until synchronization is
+     * required.  Requests are only held open, and the client only instructed
+     * to poll again immediately, if long-polling is supported.
+     * <p>
+     * The default implementation returns false, as the default 
+     * implementation of <code>waitForSynchronization()</code> does not block.
+     * 
+     * @return true if long-polling is supported
+     */
+    protected boolean isLongPollSupported() {
+        return false;
+    }
+    
     /**
      * Determines if the specified <code>UserInstance</code> requires 
      * immediate synchronization.
@@ -81,11 +169,60 @@ implements Service {
      * @see nextapp.echo2.webrender.Service#service(nextapp.echo2.webrender.Connection)
      */
     public void service(Connection conn) throws IOException {
-        conn.setContentType(ContentType.TEXT_XML);
-        if (isSynchronizationRequired(conn.getUserInstance())) {
-            conn.getWriter().write("<async-monitor request-sync=\"true\"/>");
+        UserInstance userInstance = conn.getUserInstance();
+        boolean longPoll = false;
+        if (longPollTimeout > 0 && isLongPollSupported()) {
+            synchronized (longPollLock) {
+                if (longPollCount < maximumLongPollCount) {
+                    ++longPollCount;
+                    longPoll = true;
+                }
+            }
+        }
+        
+        boolean synchronizationRequired;
+        if (longPoll) {
+            try {
+                synchronizationRequired = waitForSynchronization(userInstance, longPollTimeout);
+            } catch (InterruptedException ex) {
+                synchronizationRequired = isSynchronizationRequired(userInstance);
+            } finally {
+                synchronized (longPollLock) {
+                    --longPollCount;
+                }
+            }
         } else {
-            conn.getWriter().write("<async-monitor request-sync=\"false\"/>");
+            synchronizationRequired = isSynchronizationRequired(userInstance);
         }
+        
+        conn.setContentType(ContentType.TEXT_XML);
+        // Only a request which was held open may be followed immediately by another: other clients (e.g., those in 
+        // excess of the maximum long-poll count) revert to polling at their normal interval.
+        conn.getWriter().write("<async-monitor request-sync=\"" + synchronizationRequired + "\" long-poll=\"" 
+                + longPoll + "\"/>");
+    }
+    
+    /**
+     * Blocks until the specified <code>UserInstance</code> requires 
+     * synchronization or the timeout elapses.  This method is invoked in 
+     * long-poll mode, and must not be invoked while holding the lock of the
+     * <code>UserInstance</code>.
+     * <p>
+     * The default implementation does not block, returning the value of 
+     * <code>isSynchronizationRequired()</code> immediately; implementations 
+     * should override it to wait for notification of server-initiated 
+     * updates, and override <code>isLongPollSupported()</code> to return
+     * true.
+     * 
+     * @param userInstance the <code>UserInstance</code>
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return true if the <code>UserInstance</code> requires immediate 
+     *         client-server synchronization
+     * @throws InterruptedException if the calling thread is interrupted
+     *         while waiting
+     */
+    protected boolean waitForSynchronization(UserInstance userInstance, long timeout) 
+    throws InterruptedException {
+        return isSynchronizationRequired(userInstance);
     }
 }
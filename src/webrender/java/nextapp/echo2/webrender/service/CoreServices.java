@@ -44,6 +44,9 @@ public class CoreServices {
     public static final Service CLIENT_ENGINE
             = JavaScriptService.forResource("Echo.ClientEngine", RESOURCE_PATH + "ClientEngine.js");
     
+    /** Bundled delivery of dynamically loaded JavaScript libraries. */
+    public static final Service LIBRARY_BUNDLE = new LibraryBundleService("Echo.LibraryBundle");
+    
     /**
      * Installs the core services in the specified 
      * <code>ServiceRegistry</code>.
@@ -52,6 +55,7 @@ public class CoreServices {
      */
     public static void install(ServiceRegistry services) {
         services.add(CLIENT_ENGINE);
+        services.add(LIBRARY_BUNDLE);
     }
     
     /** Non-instantiable class. */
@@ -30,18 +30,33 @@
 package nextapp.echo2.webrender.service;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+
+import javax.servlet.http.HttpServletResponse;
 
 import nextapp.echo2.webrender.Connection;
-import nextapp.echo2.webrender.Service;
+import nextapp.echo2.webrender.ContentEncoding;
+import nextapp.echo2.webrender.FingerprintedService;
+import nextapp.echo2.webrender.util.ContentHash;
 import nextapp.echo2.webrender.util.GZipCompressor;
 import nextapp.echo2.webrender.util.JavaScriptCompressor;
 import nextapp.echo2.webrender.util.Resource;
 
 /**
  * A service which renders <code>JavaScript</code> resource files.
+ * <p>
+ * The content is encoded once, at construction, into identity and GZip 
+ * compressed byte arrays, which are written directly to the response.
+ * The service is cached by content fingerprint, such that clients will
+ * never run out-of-date JavaScript after an application is redeployed.
  */
 public class JavaScriptService 
-implements Service {
+implements FingerprintedService {
+    
+    /**
+     * The content type of rendered JavaScript.
+     */
+    private static final String CONTENT_TYPE = "application/javascript; charset=UTF-8";
     
     /**
      * Creates a new <code>JavaScript</code> service from the specified
@@ -60,12 +75,15 @@ implements Service {
     /** <code>Service</code> identifier. */
     private String id;
     
-    /** The JavaScript content in plain text. */
-    private String content;
+    /** The JavaScript content, UTF-8 encoded. */
+    private byte[] plainContent;
     
     /** The JavaScript content in GZip compressed form. */
     private byte[] gzipContent;
     
+    /** The fingerprint of the JavaScript content. */
+    private String fingerprint;
+    
     /**
      * Creates a new <code>JavaScriptService</code>.
      * 
@@ -75,13 +93,38 @@ implements Service {
     public JavaScriptService(String id, String content) {
         super();
         this.id = id;
-        this.content = JavaScriptCompressor.compress(content);
         try {
-            gzipContent = GZipCompressor.compress(this.content);
+            plainContent = JavaScriptCompressor.compress(content).getBytes("UTF-8");
+            gzipContent = GZipCompressor.compress(plainContent);
+        } catch (UnsupportedEncodingException ex) {
+            // Should not occur.
+            throw new RuntimeException("Exception encoding JavaScript source.", ex);
         } catch (IOException ex) {
             // Should not occur.
             throw new RuntimeException("Exception compressing JavaScript source.", ex);
         }
+        fingerprint = ContentHash.compute(plainContent);
+    }
+    
+    /**
+     * Returns the (compressed) JavaScript content.
+     * 
+     * @return the content
+     */
+    String getContent() {
+        try {
+            return new String(plainContent, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            // Should not occur.
+            throw new RuntimeException("Exception decoding JavaScript source.", ex);
+        }
+    }
+    
+    /**
+     * @see nextapp.echo2.webrender.FingerprintedService#getFingerprint()
+     */
+    public String getFingerprint() {
+        return fingerprint;
     }
     
     /**
@@ -92,14 +135,13 @@ implements Service {
     }
     
     /**
-     * <code>DO_NOT_CACHE</code> is returned for <code>JavaScript</code>
-     * to avoid possibility of ever running out-of-date JavaScript in the
-     * event an application is updated and redeployed. 
+     * The service is always cacheable: stale content is avoided by way of
+     * the content fingerprint rather than by disabling caching.
      * 
      * @see nextapp.echo2.webrender.Service#getVersion()
      */
     public int getVersion() {
-        return DO_NOT_CACHE;
+        return 0;
     }
     
     /**
@@ -107,44 +149,28 @@ implements Service {
      */
     public void service(Connection conn) 
     throws IOException {
-        String userAgent = conn.getRequest().getHeader("user-agent");
-        if (userAgent == null || userAgent.indexOf("MSIE") != -1) {
-            // Due to behavior detailed Microsoft Knowledge Base Article Id 312496, 
-            // all HTTP compression support is disabled for this browser.
-            // Due to the fact that ClientProperties information is not necessarily 
-            // available at this stage, browsers which provide deceitful user-agent 
-            // headers will also be affected.
-            servicePlain(conn);
+        HttpServletResponse response = conn.getResponse();
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Vary", "Accept-Encoding");
+        if (ContentEncoding.GZIP.equals(ContentEncoding.negotiate(conn.getRequest()))) {
+            response.setHeader("Content-Encoding", ContentEncoding.GZIP);
+            write(conn, gzipContent);
         } else {
-            String acceptEncoding = conn.getRequest().getHeader("accept-encoding");
-            if (acceptEncoding != null && acceptEncoding.indexOf("gzip") != -1) {
-                serviceGZipCompressed(conn);
-            } else {
-                servicePlain(conn);
-            }
+            // Microsoft Internet Explorer is always served uncompressed content, due to behavior detailed in
+            // Microsoft Knowledge Base Article Id 312496 (see ContentEncoding.negotiate()).
+            write(conn, plainContent);
         }
     }
     
     /**
-     * Renders the JavaScript resource using GZip encoding.
-     * 
-     * @param conn the relevant <code>Connection</code>
-     */
-    private void serviceGZipCompressed(Connection conn) 
-    throws IOException {
-        conn.getResponse().setContentType("application/javascript");
-        conn.getResponse().setHeader("Content-Encoding", "gzip");
-        conn.getOutputStream().write(gzipContent);
-    }
-    
-    /**
-     * Renders the JavaScript resource WITHOUT using GZip encoding.
+     * Writes an encoded variant of the JavaScript resource to the response.
      * 
      * @param conn the relevant <code>Connection</code>
+     * @param data the encoded content
      */
-    private void servicePlain(Connection conn) 
+    private void write(Connection conn, byte[] data) 
     throws IOException {
-        conn.getResponse().setContentType("application/javascript");
-        conn.getWriter().print(content);
+        conn.getResponse().setContentLength(data.length);
+        conn.getOutputStream().write(data);
     }
 }
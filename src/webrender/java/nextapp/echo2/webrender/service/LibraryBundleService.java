@@ -0,0 +1,284 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.webrender.service;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import javax.servlet.http.HttpServletResponse;
+
+import nextapp.echo2.webrender.Connection;
+import nextapp.echo2.webrender.ContentEncoding;
+import nextapp.echo2.webrender.ContentType;
+import nextapp.echo2.webrender.FingerprintedService;
+import nextapp.echo2.webrender.Service;
+import nextapp.echo2.webrender.WebRenderServlet;
+import nextapp.echo2.webrender.util.GZipCompressor;
+
+/**
+ * A service which renders several JavaScript libraries in a single response,
+ * such that the client may retrieve all libraries required by a 
+ * <code>ServerMessage</code> with one request.
+ * <p>
+ * The libraries are specified as a comma-delimited list of 
+ * <code>JavaScriptService</code> identifiers in the <code>libraries</code>
+ * request parameter.  Identifiers of services which are not registered
+ * <code>JavaScriptService</code>s are omitted from the bundle; the client
+ * will retrieve such libraries individually.
+ * <p>
+ * The bundle is rendered as a sequence of entries, each consisting of the
+ * library's service identifier, a newline, the length of the library 
+ * source in characters, a newline, and the library source itself.
+ * <p>
+ * Rendered bundles are cached by their (sorted) set of library identifiers.
+ * <p>
+ * The fingerprint of a bundle is derived from the fingerprints of the 
+ * libraries named by the request, such that a client providing it (as 
+ * computed by <code>computeFingerprint()</code>) may cache the bundle 
+ * indefinitely.
+ */
+public class LibraryBundleService 
+implements FingerprintedService {
+    
+    /**
+     * Request parameter containing the comma-delimited library service 
+     * identifiers.
+     */
+    public static final String LIBRARIES_PARAMETER = "libraries";
+    
+    /**
+     * The maximum number of distinct bundles which will be cached.
+     */
+    private static final int MAXIMUM_CACHE_SIZE = 64;
+    
+    /**
+     * The content type of a rendered bundle.
+     */
+    private static final String CONTENT_TYPE = "text/plain; charset=UTF-8";
+    
+    /**
+     * A rendered bundle.
+     */
+    private static class Bundle {
+        
+        /** The bundled libraries. */
+        private JavaScriptService[] libraries;
+        
+        /** The bundle content, UTF-8 encoded. */
+        private byte[] plainContent;
+        
+        /** The bundle content in GZip compressed form. */
+        private byte[] gzipContent;
+    }
+    
+    /** <code>Service</code> identifier. */
+    private String id;
+    
+    /** Mapping from sorted, comma-delimited library identifiers to <code>Bundle</code>s. */
+    private Map bundleCache = new HashMap();
+    
+    /**
+     * Creates a new <code>LibraryBundleService</code>.
+     * 
+     * @param id the <code>Service</code> id
+     */
+    public LibraryBundleService(String id) {
+        super();
+        this.id = id;
+    }
+    
+    /**
+     * Computes the fingerprint of a bundle from the comma-delimited library 
+     * identifiers of a request.  The fingerprint is the base-36 
+     * representation of the <code>String.hashCode()</code> of the 
+     * comma-delimited fingerprints of the libraries, in request order, where
+     * libraries without a fingerprint are represented by an empty string.
+     * The client computes the fingerprint using the same algorithm 
+     * (see <code>EchoScriptLibraryManager.loadLibraries()</code>).
+     * 
+     * @param librariesParameter the comma-delimited library identifiers
+     * @return the fingerprint
+     */
+    public static String computeFingerprint(String librariesParameter) {
+        StringBuffer out = new StringBuffer();
+        StringTokenizer st = new StringTokenizer(librariesParameter, ",");
+        while (st.hasMoreTokens()) {
+            Service service = WebRenderServlet.getServiceRegistry().get(st.nextToken());
+            if (service instanceof FingerprintedService) {
+                String fingerprint = ((FingerprintedService) service).getFingerprint();
+                if (fingerprint != null) {
+                    out.append(fingerprint);
+                }
+            }
+            if (st.hasMoreTokens()) {
+                out.append(',');
+            }
+        }
+        return Integer.toString(out.toString().hashCode(), 36);
+    }
+    
+    /**
+     * Retrieves the bundle for the specified libraries from the cache, or
+     * renders it if it is not present or out of date.
+     * 
+     * @param libraries the libraries, sorted by identifier
+     * @return the <code>Bundle</code>
+     */
+    private Bundle getBundle(JavaScriptService[] libraries) 
+    throws IOException {
+        StringBuffer key = new StringBuffer();
+        for (int i = 0; i < libraries.length; ++i) {
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(libraries[i].getId());
+        }
+        
+        Bundle bundle;
+        synchronized (bundleCache) {
+            bundle = (Bundle) bundleCache.get(key.toString());
+        }
+        if (bundle != null && Arrays.equals(bundle.libraries, libraries)) {
+            return bundle;
+        }
+        
+        bundle = new Bundle();
+        bundle.libraries = libraries;
+        StringBuffer out = new StringBuffer();
+        for (int i = 0; i < libraries.length; ++i) {
+            String content = libraries[i].getContent();
+            out.append(libraries[i].getId());
+            out.append('\n');
+            out.append(content.length());
+            out.append('\n');
+            out.append(content);
+        }
+        try {
+            bundle.plainContent = out.toString().getBytes("UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            // Should not occur.
+            throw new RuntimeException("Exception encoding JavaScript source.", ex);
+        }
+        bundle.gzipContent = GZipCompressor.compress(bundle.plainContent);
+        
+        synchronized (bundleCache) {
+            if (bundleCache.size() < MAXIMUM_CACHE_SIZE || bundleCache.containsKey(key.toString())) {
+                bundleCache.put(key.toString(), bundle);
+            }
+        }
+        return bundle;
+    }
+    
+    /**
+     * Returns the fingerprint of the bundle requested by the active 
+     * <code>Connection</code>.
+     * 
+     * @see nextapp.echo2.webrender.FingerprintedService#getFingerprint()
+     * @see #computeFingerprint(java.lang.String)
+     */
+    public String getFingerprint() {
+        Connection conn = WebRenderServlet.getActiveConnection();
+        if (conn == null) {
+            return null;
+        }
+        String librariesParameter = conn.getRequest().getParameter(LIBRARIES_PARAMETER);
+        return librariesParameter == null ? null : computeFingerprint(librariesParameter);
+    }
+    
+    /**
+     * @see nextapp.echo2.webrender.Service#getId()
+     */
+    public String getId() {
+        return id;
+    }
+    
+    /**
+     * @see nextapp.echo2.webrender.Service#getVersion()
+     */
+    public int getVersion() {
+        return 0;
+    }
+    
+    /**
+     * @see nextapp.echo2.webrender.Service#service(nextapp.echo2.webrender.Connection)
+     */
+    public void service(Connection conn) 
+    throws IOException {
+        String librariesParameter = conn.getRequest().getParameter(LIBRARIES_PARAMETER);
+        if (librariesParameter == null) {
+            conn.getResponse().setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            conn.setContentType(ContentType.TEXT_PLAIN);
+            conn.getWriter().write("Libraries not specified.");
+            return;
+        }
+        
+        // Resolve and sort the requested libraries, omitting those which cannot be bundled.
+        StringTokenizer st = new StringTokenizer(librariesParameter, ",");
+        String[] serviceIds = new String[st.countTokens()];
+        for (int i = 0; i < serviceIds.length; ++i) {
+            serviceIds[i] = st.nextToken();
+        }
+        Arrays.sort(serviceIds);
+        List libraryList = new ArrayList();
+        for (int i = 0; i < serviceIds.length; ++i) {
+            if (i > 0 && serviceIds[i].equals(serviceIds[i - 1])) {
+                continue;
+            }
+            Service service = WebRenderServlet.getServiceRegistry().get(serviceIds[i]);
+            if (service instanceof JavaScriptService) {
+                libraryList.add(service);
+            }
+        }
+        JavaScriptService[] libraries = new JavaScriptService[libraryList.size()];
+        libraryList.toArray(libraries);
+        
+        Bundle bundle = getBundle(libraries);
+        
+        HttpServletResponse response = conn.getResponse();
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Vary", "Accept-Encoding");
+        byte[] data;
+        if (ContentEncoding.GZIP.equals(ContentEncoding.negotiate(conn.getRequest()))) {
+            response.setHeader("Content-Encoding", ContentEncoding.GZIP);
+            data = bundle.gzipContent;
+        } else {
+            data = bundle.plainContent;
+        }
+        response.setContentLength(data.length);
+        conn.getOutputStream().write(data);
+    }
+}
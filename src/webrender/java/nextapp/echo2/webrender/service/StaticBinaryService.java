@@ -32,14 +32,15 @@ package nextapp.echo2.webrender.service;
 import java.io.IOException;
 
 import nextapp.echo2.webrender.Connection;
-import nextapp.echo2.webrender.Service;
+import nextapp.echo2.webrender.FingerprintedService;
+import nextapp.echo2.webrender.util.ContentHash;
 import nextapp.echo2.webrender.util.Resource;
 
 /**
  * A <code>Service</code> which renders a static binary resource.
  */
 public class StaticBinaryService 
-implements Service {
+implements FingerprintedService {
 
    /**
      * Creates a new <code>StaticBinaryService</code> based on the data in the
@@ -61,6 +62,7 @@ implements Service {
     private String id;
     private byte[] data;
     private String contentType;
+    private String fingerprint;
     
     /**
      * Creates a new <code>StaticBinaryService</code>.
@@ -74,6 +76,14 @@ implements Service {
         this.id = id;
         this.contentType = contentType;
         this.data = data;
+        fingerprint = ContentHash.compute(data);
+    }
+    
+    /**
+     * @see nextapp.echo2.webrender.FingerprintedService#getFingerprint()
+     */
+    public String getFingerprint() {
+        return fingerprint;
     }
     
     /**
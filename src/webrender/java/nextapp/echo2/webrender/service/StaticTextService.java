@@ -32,14 +32,15 @@ package nextapp.echo2.webrender.service;
 import java.io.IOException;
 
 import nextapp.echo2.webrender.Connection;
-import nextapp.echo2.webrender.Service;
+import nextapp.echo2.webrender.FingerprintedService;
+import nextapp.echo2.webrender.util.ContentHash;
 import nextapp.echo2.webrender.util.Resource;
 
 /**
  * A service which renders a text resource, such as a text or XML document.
  */
 public class StaticTextService 
-implements Service {
+implements FingerprintedService {
     
     /**
      * Creates a new <code>StaticTextService</code> based on the content in the
@@ -61,6 +62,7 @@ implements Service {
     private String id;
     private String content;
     private String contentType;
+    private String fingerprint;
     
     /**
      * Creates a new <code>StaticTextService</code>.
@@ -74,6 +76,14 @@ implements Service {
         this.id = id;
         this.contentType = contentType;
         this.content = content;
+        fingerprint = ContentHash.compute(content);
+    }
+    
+    /**
+     * @see nextapp.echo2.webrender.FingerprintedService#getFingerprint()
+     */
+    public String getFingerprint() {
+        return fingerprint;
     }
     
     /**
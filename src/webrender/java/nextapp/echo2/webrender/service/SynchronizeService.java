@@ -29,20 +29,15 @@
 
 package nextapp.echo2.webrender.service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
-import javax.servlet.http.HttpServletRequest;
-
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.xml.sax.SAXException;
 
 import nextapp.echo2.webrender.ClientAnalyzerProcessor;
+import nextapp.echo2.webrender.ClientMessage;
 import nextapp.echo2.webrender.Connection;
 import nextapp.echo2.webrender.ContentType;
 import nextapp.echo2.webrender.ServerMessage;
@@ -52,7 +47,6 @@ import nextapp.echo2.webrender.UserInstanceUpdateManager;
 import nextapp.echo2.webrender.servermessage.ClientConfigurationUpdate;
 import nextapp.echo2.webrender.servermessage.ClientPropertiesStore;
 import nextapp.echo2.webrender.servermessage.ServerDelayMessageUpdate;
-import nextapp.echo2.webrender.util.DomUtil;
 
 /**
  * A service which synchronizes the state of the client with that of the server.
@@ -95,6 +89,122 @@ implements Service {
          */
         public void process(UserInstance userInstance, Element messagePartElement);
     }
+    
+    /**
+     * A <code>ClientMessagePartProcessor</code> which processes message parts
+     * directly from the parsed <code>ClientMessage</code>, without requiring 
+     * a W3C DOM representation of the message to be created.  The 
+     * <code>process(UserInstance, ClientMessage.Part)</code> method will be 
+     * invoked in preference to <code>process(UserInstance, Element)</code>.
+     */
+    public static interface StreamingClientMessagePartProcessor 
+    extends ClientMessagePartProcessor {
+        
+        /**
+         * Processes a MessagePart of a ClientMessage
+         * 
+         * @param userInstance the relevant <code>UserInstance</code>
+         * @param messagePart the message part to process
+         */
+        public void process(UserInstance userInstance, ClientMessage.Part messagePart);
+    }
+    
+    /**
+     * Statistics describing contention for the <code>UserInstance</code> 
+     * lock held while client updates are processed and the 
+     * <code>ServerMessage</code> is rendered.  Times are measured in 
+     * milliseconds.
+     */
+    public static class LockStatistics {
+        
+        private long acquisitionCount;
+        private long totalWaitTime;
+        private long maximumWaitTime;
+        private long totalHoldTime;
+        private long maximumHoldTime;
+        
+        /**
+         * Returns the number of times the lock has been acquired.
+         * 
+         * @return the acquisition count
+         */
+        public synchronized long getAcquisitionCount() {
+            return acquisitionCount;
+        }
+        
+        /**
+         * Returns the longest time for which the lock was held.
+         * 
+         * @return the maximum hold time, in milliseconds
+         */
+        public synchronized long getMaximumHoldTime() {
+            return maximumHoldTime;
+        }
+        
+        /**
+         * Returns the longest time spent waiting to acquire the lock.
+         * 
+         * @return the maximum wait time, in milliseconds
+         */
+        public synchronized long getMaximumWaitTime() {
+            return maximumWaitTime;
+        }
+        
+        /**
+         * Returns the total time for which the lock has been held.
+         * 
+         * @return the total hold time, in milliseconds
+         */
+        public synchronized long getTotalHoldTime() {
+            return totalHoldTime;
+        }
+        
+        /**
+         * Returns the total time spent waiting to acquire the lock.
+         * 
+         * @return the total wait time, in milliseconds
+         */
+        public synchronized long getTotalWaitTime() {
+            return totalWaitTime;
+        }
+        
+        /**
+         * Records a single acquisition of the lock.
+         * 
+         * @param waitTime the time spent waiting to acquire the lock
+         * @param holdTime the time for which the lock was held
+         */
+        private synchronized void record(long waitTime, long holdTime) {
+            ++acquisitionCount;
+            totalWaitTime += waitTime;
+            totalHoldTime += holdTime;
+            if (waitTime > maximumWaitTime) {
+                maximumWaitTime = waitTime;
+            }
+            if (holdTime > maximumHoldTime) {
+                maximumHoldTime = holdTime;
+            }
+        }
+        
+        /**
+         * Resets all statistics.
+         */
+        public synchronized void reset() {
+            acquisitionCount = 0;
+            totalWaitTime = 0;
+            maximumWaitTime = 0;
+            totalHoldTime = 0;
+            maximumHoldTime = 0;
+        }
+        
+        /**
+         * @see java.lang.Object#toString()
+         */
+        public synchronized String toString() {
+            return "acquisitions=" + acquisitionCount + ", totalWait=" + totalWaitTime + "ms, maxWait=" + maximumWaitTime 
+                    + "ms, totalHold=" + totalHoldTime + "ms, maxHold=" + maximumHoldTime + "ms";
+        }
+    }
 
     /**
      * <code>Service</code> identifier.
@@ -106,6 +216,11 @@ implements Service {
      */
     private Map clientMessagePartProcessorMap = new HashMap(); 
     
+    /**
+     * Contention statistics of the <code>UserInstance</code> lock.
+     */
+    private LockStatistics lockStatistics = new LockStatistics();
+    
     /**
      * Creates a new <code>SynchronizeService</code>.
      */
@@ -115,46 +230,20 @@ implements Service {
     }
     
     /**
-     * Trims an XML <code>InputStream</code> to work around the issue 
-     * of the XML parser crashing on trailing whitespace.   This issue is present 
-     * with requests from Konqueror/KHTML browsers. 
-     * 
-     * @param in the <code>InputStream</code>
-     * @param characterEncoding the character encoding of the stream 
-     * @return a cleaned version of the stream, as a 
-     *         <code>ByteArrayInputStream</code>.
+     * @see nextapp.echo2.webrender.Service#getId()
      */
-    private InputStream cleanXmlInputStream(InputStream in, String characterEncoding) 
-    throws IOException{
-        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-        
-        byte[] buffer = new byte[4096];
-        int bytesRead = 0;
-        
-        try {
-            do {
-                bytesRead = in.read(buffer);
-                if (bytesRead > 0) {
-                    byteOut.write(buffer, 0, bytesRead);
-                }
-            } while (bytesRead > 0);
-        } finally {
-            if (in != null) { try { in.close(); } catch (IOException ex) { } } 
-        }
-        
-        in.close();
-        
-        byte[] data = byteOut.toByteArray();
-        data = new String(data, characterEncoding).trim().getBytes(characterEncoding);
-        
-        return new ByteArrayInputStream(data);
+    public String getId() {
+        return SERVICE_ID;
     }
     
     /**
-     * @see nextapp.echo2.webrender.Service#getId()
+     * Returns statistics describing contention for the 
+     * <code>UserInstance</code> lock acquired by this service.
+     * 
+     * @return the <code>LockStatistics</code>
      */
-    public String getId() {
-        return SERVICE_ID;
+    public LockStatistics getLockStatistics() {
+        return lockStatistics;
     }
     
     /**
@@ -165,30 +254,18 @@ implements Service {
     }
     
     /**
-     * Generates a DOM representation of the XML input POSTed to this service.
+     * Parses the "ClientMessage" XML input POSTed to this service.
      * 
      * @param conn the relevant <code>Connection</code>
-     * @return a DOM representation of the POSTed XML input
+     * @return the parsed <code>ClientMessage</code>
      * @throws IOException if the input is invalid
      */
-    private Document parseRequestDocument(Connection conn) 
+    private ClientMessage parseClientMessage(Connection conn) 
     throws IOException {
-        HttpServletRequest request = conn.getRequest();
         InputStream in = null;
         try {
-            String userAgent = conn.getRequest().getHeader("user-agent");
-            if (userAgent != null && userAgent.indexOf("onqueror") != -1) {
-                // Invoke XML 'cleaner', but only for  user agents that contain the string "onqueror",
-                // such as Konqueror, for example.
-                in = cleanXmlInputStream(request.getInputStream(), conn.getUserInstance().getCharacterEncoding());
-            } else {
-                in = request.getInputStream();
-            }
-            return DomUtil.getDocumentBuilder().parse(in);
-        } catch (SAXException ex) {
-            throw new IOException("Provided InputStream cannot be parsed: " + ex);
-        } catch (IOException ex) {
-            throw new IOException("Provided InputStream cannot be parsed: " + ex);
+            in = conn.getRequest().getInputStream();
+            return ClientMessage.parse(in);
         } finally {
             if (in != null) { try { in.close(); } catch (IOException ex) { } }
         }
@@ -196,25 +273,31 @@ implements Service {
 
     /**
      * Processes a "ClientMessage" XML document containing application UI state 
-     * change information from the client.  This method will parse the
-     * message parts of the ClientMessage and invoke the
-     * <code>ClientMessagePartProcessor</code>s registered to process them.
+     * change information from the client.  This method will invoke the
+     * <code>ClientMessagePartProcessor</code>s registered to process the 
+     * message parts of the ClientMessage, in order.
+     * <code>StreamingClientMessagePartProcessor</code>s are provided the 
+     * parsed message part directly; a DOM representation of the message is
+     * only created if a processor requires one.
      * 
      * @param conn the relevant <code>Connection</code> 
-     * @param clientMessageDocument the ClientMessage XML document to process
+     * @param clientMessage the ClientMessage to process
      * @see ClientMessagePartProcessor
      */
-    protected void processClientMessage(Connection conn, Document clientMessageDocument) {
+    protected void processClientMessage(Connection conn, ClientMessage clientMessage) {
         UserInstance userInstance = conn.getUserInstance();
-        Element[] messageParts = DomUtil.getChildElementsByTagName(clientMessageDocument.getDocumentElement(), 
-                "message-part");
+        ClientMessage.Part[] messageParts = clientMessage.getParts();
         for (int i = 0; i < messageParts.length; ++i) {
             ClientMessagePartProcessor processor = 
-                    (ClientMessagePartProcessor) clientMessagePartProcessorMap.get(messageParts[i].getAttribute("processor"));
+                    (ClientMessagePartProcessor) clientMessagePartProcessorMap.get(messageParts[i].getProcessorName());
             if (processor == null) {
-                throw new RuntimeException("Invalid processor name \"" + messageParts[i].getAttribute("processor") + "\".");
+                throw new RuntimeException("Invalid processor name \"" + messageParts[i].getProcessorName() + "\".");
+            }
+            if (processor instanceof StreamingClientMessagePartProcessor) {
+                ((StreamingClientMessagePartProcessor) processor).process(userInstance, messageParts[i]);
+            } else {
+                processor.process(userInstance, messageParts[i].toElement());
             }
-            processor.process(userInstance, messageParts[i]);
         }
     }
     
@@ -239,50 +322,83 @@ implements Service {
      * synchronization.
      * 
      * @param conn the relevant <code>Connection</code>
-     * @param clientMessageDocument the ClientMessage XML document
+     * @param clientMessage the ClientMessage
      * @return the generated <code>ServerMessage</code>
      */
-    protected abstract ServerMessage renderInit(Connection conn, Document clientMessageDocument);
+    protected abstract ServerMessage renderInit(Connection conn, ClientMessage clientMessage);
     
     /**
      * Renders a <code>ServerMessage</code> in response to a synchronization
      * other than the initial synchronization.
      * 
      * @param conn the relevant <code>Connection</code>
-     * @param clientMessageDocument the ClientMessage XML document
+     * @param clientMessage the ClientMessage
      * @return the generated <code>ServerMessage</code>
      */
-    protected abstract ServerMessage renderUpdate(Connection conn, Document clientMessageDocument);
+    protected abstract ServerMessage renderUpdate(Connection conn, ClientMessage clientMessage);
     
     /**
+     * Services a synchronization request in three phases.  The 
+     * ClientMessage is parsed without holding the <code>UserInstance</code>
+     * lock.  Client updates are then processed and the 
+     * <code>ServerMessage</code> is rendered while holding the lock.  
+     * Finally, the completed <code>ServerMessage</code>, which is no longer
+     * modified, is written to the client after the lock has been released,
+     * such that a slow client connection does not block other requests
+     * made within the same session.
+     * 
      * @see nextapp.echo2.webrender.Service#service(nextapp.echo2.webrender.Connection)
      */
     public void service(Connection conn) 
     throws IOException {
         UserInstance userInstance = conn.getUserInstance();
+        ClientMessage clientMessage = parseClientMessage(conn);
+        ServerMessage serverMessage;
+        
+        long lockRequestTime = System.currentTimeMillis();
         synchronized(userInstance) {
-            Document clientMessageDocument = parseRequestDocument(conn);
-            String messageType = clientMessageDocument.getDocumentElement().getAttribute("type");
-            ServerMessage serverMessage;
-            
-            if ("initialize".equals(messageType)) {
-                serverMessage = renderInit(conn, clientMessageDocument);
-                ClientPropertiesStore.renderStoreDirective(serverMessage, userInstance.getClientProperties());
-                ClientConfigurationUpdate.renderUpdateDirective(serverMessage, userInstance.getClientConfiguration());
-                ServerDelayMessageUpdate.renderUpdateDirective(serverMessage, userInstance.getServerDelayMessage());
-                
-                // Add "test attribute" used by ClientEngine to determine if browser is correctly (un)escaping
-                // attribute values.  Safari does not do this correctly and a workaround is thus employed if such
-                // bugs are detected.
-                serverMessage.getDocument().getDocumentElement().setAttribute("xml-attr-test", "x&y");
-            } else {
-                serverMessage = renderUpdate(conn, clientMessageDocument);
-                processUserInstanceUpdates(userInstance, serverMessage);
+            long lockAcquireTime = System.currentTimeMillis();
+            try {
+                serverMessage = render(conn, clientMessage);
+            } finally {
+                lockStatistics.record(lockAcquireTime - lockRequestTime, System.currentTimeMillis() - lockAcquireTime);
             }
-            serverMessage.setTransactionId(userInstance.getNextTransactionId());
-            conn.setContentType(ContentType.TEXT_XML);
-            serverMessage.render(conn.getWriter());
         }
+        
+        conn.setContentType(ContentType.TEXT_XML);
+        serverMessage.render(conn.getCompressedWriter());
+    }
+    
+    /**
+     * Processes a ClientMessage and renders the <code>ServerMessage</code>
+     * which will be sent in response.  Invoked while holding the 
+     * <code>UserInstance</code> lock.
+     * 
+     * @param conn the relevant <code>Connection</code>
+     * @param clientMessage the ClientMessage
+     * @return the generated <code>ServerMessage</code>
+     */
+    private ServerMessage render(Connection conn, ClientMessage clientMessage) {
+        UserInstance userInstance = conn.getUserInstance();
+        String messageType = clientMessage.getAttribute("type");
+        ServerMessage serverMessage;
+        
+        if ("initialize".equals(messageType)) {
+            serverMessage = renderInit(conn, clientMessage);
+            ClientPropertiesStore.renderStoreDirective(serverMessage, userInstance.getClientProperties());
+            ClientConfigurationUpdate.renderUpdateDirective(serverMessage, userInstance.getClientConfiguration());
+            ServerDelayMessageUpdate.renderUpdateDirective(serverMessage, userInstance.getServerDelayMessage());
+            
+            // Add "test attribute" used by ClientEngine to determine if browser is correctly (un)escaping
+            // attribute values.  Safari does not do this correctly and a workaround is thus employed if such
+            // bugs are detected.
+            serverMessage.getDocument().getDocumentElement().setAttribute("xml-attr-test", "x&y");
+        } else {
+            serverMessage = renderUpdate(conn, clientMessage);
+            processUserInstanceUpdates(userInstance, serverMessage);
+        }
+        serverMessage.setTransactionId(userInstance.getNextTransactionId());
+        return serverMessage;
     }
     
     /**
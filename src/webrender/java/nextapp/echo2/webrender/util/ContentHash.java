@@ -0,0 +1,83 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.webrender.util;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utility class for computing content fingerprints.
+ */
+public class ContentHash {
+    
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    /**
+     * Computes the fingerprint of the specified binary content.
+     * 
+     * @param data the content
+     * @return a lowercase hexadecimal MD5 digest of the content
+     */
+    public static String compute(byte[] data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException("MD5 digest unavailable: " + ex);
+        }
+        byte[] hash = digest.digest(data);
+        char[] out = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; ++i) {
+            out[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            out[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(out);
+    }
+    
+    /**
+     * Computes the fingerprint of the specified text content, as encoded
+     * in UTF-8.
+     * 
+     * @param content the content
+     * @return a lowercase hexadecimal MD5 digest of the content
+     */
+    public static String compute(String content) {
+        try {
+            return compute(content.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException("UTF-8 encoding unavailable: " + ex);
+        }
+    }
+
+    /** Non-instantiable class. */
+    private ContentHash() { }
+}
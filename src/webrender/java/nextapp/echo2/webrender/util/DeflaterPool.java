@@ -0,0 +1,108 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of <code>Deflater</code> instances.
+ * Each <code>Deflater</code> holds native compression buffers which are 
+ * expensive to allocate and are only released by finalization, thus reusing 
+ * instances across requests avoids allocating such buffers for every 
+ * compressed response.
+ */
+public class DeflaterPool {
+    
+    private int level;
+    private boolean nowrap;
+    private int maximumSize;
+    private List deflaters = new ArrayList();
+    
+    /**
+     * Creates a new <code>DeflaterPool</code>.
+     * 
+     * @param level the compression level of pooled <code>Deflater</code>s
+     *        (0-9, or <code>Deflater.DEFAULT_COMPRESSION</code>)
+     * @param nowrap true if pooled <code>Deflater</code>s should omit the
+     *        ZLIB header and checksum (as required for GZip output)
+     * @param maximumSize the maximum number of idle <code>Deflater</code>s
+     *        to retain
+     */
+    public DeflaterPool(int level, boolean nowrap, int maximumSize) {
+        super();
+        this.level = level;
+        this.nowrap = nowrap;
+        this.maximumSize = maximumSize;
+    }
+    
+    /**
+     * Retrieves a <code>Deflater</code> from the pool, creating one if none 
+     * is available.  The <code>Deflater</code> should be returned to the pool
+     * with <code>release()</code> once the output is complete.
+     * 
+     * @return the <code>Deflater</code>
+     */
+    public Deflater acquire() {
+        synchronized (deflaters) {
+            if (deflaters.size() > 0) {
+                return (Deflater) deflaters.remove(deflaters.size() - 1);
+            }
+        }
+        return new Deflater(level, nowrap);
+    }
+    
+    /**
+     * Returns the compression level of pooled <code>Deflater</code>s.
+     * 
+     * @return the compression level
+     */
+    public int getLevel() {
+        return level;
+    }
+    
+    /**
+     * Returns a <code>Deflater</code> to the pool.  The <code>Deflater</code> 
+     * is reset, or is disposed of if the pool is full.
+     * 
+     * @param deflater the <code>Deflater</code> 
+     */
+    public void release(Deflater deflater) {
+        deflater.reset();
+        synchronized (deflaters) {
+            if (deflaters.size() < maximumSize) {
+                deflaters.add(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+}
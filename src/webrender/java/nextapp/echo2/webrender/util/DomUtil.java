@@ -36,6 +36,8 @@ import java.util.List;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.TransformerFactory;
 
 import org.w3c.dom.Element;
@@ -86,6 +88,27 @@ public class DomUtil {
         }
     };
     
+    /**
+     * ThreadLocal cache of <code>SAXParser</code> instances.
+     */
+    private static final ThreadLocal saxParsers = new ThreadLocal() {
+    
+        /**
+         * @see java.lang.ThreadLocal#initialValue()
+         */
+        protected Object initialValue() {
+            try {
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true);
+                return factory.newSAXParser();
+            } catch (ParserConfigurationException ex) {
+                throw new RuntimeException(ex);
+            } catch (SAXException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    };
+    
     /**
      * ThreadLocal cache of <code>TransformerFactory</code> instances.
      */
@@ -110,6 +133,18 @@ public class DomUtil {
         return (DocumentBuilder) documentBuilders.get();
     }
     
+    /**
+     * Retrieves a thread-specific <code>SAXParser</code>.
+     * As it is a shared resource, the returned object should not be reconfigured in any fashion.
+     * The <code>DefaultHandler</code> provided when parsing is responsible for 
+     * rejecting external entities.
+     * 
+     * @return the <code>SAXParser</code> serving the current thread.
+     */
+    public static SAXParser getSaxParser() {
+        return (SAXParser) saxParsers.get();
+    }
+    
     /**
      * Retrieves a thread-specific <code>TransformerFactory</code>.
      * As it is a shared resource, the returned object should not be reconfigured in any fashion.
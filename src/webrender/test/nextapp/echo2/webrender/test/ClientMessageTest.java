@@ -0,0 +1,141 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.w3c.dom.Element;
+
+import nextapp.echo2.webrender.ClientMessage;
+import nextapp.echo2.webrender.util.DomUtil;
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for <code>ClientMessage</code>.
+ */
+public class ClientMessageTest extends TestCase {
+    
+    private static final String MESSAGE = 
+            "<client-message xmlns=\"http://www.nextapp.com/products/echo2/climsg\" trans-id=\"5\" type=\"update\" " 
+            + "focus=\"c_7\">"
+            + "<message-part processor=\"EchoPropertyUpdate\">"
+            + "<property component-id=\"c_3\" name=\"positionX\" value=\"20px\"/>"
+            + "<property component-id=\"c_4\" name=\"text\">Hello &amp; goodbye</property>"
+            + "<property component-id=\"c_5\" name=\"selection\"><item index=\"1\"/><item index=\"4\"/></property>"
+            + "</message-part>"
+            + "<message-part processor=\"EchoAction\"><action component-id=\"c_6\" name=\"click\"/></message-part>"
+            + "</client-message>\n  \n";
+    
+    private ClientMessage parse(String message) 
+    throws IOException {
+        return ClientMessage.parse(new ByteArrayInputStream(message.getBytes("UTF-8")));
+    }
+    
+    /**
+     * Test parsing of document element attributes and message parts.
+     */
+    public void testParse() 
+    throws IOException {
+        ClientMessage clientMessage = parse(MESSAGE);
+        assertEquals("update", clientMessage.getAttribute("type"));
+        assertEquals("5", clientMessage.getAttribute("trans-id"));
+        assertTrue(clientMessage.hasAttribute("focus"));
+        assertFalse(clientMessage.hasAttribute("modal-id"));
+        assertEquals("", clientMessage.getAttribute("modal-id"));
+        
+        ClientMessage.Part[] parts = clientMessage.getParts();
+        assertEquals(2, parts.length);
+        assertEquals("EchoPropertyUpdate", parts[0].getProcessorName());
+        assertEquals("EchoAction", parts[1].getProcessorName());
+        
+        ClientMessage.Item[] propertyItems = parts[0].getItems("property");
+        assertEquals(3, propertyItems.length);
+        assertEquals("c_3", propertyItems[0].getAttribute("component-id"));
+        assertEquals("20px", propertyItems[0].getAttribute("value"));
+        assertNull(propertyItems[0].getText());
+        assertEquals("Hello & goodbye", propertyItems[1].getText());
+        ClientMessage.Item[] selectionItems = propertyItems[2].getChildren("item");
+        assertEquals(2, selectionItems.length);
+        assertEquals("4", selectionItems[1].getAttribute("index"));
+        
+        assertEquals("c_6", parts[1].getItem("action").getAttribute("component-id"));
+        assertNull(parts[1].getItem("property"));
+    }
+    
+    /**
+     * Test creation of DOM representations.
+     */
+    public void testToElement() 
+    throws IOException {
+        ClientMessage clientMessage = parse(MESSAGE);
+        ClientMessage.Part[] parts = clientMessage.getParts();
+        
+        Element propertyElement = parts[0].getItems("property")[2].toElement();
+        assertEquals("property", propertyElement.getNodeName());
+        assertEquals("selection", propertyElement.getAttribute("name"));
+        assertEquals(2, DomUtil.getChildElementsByTagName(propertyElement, "item").length);
+        
+        Element messagePartElement = parts[1].toElement();
+        assertEquals("message-part", messagePartElement.getNodeName());
+        assertEquals("EchoAction", messagePartElement.getAttribute("processor"));
+        Element actionElement = DomUtil.getChildElementByTagName(messagePartElement, "action");
+        assertEquals("click", actionElement.getAttribute("name"));
+        assertEquals("5", clientMessage.getDocument().getDocumentElement().getAttribute("trans-id"));
+        
+        Element textPropertyElement = DomUtil.getChildElementsByTagName(parts[0].toElement(), "property")[1];
+        assertEquals("Hello & goodbye", DomUtil.getElementText(textPropertyElement));
+    }
+    
+    /**
+     * Test that external entities are rejected.
+     */
+    public void testExternalEntity() {
+        try {
+            parse("<?xml version=\"1.0\"?><!DOCTYPE client-message [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+                    + "<client-message type=\"&x;\"/>");
+            fail("External entity resolved.");
+        } catch (IOException ex) {
+            // Expected.
+        }
+    }
+    
+    /**
+     * Test that invalid input is rejected.
+     */
+    public void testInvalid() {
+        try {
+            parse("<client-message><message-part>");
+            fail("Invalid message parsed.");
+        } catch (IOException ex) {
+            // Expected.
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender.test;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import nextapp.echo2.webrender.ContentEncoding;
+import nextapp.echo2.webrender.util.DeflaterPool;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for <code>nextapp.echo2.webrender.ContentEncoding</code>. 
+ */
+public class ContentEncodingTest extends TestCase {
+    
+    private static final String USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64; rv:2.0) Gecko/20100101 Firefox/4.0";
+    
+    public void testNegotiate() {
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate(USER_AGENT, "gzip, deflate"));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate(USER_AGENT, "deflate, gzip"));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate(USER_AGENT, "x-gzip"));
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate(USER_AGENT, "deflate"));
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate(USER_AGENT, "gzip;q=0, deflate;q=0.5"));
+        assertNull(ContentEncoding.negotiate(USER_AGENT, "identity"));
+        assertNull(ContentEncoding.negotiate(USER_AGENT, "gzip; q=0.0"));
+        assertNull(ContentEncoding.negotiate(USER_AGENT, null));
+        assertNull(ContentEncoding.negotiate(null, "gzip"));
+        assertNull(ContentEncoding.negotiate("Mozilla/4.0 (compatible; MSIE 6.0; Windows NT 5.1)", "gzip"));
+    }
+    
+    public void testNegotiateDisabled() {
+        try {
+            ContentEncoding.setEnabled(false);
+            assertNull(ContentEncoding.negotiate(USER_AGENT, "gzip"));
+        } finally {
+            ContentEncoding.setEnabled(true);
+        }
+    }
+    
+    public void testDeflaterPool() 
+    throws DataFormatException {
+        DeflaterPool pool = new DeflaterPool(Deflater.BEST_SPEED, false, 1);
+        byte[] data = "<message-part processor=\"EchoDomUpdate\"/><message-part processor=\"EchoDomUpdate\"/>".getBytes();
+        
+        Deflater deflater = pool.acquire();
+        byte[] compressed = new byte[256];
+        deflater.setInput(data);
+        deflater.finish();
+        int compressedLength = deflater.deflate(compressed);
+        assertTrue(deflater.finished());
+        pool.release(deflater);
+        
+        // Released Deflater is reset and reused.
+        assertSame(deflater, pool.acquire());
+        assertEquals(0, deflater.getTotalIn());
+        
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed, 0, compressedLength);
+        byte[] inflated = new byte[data.length];
+        assertEquals(data.length, inflater.inflate(inflated));
+        assertEquals(new String(data), new String(inflated));
+    }
+    
+    public void testSetLevel() {
+        int oldLevel = ContentEncoding.getLevel();
+        try {
+            ContentEncoding.setLevel(Deflater.BEST_SPEED);
+            assertEquals(Deflater.BEST_SPEED, ContentEncoding.getLevel());
+            try {
+                ContentEncoding.setLevel(10);
+                fail("Accepted invalid level.");
+            } catch (IllegalArgumentException ex) {
+                // Expected.
+            }
+        } finally {
+            ContentEncoding.setLevel(oldLevel);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.webrender.test;
+
+import nextapp.echo2.webrender.ContentType;
+import nextapp.echo2.webrender.service.StaticBinaryService;
+import nextapp.echo2.webrender.service.StaticTextService;
+import nextapp.echo2.webrender.util.ContentHash;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for <code>nextapp.echo2.webrender.util.ContentHash</code> and
+ * fingerprinted services. 
+ */
+public class ContentHashTest extends TestCase {
+
+    public void testCompute() {
+        assertEquals("d41d8cd98f00b204e9800998ecf8427e", ContentHash.compute(""));
+        assertEquals("900150983cd24fb0d6963f7d28e17f72", ContentHash.compute("abc"));
+        assertEquals(ContentHash.compute("abc"), ContentHash.compute(new byte[]{'a', 'b', 'c'}));
+    }
+    
+    public void testServiceFingerprint() {
+        StaticTextService text1 = new StaticTextService("Test.Text1", ContentType.TEXT_PLAIN.getMimeType(), "alpha");
+        StaticTextService text2 = new StaticTextService("Test.Text2", ContentType.TEXT_PLAIN.getMimeType(), "beta");
+        assertEquals(ContentHash.compute("alpha"), text1.getFingerprint());
+        assertFalse(text1.getFingerprint().equals(text2.getFingerprint()));
+        
+        StaticBinaryService binary = new StaticBinaryService("Test.Binary", ContentType.IMAGE_GIF.getMimeType(), 
+                new byte[]{1, 2, 3});
+        assertEquals(ContentHash.compute(new byte[]{1, 2, 3}), binary.getFingerprint());
+    }
+}
@@ -29,6 +29,7 @@
 
 package nextapp.echo2.webrender.test;
 
+import nextapp.echo2.webrender.Service;
 import nextapp.echo2.webrender.service.JavaScriptService;
 import junit.framework.TestCase;
 
@@ -46,4 +47,17 @@ public class JavaScriptServiceTest extends TestCase {
                         "/nextapp/echo2/webrender/resource/ClientEngine.js");
         assertEquals("Echo.ClientEngine", clientEngineService.getId());
     }
+    
+    /**
+     * Ensure the service is cacheable and fingerprinted by content.
+     */
+    public void testFingerprint() {
+        JavaScriptService service1 = new JavaScriptService("Test.1", "var a = 1;");
+        JavaScriptService service2 = new JavaScriptService("Test.2", "var a = 1;");
+        JavaScriptService service3 = new JavaScriptService("Test.3", "var a = 2;");
+        assertTrue(service1.getVersion() != Service.DO_NOT_CACHE);
+        assertNotNull(service1.getFingerprint());
+        assertEquals(service1.getFingerprint(), service2.getFingerprint());
+        assertFalse(service1.getFingerprint().equals(service3.getFingerprint()));
+    }
 }
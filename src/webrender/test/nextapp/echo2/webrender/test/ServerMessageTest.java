@@ -29,10 +29,18 @@
 
 package nextapp.echo2.webrender.test;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import nextapp.echo2.webrender.BaseHtmlDocument;
 import nextapp.echo2.webrender.ServerMessage;
+import nextapp.echo2.webrender.WebRenderServlet;
+import nextapp.echo2.webrender.output.XmlDocument;
+import nextapp.echo2.webrender.service.JavaScriptService;
 import junit.framework.TestCase;
 
 /**
@@ -60,6 +68,24 @@ public class ServerMessageTest extends TestCase {
         assertEquals(2, libraryNodeList.getLength());
     }
     
+    /**
+     * Ensure fingerprints of fingerprinted libraries are provided.
+     */
+    public void testAddLibraryFingerprint() {
+        JavaScriptService service = new JavaScriptService("ServerMessageTest.Library", "var a = 1;");
+        WebRenderServlet.getServiceRegistry().add(service);
+        try {
+            ServerMessage message = new ServerMessage();
+            message.addLibrary(service.getId());
+            message.addLibrary("service1");
+            NodeList libraryNodeList = message.getDocument().getElementsByTagName("library");
+            assertEquals(service.getFingerprint(), ((Element) libraryNodeList.item(0)).getAttribute("fp"));
+            assertEquals("", ((Element) libraryNodeList.item(1)).getAttribute("fp"));
+        } finally {
+            WebRenderServlet.getServiceRegistry().remove(service);
+        }
+    }
+    
     /**
      * Test <code>appendPartDirective()</code>.
      */
@@ -122,4 +148,51 @@ public class ServerMessageTest extends TestCase {
         assertEquals("message-part-group", messagePartGroupElement.getNodeName());
         assertEquals(ServerMessage.GROUP_ID_POSTUPDATE, messagePartGroupElement.getAttribute("id"));
     }
+    
+    /**
+     * Test that the streaming serializer generates output identical to 
+     * that of the JAXP <code>Transformer</code>.
+     */
+    public void testRender() 
+    throws IOException {
+        ServerMessage message = new ServerMessage();
+        message.addLibrary("service1");
+        Element directiveElement = message.appendPartDirective(ServerMessage.GROUP_ID_UPDATE, "DomUpdate", "dom-add");
+        directiveElement.setAttribute("value", "a\"b<c>&d'e\nf\tg\rh\u00e9\ud83d\ude00\u0001");
+        directiveElement.appendChild(message.getDocument().createTextNode("t<>&\"' \n\r\u00e9\u007f]]>"));
+        Element contentElement = message.getDocument().createElement("content");
+        contentElement.setAttribute("xmlns", "http://www.w3.org/1999/xhtml");
+        contentElement.appendChild(message.getDocument().createElement("div"));
+        directiveElement.appendChild(contentElement);
+        message.getDocument().getDocumentElement().setAttribute("xml-attr-test", "x&y");
+        assertEquals(render(message, true), render(message, false));
+        
+        BaseHtmlDocument baseDoc = new BaseHtmlDocument("c_root");
+        baseDoc.addJavaScriptInclude("?serviceId=Echo.ClientEngine&x=y");
+        baseDoc.setGenarator("generator");
+        assertEquals(render(baseDoc, true), render(baseDoc, false));
+    }
+    
+    /**
+     * Renders a document to a <code>String</code>.
+     * 
+     * @param document the document
+     * @param useTransformer flag indicating whether the JAXP 
+     *        <code>Transformer</code> should be used
+     * @return the rendered document
+     */
+    private String render(XmlDocument document, boolean useTransformer) 
+    throws IOException {
+        boolean oldValue = XmlDocument.isTransformerEnabled();
+        try {
+            XmlDocument.setTransformerEnabled(useTransformer);
+            StringWriter out = new StringWriter();
+            PrintWriter pw = new PrintWriter(out);
+            document.render(pw);
+            pw.flush();
+            return out.toString();
+        } finally {
+            XmlDocument.setTransformerEnabled(oldValue);
+        }
+    }
 }